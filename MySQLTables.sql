@@ -1,9 +1,16 @@
 CREATE DATABASE IF NOT EXISTS livraria;
 
 USE livraria;
+
+-- Cada bloco "-- @versao N: descrição" é uma migração aplicada uma única vez pelo GerenciadorEsquema,
+-- que registra as versões aplicadas na tabela 'esquema_versao'. Mudanças novas entram em um bloco novo
+-- no fim do arquivo, nunca editando um bloco já publicado. Os comandos precisam poder rodar sobre um banco
+-- criado à mão com versões anteriores deste script (por isso o IF NOT EXISTS).
+
+-- @versao 1: catálogo (autores, gêneros, editoras e livros)
 -- Tabela para armazenar os Autores
 -- Separar os autores evita redundância de dados.
-CREATE TABLE autores (
+CREATE TABLE IF NOT EXISTS autores (
     id INT PRIMARY KEY AUTO_INCREMENT,
     nome VARCHAR(255) NOT NULL UNIQUE,
     nacionalidade VARCHAR(100)
@@ -11,14 +18,14 @@ CREATE TABLE autores (
 
 -- Tabela para armazenar os Gêneros
 -- Facilita a categorização e a busca por gênero.
-CREATE TABLE generos (
+CREATE TABLE IF NOT EXISTS generos (
     id INT PRIMARY KEY AUTO_INCREMENT,
     nome VARCHAR(100) NOT NULL UNIQUE
 );
 
 -- Tabela para armazenar as Editoras
 -- Centraliza as informações das editoras.
-CREATE TABLE editoras (
+CREATE TABLE IF NOT EXISTS editoras (
     id INT PRIMARY KEY AUTO_INCREMENT,
     nome VARCHAR(255) NOT NULL UNIQUE,
     pais_origem VARCHAR(100)
@@ -26,7 +33,7 @@ CREATE TABLE editoras (
 
 -- Tabela principal para armazenar os Livros
 -- Esta tabela conecta todas as outras através de chaves estrangeiras.
-CREATE TABLE livros (
+CREATE TABLE IF NOT EXISTS livros (
     id INT PRIMARY KEY AUTO_INCREMENT,
     titulo VARCHAR(255) NOT NULL,
     sinopse TEXT,
@@ -46,4 +53,22 @@ CREATE TABLE livros (
 );
 -- Índices para otimizar as buscas mais comuns
 CREATE INDEX idx_livros_titulo ON livros(titulo);
-CREATE INDEX idx_autores_nome ON autores(nome);
\ No newline at end of file
+CREATE INDEX idx_autores_nome ON autores(nome);
+
+-- @versao 2: índices das consultas por autor, gênero, editora e ano
+-- Índices das consultas por autor, gênero, editora e ano (ADbConnection.buscarPor*).
+-- A chave estrangeira vem primeiro e o ano em seguida, então o filtro e o ORDER BY ano_publicacao, id
+-- são resolvidos pelo próprio índice, sem varrer a tabela nem ordenar no servidor.
+-- A busca por ISBN já usa o índice criado pela restrição UNIQUE da coluna.
+CREATE INDEX idx_livros_autor_ano ON livros(autor_id, ano_publicacao);
+CREATE INDEX idx_livros_genero_ano ON livros(genero_id, ano_publicacao);
+CREATE INDEX idx_livros_editora_ano ON livros(editora_id, ano_publicacao);
+CREATE INDEX idx_livros_ano ON livros(ano_publicacao);
+
+-- @versao 3: tabela de usuários (antes criada a cada conexão)
+CREATE TABLE IF NOT EXISTS usuarios (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nome VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    data_cadastro TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,39 @@
+package org.livraria.benchmarks;
+
+import org.livraria.connections.GerenciadorEsquema;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Banco H2 em memória, em modo MySQL, com o esquema de {@code MySQLTables.sql}.
+ */
+public final class BancoEmMemoria {
+
+    private BancoEmMemoria() {
+    }
+
+    /**
+     * @param nome Um nome único por banco; bancos com o mesmo nome são compartilhados na JVM.
+     * @return A URL JDBC do banco.
+     */
+    public static String url(String nome) {
+        return "jdbc:h2:mem:" + nome + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Cria o banco e aplica o esquema com o {@link GerenciadorEsquema}, como a aplicação faz no MySQL.
+     *
+     * @param nome O nome do banco em memória.
+     * @return A URL JDBC do banco criado.
+     */
+    public static String criar(String nome) throws SQLException, IOException {
+        String url = url(nome);
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            new GerenciadorEsquema().garantir(conn);
+        }
+        return url;
+    }
+}
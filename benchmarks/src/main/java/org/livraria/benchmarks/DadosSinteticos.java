@@ -0,0 +1,135 @@
+package org.livraria.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.livraria.types.Livro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gera livros e respostas da API Groq no mesmo formato das respostas gravadas em produção.
+ */
+public final class DadosSinteticos {
+
+    private static final Gson gson = new Gson();
+
+    private static final String SINOPSE = "Em uma pequena cidade do litoral baiano, uma família atravessa três gerações "
+            + "de disputas, amores e segredos, enquanto a chegada do progresso transforma para sempre a vida do povoado.";
+
+    private DadosSinteticos() {
+    }
+
+    /**
+     * @param i O número do livro; livros com números diferentes têm ISBNs diferentes.
+     * @param autores Quantos autores, gêneros e editoras distintos se repetem entre os livros.
+     */
+    public static Livro livro(long i, int autores) {
+        return livro(i, "Autor " + (i % autores), autores);
+    }
+
+    /**
+     * @param i O número do livro; livros com números diferentes têm ISBNs diferentes.
+     * @param autor O autor do livro.
+     * @param dimensoes Quantos gêneros e editoras distintos se repetem entre os livros.
+     */
+    public static Livro livro(long i, String autor, int dimensoes) {
+        int dimensao = (int) (i % dimensoes);
+        return new Livro("Título " + i, autor, "Gênero " + dimensao + ", Aventura", SINOPSE,
+                1900 + (int) (i % 120), "Editora " + dimensao, "Brasil", 100 + (int) (i % 700),
+                String.format("978%010d", i));
+    }
+
+    public static List<Livro> livros(long primeiro, int quantidade, int autores) {
+        List<Livro> livros = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            livros.add(livro(primeiro + i, autores));
+        }
+        return livros;
+    }
+
+    /**
+     * Monta o envelope de chat-completions com o JSON dos livros em {@code message.content},
+     * dentro de uma cerca de markdown, como o modelo costuma responder.
+     */
+    public static String respostaGroq(int quantidade) {
+        return respostaGroq(livros(0, quantidade, Math.max(1, quantidade / 10)), false);
+    }
+
+    /**
+     * Monta o envelope de chat-completions com os livros informados.
+     *
+     * @param truncada Se true, o conteúdo é cortado no meio do JSON e {@code finish_reason} é {@code "length"},
+     *                 como quando a resposta passa de {@code max_tokens}.
+     */
+    public static String respostaGroq(List<Livro> livros, boolean truncada) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", conteudo(livros, truncada));
+
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("message", message);
+        choice.addProperty("finish_reason", truncada ? "length" : "stop");
+
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject resposta = new JsonObject();
+        resposta.addProperty("id", "chatcmpl-benchmark");
+        resposta.addProperty("object", "chat.completion");
+        resposta.addProperty("model", "openai/gpt-oss-120b");
+        resposta.add("choices", choices);
+        return gson.toJson(resposta);
+    }
+
+    /**
+     * Monta os eventos Server-Sent Events de uma resposta com {@code "stream": true}: o mesmo conteúdo de
+     * {@link #respostaGroq(List, boolean)}, em trechos de {@code delta.content} que cortam os objetos no meio,
+     * seguidos do evento com {@code finish_reason} e de {@code data: [DONE]}.
+     *
+     * @param tamanhoTrecho Quantos caracteres do conteúdo vão em cada evento.
+     * @return Os eventos, cada um já terminado pela linha em branco.
+     */
+    public static List<String> eventosStreaming(List<Livro> livros, boolean truncada, int tamanhoTrecho) {
+        String conteudo = conteudo(livros, truncada);
+        List<String> eventos = new ArrayList<>(conteudo.length() / tamanhoTrecho + 3);
+        for (int inicio = 0; inicio < conteudo.length(); inicio += tamanhoTrecho) {
+            JsonObject delta = new JsonObject();
+            delta.addProperty("content", conteudo.substring(inicio, Math.min(conteudo.length(), inicio + tamanhoTrecho)));
+            eventos.add(evento(delta, null));
+        }
+        eventos.add(evento(new JsonObject(), truncada ? "length" : "stop"));
+        eventos.add("data: [DONE]\n\n");
+        return eventos;
+    }
+
+    private static String evento(JsonObject delta, String finishReason) {
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("delta", delta);
+        choice.addProperty("finish_reason", finishReason);
+
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject evento = new JsonObject();
+        evento.addProperty("id", "chatcmpl-benchmark");
+        evento.addProperty("object", "chat.completion.chunk");
+        evento.add("choices", choices);
+        return "data: " + gson.toJson(evento) + "\n\n";
+    }
+
+    /**
+     * O JSON dos livros dentro de uma cerca de markdown; cortado no meio se {@code truncada}.
+     */
+    private static String conteudo(List<Livro> livros, boolean truncada) {
+        JsonObject container = new JsonObject();
+        container.add("livros", gson.toJsonTree(livros));
+        String json = gson.toJson(container);
+        return truncada
+                ? "```json\n" + json.substring(0, json.length() / 2)
+                : "```json\n" + json + "\n```";
+    }
+}
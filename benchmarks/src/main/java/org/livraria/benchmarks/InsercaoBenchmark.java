@@ -0,0 +1,81 @@
+package org.livraria.benchmarks;
+
+import org.livraria.connections.DbConnection;
+import org.livraria.types.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a gravação de livros com {@code inserirLivro} (um livro por transação) e com
+ * {@code inserirLivros} (lotes) em um banco H2 em memória. Cada invocação grava uma bibliografia
+ * de {@code livros} títulos com ISBNs inéditos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsercaoBenchmark {
+
+    @Param({"10", "300"})
+    public int livros;
+
+    private PrintStream saidaOriginal;
+    private DbConnection db;
+    private long proximo = 0;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        saidaOriginal = System.out;
+        // As mensagens por livro iriam para o console e dominariam a medição.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        String url = BancoEmMemoria.criar("insercao" + livros);
+        db = new DbConnection(url, "sa", "");
+        db.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        db.disconnect();
+        System.setOut(saidaOriginal);
+    }
+
+    private List<Livro> proximaBibliografia() {
+        List<Livro> bibliografia = DadosSinteticos.livros(proximo, livros, 20);
+        proximo += livros;
+        return bibliografia;
+    }
+
+    @Benchmark
+    public int inserirLivroUmPorUm() {
+        int inseridos = 0;
+        for (Livro livro : proximaBibliografia()) {
+            if (db.inserirLivro(livro)) {
+                inseridos++;
+            }
+        }
+        return inseridos;
+    }
+
+    @Benchmark
+    public List<Boolean> inserirLivrosEmLote() {
+        return db.inserirLivros(proximaBibliografia());
+    }
+}
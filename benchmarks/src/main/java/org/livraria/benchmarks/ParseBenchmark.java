@@ -0,0 +1,70 @@
+package org.livraria.benchmarks;
+
+import org.livraria.connections.BuscadorLivros;
+import org.livraria.types.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o parse das respostas da IA em tamanhos variados: a partir de uma String
+ * ({@link BuscadorLivros#parsearRespostaComGson(String)}) e a partir dos bytes, como chegam do corpo HTTP
+ * ({@link BuscadorLivros#parsear(Reader)}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int livros;
+
+    private BuscadorLivros buscador;
+    private String resposta;
+    private byte[] respostaBytes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        buscador = new BuscadorLivros("http://localhost/nao-usado", "");
+        resposta = DadosSinteticos.respostaGroq(livros);
+        respostaBytes = resposta.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        buscador.close();
+    }
+
+    @Benchmark
+    public List<Livro> parsearRespostaComGson() {
+        return buscador.parsearRespostaComGson(resposta);
+    }
+
+    @Benchmark
+    public List<Livro> parsearDoCorpo() throws IOException {
+        try (Reader corpo = new InputStreamReader(new ByteArrayInputStream(respostaBytes), StandardCharsets.UTF_8)) {
+            return buscador.parsear(corpo);
+        }
+    }
+}
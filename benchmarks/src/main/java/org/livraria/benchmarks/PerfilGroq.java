@@ -0,0 +1,33 @@
+package org.livraria.benchmarks;
+
+import java.time.Duration;
+
+/**
+ * Comportamento do {@link ServidorGroqSimulado}.
+ *
+ * @param latenciaMediana A latência mediana de uma resposta.
+ * @param dispersao O desvio padrão do logaritmo da latência (distribuição log-normal, como a de APIs de LLM);
+ *                  0 deixa a latência fixa, 0.5 põe o p99 em cerca de 3× a mediana.
+ * @param livrosMinimo O menor número de livros por resposta.
+ * @param livrosMaximo O maior número de livros por resposta.
+ * @param taxaErro A fração das requisições respondida com HTTP 500.
+ * @param taxaLimite A fração das requisições respondida com HTTP 429 e {@code Retry-After: 1}.
+ * @param taxaTruncada A fração das respostas cortada no meio, com {@code finish_reason = "length"}.
+ */
+public record PerfilGroq(Duration latenciaMediana, double dispersao, int livrosMinimo, int livrosMaximo,
+                         double taxaErro, double taxaLimite, double taxaTruncada) {
+
+    public PerfilGroq {
+        if (latenciaMediana.isNegative() || dispersao < 0 || livrosMinimo < 0 || livrosMaximo < livrosMinimo
+                || taxaErro < 0 || taxaLimite < 0 || taxaErro + taxaLimite > 1 || taxaTruncada < 0 || taxaTruncada > 1) {
+            throw new IllegalArgumentException("Perfil do servidor simulado inválido: " + this);
+        }
+    }
+
+    /**
+     * @return Mediana de 800 ms com dispersão 0.5, de 10 a 40 livros, 1% de erros, 1% de 429 e 2% de truncadas.
+     */
+    public static PerfilGroq padrao() {
+        return new PerfilGroq(Duration.ofMillis(800), 0.5, 10, 40, 0.01, 0.01, 0.02);
+    }
+}
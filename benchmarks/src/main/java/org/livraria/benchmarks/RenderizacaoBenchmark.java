@@ -0,0 +1,136 @@
+package org.livraria.benchmarks;
+
+import org.livraria.connections.DbConnection;
+import org.livraria.types.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede {@code select} (carrega a tabela inteira) e {@code selectStreaming} sobre uma tabela
+ * 'livros' sintética de 1 mil a 1 milhão de linhas. A saída é descartada.
+ * <p>
+ * As listagens de até {@link org.livraria.connections.ADbConnection#LINHAS_MAXIMAS_CACHE_TABELA} linhas ficam no
+ * cache de consultas; por isso ele é esvaziado antes de cada chamada ({@link CacheVazio}) e as leituras do cache
+ * são medidas à parte, nos benchmarks {@code *EmCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderizacaoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private PrintStream saidaOriginal;
+    private DbConnection db;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        String url = BancoEmMemoria.criar("renderizacao" + linhas);
+        popular(url);
+
+        saidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        db = new DbConnection(url, "sa", "");
+        db.connect();
+    }
+
+    /**
+     * Insere as linhas diretamente, sem passar pelo caminho de inserção que não está sendo medido.
+     */
+    private void popular(String url) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url, "sa", "")) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO livros (titulo, sinopse, ano_publicacao, numero_paginas, isbn, idioma_origem) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < linhas; i++) {
+                    Livro livro = DadosSinteticos.livro(i, 100);
+                    pstmt.setString(1, livro.getTitulo());
+                    pstmt.setString(2, livro.getSinopse());
+                    pstmt.setInt(3, livro.getAnoPublicacao());
+                    pstmt.setInt(4, livro.getNumeroPaginas());
+                    pstmt.setString(5, livro.getIsbn());
+                    pstmt.setString(6, livro.getOrigem());
+                    pstmt.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        pstmt.executeBatch();
+                    }
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    /**
+     * Esvazia o cache de consultas antes de cada chamada, para que a listagem vá ao banco.
+     */
+    @State(Scope.Benchmark)
+    public static class CacheVazio {
+
+        @Setup(Level.Invocation)
+        public void limpar(RenderizacaoBenchmark benchmark) {
+            benchmark.db.getCacheConsultas().limpar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        db.disconnect();
+        System.setOut(saidaOriginal);
+    }
+
+    @Benchmark
+    public Boolean select(CacheVazio cacheVazio) {
+        return db.select("livros");
+    }
+
+    @Benchmark
+    public Boolean selectStreaming(CacheVazio cacheVazio) {
+        return db.selectStreaming("livros", 0);
+    }
+
+    @Benchmark
+    public Boolean selectStreamingPaginado(CacheVazio cacheVazio) {
+        return db.selectStreaming("livros", 10_000);
+    }
+
+    /**
+     * A listagem servida pelo cache de consultas. Acima de
+     * {@link org.livraria.connections.ADbConnection#LINHAS_MAXIMAS_CACHE_TABELA} linhas a tabela não é guardada
+     * e o resultado é o mesmo de {@link #select(CacheVazio)}.
+     */
+    @Benchmark
+    public Boolean selectEmCache() {
+        return db.select("livros");
+    }
+
+    /**
+     * Como {@link #selectEmCache()}, para {@code selectStreaming}.
+     */
+    @Benchmark
+    public Boolean selectStreamingEmCache() {
+        return db.selectStreaming("livros", 0);
+    }
+}
@@ -0,0 +1,194 @@
+package org.livraria.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.livraria.types.Livro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor HTTP local que imita o endpoint de chat-completions da Groq, para testes de carga sem gastar a cota
+ * da API.
+ * <p>
+ * Cada requisição espera uma latência sorteada do {@link PerfilGroq} e então responde com erro (500 ou 429) ou
+ * com um envelope no formato real contendo livros inéditos: os ISBNs vêm de um contador, então as importações
+ * sempre gravam linhas novas. O autor dos livros é o primeiro "Autor N" encontrado no corpo da requisição.
+ * <p>
+ * Requisições com {@code "stream": true} recebem Server-Sent Events, como a API real: o cabeçalho chega depois de
+ * 10% da latência sorteada, e o restante dela se distribui entre os trechos do conteúdo.
+ */
+public final class ServidorGroqSimulado implements AutoCloseable {
+
+    public static final String CAMINHO = "/openai/v1/chat/completions";
+
+    private static final Pattern AUTOR = Pattern.compile("Autor \\d+");
+    private static final Pattern STREAMING = Pattern.compile("\"stream\"\\s*:\\s*true");
+    private static final int DIMENSOES = 20;
+
+    /**
+     * A fração da latência até o cabeçalho de uma resposta em streaming (o "tempo até o primeiro token").
+     */
+    private static final double FRACAO_PRIMEIRO_TRECHO = 0.1;
+    private static final int TAMANHO_TRECHO = 256;
+
+    private final PerfilGroq perfil;
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong proximoLivro;
+
+    private final LongAdder requisicoes = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder limitadas = new LongAdder();
+    private final LongAdder truncadas = new LongAdder();
+    private final LongAdder streaming = new LongAdder();
+    private final LongAdder livrosEnviados = new LongAdder();
+    private final LongAdder bytesEnviados = new LongAdder();
+
+    /**
+     * Inicia o servidor em uma porta livre do loopback.
+     *
+     * @param primeiroLivro O número do primeiro livro gerado (ver {@link DadosSinteticos#livro(long, String, int)});
+     *                      use um valor acima dos livros já cadastrados para não repetir ISBNs.
+     */
+    public ServidorGroqSimulado(PerfilGroq perfil, long primeiroLivro) throws IOException {
+        this.perfil = perfil;
+        this.proximoLivro = new AtomicLong(primeiroLivro);
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.servidor.createContext(CAMINHO, this::responder);
+        this.servidor.setExecutor(executor);
+        this.servidor.start();
+    }
+
+    /**
+     * @return A URL a passar para {@code new BuscadorLivros(url, chave)}.
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + CAMINHO;
+    }
+
+    public long getRequisicoes() {
+        return requisicoes.sum();
+    }
+
+    public String getResumo() {
+        return String.format("requisições=%d, streaming=%d, 500=%d, 429=%d, truncadas=%d, livros=%d, enviados=%.1f MiB",
+                requisicoes.sum(), streaming.sum(), erros.sum(), limitadas.sum(), truncadas.sum(), livrosEnviados.sum(),
+                bytesEnviados.sum() / (1024.0 * 1024.0));
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void responder(HttpExchange troca) throws IOException {
+        try (troca) {
+            String corpo = new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requisicoes.increment();
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            boolean emStreaming = STREAMING.matcher(corpo).find();
+            long latenciaNanos = latenciaMs(aleatorio) * 1_000_000;
+            long ateCabecalho = emStreaming ? (long) (latenciaNanos * FRACAO_PRIMEIRO_TRECHO) : latenciaNanos;
+            if (!esperar(ateCabecalho)) {
+                return;
+            }
+
+            double sorteio = aleatorio.nextDouble();
+            if (sorteio < perfil.taxaErro()) {
+                erros.increment();
+                enviar(troca, 500, "{\"error\":{\"message\":\"erro simulado\",\"type\":\"internal_server_error\"}}");
+                return;
+            }
+            if (sorteio < perfil.taxaErro() + perfil.taxaLimite()) {
+                limitadas.increment();
+                troca.getResponseHeaders().set("Retry-After", "1");
+                enviar(troca, 429, "{\"error\":{\"message\":\"limite simulado\",\"type\":\"rate_limit_exceeded\"}}");
+                return;
+            }
+
+            Matcher autor = AUTOR.matcher(corpo);
+            String nomeAutor = autor.find() ? autor.group() : "Autor 0";
+            int quantidade = aleatorio.nextInt(perfil.livrosMinimo(), perfil.livrosMaximo() + 1);
+            long primeiro = proximoLivro.getAndAdd(quantidade);
+            List<Livro> livros = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                livros.add(DadosSinteticos.livro(primeiro + i, nomeAutor, DIMENSOES));
+            }
+            boolean truncada = aleatorio.nextDouble() < perfil.taxaTruncada();
+            if (truncada) {
+                truncadas.increment();
+            }
+            livrosEnviados.add(quantidade);
+            if (emStreaming) {
+                streaming.increment();
+                enviarEventos(troca, DadosSinteticos.eventosStreaming(livros, truncada, TAMANHO_TRECHO),
+                        latenciaNanos - ateCabecalho);
+            } else {
+                enviar(troca, 200, DadosSinteticos.respostaGroq(livros, truncada));
+            }
+        }
+    }
+
+    /**
+     * Envia os eventos SSE um a um, espaçados para que o último saia depois de {@code duracaoNanos}.
+     */
+    private void enviarEventos(HttpExchange troca, List<String> eventos, long duracaoNanos) throws IOException {
+        troca.getResponseHeaders().set("Content-Type", "text/event-stream");
+        troca.sendResponseHeaders(200, 0);
+        long intervalo = duracaoNanos / eventos.size();
+        try (OutputStream saida = troca.getResponseBody()) {
+            for (String evento : eventos) {
+                if (!esperar(intervalo)) {
+                    return;
+                }
+                byte[] bytes = evento.getBytes(StandardCharsets.UTF_8);
+                saida.write(bytes);
+                saida.flush();
+                bytesEnviados.add(bytes.length);
+            }
+        }
+    }
+
+    /**
+     * @return false se a thread foi interrompida (o servidor está fechando).
+     */
+    private static boolean esperar(long nanos) {
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long latenciaMs(ThreadLocalRandom aleatorio) {
+        double mediana = perfil.latenciaMediana().toNanos() / 1_000_000.0;
+        return Math.round(mediana * Math.exp(perfil.dispersao() * aleatorio.nextGaussian()));
+    }
+
+    private void enviar(HttpExchange troca, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json");
+        troca.sendResponseHeaders(status, bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+        bytesEnviados.add(bytes.length);
+    }
+}
@@ -0,0 +1,305 @@
+package org.livraria.benchmarks;
+
+import org.livraria.analise.Dimensao;
+import org.livraria.analise.Filtro;
+import org.livraria.connections.ADbConnection;
+import org.livraria.connections.BuscadorLivros;
+import org.livraria.connections.DbConnection;
+import org.livraria.connections.PooledDbConnection;
+import org.livraria.log.Log;
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
+import org.livraria.types.Livro;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de carga de ponta a ponta: {@link BuscadorLivros} contra o {@link ServidorGroqSimulado} e a gravação e
+ * as consultas de {@link ADbConnection} contra o {@link BancoEmMemoria}, sem cota da API nem o MySQL de produção.
+ * <p>
+ * Sessões de importação repetem "buscar um autor na IA → gravar os livros em lote", parte delas em streaming
+ * (Server-Sent Events); sessões de consulta alternam consultas tipadas, pesquisa por palavras-chave e estatísticas
+ * do catálogo. As importações também sorteiam autores que ainda não existem no banco, então várias sessões criam
+ * os mesmos autores ao mesmo tempo (o upsert de {@code ResolvedorDimensoes}); depois de cada lote, o primeiro livro
+ * gravado é relido pelo ISBN para conferir o autor e a editora associados. Ao fim, imprime vazão, percentis de
+ * latência e erros por operação, as divergências da conferência, o resumo do servidor simulado e o uso de heap e de GC.
+ * <pre>
+ * mvn install -DskipTests &amp;&amp; mvn -f benchmarks/pom.xml package
+ * java -cp benchmarks/target/benchmarks.jar org.livraria.benchmarks.TesteCarga --duracao=120 --importacoes=8
+ * </pre>
+ * Opções ({@code --nome=valor}): {@code duracao} (s, 60), {@code importacoes} (4), {@code consultas} (8),
+ * {@code pausa-ms} entre consultas (0), {@code pool} de conexões (8; 0 usa uma única conexão),
+ * {@code livros-iniciais} (5000), {@code autores} (200), {@code autores-novos} (50; autores que só as importações
+ * criam), {@code streaming} (fração das buscas em streaming, 0.5) e o perfil do servidor: {@code latencia-ms} (800),
+ * {@code dispersao} (0.5), {@code livros-min} (10), {@code livros-max} (40), {@code erros} (0.01),
+ * {@code limite} (0.01), {@code truncadas} (0.02).
+ */
+public final class TesteCarga {
+
+    private static final long AMOSTRAGEM_HEAP_MS = 100;
+    private static final long PAUSA_APOS_ERRO_MS = 100;
+
+    /**
+     * Latência e erros de um tipo de operação.
+     */
+    private static final class Operacao {
+        final HistogramaLatencia latencia;
+        final LongAdder erros = new LongAdder();
+
+        Operacao(String nome) {
+            this.latencia = new HistogramaLatencia(nome);
+        }
+    }
+
+    private final Map<String, Operacao> operacoes = new LinkedHashMap<>();
+    private final LongAdder livrosGravados = new LongAdder();
+    private final LongAdder conferidos = new LongAdder();
+    private final LongAdder divergentes = new LongAdder();
+
+    private TesteCarga() {
+        for (String nome : List.of("busca_ia", "busca_ia_sse", "gravacao", "consulta_autor", "consulta_ano", "consulta_isbn",
+                "pesquisa", "estatisticas")) {
+            operacoes.put(nome, new Operacao(nome));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = lerOpcoes(args);
+        Duration duracao = Duration.ofSeconds(inteiro(opcoes, "duracao", 60));
+        int importacoes = inteiro(opcoes, "importacoes", 4);
+        int consultas = inteiro(opcoes, "consultas", 8);
+        int pausaMs = inteiro(opcoes, "pausa-ms", 0);
+        int pool = inteiro(opcoes, "pool", 8);
+        int livrosIniciais = inteiro(opcoes, "livros-iniciais", 5000);
+        int autores = inteiro(opcoes, "autores", 200);
+        int autoresNovos = inteiro(opcoes, "autores-novos", 50);
+        double streaming = decimal(opcoes, "streaming", 0.5);
+        PerfilGroq perfil = new PerfilGroq(Duration.ofMillis(inteiro(opcoes, "latencia-ms", 800)),
+                decimal(opcoes, "dispersao", 0.5), inteiro(opcoes, "livros-min", 10), inteiro(opcoes, "livros-max", 40),
+                decimal(opcoes, "erros", 0.01), decimal(opcoes, "limite", 0.01), decimal(opcoes, "truncadas", 0.02));
+
+        // Cada livro e cada nova tentativa seriam registrados no console e dominariam a medição.
+        Log.configurarNivel(Log.Nivel.ERRO);
+
+        String url = BancoEmMemoria.criar("carga");
+        ADbConnection db = pool > 0
+                ? new PooledDbConnection(url, "sa", "", pool, PooledDbConnection.TIMEOUT_EMPRESTIMO_PADRAO_MS,
+                        PooledDbConnection.TEMPO_VIDA_MAXIMO_PADRAO_MS)
+                : new DbConnection(url, "sa", "");
+        db.connect();
+        System.out.println("Populando o banco com " + livrosIniciais + " livros...");
+        db.inserirLivros(DadosSinteticos.livros(0, livrosIniciais, autores));
+
+        try (ServidorGroqSimulado servidor = new ServidorGroqSimulado(perfil, livrosIniciais);
+             BuscadorLivros buscador = new BuscadorLivros(servidor.getUrl(), "chave-simulada")) {
+            System.out.printf("Executando por %d s: %d sessões de importação, %d de consulta, %s, Groq simulado: %s%n",
+                    duracao.toSeconds(), importacoes, consultas, pool > 0 ? "pool de " + pool : "conexão única", perfil);
+            new TesteCarga().executar(db, buscador, servidor, duracao, importacoes, consultas, pausaMs,
+                    livrosIniciais, autores, autoresNovos, streaming);
+        } finally {
+            db.disconnect();
+            Log.encerrar();
+        }
+    }
+
+    private void executar(ADbConnection db, BuscadorLivros buscador, ServidorGroqSimulado servidor, Duration duracao,
+                          int importacoes, int consultas, int pausaMs, int livrosIniciais, int autores,
+                          int autoresNovos, double streaming) throws InterruptedException {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        Map<String, long[]> gcAntes = coletas();
+        AtomicLong picoHeap = new AtomicLong();
+        ScheduledExecutorService amostrador = Executors.newSingleThreadScheduledExecutor();
+        amostrador.scheduleAtFixedRate(() -> picoHeap.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max),
+                0, AMOSTRAGEM_HEAP_MS, TimeUnit.MILLISECONDS);
+
+        long inicio = System.nanoTime();
+        long fim = inicio + duracao.toNanos();
+        try (ExecutorService sessoes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < importacoes; i++) {
+                sessoes.submit(() -> sessaoImportacao(db, buscador, autores + autoresNovos, streaming, fim));
+            }
+            for (int i = 0; i < consultas; i++) {
+                sessoes.submit(() -> sessaoConsulta(db, livrosIniciais, autores, pausaMs, fim));
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        amostrador.shutdownNow();
+        amostrador.awaitTermination(1, TimeUnit.SECONDS);
+
+        relatar(db, servidor, segundos, memoria, picoHeap.get(), gcAntes);
+    }
+
+    private void sessaoImportacao(ADbConnection db, BuscadorLivros buscador, int autores, double streaming, long fim) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        while (System.nanoTime() < fim) {
+            String autor = "Autor " + aleatorio.nextInt(autores);
+            List<Livro> livros = aleatorio.nextDouble() < streaming
+                    ? medir("busca_ia_sse", () -> buscador.buscarLivrosStreaming(autor, livro -> { }))
+                    : medir("busca_ia", () -> buscador.buscarLivros(autor));
+            if (livros == null) {
+                pausar(PAUSA_APOS_ERRO_MS);
+                continue;
+            }
+            List<Boolean> gravados = medir("gravacao", () -> db.inserirLivros(livros));
+            if (gravados != null) {
+                livrosGravados.add(gravados.stream().filter(Boolean::booleanValue).count());
+                conferir(db, livros, gravados);
+            }
+        }
+    }
+
+    /**
+     * Relê pelo ISBN o primeiro livro gravado do lote e confere se o autor e a editora associados são os enviados.
+     */
+    private void conferir(ADbConnection db, List<Livro> livros, List<Boolean> gravados) {
+        int indice = gravados.indexOf(Boolean.TRUE);
+        if (indice < 0) {
+            return;
+        }
+        Livro enviado = livros.get(indice);
+        Livro gravado = db.buscarPorIsbn(enviado.getIsbn()).orElse(null);
+        conferidos.increment();
+        if (gravado == null || !enviado.getAutor().equals(gravado.getAutor())
+                || !enviado.getEditora().equals(gravado.getEditora())) {
+            divergentes.increment();
+            System.err.println("Livro divergente: enviado " + enviado.getIsbn() + " (" + enviado.getAutor() + ", "
+                    + enviado.getEditora() + "), gravado " + (gravado == null ? "nenhum"
+                    : "(" + gravado.getAutor() + ", " + gravado.getEditora() + ")"));
+        }
+    }
+
+    private void sessaoConsulta(ADbConnection db, int livrosIniciais, int autores, int pausaMs, long fim) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        while (System.nanoTime() < fim) {
+            int sorteio = aleatorio.nextInt(100);
+            if (sorteio < 30) {
+                medir("consulta_autor", () -> db.buscarPorAutor("Autor " + aleatorio.nextInt(autores)));
+            } else if (sorteio < 50) {
+                int ano = 1900 + aleatorio.nextInt(120);
+                medir("consulta_ano", () -> db.buscarPorAno(ano, ano + 4));
+            } else if (sorteio < 70) {
+                String isbn = String.format("978%010d", aleatorio.nextLong(Math.max(1, livrosIniciais)));
+                medir("consulta_isbn", () -> db.buscarPorIsbn(isbn));
+            } else if (sorteio < 95) {
+                medir("pesquisa", () -> db.pesquisar("título " + aleatorio.nextInt(Math.max(1, livrosIniciais)),
+                        true, 20));
+            } else {
+                medir("estatisticas", () -> db.atualizarCatalogo().contarPor(Dimensao.GENERO, Filtro.todos()));
+            }
+            if (pausaMs > 0) {
+                pausar(pausaMs);
+            }
+        }
+    }
+
+    /**
+     * Executa e mede uma operação.
+     *
+     * @return O resultado, ou null se a operação lançou uma exceção (contada como erro).
+     */
+    private <T> T medir(String nome, Callable<T> chamada) {
+        Operacao operacao = operacoes.get(nome);
+        long inicio = System.nanoTime();
+        try {
+            return chamada.call();
+        } catch (Exception e) {
+            operacao.erros.increment();
+            return null;
+        } finally {
+            operacao.latencia.registrarDesde(inicio);
+        }
+    }
+
+    private void relatar(ADbConnection db, ServidorGroqSimulado servidor, double segundos, MemoryMXBean memoria,
+                         long picoHeap, Map<String, long[]> gcAntes) {
+        System.out.println();
+        System.out.printf("=== Resultado em %.1f s ===%n", segundos);
+        System.out.printf("%-16s %9s %9s %7s %9s %9s %9s %9s%n",
+                "operação", "total", "ops/s", "erros", "p50 ms", "p95 ms", "p99 ms", "máx ms");
+        for (Operacao operacao : operacoes.values()) {
+            HistogramaLatencia latencia = operacao.latencia;
+            if (latencia.getTotal() == 0) {
+                continue;
+            }
+            System.out.printf("%-16s %9d %9.1f %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    latencia.getNome(), latencia.getTotal(), latencia.getTotal() / segundos, operacao.erros.sum(),
+                    latencia.percentilMs(50), latencia.percentilMs(95), latencia.percentilMs(99), latencia.getMaximoMs());
+        }
+        System.out.printf("Livros gravados: %d (%.1f/s)%n", livrosGravados.sum(), livrosGravados.sum() / segundos);
+        System.out.printf("Conferência por ISBN: %d lotes, %d com autor ou editora divergente%n",
+                conferidos.sum(), divergentes.sum());
+        System.out.println("Groq simulado: " + servidor.getResumo());
+        System.out.println(db.getCacheConsultas());
+        System.out.println(db.getCacheDimensoes());
+
+        long mib = 1024 * 1024;
+        System.out.printf("Heap: fim %d MiB, pico %d MiB, máximo %d MiB%n",
+                memoria.getHeapMemoryUsage().getUsed() / mib, picoHeap / mib, memoria.getHeapMemoryUsage().getMax() / mib);
+        Map<String, long[]> gcDepois = coletas();
+        for (Map.Entry<String, long[]> coletor : gcDepois.entrySet()) {
+            long[] antes = gcAntes.getOrDefault(coletor.getKey(), new long[2]);
+            long quantidade = coletor.getValue()[0] - antes[0];
+            long ms = coletor.getValue()[1] - antes[1];
+            System.out.printf("GC %s: %d coletas, %d ms (%.2f%% do tempo)%n",
+                    coletor.getKey(), quantidade, ms, ms / (segundos * 10));
+        }
+        System.out.println();
+        System.out.println(Metricas.global().getResumo());
+    }
+
+    /**
+     * @return Para cada coletor, o número de coletas e o tempo total em ms até agora.
+     */
+    private static Map<String, long[]> coletas() {
+        Map<String, long[]> coletas = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            coletas.put(coletor.getName(), new long[]{coletor.getCollectionCount(), coletor.getCollectionTime()});
+        }
+        return coletas;
+    }
+
+    private static void pausar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> lerOpcoes(String[] args) {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opção inválida: " + arg + " (use --nome=valor)");
+            }
+            int igual = arg.indexOf('=');
+            opcoes.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        return opcoes;
+    }
+
+    private static int inteiro(Map<String, String> opcoes, String nome, int padrao) {
+        String valor = opcoes.get(nome);
+        return valor == null ? padrao : Integer.parseInt(valor.trim());
+    }
+
+    private static double decimal(Map<String, String> opcoes, String nome, double padrao) {
+        String valor = opcoes.get(nome);
+        return valor == null ? padrao : Double.parseDouble(valor.trim());
+    }
+}
@@ -0,0 +1,50 @@
+package org.livraria;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Acesso único às configurações do .env e das variáveis de ambiente.
+ * <p>
+ * O arquivo é lido uma única vez, na primeira consulta, e compartilhado por todas as classes.
+ * Se não houver .env, valem só as variáveis de ambiente, como em containers de importação em lote.
+ */
+public final class Configuracao {
+
+    private Configuracao() {
+    }
+
+    // Carregado pela JVM no primeiro acesso a DOTENV, uma única vez e sem sincronização explícita.
+    private static final class Carregada {
+        static final Dotenv DOTENV = Dotenv.configure().ignoreIfMissing().load();
+    }
+
+    /**
+     * @return O valor da chave, ou null se ela não estiver definida.
+     */
+    public static String get(String chave) {
+        return Carregada.DOTENV.get(chave);
+    }
+
+    /**
+     * @return O valor da chave, ou {@code padrao} se ela não estiver definida.
+     */
+    public static String get(String chave, String padrao) {
+        return Carregada.DOTENV.get(chave, padrao);
+    }
+
+    /**
+     * @throws NumberFormatException Se o valor definido não for um número inteiro.
+     */
+    public static int inteiro(String chave, int padrao) {
+        String valor = get(chave);
+        return valor == null || valor.isBlank() ? padrao : Integer.parseInt(valor.trim());
+    }
+
+    /**
+     * @throws NumberFormatException Se o valor definido não for um número.
+     */
+    public static double decimal(String chave, double padrao) {
+        String valor = get(chave);
+        return valor == null || valor.isBlank() ? padrao : Double.parseDouble(valor.trim());
+    }
+}
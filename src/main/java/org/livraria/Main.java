@@ -1,40 +1,207 @@
 package org.livraria;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import org.livraria.analise.CatalogoColunar;
+import org.livraria.analise.Dimensao;
+import org.livraria.analise.Filtro;
 import org.livraria.connections.BuscadorLivros;
-import org.livraria.connections.DbConnection;
+import org.livraria.busca.IndiceInvertido;
+import org.livraria.busca.ResultadoBusca;
+import org.livraria.connections.BuscadorLivrosComCache;
+import org.livraria.connections.BuscadorLivrosCompartilhado;
+import org.livraria.connections.CacheStatements;
+import org.livraria.connections.LimitadorTaxa;
+import org.livraria.connections.PooledDbConnection;
+import org.livraria.connections.ADbConnection;
+import org.livraria.importacao.ConfiguracaoPipeline;
+import org.livraria.importacao.ImportadorAutores;
+import org.livraria.importacao.PipelineIngestao;
+import org.livraria.interfaces.IBuscadorLivros;
+import org.livraria.log.Log;
+import org.livraria.metricas.Metricas;
 import java.util.Scanner;
-import org.livraria.types.Livro;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 
 public class Main {
-    public static final Dotenv dotenv = Dotenv.load( );
-    private static final String URL_JDBC = dotenv.get("URL_JDBC");
-    private static final String USER_JDBC = dotenv.get("USER_JDBC");
-    private static final String PASSWORD_JDBC = dotenv.get("PASSWORD_JDBC");
+    private static final String URL_JDBC = Configuracao.get("URL_JDBC");
+    private static final String USER_JDBC = Configuracao.get("USER_JDBC");
+    private static final String PASSWORD_JDBC = Configuracao.get("PASSWORD_JDBC");
+    private static final int GROQ_CONCORRENCIA =
+            Configuracao.inteiro("GROQ_CONCORRENCIA", ImportadorAutores.CONCORRENCIA_PADRAO);
+    private static final double GROQ_REQUISICOES_POR_MINUTO =
+            Configuracao.decimal("GROQ_REQUISICOES_POR_MINUTO", ImportadorAutores.REQUISICOES_POR_MINUTO_PADRAO);
+
+    // Paralelismo do pipeline de ingestão usado pela opção 1; as buscas seguem GROQ_CONCORRENCIA.
+    private static final int PIPELINE_THREADS_VALIDACAO =
+            Configuracao.inteiro("PIPELINE_THREADS_VALIDACAO", ConfiguracaoPipeline.THREADS_VALIDACAO_PADRAO);
+    private static final int PIPELINE_THREADS_GRAVACAO = Configuracao.inteiro("PIPELINE_THREADS_GRAVACAO", 1);
+    private static final int PIPELINE_CAPACIDADE_FILA =
+            Configuracao.inteiro("PIPELINE_CAPACIDADE_FILA", ConfiguracaoPipeline.CAPACIDADE_FILA_PADRAO);
+
+    // Um único limitador para todas as requisições à IA, da opção 1 e das importações por arquivo. Fica no
+    // BuscadorLivros: buscas atendidas pelo cache ou compartilhadas com outra em andamento não gastam a cota.
+    private static final LimitadorTaxa LIMITADOR = new LimitadorTaxa(GROQ_REQUISICOES_POR_MINUTO, GROQ_CONCORRENCIA);
+
+    // Arquivo do cache persistente de buscas; se ausente, toda busca vai à API.
+    private static final String CACHE_BUSCAS_ARQUIVO = Configuracao.get("CACHE_BUSCAS_ARQUIVO");
+
+    // Intervalo, em segundos, do resumo periódico de métricas no console; 0 desliga o resumo.
+    private static final int METRICAS_INTERVALO_SEGUNDOS = Configuracao.inteiro("METRICAS_INTERVALO_SEGUNDOS", 0);
+
+    // Nível mínimo do log das conexões (debug, info, aviso, erro); debug inclui cada livro e o corpo das requisições.
+    private static final Log.Nivel LOG_NIVEL = Log.nivel(Configuracao.get("LOG_NIVEL"), Log.Nivel.INFO);
+
+    private static final int OPCAO_SAIR = 7;
+
+    // Quantos grupos cada ranking das estatísticas mostra, e a largura das faixas de páginas.
+    private static final int ESTATISTICAS_GRUPOS = 10;
+    private static final int ESTATISTICAS_FAIXA_PAGINAS = 100;
 
     public static void printMenu() {
         System.out.println("-------------------------------");
         System.out.println("1) Cadastrar livros");
         System.out.println("2) Ver todos os livros cadastrados");
-        System.out.println("3) Sair");
+        System.out.println("3) Importar autores de um arquivo");
+        System.out.println("4) Pesquisar livros por palavras-chave");
+        System.out.println("5) Ver andamento das importações");
+        System.out.println("6) Estatísticas do catálogo");
+        System.out.println("7) Sair");
         System.out.println("-------------------------------");
     }
 
+    /**
+     * Importa os autores listados em um arquivo (um por linha) ou, se o caminho for "-", na entrada padrão.
+     */
+    public static void importarAutores(String caminho, IBuscadorLivros buscador, ADbConnection client) {
+        try (BufferedReader leitor = caminho.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(caminho), StandardCharsets.UTF_8)) {
+            List<String> autores = ImportadorAutores.lerAutores(leitor);
+            ImportadorAutores importador = new ImportadorAutores(buscador, client, GROQ_CONCORRENCIA,
+                    ImportadorAutores.CAPACIDADE_FILA_PADRAO);
+            System.out.println(importador.importar(autores));
+        } catch (IOException e) {
+            System.err.println("Não foi possível ler a lista de autores: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("A importação foi interrompida.");
+        }
+    }
+
+    /**
+     * Pesquisa os livros cadastrados no índice em memória e exibe os mais relevantes.
+     */
+    public static void pesquisarLivros(ADbConnection client, String consulta, boolean todosOsTermos) {
+        long inicio = System.nanoTime();
+        List<ResultadoBusca> resultados = client.pesquisar(consulta, todosOsTermos, IndiceInvertido.LIMITE_PADRAO);
+        double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+
+        if (resultados.isEmpty()) {
+            System.out.println("Nenhum livro encontrado.");
+        } else {
+            resultados.forEach(System.out::println);
+        }
+        System.out.printf("%d resultado(s) em %.3f ms.%n", resultados.size(), ms);
+    }
+
+    /**
+     * Exibe os livros por gênero, editora e década e a distribuição de páginas, a partir do catálogo em memória.
+     * @param genero Restringe as estatísticas a um gênero; vazio para todos.
+     */
+    public static void exibirEstatisticas(ADbConnection client, String genero) {
+        CatalogoColunar catalogo = client.atualizarCatalogo();
+        Filtro filtro = genero.isBlank() ? Filtro.todos() : Filtro.genero(genero);
+        long inicio = System.nanoTime();
+
+        System.out.println(catalogo);
+        System.out.println("Livros (" + filtro + "): " + catalogo.contar(filtro));
+        System.out.println("--- Por gênero ---");
+        catalogo.contarPor(Dimensao.GENERO, filtro).stream().limit(ESTATISTICAS_GRUPOS).forEach(System.out::println);
+        System.out.println("--- Por editora ---");
+        catalogo.contarPor(Dimensao.EDITORA, filtro).stream().limit(ESTATISTICAS_GRUPOS).forEach(System.out::println);
+        System.out.println("--- Por autor ---");
+        catalogo.contarPor(Dimensao.AUTOR, filtro).stream().limit(ESTATISTICAS_GRUPOS).forEach(System.out::println);
+        System.out.println("--- Por década ---");
+        catalogo.contarPor(Dimensao.DECADA, filtro).forEach(System.out::println);
+        System.out.println("--- Páginas ---");
+        IntSummaryStatistics paginas = catalogo.resumoPaginas(filtro);
+        if (paginas.getCount() > 0) {
+            System.out.printf("mín. %d, máx. %d, média %.0f (%d livros com o número de páginas)%n",
+                    paginas.getMin(), paginas.getMax(), paginas.getAverage(), paginas.getCount());
+            catalogo.distribuicaoPaginas(ESTATISTICAS_FAIXA_PAGINAS, filtro).forEach((faixa, livros) ->
+                    System.out.printf("%5d-%-5d %8d%n", faixa, faixa + ESTATISTICAS_FAIXA_PAGINAS - 1, livros));
+        }
+        System.out.printf("Estatísticas calculadas em %.3f ms.%n", (System.nanoTime() - inicio) / 1_000_000.0);
+    }
+
+    private static void fecharBuscadores(BuscadorLivros groq, BuscadorLivrosComCache cache) {
+        if (cache != null) {
+            System.out.println(cache);
+            try {
+                cache.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o cache de buscas: " + e.getMessage());
+            }
+        }
+        groq.close();
+        Metricas.pararRelatorioPeriodico();
+        System.out.println(Metricas.global().getResumo());
+        Log.encerrar();
+    }
+
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
-        BuscadorLivros buscador = new BuscadorLivros();
-        DbConnection client = new DbConnection(URL_JDBC,USER_JDBC,PASSWORD_JDBC);
-        Boolean clientConnect = client.connect();
+        Log.configurarNivel(LOG_NIVEL);
+        Metricas.registrarJmx();
+        if (METRICAS_INTERVALO_SEGUNDOS > 0) {
+            Metricas.iniciarRelatorioPeriodico(Duration.ofSeconds(METRICAS_INTERVALO_SEGUNDOS), System.out);
+        }
+        BuscadorLivros groq = new BuscadorLivros(LIMITADOR);
+        IBuscadorLivros buscador = groq;
+        BuscadorLivrosComCache cache = null;
+        if (CACHE_BUSCAS_ARQUIVO != null && !CACHE_BUSCAS_ARQUIVO.isBlank()) {
+            try {
+                cache = new BuscadorLivrosComCache(groq, Path.of(CACHE_BUSCAS_ARQUIVO));
+                buscador = cache;
+            } catch (IOException e) {
+                System.err.println("Não foi possível abrir o cache de buscas, seguindo sem cache: " + e.getMessage());
+            }
+        }
+        // Buscas iguais feitas ao mesmo tempo (ex.: o mesmo autor no menu e no arquivo) viram uma só requisição.
+        BuscadorLivrosCompartilhado compartilhado = new BuscadorLivrosCompartilhado(buscador);
+        buscador = compartilhado;
+        // O menu, a importação de arquivos e as threads do pipeline gravam ao mesmo tempo: cada um empresta
+        // a sua própria conexão do pool, com a sua própria transação.
+        ADbConnection client = new PooledDbConnection(URL_JDBC,USER_JDBC,PASSWORD_JDBC);
+        client.connect();
         Integer option = 0;
 
-        while (!option.equals(3)) {
+        // Modo em lote (ex.: job noturno): java ... Main --importar autores.txt
+        if (args.length == 2 && args[0].equals("--importar")) {
+            importarAutores(args[1], buscador, client);
+            client.disconnect();
+            fecharBuscadores(groq, cache);
+            return;
+        }
+
+        PipelineIngestao pipeline = new PipelineIngestao(buscador, client,
+                new ConfiguracaoPipeline(GROQ_CONCORRENCIA, PIPELINE_THREADS_VALIDACAO, PIPELINE_THREADS_GRAVACAO,
+                        PIPELINE_CAPACIDADE_FILA, ADbConnection.TAMANHO_LOTE_PADRAO));
+
+        while (!option.equals(OPCAO_SAIR)) {
             printMenu();
 
             if (sc.hasNextInt()) {
                 option = sc.nextInt();
-                if (option.equals(3)) { break; }
+                if (option.equals(OPCAO_SAIR)) { break; }
             } else {
                 printMenu();
             }
@@ -44,27 +211,59 @@ public class Main {
                     System.out.print("Digite o nome do Autor: ");
                     sc.nextLine();
                     String autor = sc.nextLine();
-                    try {
-                        List<Livro> livros = buscador.buscarLivros(String.format("cadastre todos os livros do autor %s", autor));
-
-                        if (livros.isEmpty() && !clientConnect) {
-                            System.out.println("Nenhum livro foi processado.");
-                        } else {
-                            for (Livro livro : livros) {
-                                client.inserirLivro(livro);
-                            }
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Ocorreu um erro fatal durante a busca de livros: " + e.getMessage());
+                    // A busca e a gravação seguem em segundo plano; o menu volta na hora.
+                    if (pipeline.submeter(autor)) {
+                        System.out.println("Importação de '" + autor.trim() + "' agendada. Acompanhe pela opção 5.");
+                    } else {
+                        System.err.println("Não foi possível agendar a importação: autor vazio ou fila de buscas cheia.");
                     }
                     break;
                 case 2:
                     System.out.println();
-                    client.select("livros");
+                    client.selectStreaming("livros", 0);
                     System.out.println();
+                    break;
+                case 3:
+                    System.out.print("Digite o caminho do arquivo com os autores (um por linha): ");
+                    sc.nextLine();
+                    String caminho = sc.nextLine().trim();
+                    if (caminho.equals("-")) {
+                        // A entrada padrão é a do menu: lê-la até o fim encerraria o menu junto.
+                        System.out.println("No menu, informe um arquivo; \"-\" só vale com --importar.");
+                        break;
+                    }
+                    importarAutores(caminho, buscador, client);
+                    break;
+                case 4:
+                    System.out.print("Digite as palavras-chave (título ou sinopse): ");
+                    sc.nextLine();
+                    String consulta = sc.nextLine();
+                    System.out.print("Exigir todas as palavras? (s/n): ");
+                    boolean todosOsTermos = !sc.nextLine().trim().equalsIgnoreCase("n");
+                    pesquisarLivros(client, consulta, todosOsTermos);
+                    break;
+                case 5:
+                    System.out.println(pipeline);
+                    System.out.println(compartilhado);
+                    System.out.println(client.getCacheDimensoes());
+                    System.out.println(client.getCacheConsultas());
+                    System.out.println(CacheStatements.resumo());
+                    System.out.println("Livros ignorados por ISBN já cadastrado: " + client.getDuplicadosIgnorados());
+                    break;
+                case 6:
+                    System.out.print("Filtrar por gênero (Enter para todos): ");
+                    sc.nextLine();
+                    exibirEstatisticas(client, sc.nextLine().trim());
+                    break;
                 default:
                     System.out.println("Número inválido");
             }
         }
+
+        System.out.println("Aguardando as importações em andamento...");
+        pipeline.close();
+        System.out.println(pipeline);
+        client.disconnect();
+        fecharBuscadores(groq, cache);
     }
 }
\ No newline at end of file
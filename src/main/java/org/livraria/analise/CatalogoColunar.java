@@ -0,0 +1,543 @@
+package org.livraria.analise;
+
+import org.livraria.connections.ConjuntoIsbn;
+import org.livraria.log.Log;
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cópia em memória da tabela 'livros' com suas dimensões, organizada por colunas, para estatísticas do catálogo
+ * (livros por gênero, por década, por editora, distribuição de páginas) sem consultar o MySQL durante importações.
+ * <p>
+ * Cada atributo numérico é um {@code int[]} (ano, páginas) e autor, gênero e editora são guardados como códigos
+ * densos de um {@link Dicionario}, com os nomes à parte. Os textos ficam separados: só o título e o ISBN
+ * (como {@code long}) são mantidos; a sinopse não é carregada. Um livro custa assim cerca de 40 bytes mais
+ * o título, contra as várias centenas de um {@code Livro} com seus textos e objetos.
+ * <p>
+ * As consultas percorrem as colunas em blocos de {@value #LINHAS_POR_BLOCO} linhas: o {@link Filtro} marca as
+ * linhas aceitas em um {@code boolean[]} e a agregação soma em um {@code long[]} indexado pelo código. Faixas de
+ * {@value #LINHAS_POR_TAREFA} linhas são divididas entre as threads de um {@link ForkJoinPool} e os vetores
+ * parciais, somados no fim.
+ * <p>
+ * {@link #atualizar(Connection)} lê os livros com id acima da marca d'água (o maior id já carregado) e
+ * publica uma nova versão das colunas de uma só vez; consultas em andamento continuam na versão anterior.
+ * <p>
+ * Os ids AUTO_INCREMENT são dados na inserção, não no commit: com várias conexões gravando (pool, pipeline),
+ * um livro de id menor pode ser confirmado depois que um de id maior já foi carregado. Por isso cada atualização
+ * relê também os {@value #JANELA_RELEITURA} ids abaixo da marca, pulando os já carregados, e o catálogo é
+ * recarregado por inteiro quando a última carga completa tem mais de {@value #MINUTOS_RECARGA_COMPLETA} minutos.
+ * Um livro confirmado depois que a marca passou dele por mais que a janela só aparece nessa recarga, que também
+ * traz as alterações e remoções de livros já carregados; a aplicação só insere livros.
+ */
+public class CatalogoColunar {
+
+    private static final Log LOG = Log.de(CatalogoColunar.class);
+    private static final HistogramaLatencia LAT_CARGA = Metricas.histograma(Metricas.CATALOGO_CARGA);
+    private static final HistogramaLatencia LAT_CONSULTA = Metricas.histograma(Metricas.CATALOGO_CONSULTA);
+
+    static final int LINHAS_POR_TAREFA = 1 << 16;
+    static final int LINHAS_POR_BLOCO = 4096;
+    private static final int TAMANHO_FETCH = 1000;
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final String SEM_ANO = "(sem ano)";
+
+    /**
+     * Quantos ids abaixo da marca d'água são relidos a cada atualização, para pegar os livros confirmados fora
+     * da ordem dos ids. Cobre com folga os lotes em voo de um pool de conexões ({@code TAMANHO_LOTE_PADRAO} por
+     * conexão) e os ids que o MySQL consome em inserções rejeitadas.
+     */
+    static final int JANELA_RELEITURA = 4096;
+    static final int MINUTOS_RECARGA_COMPLETA = 10;
+    private static final long RECARGA_COMPLETA_NANOS = MINUTOS_RECARGA_COMPLETA * 60_000_000_000L;
+
+    private static final String CONSULTA_NOVOS = "SELECT l.id, l.ano_publicacao, l.numero_paginas, l.isbn, l.titulo, "
+            + "l.autor_id, a.nome, l.genero_id, g.nome, l.editora_id, e.nome "
+            + "FROM livros l "
+            + "LEFT JOIN autores a ON a.id = l.autor_id "
+            + "LEFT JOIN generos g ON g.id = l.genero_id "
+            + "LEFT JOIN editoras e ON e.id = l.editora_id "
+            + "WHERE l.id > ? ORDER BY l.id";
+
+    private final ForkJoinPool pool;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Colunas atual = Colunas.VAZIA;
+
+    // Estado de carga, alterado somente sob o lock. As posições além de atual.linhas ainda não foram publicadas.
+    private int linhas;
+    private int[] ids;
+    private int[] anos;
+    private int[] paginas;
+    private int[] autores;
+    private int[] generos;
+    private int[] editoras;
+    private long[] isbns;
+    private String[] titulos;
+    private Dicionario dicAutores;
+    private Dicionario dicGeneros;
+    private Dicionario dicEditoras;
+    private int anoMinimo;
+    private int anoMaximo;
+    private int paginasMaximo;
+    private int marcaDagua;
+    private BitSet carregados;
+    private long cargaCompletaEm;
+
+    /**
+     * Cria um catálogo vazio cujas consultas usam o {@link ForkJoinPool#commonPool()}.
+     */
+    public CatalogoColunar() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool O pool em que as consultas são divididas.
+     */
+    public CatalogoColunar(ForkJoinPool pool) {
+        this.pool = pool;
+        limpar();
+    }
+
+    /**
+     * Descarta o conteúdo e recarrega todos os livros.
+     *
+     * @param conn Uma conexão ativa.
+     * @return O número de livros no catálogo.
+     * @throws SQLException Se a leitura falhar; a versão anterior continua valendo até uma carga completa.
+     */
+    public int carregar(Connection conn) throws SQLException {
+        lock.lock();
+        try {
+            limpar();
+            atualizar(conn);
+            return linhas;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acrescenta os livros com id acima da marca d'água e os da janela de releitura que ainda não estavam
+     * carregados. Se a última carga completa for antiga, recarrega tudo.
+     *
+     * @param conn Uma conexão ativa.
+     * @return Quantos livros foram carregados.
+     * @throws SQLException Se a leitura falhar. Os livros lidos até a falha são publicados na próxima atualização.
+     */
+    public int atualizar(Connection conn) throws SQLException {
+        long inicio = System.nanoTime();
+        lock.lock();
+        try {
+            if (inicio - cargaCompletaEm >= RECARGA_COMPLETA_NANOS) {
+                LOG.debug("Recarga completa periódica do catálogo colunar.");
+                limpar();
+            }
+            int antes = linhas;
+            try (PreparedStatement statement = conn.prepareStatement(CONSULTA_NOVOS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(TAMANHO_FETCH);
+                statement.setInt(1, Math.max(0, marcaDagua - JANELA_RELEITURA));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        adicionar(resultSet);
+                    }
+                }
+            }
+            publicar();
+            int novos = linhas - antes;
+            LOG.debug(() -> novos + " livro(s) novo(s) no catálogo colunar; marca d'água em id " + marcaDagua + ".");
+            return novos;
+        } finally {
+            lock.unlock();
+            LAT_CARGA.registrarDesde(inicio);
+        }
+    }
+
+    /**
+     * @return O número de livros da versão atual.
+     */
+    public int getLivros() {
+        return atual.linhas;
+    }
+
+    /**
+     * @return O maior id de livro já carregado.
+     */
+    public int getMarcaDagua() {
+        lock.lock();
+        try {
+            return marcaDagua;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estima a memória ocupada pela versão atual: os vetores inteiros (inclusive a folga de crescimento),
+     * os títulos e os nomes dos dicionários.
+     *
+     * @return O tamanho aproximado, em bytes.
+     */
+    public long getBytesEstimados() {
+        Colunas colunas = atual;
+        long bytes = 6L * Integer.BYTES * colunas.ids.length
+                + (long) Long.BYTES * colunas.isbns.length
+                + 8L * colunas.titulos.length;
+        for (int i = 0; i < colunas.linhas; i++) {
+            bytes += bytesTexto(colunas.titulos[i]);
+        }
+        for (Dimensao dimensao : List.of(Dimensao.AUTOR, Dimensao.GENERO, Dimensao.EDITORA)) {
+            for (int codigo = 0; codigo < colunas.cardinalidade(dimensao); codigo++) {
+                bytes += 8 + bytesTexto(colunas.nome(dimensao, codigo));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Conta os livros aceitos pelo filtro.
+     */
+    public long contar(Filtro filtro) {
+        return agregar(filtro, new Acumulador(1) {
+            @Override
+            void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] total) {
+                long aceitosNoBloco = 0;
+                for (int i = 0; i < fim - inicio; i++) {
+                    if (aceitos[i]) {
+                        aceitosNoBloco++;
+                    }
+                }
+                total[0] += aceitosNoBloco;
+            }
+        }).resultado[0];
+    }
+
+    /**
+     * Agrupa os livros aceitos pelo filtro e conta cada grupo. Grupos sem livros são omitidos.
+     *
+     * @return Os grupos do maior para o menor; para {@link Dimensao#DECADA}, em ordem cronológica
+     * e com os livros sem ano por último.
+     */
+    public List<Contagem> contarPor(Dimensao dimensao, Filtro filtro) {
+        if (dimensao == Dimensao.DECADA) {
+            return contarPorDecada(filtro);
+        }
+        Agregado agregado = agregar(filtro, colunas -> new Acumulador(colunas.cardinalidade(dimensao)) {
+            @Override
+            void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] contagens) {
+                int[] codigos = colunas.coluna(dimensao);
+                for (int i = inicio; i < fim; i++) {
+                    if (aceitos[i - inicio]) {
+                        contagens[codigos[i]]++;
+                    }
+                }
+            }
+        });
+
+        List<Contagem> grupos = new ArrayList<>();
+        for (int codigo = 0; codigo < agregado.resultado.length; codigo++) {
+            if (agregado.resultado[codigo] > 0) {
+                grupos.add(new Contagem(agregado.colunas.nome(dimensao, codigo), agregado.resultado[codigo]));
+            }
+        }
+        grupos.sort(Comparator.comparingLong(Contagem::livros).reversed().thenComparing(Contagem::grupo));
+        return grupos;
+    }
+
+    /**
+     * Distribui os livros aceitos pelo filtro em faixas de número de páginas. Livros sem o número são ignorados.
+     *
+     * @param largura O tamanho de cada faixa, em páginas.
+     * @return Quantos livros há em cada faixa não vazia, pela primeira página da faixa (0, largura, 2 * largura...).
+     */
+    public SortedMap<Integer, Long> distribuicaoPaginas(int largura, Filtro filtro) {
+        if (largura <= 0) {
+            throw new IllegalArgumentException("A largura das faixas deve ser positiva: " + largura);
+        }
+        Agregado agregado = agregar(filtro, colunas -> new Acumulador(colunas.paginasMaximo / largura + 1) {
+            @Override
+            void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] faixas) {
+                int[] coluna = colunas.paginas;
+                for (int i = inicio; i < fim; i++) {
+                    if (aceitos[i - inicio] && coluna[i] > 0) {
+                        faixas[coluna[i] / largura]++;
+                    }
+                }
+            }
+        });
+
+        SortedMap<Integer, Long> faixas = new TreeMap<>();
+        for (int faixa = 0; faixa < agregado.resultado.length; faixa++) {
+            if (agregado.resultado[faixa] > 0) {
+                faixas.put(faixa * largura, agregado.resultado[faixa]);
+            }
+        }
+        return faixas;
+    }
+
+    /**
+     * @return Mínimo, máximo, média e total de páginas dos livros aceitos pelo filtro que informam o número.
+     */
+    public IntSummaryStatistics resumoPaginas(Filtro filtro) {
+        // [quantidade, soma, mínimo, máximo]
+        long[] resumo = agregar(filtro, new Acumulador(4) {
+            @Override
+            long[] novo() {
+                return new long[]{0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE};
+            }
+
+            @Override
+            void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] r) {
+                int[] coluna = colunas.paginas;
+                for (int i = inicio; i < fim; i++) {
+                    int valor = coluna[i];
+                    if (aceitos[i - inicio] && valor > 0) {
+                        r[0]++;
+                        r[1] += valor;
+                        r[2] = Math.min(r[2], valor);
+                        r[3] = Math.max(r[3], valor);
+                    }
+                }
+            }
+
+            @Override
+            void combinar(long[] destino, long[] outro) {
+                destino[0] += outro[0];
+                destino[1] += outro[1];
+                destino[2] = Math.min(destino[2], outro[2]);
+                destino[3] = Math.max(destino[3], outro[3]);
+            }
+        }).resultado;
+        return new IntSummaryStatistics(resumo[0], (int) resumo[2], (int) resumo[3], resumo[1]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Catálogo colunar: %d livros, marca d'água id=%d, ~%.1f MiB",
+                getLivros(), getMarcaDagua(), getBytesEstimados() / (1024.0 * 1024.0));
+    }
+
+    private List<Contagem> contarPorDecada(Filtro filtro) {
+        Agregado agregado = agregar(filtro, colunas -> new Acumulador(colunas.anoMaximo / 10 - colunas.anoMinimo / 10 + 2) {
+            @Override
+            void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] decadas) {
+                int[] coluna = colunas.anos;
+                // Posição 0: sem ano; posição k: a (k - 1)-ésima década a partir da do menor ano.
+                int base = colunas.anoMinimo / 10 - 1;
+                for (int i = inicio; i < fim; i++) {
+                    if (aceitos[i - inicio]) {
+                        int ano = coluna[i];
+                        decadas[ano > 0 ? ano / 10 - base : 0]++;
+                    }
+                }
+            }
+        });
+
+        List<Contagem> grupos = new ArrayList<>();
+        int base = agregado.colunas.anoMinimo / 10 - 1;
+        for (int k = 1; k < agregado.resultado.length; k++) {
+            if (agregado.resultado[k] > 0) {
+                grupos.add(new Contagem((base + k) * 10 + "s", agregado.resultado[k]));
+            }
+        }
+        if (agregado.resultado[0] > 0) {
+            grupos.add(new Contagem(SEM_ANO, agregado.resultado[0]));
+        }
+        return grupos;
+    }
+
+    /**
+     * Soma, bloco a bloco, os valores que um {@link Acumulador} produz sobre as linhas aceitas pelo filtro.
+     */
+    private abstract static class Acumulador {
+        private final int tamanho;
+
+        Acumulador(int tamanho) {
+            this.tamanho = tamanho;
+        }
+
+        long[] novo() {
+            return new long[tamanho];
+        }
+
+        /**
+         * Acumula em {@code resultado} as linhas {@code [inicio, fim)}; {@code aceitos[i - inicio]} diz se a
+         * linha {@code i} passou pelo filtro.
+         */
+        abstract void acumular(Colunas colunas, int inicio, int fim, boolean[] aceitos, long[] resultado);
+
+        void combinar(long[] destino, long[] outro) {
+            for (int i = 0; i < destino.length; i++) {
+                destino[i] += outro[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface FabricaAcumulador {
+        Acumulador criar(Colunas colunas);
+    }
+
+    private record Agregado(Colunas colunas, long[] resultado) {
+    }
+
+    private Agregado agregar(Filtro filtro, Acumulador acumulador) {
+        return agregar(filtro, colunas -> acumulador);
+    }
+
+    /**
+     * Roda uma agregação sobre a versão atual das colunas. O tamanho do resultado pode depender da versão
+     * (número de códigos, maior ano), por isso o acumulador é criado depois de fixá-la.
+     */
+    private Agregado agregar(Filtro filtro, FabricaAcumulador fabrica) {
+        long inicio = System.nanoTime();
+        try {
+            Colunas colunas = atual;
+            Acumulador acumulador = fabrica.criar(colunas);
+            Filtro.Avaliador avaliador = filtro.preparar(colunas);
+            long[] resultado = pool.invoke(new Tarefa(colunas, avaliador, acumulador, 0, colunas.linhas));
+            return new Agregado(colunas, resultado);
+        } finally {
+            LAT_CONSULTA.registrarDesde(inicio);
+        }
+    }
+
+    private static final class Tarefa extends RecursiveTask<long[]> {
+        private final Colunas colunas;
+        private final Filtro.Avaliador filtro;
+        private final Acumulador acumulador;
+        private final int inicio;
+        private final int fim;
+
+        Tarefa(Colunas colunas, Filtro.Avaliador filtro, Acumulador acumulador, int inicio, int fim) {
+            this.colunas = colunas;
+            this.filtro = filtro;
+            this.acumulador = acumulador;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (fim - inicio <= LINHAS_POR_TAREFA) {
+                return folha();
+            }
+            int meio = (inicio + fim) >>> 1;
+            Tarefa esquerda = new Tarefa(colunas, filtro, acumulador, inicio, meio);
+            esquerda.fork();
+            long[] direita = new Tarefa(colunas, filtro, acumulador, meio, fim).compute();
+            long[] resultado = esquerda.join();
+            acumulador.combinar(resultado, direita);
+            return resultado;
+        }
+
+        private long[] folha() {
+            long[] resultado = acumulador.novo();
+            boolean[] aceitos = new boolean[LINHAS_POR_BLOCO];
+            for (int bloco = inicio; bloco < fim; bloco += LINHAS_POR_BLOCO) {
+                int fimBloco = Math.min(bloco + LINHAS_POR_BLOCO, fim);
+                Arrays.fill(aceitos, 0, fimBloco - bloco, true);
+                filtro.aplicar(bloco, fimBloco, aceitos);
+                acumulador.acumular(colunas, bloco, fimBloco, aceitos, resultado);
+            }
+            return resultado;
+        }
+    }
+
+    private void adicionar(ResultSet resultSet) throws SQLException {
+        int id = resultSet.getInt(1);
+        if (carregados.get(id)) {
+            return; // Já lido em uma atualização anterior (janela de releitura).
+        }
+        carregados.set(id);
+        if (linhas == ids.length) {
+            crescer();
+        }
+        int ano = resultSet.getInt(2);     // NULL vira 0
+        int numeroPaginas = resultSet.getInt(3);
+        String isbn = resultSet.getString(4);
+
+        ids[linhas] = id;
+        anos[linhas] = Math.max(ano, 0);
+        paginas[linhas] = Math.max(numeroPaginas, 0);
+        isbns[linhas] = isbn != null ? ConjuntoIsbn.normalizar(isbn) : -1;
+        titulos[linhas] = resultSet.getString(5);
+        autores[linhas] = dicAutores.codificar(resultSet.getInt(6), resultSet.getString(7));
+        generos[linhas] = dicGeneros.codificar(resultSet.getInt(8), resultSet.getString(9));
+        editoras[linhas] = dicEditoras.codificar(resultSet.getInt(10), resultSet.getString(11));
+        linhas++;
+
+        if (ano > 0) {
+            anoMinimo = anoMinimo == 0 ? ano : Math.min(anoMinimo, ano);
+            anoMaximo = Math.max(anoMaximo, ano);
+        }
+        paginasMaximo = Math.max(paginasMaximo, numeroPaginas);
+        marcaDagua = Math.max(marcaDagua, id);
+    }
+
+    /**
+     * Dobra a capacidade de todas as colunas. As versões já publicadas continuam com os vetores antigos.
+     */
+    private void crescer() {
+        int capacidade = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacidade);
+        anos = Arrays.copyOf(anos, capacidade);
+        paginas = Arrays.copyOf(paginas, capacidade);
+        autores = Arrays.copyOf(autores, capacidade);
+        generos = Arrays.copyOf(generos, capacidade);
+        editoras = Arrays.copyOf(editoras, capacidade);
+        isbns = Arrays.copyOf(isbns, capacidade);
+        titulos = Arrays.copyOf(titulos, capacidade);
+    }
+
+    private void publicar() {
+        atual = new Colunas(linhas, ids, anos, paginas, autores, generos, editoras, isbns, titulos,
+                new String[][]{dicAutores.getNomes(), dicGeneros.getNomes(), dicEditoras.getNomes()},
+                new int[]{dicAutores.getQuantidade(), dicGeneros.getQuantidade(), dicEditoras.getQuantidade()},
+                anoMinimo, anoMaximo, paginasMaximo);
+    }
+
+    /**
+     * Recomeça o estado de carga com vetores novos, sem tocar nos da versão publicada.
+     */
+    private void limpar() {
+        linhas = 0;
+        ids = new int[CAPACIDADE_INICIAL];
+        anos = new int[CAPACIDADE_INICIAL];
+        paginas = new int[CAPACIDADE_INICIAL];
+        autores = new int[CAPACIDADE_INICIAL];
+        generos = new int[CAPACIDADE_INICIAL];
+        editoras = new int[CAPACIDADE_INICIAL];
+        isbns = new long[CAPACIDADE_INICIAL];
+        titulos = new String[CAPACIDADE_INICIAL];
+        dicAutores = new Dicionario();
+        dicGeneros = new Dicionario();
+        dicEditoras = new Dicionario();
+        anoMinimo = 0;
+        anoMaximo = 0;
+        paginasMaximo = 0;
+        marcaDagua = 0;
+        carregados = new BitSet();
+        cargaCompletaEm = System.nanoTime();
+    }
+
+    private static long bytesTexto(String texto) {
+        // Cabeçalho do String e do byte[] interno, com texto Latin-1 (um byte por caractere).
+        return texto == null ? 0 : 40 + texto.length();
+    }
+}
@@ -0,0 +1,90 @@
+package org.livraria.analise;
+
+/**
+ * Uma versão imutável do {@link CatalogoColunar}: as colunas e os dicionários como estavam ao fim de uma carga.
+ * <p>
+ * Os vetores podem ser maiores que {@link #linhas}; só as posições {@code [0, linhas)} pertencem a esta versão.
+ * Uma atualização incremental escreve apenas depois delas (ou em cópias maiores), então quem ainda consulta
+ * uma versão antiga nunca vê a nova pela metade.
+ */
+final class Colunas {
+
+    static final Colunas VAZIA = new Colunas(0, new int[0], new int[0], new int[0], new int[0], new int[0],
+            new int[0], new long[0], new String[0], new String[][]{{Dicionario.NAO_INFORMADO},
+            {Dicionario.NAO_INFORMADO}, {Dicionario.NAO_INFORMADO}}, new int[]{1, 1, 1}, 0, 0, 0);
+
+    final int linhas;
+    final int[] ids;
+    final int[] anos;       // 0 = sem ano
+    final int[] paginas;    // 0 = sem número de páginas
+    final int[] autores;    // códigos densos; 0 = não informado
+    final int[] generos;
+    final int[] editoras;
+    final long[] isbns;     // ISBN-13 normalizado; -1 = ausente ou inválido
+    final String[] titulos;
+
+    // Nomes por código, na ordem de Dimensao.AUTOR, GENERO e EDITORA.
+    private final String[][] nomes;
+    private final int[] quantidadeNomes;
+
+    final int anoMinimo;
+    final int anoMaximo;
+    final int paginasMaximo;
+
+    Colunas(int linhas, int[] ids, int[] anos, int[] paginas, int[] autores, int[] generos, int[] editoras,
+            long[] isbns, String[] titulos, String[][] nomes, int[] quantidadeNomes,
+            int anoMinimo, int anoMaximo, int paginasMaximo) {
+        this.linhas = linhas;
+        this.ids = ids;
+        this.anos = anos;
+        this.paginas = paginas;
+        this.autores = autores;
+        this.generos = generos;
+        this.editoras = editoras;
+        this.isbns = isbns;
+        this.titulos = titulos;
+        this.nomes = nomes;
+        this.quantidadeNomes = quantidadeNomes;
+        this.anoMinimo = anoMinimo;
+        this.anoMaximo = anoMaximo;
+        this.paginasMaximo = paginasMaximo;
+    }
+
+    /**
+     * @return A coluna de códigos da dimensão; {@link Dimensao#DECADA} não tem coluna própria.
+     */
+    int[] coluna(Dimensao dimensao) {
+        return switch (dimensao) {
+            case AUTOR -> autores;
+            case GENERO -> generos;
+            case EDITORA -> editoras;
+            case DECADA -> throw new IllegalArgumentException("DECADA é calculada a partir dos anos.");
+        };
+    }
+
+    /**
+     * @return Quantos códigos a dimensão tem nesta versão, contando o 0 (não informado).
+     */
+    int cardinalidade(Dimensao dimensao) {
+        return quantidadeNomes[dimensao.ordinal()];
+    }
+
+    String nome(Dimensao dimensao, int codigo) {
+        return nomes[dimensao.ordinal()][codigo];
+    }
+
+    /**
+     * Procura o código de um nome, sem diferenciar maiúsculas. Feito uma vez por consulta, não por linha.
+     *
+     * @return O código, ou -1 se nenhum livro desta versão tiver o nome.
+     */
+    int codigo(Dimensao dimensao, String nome) {
+        String[] daDimensao = nomes[dimensao.ordinal()];
+        for (int codigo = 1; codigo < quantidadeNomes[dimensao.ordinal()]; codigo++) {
+            if (daDimensao[codigo].equalsIgnoreCase(nome)) {
+                return codigo;
+            }
+        }
+        return -1;
+    }
+}
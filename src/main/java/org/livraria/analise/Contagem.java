@@ -0,0 +1,15 @@
+package org.livraria.analise;
+
+/**
+ * Um grupo de uma agregação do {@link CatalogoColunar}.
+ *
+ * @param grupo O nome do grupo (autor, gênero, editora ou década).
+ * @param livros Quantos livros do grupo passaram pelo filtro.
+ */
+public record Contagem(String grupo, long livros) {
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %8d", grupo, livros);
+    }
+}
@@ -0,0 +1,55 @@
+package org.livraria.analise;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codifica os ids de uma tabela de dimensão (autores, gêneros, editoras) em códigos densos 1, 2, 3...,
+ * para que as contagens do {@link CatalogoColunar} usem um vetor indexado pelo código em vez de um mapa.
+ * O código 0 é reservado para livros sem a dimensão (chave estrangeira nula).
+ * <p>
+ * Só é alterado pela carga, sob a trava do catálogo. Os nomes nunca mudam de posição, então uma
+ * {@link Colunas} publicada pode continuar usando o vetor de nomes enquanto a carga acrescenta outros.
+ */
+final class Dicionario {
+
+    static final String NAO_INFORMADO = "(não informado)";
+
+    private final Map<Integer, Integer> codigos = new HashMap<>();
+    private String[] nomes = new String[64];
+    private int quantidade = 1;
+
+    Dicionario() {
+        nomes[0] = NAO_INFORMADO;
+    }
+
+    /**
+     * @param id O id na tabela de dimensão, ou 0 se o livro não tiver a dimensão (coluna nula).
+     * @param nome O nome correspondente ao id.
+     * @return O código denso do id, criado na primeira vez em que ele aparece.
+     */
+    int codificar(int id, String nome) {
+        if (id <= 0) {
+            return 0;
+        }
+        Integer codigo = codigos.get(id);
+        if (codigo != null) {
+            return codigo;
+        }
+        if (quantidade == nomes.length) {
+            nomes = Arrays.copyOf(nomes, nomes.length * 2);
+        }
+        nomes[quantidade] = nome != null ? nome : NAO_INFORMADO;
+        codigos.put(id, quantidade);
+        return quantidade++;
+    }
+
+    String[] getNomes() {
+        return nomes;
+    }
+
+    int getQuantidade() {
+        return quantidade;
+    }
+}
@@ -0,0 +1,14 @@
+package org.livraria.analise;
+
+/**
+ * As dimensões pelas quais o {@link CatalogoColunar} agrupa os livros.
+ */
+public enum Dimensao {
+    AUTOR,
+    GENERO,
+    EDITORA,
+    /**
+     * A década do ano de publicação ("1990s"); livros sem ano ficam em "(sem ano)".
+     */
+    DECADA
+}
@@ -0,0 +1,168 @@
+package org.livraria.analise;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Um critério sobre as colunas do {@link CatalogoColunar}.
+ * <p>
+ * Um filtro não olha um livro de cada vez: no início de cada consulta ele é {@linkplain #preparar(Colunas) preparado}
+ * (nomes viram códigos do dicionário) e depois avaliado por blocos de linhas, com um laço apertado sobre um
+ * único {@code int[]} por critério.
+ */
+public abstract class Filtro {
+
+    /**
+     * Avalia um filtro preparado sobre as linhas {@code [inicio, fim)}.
+     */
+    @FunctionalInterface
+    interface Avaliador {
+        /**
+         * Desmarca em {@code aceitos[i - inicio]} as linhas recusadas; as demais posições não são tocadas.
+         */
+        void aplicar(int inicio, int fim, boolean[] aceitos);
+    }
+
+    private static final Avaliador ACEITA_TUDO = (inicio, fim, aceitos) -> { };
+
+    private static final Filtro TODOS = new Filtro() {
+        @Override
+        Avaliador preparar(Colunas colunas) {
+            return ACEITA_TUDO;
+        }
+
+        @Override
+        public String toString() {
+            return "todos";
+        }
+    };
+
+    Filtro() {
+    }
+
+    abstract Avaliador preparar(Colunas colunas);
+
+    /**
+     * @return Um filtro que aceita todos os livros.
+     */
+    public static Filtro todos() {
+        return TODOS;
+    }
+
+    /**
+     * @return Os livros publicados entre {@code de} e {@code ate}, inclusive. Livros sem ano são recusados.
+     */
+    public static Filtro anoEntre(int de, int ate) {
+        return faixa("ano", de, ate, false);
+    }
+
+    /**
+     * @return Os livros com número de páginas entre {@code de} e {@code ate}, inclusive. Livros sem o número
+     * são recusados.
+     */
+    public static Filtro paginasEntre(int de, int ate) {
+        return faixa("páginas", de, ate, true);
+    }
+
+    /**
+     * @return Os livros do gênero com esse nome, sem diferenciar maiúsculas.
+     */
+    public static Filtro genero(String nome) {
+        return igual(Dimensao.GENERO, nome);
+    }
+
+    /**
+     * @return Os livros do autor com esse nome, sem diferenciar maiúsculas.
+     */
+    public static Filtro autor(String nome) {
+        return igual(Dimensao.AUTOR, nome);
+    }
+
+    /**
+     * @return Os livros da editora com esse nome, sem diferenciar maiúsculas.
+     */
+    public static Filtro editora(String nome) {
+        return igual(Dimensao.EDITORA, nome);
+    }
+
+    /**
+     * @return Os livros aceitos por este filtro e por {@code outro}.
+     */
+    public Filtro e(Filtro outro) {
+        Objects.requireNonNull(outro);
+        Filtro primeiro = this;
+        return new Filtro() {
+            @Override
+            Avaliador preparar(Colunas colunas) {
+                Avaliador a = primeiro.preparar(colunas);
+                Avaliador b = outro.preparar(colunas);
+                if (a == ACEITA_TUDO) {
+                    return b;
+                }
+                if (b == ACEITA_TUDO) {
+                    return a;
+                }
+                return (inicio, fim, aceitos) -> {
+                    a.aplicar(inicio, fim, aceitos);
+                    b.aplicar(inicio, fim, aceitos);
+                };
+            }
+
+            @Override
+            public String toString() {
+                return primeiro + " e " + outro;
+            }
+        };
+    }
+
+    private static Filtro faixa(String rotulo, int de, int ate, boolean paginas) {
+        return new Filtro() {
+            @Override
+            Avaliador preparar(Colunas colunas) {
+                int[] coluna = paginas ? colunas.paginas : colunas.anos;
+                // 0 é "não informado" nas duas colunas.
+                int minimo = Math.max(de, 1);
+                return (inicio, fim, aceitos) -> {
+                    for (int i = inicio; i < fim; i++) {
+                        int valor = coluna[i];
+                        if (valor < minimo || valor > ate) {
+                            aceitos[i - inicio] = false;
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return rotulo + " entre " + de + " e " + ate;
+            }
+        };
+    }
+
+    private static Filtro igual(Dimensao dimensao, String nome) {
+        Objects.requireNonNull(nome);
+        return new Filtro() {
+            @Override
+            Avaliador preparar(Colunas colunas) {
+                int[] coluna = colunas.coluna(dimensao);
+                int codigo = colunas.codigo(dimensao, nome.trim());
+                if (codigo < 0) {
+                    return (inicio, fim, aceitos) -> Arrays.fill(aceitos, 0, fim - inicio, false);
+                }
+                return (inicio, fim, aceitos) -> {
+                    for (int i = inicio; i < fim; i++) {
+                        if (coluna[i] != codigo) {
+                            aceitos[i - inicio] = false;
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return dimensao.name().toLowerCase(Locale.ROOT) + " = " + nome;
+            }
+        };
+    }
+}
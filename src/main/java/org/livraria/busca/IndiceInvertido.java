@@ -0,0 +1,303 @@
+package org.livraria.busca;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória sobre o título e a sinopse dos livros.
+ * <p>
+ * Cada termo (ver {@link Tokenizador}) aponta para uma {@link ListaPostagens} comprimida com os
+ * livros que o contêm. As consultas combinam os termos com E ou OU e ordenam os livros por BM25,
+ * com os termos do título valendo {@value #PESO_TITULO} vezes os da sinopse. Uma busca percorre
+ * apenas as postagens dos termos consultados, sem varrer a tabela.
+ * <p>
+ * O índice é carregado da tabela 'livros' ({@link #carregar(Connection)}) e atualizado a cada livro
+ * inserido ({@link #adicionar(int, String, String)}). Leituras concorrentes não se bloqueiam.
+ */
+public class IndiceInvertido {
+
+    /**
+     * Número máximo de resultados devolvidos quando nenhum limite é informado.
+     */
+    public static final int LIMITE_PADRAO = 20;
+
+    private static final int PESO_TITULO = 3;
+    private static final int TAMANHO_FETCH = 1000;
+
+    // Parâmetros usuais do BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, ListaPostagens> postagens = new HashMap<>();
+    private final BitSet indexados = new BitSet();
+    private String[] titulos = new String[1024];
+    private int[] comprimentos = new int[1024];
+    private int documentos = 0;
+    private long comprimentoTotal = 0;
+
+    /**
+     * Recria o índice a partir da tabela 'livros'.
+     *
+     * @param conn Uma conexão ativa.
+     * @return O número de livros indexados.
+     * @throws SQLException Se a leitura da tabela falhar.
+     */
+    public int carregar(Connection conn) throws SQLException {
+        limpar();
+        try (PreparedStatement statement = conn.prepareStatement("SELECT id, titulo, sinopse FROM livros ORDER BY id",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(TAMANHO_FETCH);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    adicionar(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3));
+                }
+            }
+        }
+        return getDocumentos();
+    }
+
+    /**
+     * Indexa um livro. Um id já indexado é ignorado.
+     *
+     * @param id O id do livro na tabela 'livros'.
+     * @param titulo O título do livro.
+     * @param sinopse A sinopse do livro; pode ser nula.
+     * @return true se o livro foi indexado, false se o id já estava no índice.
+     */
+    public boolean adicionar(int id, String titulo, String sinopse) {
+        if (id < 0) {
+            throw new IllegalArgumentException("O id do livro não pode ser negativo.");
+        }
+
+        // A tokenização acontece fora do lock; só a atualização das postagens é exclusiva.
+        Map<String, Integer> frequencias = new HashMap<>();
+        for (String termo : Tokenizador.tokenizar(titulo)) {
+            frequencias.merge(termo, PESO_TITULO, Integer::sum);
+        }
+        for (String termo : Tokenizador.tokenizar(sinopse)) {
+            frequencias.merge(termo, 1, Integer::sum);
+        }
+        int comprimento = frequencias.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            if (indexados.get(id)) {
+                return false;
+            }
+            garantirCapacidade(id);
+            indexados.set(id);
+            titulos[id] = titulo;
+            comprimentos[id] = comprimento;
+            documentos++;
+            comprimentoTotal += comprimento;
+            frequencias.forEach((termo, frequencia) ->
+                    postagens.computeIfAbsent(termo, t -> new ListaPostagens()).adicionar(id, frequencia));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca livros pelos termos da consulta.
+     *
+     * @param consulta As palavras-chave, separadas por espaços.
+     * @param todosOsTermos true para exigir todos os termos (E), false para aceitar qualquer um (OU).
+     * @param limite O número máximo de resultados.
+     * @return Os livros encontrados, do mais para o menos relevante.
+     */
+    public List<ResultadoBusca> buscar(String consulta, boolean todosOsTermos, int limite) {
+        Set<String> termos = new LinkedHashSet<>(Tokenizador.tokenizar(consulta));
+        if (termos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Começa pela lista mais curta: na interseção, o resultado nunca passa do seu tamanho.
+            List<ListaPostagens> listas = new ArrayList<>(termos.size());
+            for (String termo : termos) {
+                ListaPostagens lista = postagens.get(termo);
+                if (lista != null) {
+                    listas.add(lista);
+                } else if (todosOsTermos) {
+                    return List.of();
+                }
+            }
+            if (listas.isEmpty()) {
+                return List.of();
+            }
+            listas.sort((a, b) -> Integer.compare(a.quantidade(), b.quantidade()));
+
+            double comprimentoMedio = (double) comprimentoTotal / documentos;
+            Parcial acumulado = null;
+            for (ListaPostagens lista : listas) {
+                Parcial parcial = pontuar(lista, comprimentoMedio);
+                acumulado = acumulado == null ? parcial : combinar(acumulado, parcial, todosOsTermos);
+                if (todosOsTermos && acumulado.tamanho == 0) {
+                    return List.of();
+                }
+            }
+            return melhores(acumulado, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDocumentos() {
+        lock.readLock().lock();
+        try {
+            return documentos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermos() {
+        lock.readLock().lock();
+        try {
+            return postagens.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return O total de bytes ocupado pelas postagens comprimidas.
+     */
+    public long getTamanhoPostagensBytes() {
+        lock.readLock().lock();
+        try {
+            return postagens.values().stream().mapToLong(ListaPostagens::tamanhoBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            postagens.clear();
+            indexados.clear();
+            Arrays.fill(titulos, null);
+            Arrays.fill(comprimentos, 0);
+            documentos = 0;
+            comprimentoTotal = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Índice de busca: %d livros, %d termos, %.1f KB de postagens",
+                getDocumentos(), getTermos(), getTamanhoPostagensBytes() / 1024.0);
+    }
+
+    /**
+     * Ids em ordem crescente com suas pontuações acumuladas.
+     */
+    private record Parcial(int[] ids, double[] pontuacoes, int tamanho) {
+    }
+
+    private Parcial pontuar(ListaPostagens lista, double comprimentoMedio) {
+        int n = lista.quantidade();
+        int[] ids = new int[n];
+        int[] frequencias = new int[n];
+        lista.decodificar(ids, frequencias);
+
+        double idf = Math.log(1 + (documentos - n + 0.5) / (n + 0.5));
+        double[] pontuacoes = new double[n];
+        for (int i = 0; i < n; i++) {
+            double tf = frequencias[i];
+            double normalizacao = K1 * (1 - B + B * comprimentos[ids[i]] / comprimentoMedio);
+            pontuacoes[i] = idf * tf * (K1 + 1) / (tf + normalizacao);
+        }
+        return new Parcial(ids, pontuacoes, n);
+    }
+
+    /**
+     * Intercala duas listas ordenadas somando as pontuações: interseção (E) ou união (OU).
+     */
+    private static Parcial combinar(Parcial a, Parcial b, boolean intersecao) {
+        int capacidade = intersecao ? Math.min(a.tamanho, b.tamanho) : a.tamanho + b.tamanho;
+        int[] ids = new int[capacidade];
+        double[] pontuacoes = new double[capacidade];
+        int i = 0, j = 0, n = 0;
+        while (i < a.tamanho && j < b.tamanho) {
+            int idA = a.ids[i];
+            int idB = b.ids[j];
+            if (idA == idB) {
+                ids[n] = idA;
+                pontuacoes[n++] = a.pontuacoes[i++] + b.pontuacoes[j++];
+            } else if (idA < idB) {
+                if (!intersecao) {
+                    ids[n] = idA;
+                    pontuacoes[n++] = a.pontuacoes[i];
+                }
+                i++;
+            } else {
+                if (!intersecao) {
+                    ids[n] = idB;
+                    pontuacoes[n++] = b.pontuacoes[j];
+                }
+                j++;
+            }
+        }
+        if (!intersecao) {
+            for (; i < a.tamanho; i++, n++) {
+                ids[n] = a.ids[i];
+                pontuacoes[n] = a.pontuacoes[i];
+            }
+            for (; j < b.tamanho; j++, n++) {
+                ids[n] = b.ids[j];
+                pontuacoes[n] = b.pontuacoes[j];
+            }
+        }
+        return new Parcial(ids, pontuacoes, n);
+    }
+
+    /**
+     * Seleciona os {@code limite} livros mais relevantes com um heap de tamanho fixo.
+     */
+    private List<ResultadoBusca> melhores(Parcial parcial, int limite) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limite, parcial.tamanho) + 1,
+                (x, y) -> Double.compare(parcial.pontuacoes[x], parcial.pontuacoes[y]));
+        for (int i = 0; i < parcial.tamanho; i++) {
+            if (heap.size() < limite) {
+                heap.add(i);
+            } else if (parcial.pontuacoes[i] > parcial.pontuacoes[heap.peek()]) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        ResultadoBusca[] resultados = new ResultadoBusca[heap.size()];
+        for (int k = resultados.length - 1; k >= 0; k--) {
+            int i = heap.poll();
+            resultados[k] = new ResultadoBusca(parcial.ids[i], titulos[parcial.ids[i]], parcial.pontuacoes[i]);
+        }
+        return List.of(resultados);
+    }
+
+    private void garantirCapacidade(int id) {
+        if (id >= titulos.length) {
+            int capacidade = Math.max(titulos.length * 2, id + 1);
+            titulos = Arrays.copyOf(titulos, capacidade);
+            comprimentos = Arrays.copyOf(comprimentos, capacidade);
+        }
+    }
+}
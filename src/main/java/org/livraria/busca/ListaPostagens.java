@@ -0,0 +1,109 @@
+package org.livraria.busca;
+
+import java.util.Arrays;
+
+/**
+ * Lista de postagens comprimida de um termo: os ids dos livros que contêm o termo, em ordem
+ * crescente, cada um com a frequência do termo no livro.
+ * <p>
+ * Os ids são gravados como diferenças em relação ao anterior e, junto com as frequências,
+ * codificados em inteiros de tamanho variável (7 bits por byte). Como os ids do AUTO_INCREMENT
+ * são próximos, a maioria das postagens ocupa 2 bytes. Não é thread-safe; o acesso é
+ * coordenado pelo {@link IndiceInvertido}.
+ */
+class ListaPostagens {
+
+    private byte[] dados = new byte[8];
+    private int tamanhoBytes = 0;
+    private int quantidade = 0;
+    private int ultimoId = -1;
+
+    /**
+     * Adiciona uma postagem. Ids fora de ordem são aceitos, mas exigem recodificar a lista.
+     */
+    void adicionar(int id, int frequencia) {
+        if (id > ultimoId) {
+            escrever(id - Math.max(ultimoId, 0), frequencia);
+            ultimoId = id;
+            quantidade++;
+            return;
+        }
+
+        // Caso raro (ex.: lote confirmado fora de ordem): decodifica, insere na posição e recodifica.
+        int[] ids = new int[quantidade + 1];
+        int[] frequencias = new int[quantidade + 1];
+        decodificar(ids, frequencias);
+        int posicao = Arrays.binarySearch(ids, 0, quantidade, id);
+        if (posicao >= 0) {
+            return;
+        }
+        posicao = -posicao - 1;
+        System.arraycopy(ids, posicao, ids, posicao + 1, quantidade - posicao);
+        System.arraycopy(frequencias, posicao, frequencias, posicao + 1, quantidade - posicao);
+        ids[posicao] = id;
+        frequencias[posicao] = frequencia;
+
+        int total = quantidade + 1;
+        tamanhoBytes = 0;
+        quantidade = 0;
+        ultimoId = -1;
+        for (int i = 0; i < total; i++) {
+            adicionar(ids[i], frequencias[i]);
+        }
+    }
+
+    /**
+     * Decodifica a lista nos arrays informados, que devem ter pelo menos {@link #quantidade()} posições.
+     */
+    void decodificar(int[] ids, int[] frequencias) {
+        int posicao = 0;
+        int id = 0;
+        for (int i = 0; i < quantidade; i++) {
+            int delta = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                delta |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+            id += delta;
+
+            int frequencia = 0;
+            deslocamento = 0;
+            do {
+                b = dados[posicao++];
+                frequencia |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while (b < 0);
+
+            ids[i] = id;
+            frequencias[i] = frequencia;
+        }
+    }
+
+    int quantidade() {
+        return quantidade;
+    }
+
+    int tamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    private void escrever(int delta, int frequencia) {
+        if (tamanhoBytes + 10 > dados.length) {
+            dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanhoBytes + 10));
+        }
+        tamanhoBytes = escreverVarint(delta, tamanhoBytes);
+        tamanhoBytes = escreverVarint(frequencia, tamanhoBytes);
+    }
+
+    private int escreverVarint(int valor, int posicao) {
+        while ((valor & ~0x7F) != 0) {
+            dados[posicao++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        dados[posicao++] = (byte) valor;
+        return posicao;
+    }
+}
@@ -0,0 +1,16 @@
+package org.livraria.busca;
+
+/**
+ * Um livro encontrado por uma busca por palavras-chave.
+ *
+ * @param id O id do livro na tabela 'livros'.
+ * @param titulo O título do livro.
+ * @param pontuacao A relevância (BM25) do livro para a consulta; maior é mais relevante.
+ */
+public record ResultadoBusca(int id, String titulo, double pontuacao) {
+
+    @Override
+    public String toString() {
+        return String.format("[%d] %s (%.2f)", id, titulo, pontuacao);
+    }
+}
@@ -0,0 +1,65 @@
+package org.livraria.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Quebra textos em português em termos para o índice de busca.
+ * <p>
+ * Os termos são normalizados sem acentos e em minúsculas ("Ficção" → "ficcao"), então a busca
+ * encontra o livro com ou sem acentuação. Palavras de uma letra e palavras vazias comuns
+ * ("de", "para", "com"...) são descartadas.
+ */
+public final class Tokenizador {
+
+    private static final int TAMANHO_MINIMO = 2;
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos", "em", "na", "no",
+            "nas", "nos", "ao", "aos", "para", "pra", "por", "pela", "pelo", "pelas", "pelos", "com",
+            "sem", "que", "se", "ou", "mas", "como", "seu", "sua", "seus", "suas", "ele", "ela", "eles",
+            "elas", "num", "numa", "este", "esta", "esse", "essa", "isso", "isto", "the", "of", "and");
+
+    private Tokenizador() {
+    }
+
+    /**
+     * @param texto O texto a ser quebrado; pode ser nulo.
+     * @return Os termos normalizados, na ordem em que aparecem (com repetições).
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return termos;
+        }
+
+        // NFD separa as letras dos acentos ("ç" → "c" + cedilha), que são então ignorados.
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder termo = new StringBuilder();
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                termo.append(Character.toLowerCase(c));
+            } else {
+                adicionarTermo(termos, termo);
+            }
+        }
+        adicionarTermo(termos, termo);
+        return termos;
+    }
+
+    private static void adicionarTermo(List<String> termos, StringBuilder termo) {
+        if (termo.length() >= TAMANHO_MINIMO) {
+            String valor = termo.toString();
+            if (!PALAVRAS_VAZIAS.contains(valor)) {
+                termos.add(valor);
+            }
+        }
+        termo.setLength(0);
+    }
+}
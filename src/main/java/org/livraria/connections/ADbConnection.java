@@ -1,11 +1,26 @@
 package org.livraria.connections;
 
+import org.livraria.analise.CatalogoColunar;
+import org.livraria.busca.IndiceInvertido;
+import org.livraria.busca.ResultadoBusca;
 import org.livraria.interfaces.IDbConnection;
+import org.livraria.log.Log;
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
 import org.livraria.types.Livro;
+import java.io.IOException;
 import java.sql.*;
-import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 /**
  * Abstract base class for database connections.
@@ -19,6 +34,94 @@ public abstract class ADbConnection implements IDbConnection {
     protected final String password;
     protected Connection connection = null;
 
+    /**
+     * Default number of books written per batch/transaction by {@link #inserirLivros(List)}.
+     */
+    public static final int TAMANHO_LOTE_PADRAO = 100;
+
+    /**
+     * Maximum number of names kept per dimension table in {@link #cacheDimensoes}.
+     */
+    public static final int CAPACIDADE_CACHE_DIMENSOES = 10_000;
+
+    /**
+     * Name → id cache for 'autores', 'generos' and 'editoras', shared by all inserts of this connection.
+     */
+    protected final CacheDimensoes cacheDimensoes = new CacheDimensoes(CAPACIDADE_CACHE_DIMENSOES);
+
+    /**
+     * Resolves dimension names to ids through {@link #cacheDimensoes}, with one query per table per batch
+     * and upserts for the missing names.
+     */
+    private final ResolvedorDimensoes resolvedorDimensoes = new ResolvedorDimensoes(cacheDimensoes);
+
+    /**
+     * Rows fetched per round trip by {@link #selectStreaming(String, int)}.
+     * MySQL only honours it with {@code useCursorFetch=true}, which the connections set by default.
+     */
+    public static final int TAMANHO_FETCH = 500;
+
+    /**
+     * ISBN-13s already stored in 'livros', used to reject duplicates before any SQL is issued.
+     */
+    protected final ConjuntoIsbn isbnsCadastrados = new ConjuntoIsbn();
+    private final AtomicLong duplicadosIgnorados = new AtomicLong();
+
+    /**
+     * Full-text index over the title and synopsis of the stored books, kept in sync by the insert path.
+     * Loaded on the first {@link #pesquisar(String, boolean, int)}, so batch imports never pay for it.
+     */
+    protected final IndiceInvertido indiceLivros = new IndiceInvertido();
+    private final Object cargaIndice = new Object();
+    private volatile boolean indiceCarregado = false;
+
+    /**
+     * Columnar copy of 'livros' for catalog statistics, loaded on first use and refreshed by id watermark.
+     */
+    protected final CatalogoColunar catalogo = new CatalogoColunar();
+
+    /**
+     * Largest table {@link #select(String)} and {@link #selectStreaming(String, int)} keep in the query cache.
+     * Bigger tables are always read from the database, so the streaming path keeps its flat memory use.
+     */
+    public static final int LINHAS_MAXIMAS_CACHE_TABELA = 10_000;
+
+    /**
+     * Results of the read queries, invalidated after every commit that touches the tables they read.
+     */
+    protected final CacheConsultas cacheConsultas = new CacheConsultas();
+
+    /**
+     * Prepared statements of the single shared {@link #connection}; pooled subclasses keep one cache per
+     * pooled connection instead (see {@link PoolConexoes}).
+     */
+    private CacheStatements statementsCompartilhados = null;
+
+    /**
+     * Held for the whole lease of the single shared {@link #connection}. Transactions belong to the connection,
+     * so two threads toggling autoCommit on it would commit or roll back each other's batches.
+     */
+    private final ReentrantLock conexaoCompartilhadaEmUso = new ReentrantLock();
+
+    // Histogramas dos estágios de persistência (ver Metricas)
+    private static final HistogramaLatencia LAT_INSERIR_LIVRO = Metricas.histograma(Metricas.DB_INSERIR_LIVRO);
+    private static final HistogramaLatencia LAT_INSERIR_LOTE = Metricas.histograma(Metricas.DB_INSERIR_LOTE);
+    private static final HistogramaLatencia LAT_COMMIT = Metricas.histograma(Metricas.DB_COMMIT);
+    private static final HistogramaLatencia LAT_SELECT = Metricas.histograma(Metricas.DB_SELECT);
+    private static final HistogramaLatencia LAT_CONSULTA_LIVROS = Metricas.histograma(Metricas.DB_CONSULTA_LIVROS);
+    private static final HistogramaLatencia LAT_BUSCA_INDICE = Metricas.histograma(Metricas.BUSCA_INDICE);
+    private static final LongAdder LIVROS_INSERIDOS = Metricas.contador(Metricas.LIVROS_INSERIDOS);
+    private static final LongAdder LIVROS_FALHAS = Metricas.contador(Metricas.LIVROS_FALHAS);
+
+    protected static final Log LOG = Log.de(ADbConnection.class);
+
+    /**
+     * Shared by every connection: the migration script is parsed once per JVM.
+     */
+    private static final GerenciadorEsquema ESQUEMA = new GerenciadorEsquema();
+
+    private static final String SQL_INSERT_LIVRO = "INSERT INTO livros (titulo, sinopse, ano_publicacao, numero_paginas, isbn, idioma_origem, autor_id, genero_id, editora_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * Constructor to initialize the connection details.
      * @param url The full JDBC URL for the database.
@@ -35,16 +138,292 @@ public abstract class ADbConnection implements IDbConnection {
     }
 
     /**
-     * Provides the active database connection object.
-     * Throws a RuntimeException if the connection is not active or has been closed.
-     * @return The active SQL Connection object.
+     * Lends a connection for a single operation or transaction.
+     * The default implementation lends the single shared connection to one thread at a time: other threads
+     * wait until the lease is returned (a thread may borrow it again while holding it). Pooled subclasses
+     * override it to borrow from and give back to their pool.
+     * Must be used in a try-with-resources block, and returned by the thread that borrowed it.
+     * @return A lease over an active connection.
+     * @throws SQLException If the connection is not active.
      */
     @Override
-    public Connection getConnection() {
+    public ConexaoEmprestada emprestarConexao() throws SQLException {
         if (!isConnected()) {
-            throw new RuntimeException("Connection is not active. Please call connect() before getting the connection.");
+            throw new SQLException("Connection is not active. Please call connect() before borrowing a connection.");
+        }
+        conexaoCompartilhadaEmUso.lock();
+        try {
+            Connection conn = this.connection;
+            return new ConexaoEmprestada(conn, statementsDe(conn), conexao -> conexaoCompartilhadaEmUso.unlock());
+        } catch (RuntimeException | Error e) {
+            conexaoCompartilhadaEmUso.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The statement cache of the shared connection, replaced whenever the connection changes.
+     */
+    private synchronized CacheStatements statementsDe(Connection conn) {
+        if (statementsCompartilhados == null || !statementsCompartilhados.isDe(conn)) {
+            fecharStatements();
+            statementsCompartilhados = new CacheStatements(conn, CacheStatements.CAPACIDADE_PADRAO);
+        }
+        return statementsCompartilhados;
+    }
+
+    /**
+     * Closes the cached statements of the shared connection. Called by subclasses before closing it.
+     */
+    protected synchronized void fecharStatements() {
+        if (statementsCompartilhados != null) {
+            statementsCompartilhados.close();
+            statementsCompartilhados = null;
+        }
+    }
+
+    /**
+     * Pre-loads the in-memory structures used by the insert path: the dimension id cache and the
+     * set of ISBNs already stored. The search index is only reset here; it is loaded on the first search.
+     * Called by subclasses right after connecting.
+     * @param conn An active connection.
+     */
+    protected void aquecerCaches(Connection conn) {
+        cacheConsultas.limpar();
+
+        try {
+            int carregados = cacheDimensoes.aquecer(conn);
+            LOG.info("Cache de dimensões pré-carregado com " + carregados + " entradas.");
+        } catch (SQLException e) {
+            LOG.aviso("Não foi possível pré-carregar o cache de dimensões: " + e.getMessage());
+        }
+
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT isbn FROM livros WHERE isbn IS NOT NULL")) {
+            isbnsCadastrados.limpar();
+            while (resultSet.next()) {
+                isbnsCadastrados.adicionar(resultSet.getString(1));
+            }
+            LOG.info("ISBNs cadastrados carregados: " + isbnsCadastrados.tamanho() + ".");
+        } catch (SQLException e) {
+            LOG.aviso("Não foi possível carregar os ISBNs cadastrados: " + e.getMessage());
+        }
+        // O índice de busca é recarregado só na próxima pesquisa.
+        indiceCarregado = false;
+        indiceLivros.limpar();
+    }
+
+    /**
+     * Loads the full-text index from the 'livros' table if it was not loaded since the last connect.
+     * Books inserted meanwhile were already added by the insert path; the load keeps them, since
+     * {@link IndiceInvertido#carregar(Connection)} reads every committed row.
+     * @return false if the index could not be loaded; it will be tried again on the next search.
+     */
+    private boolean carregarIndiceSeNecessario() {
+        if (indiceCarregado) {
+            return true;
+        }
+        synchronized (cargaIndice) {
+            if (indiceCarregado) {
+                return true;
+            }
+            try (ConexaoEmprestada emprestimo = emprestarConexao()) {
+                indiceLivros.carregar(emprestimo.getConexao());
+                indiceCarregado = true;
+                LOG.info(indiceLivros + ".");
+                return true;
+            } catch (SQLException e) {
+                LOG.aviso(falhaSql("Não foi possível carregar o índice de busca", e));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return How many books were skipped because their ISBN was already stored.
+     */
+    public long getDuplicadosIgnorados() {
+        return duplicadosIgnorados.get();
+    }
+
+    /**
+     * Provides the name → id cache used for the dimension tables.
+     * @return The dimension cache of this connection, including its hit/miss counters.
+     */
+    public CacheDimensoes getCacheDimensoes() {
+        return cacheDimensoes;
+    }
+
+    /**
+     * Provides the cache of query results used by the typed queries and the table listings.
+     * @return The query cache of this connection, including its hit ratio.
+     */
+    public CacheConsultas getCacheConsultas() {
+        return cacheConsultas;
+    }
+
+    /**
+     * Provides the full-text index used by {@link #pesquisar(String, boolean, int)}.
+     * @return The book index of this connection; empty until the first search loads it.
+     */
+    public IndiceInvertido getIndiceLivros() {
+        return indiceLivros;
+    }
+
+    /**
+     * Brings the columnar catalog up to date and provides it. Only the books above the highest loaded id, plus a
+     * trailing window below it for rows committed out of id order, are read, so repeated statistics do not rescan
+     * the 'livros' table (see {@link CatalogoColunar} for when a full reload happens).
+     * @return The catalog; if the database cannot be read, the last loaded version.
+     */
+    public CatalogoColunar atualizarCatalogo() {
+        if (!isConnected()) {
+            LOG.erro("Não é possível atualizar o catálogo. A conexão com o banco de dados não está ativa.");
+            return catalogo;
+        }
+        try (ConexaoEmprestada emprestimo = emprestarConexao()) {
+            int novos = catalogo.atualizar(emprestimo.getConexao());
+            if (novos > 0) {
+                LOG.info(novos + " livro(s) acrescentado(s) ao catálogo. " + catalogo + ".");
+            }
+        } catch (SQLException e) {
+            LOG.aviso(falhaSql("Não foi possível atualizar o catálogo", e));
+        }
+        return catalogo;
+    }
+
+    /**
+     * Searches the stored books by keywords in their title or synopsis, using the in-memory index
+     * instead of scanning the 'livros' table. Accents and letter case are ignored.
+     * @param consulta The keywords, separated by spaces.
+     * @param todosOsTermos true to require every keyword (AND), false to accept any of them (OR).
+     * @param limite The maximum number of results.
+     * @return The matching books, most relevant first; empty if the index could not be loaded.
+     */
+    @Override
+    public List<ResultadoBusca> pesquisar(String consulta, boolean todosOsTermos, int limite) {
+        if (!carregarIndiceSeNecessario()) {
+            return List.of();
+        }
+        long inicio = System.nanoTime();
+        try {
+            return indiceLivros.buscar(consulta, todosOsTermos, limite);
+        } finally {
+            LAT_BUSCA_INDICE.registrarDesde(inicio);
+        }
+    }
+
+    @Override
+    public List<Livro> buscarPorAutor(String autor) {
+        return consultarLivros(MapeadorLivros.SQL_POR_AUTOR, autor);
+    }
+
+    @Override
+    public List<Livro> buscarPorGenero(String genero) {
+        return consultarLivros(MapeadorLivros.SQL_POR_GENERO, genero);
+    }
+
+    @Override
+    public List<Livro> buscarPorEditora(String editora) {
+        return consultarLivros(MapeadorLivros.SQL_POR_EDITORA, editora);
+    }
+
+    @Override
+    public List<Livro> buscarPorAno(int anoInicial, int anoFinal) {
+        return consultarLivros(MapeadorLivros.SQL_POR_ANO, anoInicial, anoFinal);
+    }
+
+    @Override
+    public Optional<Livro> buscarPorIsbn(String isbn) {
+        if (isbn == null || isbn.isBlank()) {
+            return Optional.empty();
+        }
+        List<Livro> livros = consultarLivros(MapeadorLivros.SQL_POR_ISBN, isbn);
+        return livros.isEmpty() ? Optional.empty() : Optional.of(livros.get(0));
+    }
+
+    /**
+     * Reads every stored book lazily, {@link #TAMANHO_FETCH} rows per round trip (on MySQL, through the
+     * {@code useCursorFetch} cursor the connections enable). The borrowed connection is only given back when
+     * the stream is closed.
+     * @return A lazy stream of books ordered by id, or an empty stream on error.
+     */
+    @Override
+    public Stream<Livro> streamLivros() {
+        if (!isConnected()) {
+            LOG.erro("Não é possível buscar os livros. A conexão com o banco de dados não está ativa.");
+            return Stream.empty();
+        }
+
+        ConexaoEmprestada emprestimo;
+        try {
+            emprestimo = emprestarConexao();
+        } catch (SQLException e) {
+            LOG.erro("Não foi possível obter uma conexão para ler os livros: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        PreparedStatement statement = null;
+        try {
+            statement = emprestimo.getConexao().prepareStatement(MapeadorLivros.SQL_TODOS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(TAMANHO_FETCH);
+            return MapeadorLivros.stream(emprestimo, statement, statement.executeQuery());
+        } catch (SQLException e) {
+            LOG.erro("Falha ao consultar os livros: " + e.getMessage());
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException ex) {
+                LOG.aviso("Erro ao fechar a consulta de livros: " + ex.getMessage());
+            }
+            emprestimo.close();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Executa uma das consultas de {@link MapeadorLivros} e materializa o resultado, servindo do
+     * {@link CacheConsultas} as consultas repetidas. A lista devolvida não pode ser alterada.
+     * Em caso de erro, registra a falha e devolve uma lista vazia.
+     *
+     * @param parametros Os valores dos {@code ?} da consulta, na ordem.
+     */
+    private List<Livro> consultarLivros(String sql, Object... parametros) {
+        if (!isConnected()) {
+            LOG.erro("Não é possível buscar os livros. A conexão com o banco de dados não está ativa.");
+            return Collections.emptyList();
+        }
+
+        CacheConsultas.Chave chave = new CacheConsultas.Chave(sql, parametros);
+        List<Livro> emCache = cacheConsultas.buscar(chave);
+        if (emCache != null) {
+            return emCache;
+        }
+
+        long marca = cacheConsultas.marca();
+        long inicio = System.nanoTime();
+        try (ConexaoEmprestada emprestimo = emprestarConexao();
+             PreparedStatement statement = emprestimo.preparar(sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                statement.setObject(i + 1, parametros[i]);
+            }
+            List<Livro> livros = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    livros.add(MapeadorLivros.mapear(resultSet));
+                }
+            }
+            List<Livro> resultado = Collections.unmodifiableList(livros);
+            cacheConsultas.guardar(chave, resultado, MapeadorLivros.TABELAS, marca);
+            return resultado;
+        } catch (SQLException e) {
+            LOG.erro(falhaSql("Falha ao consultar os livros.", e));
+            return Collections.emptyList();
+        } finally {
+            LAT_CONSULTA_LIVROS.registrarDesde(inicio);
         }
-        return this.connection;
     }
 
     /**
@@ -55,7 +434,7 @@ public abstract class ADbConnection implements IDbConnection {
         try {
             return this.connection != null && !this.connection.isClosed();
         } catch (SQLException e) {
-            System.err.println("Error checking connection status: " + e.getMessage());
+            LOG.erro("Error checking connection status: " + e.getMessage());
             return false;
         }
     }
@@ -63,116 +442,224 @@ public abstract class ADbConnection implements IDbConnection {
     /**
      * Selects and displays all records from a table.
      * Assumes the table has at least 'id', 'nome', and 'email' columns.
+     * Tables up to {@link #LINHAS_MAXIMAS_CACHE_TABELA} rows are kept in the query cache until a commit changes them.
      * @param table The name of the table to query (e.g., "usuarios").
      * @return true if the select is successful and prints results, false if an error occurs.
      */
     @Override
     public Boolean select(String table) {
         if (!isConnected()) {
-            System.err.println("Não é possível buscar dados. A conexão com o banco de dados não está ativa.");
+            LOG.erro("Não é possível buscar dados. A conexão com o banco de dados não está ativa.");
             return false;
         }
 
         String selectSQL = String.format("SELECT * FROM %s", table);
+        CacheConsultas.Chave chave = new CacheConsultas.Chave(selectSQL);
 
-        System.out.println("Executando busca de dados na tabela: " + table);
+        LOG.debug(() -> "Executando busca de dados na tabela: " + table);
+        long inicio = System.nanoTime();
 
-        try (PreparedStatement preparedStatement = this.connection.prepareStatement(selectSQL);
-             ResultSet resultSet = preparedStatement.executeQuery()) {
+        TabelaLida tabela = cacheConsultas.buscar(chave);
+        if (tabela == null) {
+            long marca = cacheConsultas.marca();
+            try (ConexaoEmprestada emprestimo = emprestarConexao();
+                 PreparedStatement preparedStatement = emprestimo.preparar(selectSQL);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+                tabela = lerTabela(resultSet);
+            } catch (SQLException e) {
+                LOG.erro(falhaSql("Falha ao executar o comando SELECT na tabela '" + table + "'.", e));
+                return false;
+            } finally {
+                LAT_SELECT.registrarDesde(inicio);
+            }
+            if (tabela.linhas().size() <= LINHAS_MAXIMAS_CACHE_TABELA) {
+                cacheConsultas.guardar(chave, tabela, Set.of(table), marca);
+            }
+        }
 
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
+        imprimirTabela(table, tabela);
+        return true;
+    }
 
-            // Armazenar os nomes das colunas e as larguras máximas
-            String[] columnNames = new String[columnCount];
-            int[] columnWidths = new int[columnCount];
+    /**
+     * Uma tabela lida por inteiro: os nomes das colunas e as linhas, com os nulos já trocados por "NULL".
+     * É o que fica no {@link CacheConsultas} para {@code SELECT * FROM tabela}.
+     */
+    private record TabelaLida(String[] colunas, List<String[]> linhas) {
+    }
 
-            // Lista para armazenar todas as linhas de dados
-            List<String[]> dataRows = new ArrayList<>();
+    private static TabelaLida lerTabela(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
 
-            // 1. Primeira Passagem: Coletar dados e calcular a largura máxima de cada coluna
+        List<String[]> dataRows = new ArrayList<>();
+        while (resultSet.next()) {
+            String[] row = new String[columnCount];
             for (int i = 0; i < columnCount; i++) {
-                columnNames[i] = metaData.getColumnName(i + 1);
-                // Inicializa a largura com o tamanho do nome da coluna
-                columnWidths[i] = columnNames[i].length();
+                // Obtém o valor como String (seguro para todos os tipos)
+                String value = resultSet.getString(i + 1);
+                row[i] = value == null ? "NULL" : value; // Trata valores nulos
             }
+            dataRows.add(row);
+        }
+        return new TabelaLida(columnNames, Collections.unmodifiableList(dataRows));
+    }
 
-            while (resultSet.next()) {
-                String[] row = new String[columnCount];
-                for (int i = 0; i < columnCount; i++) {
-                    // Obtém o valor como String (seguro para todos os tipos)
-                    String value = resultSet.getString(i + 1);
-                    if (value == null) {
-                        value = "NULL"; // Trata valores nulos
-                    }
-                    row[i] = value;
+    private static void imprimirTabela(String table, TabelaLida tabela) {
+        String[] columnNames = tabela.colunas();
+        List<String[]> dataRows = tabela.linhas();
+        int columnCount = columnNames.length;
 
-                    // Atualiza a largura máxima da coluna
-                    columnWidths[i] = Math.max(columnWidths[i], value.length());
-                }
-                dataRows.add(row);
-            }
+        System.out.println("--- Resultados da Tabela: " + table + " ---");
+        if (dataRows.isEmpty()) {
+            System.out.println("Nenhum registro encontrado na tabela.");
+            System.out.println("----------------------------------------");
+            return;
+        }
 
-            if (dataRows.isEmpty()) {
-                System.out.println("--- Resultados da Tabela: " + table + " ---");
-                System.out.println("Nenhum registro encontrado na tabela.");
-                System.out.println("----------------------------------------");
-                return true;
+        // 1. Primeira Passagem: calcular a largura máxima de cada coluna
+        int[] columnWidths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            // Inicializa a largura com o tamanho do nome da coluna
+            columnWidths[i] = columnNames[i].length();
+        }
+        for (String[] row : dataRows) {
+            for (int i = 0; i < columnCount; i++) {
+                columnWidths[i] = Math.max(columnWidths[i], row[i].length());
             }
+        }
 
-            // 2. Segunda Passagem: Exibir a tabela formatada
+        // 2. Segunda Passagem: Exibir a tabela formatada
 
-            System.out.println("--- Resultados da Tabela: " + table + " ---");
+        // Função auxiliar para formatar a string com preenchimento
+        java.util.function.BiFunction<String, Integer, String> padRight = (s, n) ->
+                String.format("%-" + n + "s", s);
 
-            // Função auxiliar para formatar a string com preenchimento
-            java.util.function.BiFunction<String, Integer, String> padRight = (s, n) ->
-                    String.format("%-" + n + "s", s);
+        // Exibir Cabeçalho
+        StringBuilder headerBuilder = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            headerBuilder.append(padRight.apply(columnNames[i], columnWidths[i]));
+            if (i < columnCount - 1) {
+                headerBuilder.append(" | ");
+            }
+        }
+        System.out.println(headerBuilder.toString());
 
-            // Exibir Cabeçalho
-            StringBuilder headerBuilder = new StringBuilder();
-            for (int i = 0; i < columnCount; i++) {
-                headerBuilder.append(padRight.apply(columnNames[i], columnWidths[i]));
-                if (i < columnCount - 1) {
-                    headerBuilder.append(" | ");
-                }
+        // Exibir Linha Separadora
+        StringBuilder separatorBuilder = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            separatorBuilder.append("-".repeat(columnWidths[i]));
+            if (i < columnCount - 1) {
+                separatorBuilder.append("-+-");
             }
-            System.out.println(headerBuilder.toString());
+        }
+        System.out.println(separatorBuilder.toString());
 
-            // Exibir Linha Separadora
-            StringBuilder separatorBuilder = new StringBuilder();
+        // Exibir Dados
+        for (String[] row : dataRows) {
+            StringBuilder rowBuilder = new StringBuilder();
             for (int i = 0; i < columnCount; i++) {
-                separatorBuilder.append("-".repeat(columnWidths[i]));
+                rowBuilder.append(padRight.apply(row[i], columnWidths[i]));
                 if (i < columnCount - 1) {
-                    separatorBuilder.append("-+-");
+                    rowBuilder.append(" | ");
                 }
             }
-            System.out.println(separatorBuilder.toString());
+            System.out.println(rowBuilder.toString());
+        }
+
+        System.out.println("----------------------------------------");
+    }
+
+    /**
+     * Selects and displays all records from a table, streaming rows as they arrive.
+     * Column widths come from a bounded sample of the first rows and are capped, and every row is
+     * padded in a single reused buffer, so memory stays flat regardless of the table size.
+     * Tables up to {@link #LINHAS_MAXIMAS_CACHE_TABELA} rows are kept in the query cache, shared with
+     * {@link #select(String)}, and printed from memory until a commit changes them.
+     * @param table The name of the table to query (e.g., "livros").
+     * @param tamanhoPagina Rows per keyset page ({@code WHERE id > ? ORDER BY id LIMIT ?}),
+     *                      or 0 to read the whole table through a single cursor.
+     * @return true if the select is successful, false if an error occurs.
+     */
+    @Override
+    public Boolean selectStreaming(String table, int tamanhoPagina) {
+        if (!isConnected()) {
+            LOG.erro("Não é possível buscar dados. A conexão com o banco de dados não está ativa.");
+            return false;
+        }
+
+        LOG.debug(() -> "Executando busca de dados na tabela: " + table);
+        CacheConsultas.Chave chave = new CacheConsultas.Chave(String.format("SELECT * FROM %s", table));
+        TabelaLida emCache = cacheConsultas.buscar(chave);
+        if (emCache != null) {
+            System.out.println("--- Resultados da Tabela: " + table + " ---");
+            RenderizadorTabela renderizador = new RenderizadorTabela(emCache.colunas(), System.out,
+                    RenderizadorTabela.TAMANHO_AMOSTRA_PADRAO, RenderizadorTabela.LARGURA_MAXIMA_PADRAO);
+            renderizador.renderizar(emCache.linhas());
+            renderizador.finalizar();
+            return true;
+        }
+
+        long marca = cacheConsultas.marca();
+        long inicio = System.nanoTime();
 
-            // Exibir Dados
-            for (String[] row : dataRows) {
-                StringBuilder rowBuilder = new StringBuilder();
-                for (int i = 0; i < columnCount; i++) {
-                    rowBuilder.append(padRight.apply(row[i], columnWidths[i]));
-                    if (i < columnCount - 1) {
-                        rowBuilder.append(" | ");
+        try (ConexaoEmprestada emprestimo = emprestarConexao()) {
+            Connection conn = emprestimo.getConexao();
+            RenderizadorTabela renderizador = null;
+            System.out.println("--- Resultados da Tabela: " + table + " ---");
+
+            if (tamanhoPagina <= 0) {
+                try (PreparedStatement preparedStatement = conn.prepareStatement(String.format("SELECT * FROM %s", table),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    preparedStatement.setFetchSize(TAMANHO_FETCH);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        renderizador = novoRenderizador(resultSet);
+                        renderizador.capturar(LINHAS_MAXIMAS_CACHE_TABELA);
+                        renderizador.renderizar(resultSet);
                     }
                 }
-                System.out.println(rowBuilder.toString());
+            } else {
+                String pageSQL = String.format("SELECT * FROM %s WHERE id > ? ORDER BY id LIMIT ?", table);
+                try (PreparedStatement preparedStatement = emprestimo.preparar(pageSQL)) {
+                    long lidas;
+                    do {
+                        preparedStatement.setLong(1, renderizador == null ? 0 : renderizador.getUltimoId());
+                        preparedStatement.setInt(2, tamanhoPagina);
+                        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                            if (renderizador == null) {
+                                renderizador = novoRenderizador(resultSet);
+                                renderizador.capturar(LINHAS_MAXIMAS_CACHE_TABELA);
+                            }
+                            lidas = renderizador.renderizar(resultSet);
+                        }
+                    } while (lidas == tamanhoPagina);
+                }
             }
 
-            System.out.println("----------------------------------------");
+            renderizador.finalizar();
+            List<String[]> linhas = renderizador.getCapturadas();
+            if (linhas != null) {
+                cacheConsultas.guardar(chave, new TabelaLida(renderizador.getColumnNames(),
+                        Collections.unmodifiableList(linhas)), Set.of(table), marca);
+            }
             return true;
 
         } catch (SQLException e) {
-            System.err.println("Falha ao executar o comando SELECT na tabela '" + table + "'.");
-            System.err.println("SQLState: " + e.getSQLState());
-            System.err.println("Error Code: " + e.getErrorCode());
-            System.err.println("Message: " + e.getMessage());
+            LOG.erro(falhaSql("Falha ao executar o comando SELECT na tabela '" + table + "'.", e));
             return false;
+        } finally {
+            LAT_SELECT.registrarDesde(inicio);
         }
     }
 
-
+    private static RenderizadorTabela novoRenderizador(ResultSet resultSet) throws SQLException {
+        return new RenderizadorTabela(resultSet.getMetaData(), System.out,
+                RenderizadorTabela.TAMANHO_AMOSTRA_PADRAO, RenderizadorTabela.LARGURA_MAXIMA_PADRAO);
+    }
 
     /**
      * Create inserts in any table that has 'nome' and 'email' columns.
@@ -184,15 +671,16 @@ public abstract class ADbConnection implements IDbConnection {
     @Override
     public Boolean insert(String table, String nome, String email) {
         if (!isConnected()) {
-            System.err.println("Não é possível inserir dados. A conexão com o banco de dados não está ativa.");
+            LOG.erro("Não é possível inserir dados. A conexão com o banco de dados não está ativa.");
             return false;
         }
 
         String insertSQL = String.format("INSERT INTO %s (nome, email) VALUES (?, ?)", table);
 
-        System.out.println("Preparando a inserção de dados na tabela: " + table);
+        LOG.debug(() -> "Preparando a inserção de dados na tabela: " + table);
 
-        try (PreparedStatement preparedStatement = this.connection.prepareStatement(insertSQL)) {
+        try (ConexaoEmprestada emprestimo = emprestarConexao();
+             PreparedStatement preparedStatement = emprestimo.preparar(insertSQL)) {
 
             preparedStatement.setString(1, nome);
             preparedStatement.setString(2, email);
@@ -200,19 +688,16 @@ public abstract class ADbConnection implements IDbConnection {
             int rowsAffected = preparedStatement.executeUpdate();
 
             if (rowsAffected > 0) {
-                System.out.println("Dados inseridos com sucesso! Linhas afetadas: " + rowsAffected);
+                cacheConsultas.invalidar(table);
+                LOG.info("Dados inseridos com sucesso! Linhas afetadas: " + rowsAffected);
                 return true;
             } else {
-                System.err.println("A inserção falhou, nenhuma linha foi alterada.");
+                LOG.erro("A inserção falhou, nenhuma linha foi alterada.");
                 return false;
             }
 
         } catch (SQLException e) {
-            System.err.println("Falha ao executar o comando de inserção na tabela '" + table + "'.");
-
-            System.err.println("SQLState: " + e.getSQLState());
-            System.err.println("Error Code: " + e.getErrorCode());
-            System.err.println("Message: " + e.getMessage());
+            LOG.erro(falhaSql("Falha ao executar o comando de inserção na tabela '" + table + "'.", e));
             e.notify();
             return false;
         }
@@ -227,178 +712,449 @@ public abstract class ADbConnection implements IDbConnection {
      */
     public boolean inserirLivro(Livro livro) {
         if (!isConnected()) {
-            System.err.println("Não é possível inserir o livro. A conexão com o banco de dados não está ativa.");
+            LOG.erro("Não é possível inserir o livro. A conexão com o banco de dados não está ativa.");
             return false;
         }
 
-        String sqlInsertLivro = "INSERT INTO livros (titulo, sinopse, ano_publicacao, numero_paginas, isbn, idioma_origem, autor_id, genero_id, editora_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        if (isbnsCadastrados.contem(livro.getIsbn())) {
+            duplicadosIgnorados.incrementAndGet();
+            LOG.debug(() -> "Livro '" + livro.getTitulo() + "' ignorado: ISBN " + livro.getIsbn() + " já cadastrado.");
+            return false;
+        }
+
+        ConexaoEmprestada emprestimo;
+        try {
+            emprestimo = emprestarConexao();
+        } catch (SQLException e) {
+            LOG.erro("Não foi possível obter uma conexão para inserir o livro '" + livro.getTitulo() + "': " + e.getMessage());
+            return false;
+        }
+        Connection conn = emprestimo.getConexao();
+        long inicio = System.nanoTime();
+        boolean inserido = false;
 
         try {
             // Desativa o auto-commit para tratar a inserção como uma transação única.
             // Se algo der errado, podemos reverter tudo.
-            connection.setAutoCommit(false);
+            conn.setAutoCommit(false);
 
             // 1. Obter ou inserir o ID do Autor
             // O segundo parâmetro 'nacionalidade' é nulo porque não temos essa info no objeto Livro.
-            int autorId = obterOuInserirId("autores", livro.getAutor(), null);
+            int autorId = resolvedorDimensoes.resolver(emprestimo, "autores", livro.getAutor(), null);
 
             // 2. Obter ou inserir o ID do Gênero
             // O gênero pode ser composto ("Ficção, Aventura"). Vamos pegar apenas o primeiro.
-            String primeiroGenero = livro.getGenero().split(",")[0].trim();
-            int generoId = obterOuInserirId("generos", primeiroGenero, null);
+            int generoId = resolvedorDimensoes.resolver(emprestimo, "generos", primeiroGenero(livro), null);
 
             // 3. Obter ou inserir o ID da Editora
             // O segundo parâmetro é o país de origem da editora, que podemos extrair do livro.
-            int editoraId = obterOuInserirId("editoras", livro.getEditora(), livro.getOrigem());
+            int editoraId = resolvedorDimensoes.resolver(emprestimo, "editoras", livro.getEditora(), livro.getOrigem());
 
             // 4. Inserir o Livro na tabela principal com os IDs obtidos
-            try (PreparedStatement pstmtLivro = connection.prepareStatement(sqlInsertLivro)) {
-                pstmtLivro.setString(1, livro.getTitulo());
-                pstmtLivro.setString(2, livro.getSinopse());
-                pstmtLivro.setInt(3, livro.getAnoPublicacao());
-                pstmtLivro.setInt(4, livro.getNumeroPaginas());
-                pstmtLivro.setString(5, livro.getIsbn());
-                pstmtLivro.setString(6, livro.getOrigem()); // Usando 'origem' como 'idioma_origem'
-                pstmtLivro.setInt(7, autorId);
-                pstmtLivro.setInt(8, generoId);
-                pstmtLivro.setInt(9, editoraId);
+            try (PreparedStatement pstmtLivro = emprestimo.preparar(SQL_INSERT_LIVRO, Statement.RETURN_GENERATED_KEYS)) {
+                preencherInsertLivro(pstmtLivro, livro, autorId, generoId, editoraId);
 
                 int rowsAffected = pstmtLivro.executeUpdate();
 
                 if (rowsAffected > 0) {
+                    int livroId = -1;
+                    try (ResultSet generatedKeys = pstmtLivro.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            livroId = generatedKeys.getInt(1);
+                        }
+                    }
+
                     // Se tudo deu certo, confirma a transação.
-                    connection.commit();
-                    System.out.println("Livro '" + livro.getTitulo() + "' inserido com sucesso!");
+                    long inicioCommit = System.nanoTime();
+                    conn.commit();
+                    LAT_COMMIT.registrarDesde(inicioCommit);
+                    invalidarConsultas(cacheDimensoes.confirmar());
+                    isbnsCadastrados.adicionar(livro.getIsbn());
+                    if (livroId >= 0) {
+                        indiceLivros.adicionar(livroId, livro.getTitulo(), livro.getSinopse());
+                    }
+                    inserido = true;
+                    LOG.debug(() -> "Livro '" + livro.getTitulo() + "' inserido com sucesso!");
                     return true;
                 } else {
                     // Se a inserção do livro falhou, reverte tudo.
-                    connection.rollback();
-                    System.err.println("A inserção do livro '" + livro.getTitulo() + "' falhou, nenhuma linha foi alterada.");
+                    conn.rollback();
+                    cacheDimensoes.descartar();
+                    LOG.erro("A inserção do livro '" + livro.getTitulo() + "' falhou, nenhuma linha foi alterada.");
                     return false;
                 }
             }
 
         } catch (SQLException e) {
-            System.err.println("Falha crítica ao inserir o livro '" + livro.getTitulo() + "'. A transação será revertida.");
-            System.err.println("SQLState: " + e.getSQLState());
-            System.err.println("Error Code: " + e.getErrorCode());
-            System.err.println("Message: " + e.getMessage());
+            LOG.erro(falhaSql("Falha crítica ao inserir o livro '" + livro.getTitulo() + "'. A transação será revertida.", e));
             try {
                 // Tenta reverter a transação em caso de erro.
-                connection.rollback();
+                conn.rollback();
             } catch (SQLException ex) {
-                System.err.println("Erro ao tentar reverter a transação: " + ex.getMessage());
+                LOG.erro("Erro ao tentar reverter a transação: " + ex.getMessage());
             }
+            cacheDimensoes.descartar();
             return false;
         } finally {
             try {
                 // Reativa o auto-commit para as próximas operações.
-                connection.setAutoCommit(true);
+                conn.setAutoCommit(true);
             } catch (SQLException e) {
-                System.err.println("Erro ao reativar o auto-commit: " + e.getMessage());
+                LOG.aviso("Erro ao reativar o auto-commit: " + e.getMessage());
             }
+            emprestimo.close();
+            LAT_INSERIR_LIVRO.registrarDesde(inicio);
+            (inserido ? LIVROS_INSERIDOS : LIVROS_FALHAS).increment();
         }
     }
 
     /**
-     * Método auxiliar para obter o ID de um item em uma tabela (autor, genero, editora).
-     * Se o item não existir, ele é inserido e o novo ID é retornado.
+     * Insere uma lista de livros em lotes de {@link #TAMANHO_LOTE_PADRAO}.
      *
-     * @param tabela O nome da tabela (autores, generos, editoras).
-     * @param nome O valor a ser procurado/inserido na coluna 'nome'.
-     * @param colunaExtraValor O valor para a segunda coluna (nacionalidade ou pais_origem), pode ser nulo.
-     * @return O ID do item.
-     * @throws SQLException Se ocorrer um erro no banco de dados.
-     */
-    private int obterOuInserirId(String tabela, String nome, String colunaExtraValor) throws SQLException {
-        String sqlSelect = "SELECT id FROM " + tabela + " WHERE nome = ?";
-        String sqlInsert = "";
-
-        // Define a query de inserção com base na tabela
-        boolean temColunaExtra = false;
-        if (tabela.equals("autores")) {
-            sqlInsert = "INSERT INTO autores (nome, nacionalidade) VALUES (?, ?)";
-            temColunaExtra = true;
-        } else if (tabela.equals("editoras")) {
-            sqlInsert = "INSERT INTO editoras (nome, pais_origem) VALUES (?, ?)";
-            temColunaExtra = true;
-        } else { // generos
-            sqlInsert = "INSERT INTO generos (nome) VALUES (?)";
-        }
-
-        // 1. Tenta encontrar o item
-        try (PreparedStatement pstmtSelect = connection.prepareStatement(sqlSelect)) {
-            pstmtSelect.setString(1, nome);
-            try (ResultSet rs = pstmtSelect.executeQuery()) {
-                if (rs.next()) {
-                    // Se encontrou, retorna o ID existente
-                    return rs.getInt("id");
-                }
+     * @param livros Os livros a serem inseridos.
+     * @return Uma lista com o resultado de cada livro, na mesma ordem da entrada.
+     * @see #inserirLivros(List, int)
+     */
+    @Override
+    public List<Boolean> inserirLivros(List<Livro> livros) {
+        return inserirLivros(livros, TAMANHO_LOTE_PADRAO);
+    }
+
+    /**
+     * Insere uma lista de livros em lotes. Para cada lote, os IDs de autores, gêneros e editoras
+     * são resolvidos uma única vez (um nome repetido não gera novas consultas) e as linhas de
+     * 'livros' são enviadas com {@code addBatch}/{@code executeBatch} em uma única transação.
+     * <p>
+     * Livros rejeitados pelo banco (ex.: ISBN duplicado) são marcados como {@code false} sem
+     * descartar os demais livros do lote. Se a resolução das dimensões falhar, o lote inteiro é
+     * revertido e todos os seus livros são marcados como {@code false}.
+     *
+     * @param livros Os livros a serem inseridos.
+     * @param tamanhoLote O número máximo de livros por lote/transação.
+     * @return Uma lista com o resultado de cada livro, na mesma ordem da entrada.
+     */
+    @Override
+    public List<Boolean> inserirLivros(List<Livro> livros, int tamanhoLote) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("O tamanho do lote deve ser maior que zero.");
+        }
+
+        List<Boolean> resultados = new ArrayList<>(livros.size());
+        if (!isConnected()) {
+            LOG.erro("Não é possível inserir os livros. A conexão com o banco de dados não está ativa.");
+            for (int i = 0; i < livros.size(); i++) {
+                resultados.add(false);
             }
+            return resultados;
         }
 
-        // 2. Se não encontrou, insere o novo item
-        System.out.println("Item '" + nome + "' não encontrado na tabela '" + tabela + "'. Inserindo...");
-        try (PreparedStatement pstmtInsert = connection.prepareStatement(sqlInsert, Statement.RETURN_GENERATED_KEYS)) {
-            pstmtInsert.setString(1, nome);
+        for (int inicio = 0; inicio < livros.size(); inicio += tamanhoLote) {
+            List<Livro> lote = livros.subList(inicio, Math.min(inicio + tamanhoLote, livros.size()));
+            resultados.addAll(inserirLote(lote));
+        }
 
-            // --- CORREÇÃO APLICADA AQUI ---
-            if (temColunaExtra) {
-                if (colunaExtraValor != null) {
-                    // Se o valor extra existe, define-o como String.
-                    pstmtInsert.setString(2, colunaExtraValor);
-                } else {
-                    // Se o valor extra é nulo, informa isso explicitamente ao JDBC.
-                    // Usamos Types.VARCHAR porque as colunas 'nacionalidade' e 'pais_origem' são VARCHAR.
-                    pstmtInsert.setNull(2, Types.VARCHAR);
+        long inseridos = resultados.stream().filter(Boolean::booleanValue).count();
+        LIVROS_INSERIDOS.add(inseridos);
+        LIVROS_FALHAS.add(resultados.size() - inseridos);
+        LOG.info(inseridos + " de " + livros.size() + " livros inseridos com sucesso. "
+                + "Total de duplicados ignorados pelo ISBN: " + duplicadosIgnorados.get() + ".");
+        return resultados;
+    }
+
+    /**
+     * Insere um único lote de livros em uma transação.
+     *
+     * @param lote Os livros do lote.
+     * @return O resultado de cada livro do lote.
+     */
+    private List<Boolean> inserirLote(List<Livro> lote) {
+        List<Boolean> resultados = new ArrayList<>(Collections.nCopies(lote.size(), false));
+
+        // 0. Descarta, sem ir ao banco, os livros já cadastrados e os repetidos dentro do próprio lote.
+        List<Integer> posicoes = new ArrayList<>(lote.size());
+        ConjuntoIsbn isbnsDoLote = new ConjuntoIsbn(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            String isbn = lote.get(i).getIsbn();
+            if (isbnsCadastrados.contem(isbn) || (ConjuntoIsbn.normalizar(isbn) > 0 && !isbnsDoLote.adicionar(isbn))) {
+                duplicadosIgnorados.incrementAndGet();
+                continue;
+            }
+            posicoes.add(i);
+        }
+        if (posicoes.size() < lote.size()) {
+            LOG.info((lote.size() - posicoes.size()) + " livros do lote ignorados por ISBN já cadastrado.");
+        }
+        if (posicoes.isEmpty()) {
+            return resultados;
+        }
+        List<Livro> novos = new ArrayList<>(posicoes.size());
+        for (int posicao : posicoes) {
+            novos.add(lote.get(posicao));
+        }
+
+        ConexaoEmprestada emprestimo;
+        try {
+            emprestimo = emprestarConexao();
+        } catch (SQLException e) {
+            LOG.erro("Não foi possível obter uma conexão para inserir o lote: " + e.getMessage());
+            return resultados;
+        }
+        Connection conn = emprestimo.getConexao();
+        long inicio = System.nanoTime();
+
+        try {
+            conn.setAutoCommit(false);
+
+            // 1. Resolve os nomes distintos de autor, gênero e editora do lote: no máximo uma consulta por
+            // tabela para os que já existem, mais os upserts dos que faltam (ver ResolvedorDimensoes).
+            Map<String, String> nomesAutores = new HashMap<>();
+            Map<String, String> nomesGeneros = new HashMap<>();
+            Map<String, String> nomesEditoras = new HashMap<>();
+            for (Livro livro : novos) {
+                nomesAutores.putIfAbsent(livro.getAutor(), null);
+                nomesGeneros.putIfAbsent(primeiroGenero(livro), null);
+                if (!nomesEditoras.containsKey(livro.getEditora())) {
+                    nomesEditoras.put(livro.getEditora(), livro.getOrigem());
                 }
             }
-            // --- FIM DA CORREÇÃO ---
+            Map<String, Integer> autores = resolvedorDimensoes.resolver(emprestimo, "autores", nomesAutores);
+            Map<String, Integer> generos = resolvedorDimensoes.resolver(emprestimo, "generos", nomesGeneros);
+            Map<String, Integer> editoras = resolvedorDimensoes.resolver(emprestimo, "editoras", nomesEditoras);
 
-            int affectedRows = pstmtInsert.executeUpdate();
+            // 2. Envia todas as linhas de 'livros' do lote em um único batch.
+            boolean[] gravados = new boolean[novos.size()];
+            Integer[] ids = new Integer[novos.size()];
+            try (PreparedStatement pstmtLivro = emprestimo.preparar(SQL_INSERT_LIVRO, Statement.RETURN_GENERATED_KEYS)) {
+                for (Livro livro : novos) {
+                    preencherInsertLivro(pstmtLivro, livro,
+                            autores.get(livro.getAutor()),
+                            generos.get(primeiroGenero(livro)),
+                            editoras.get(livro.getEditora()));
+                    pstmtLivro.addBatch();
+                }
 
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmtInsert.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        // Retorna o novo ID gerado
-                        int novoId = generatedKeys.getInt(1);
-                        System.out.println("Item '" + nome + "' inserido com sucesso com o ID: " + novoId);
-                        return novoId;
+                int[] contagens;
+                boolean batchFalhou = false;
+                try {
+                    contagens = pstmtLivro.executeBatch();
+                } catch (BatchUpdateException e) {
+                    if (transacaoRevertida(e)) {
+                        throw e;
                     }
+                    LOG.aviso("Alguns livros do lote foram rejeitados: " + e.getMessage());
+                    contagens = e.getUpdateCounts();
+                    batchFalhou = true;
+                }
+
+                int gravadosNoBatch = 0;
+                for (int i = 0; i < contagens.length && i < novos.size(); i++) {
+                    gravados[i] = contagens[i] > 0 || contagens[i] == Statement.SUCCESS_NO_INFO;
+                    if (gravados[i]) {
+                        gravadosNoBatch++;
+                    }
+                }
+                // O driver devolve uma chave por linha gravada, na ordem do batch; se as contagens não
+                // baterem, os ids ficam desconhecidos em vez de associar um livro ao id errado.
+                List<Integer> chaves = lerChavesGeradas(pstmtLivro);
+                if (chaves.size() == gravadosNoBatch) {
+                    for (int i = 0, proxima = 0; i < novos.size(); i++) {
+                        if (gravados[i]) {
+                            ids[i] = chaves.get(proxima++);
+                        }
+                    }
+                }
+
+                if (batchFalhou) {
+                    // Com rewriteBatchedStatements=true o lote vai como um único INSERT de várias linhas, que é
+                    // rejeitado inteiro por uma única linha (ex.: ISBN repetido). As linhas não gravadas são
+                    // reenviadas uma a uma, para que só as rejeitadas de fato falhem.
+                    pstmtLivro.clearBatch();
+                    for (int i = 0; i < novos.size(); i++) {
+                        if (!gravados[i]) {
+                            gravados[i] = inserirUmDoLote(pstmtLivro, novos.get(i), ids, i,
+                                    autores, generos, editoras);
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < novos.size(); i++) {
+                resultados.set(posicoes.get(i), gravados[i]);
+            }
+
+            long inicioCommit = System.nanoTime();
+            conn.commit();
+            LAT_COMMIT.registrarDesde(inicioCommit);
+            invalidarConsultas(cacheDimensoes.confirmar());
+            List<Livro> inseridos = new ArrayList<>(novos.size());
+            List<Integer> idsInseridos = new ArrayList<>(novos.size());
+            for (int i = 0; i < novos.size(); i++) {
+                if (gravados[i]) {
+                    isbnsCadastrados.adicionar(novos.get(i).getIsbn());
+                    inseridos.add(novos.get(i));
+                    idsInseridos.add(ids[i]);
                 }
             }
+            indexarLote(inseridos, idsInseridos);
+            return resultados;
+
+        } catch (SQLException e) {
+            LOG.erro(falhaSql("Falha crítica ao inserir um lote de " + lote.size() + " livros. A transação será revertida.", e));
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOG.erro("Erro ao tentar reverter a transação: " + ex.getMessage());
+            }
+            cacheDimensoes.descartar();
+            return new ArrayList<>(Collections.nCopies(lote.size(), false));
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOG.aviso("Erro ao reativar o auto-commit: " + e.getMessage());
+            }
+            emprestimo.close();
+            LAT_INSERIR_LOTE.registrarDesde(inicio);
         }
+    }
 
-        // Se a inserção falhar, lança uma exceção para que a transação principal seja revertida.
-        throw new SQLException("Não foi possível obter ou inserir o ID para '" + nome + "' na tabela '" + tabela + "'.");
+    /**
+     * Invalida as consultas em cache depois do commit de livros: as que leem 'livros' e as das tabelas de
+     * dimensão em que a transação inseriu nomes novos.
+     */
+    private void invalidarConsultas(Set<String> dimensoesAlteradas) {
+        cacheConsultas.invalidar("livros");
+        cacheConsultas.invalidar(dimensoesAlteradas);
+    }
+
+    /**
+     * Reenvia sozinha uma linha de um batch que falhou, na mesma transação.
+     *
+     * @param ids Recebe, na posição {@code i}, o id gerado para o livro.
+     * @return true se o livro foi gravado.
+     * @throws SQLException Se o banco reverteu a transação (ex.: deadlock); as demais falhas rejeitam só este livro.
+     */
+    private boolean inserirUmDoLote(PreparedStatement pstmtLivro, Livro livro, Integer[] ids, int i,
+                                    Map<String, Integer> autores, Map<String, Integer> generos,
+                                    Map<String, Integer> editoras) throws SQLException {
+        try {
+            preencherInsertLivro(pstmtLivro, livro,
+                    autores.get(livro.getAutor()),
+                    generos.get(primeiroGenero(livro)),
+                    editoras.get(livro.getEditora()));
+            if (pstmtLivro.executeUpdate() <= 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            if (transacaoRevertida(e)) {
+                throw e;
+            }
+            LOG.debug(() -> "Livro '" + livro.getTitulo() + "' rejeitado pelo banco: " + e.getMessage());
+            return false;
+        }
+        List<Integer> chaves = lerChavesGeradas(pstmtLivro);
+        if (!chaves.isEmpty()) {
+            ids[i] = chaves.get(0);
+        }
+        return true;
+    }
+
+    /**
+     * @return As chaves geradas pela última execução, ou uma lista vazia se o driver não as devolver.
+     */
+    private static List<Integer> lerChavesGeradas(PreparedStatement statement) {
+        List<Integer> chaves = new ArrayList<>();
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                chaves.add(generatedKeys.getInt(1));
+            }
+        } catch (SQLException e) {
+            // Sem os ids, só o índice de busca fica desatualizado; o lote segue normalmente.
+            LOG.aviso("Não foi possível ler os ids gerados do lote: " + e.getMessage());
+            chaves.clear();
+        }
+        return chaves;
+    }
+
+    /**
+     * @return true se o erro desfez a transação inteira (SQLState da classe 40, ex.: deadlock), e não só o comando.
+     */
+    private static boolean transacaoRevertida(SQLException e) {
+        return e instanceof SQLTransactionRollbackException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("40"));
+    }
+
+    /**
+     * Adiciona ao índice de busca os livros inseridos por um lote. Um livro sem id conhecido ({@code null})
+     * fica para a próxima carga completa do índice.
+     */
+    private void indexarLote(List<Livro> inseridos, List<Integer> ids) {
+        int semId = 0;
+        for (int i = 0; i < inseridos.size(); i++) {
+            if (ids.get(i) == null) {
+                semId++;
+            } else {
+                indiceLivros.adicionar(ids.get(i), inseridos.get(i).getTitulo(), inseridos.get(i).getSinopse());
+            }
+        }
+        if (semId > 0) {
+            LOG.aviso("O driver não devolveu o id de " + semId + " dos " + inseridos.size()
+                    + " livros inseridos; o índice de busca será atualizado na próxima conexão.");
+        }
+    }
+
+    /**
+     * Preenche os parâmetros do INSERT da tabela 'livros'.
+     */
+    private void preencherInsertLivro(PreparedStatement pstmtLivro, Livro livro,
+                                      int autorId, int generoId, int editoraId) throws SQLException {
+        pstmtLivro.setString(1, livro.getTitulo());
+        pstmtLivro.setString(2, livro.getSinopse());
+        pstmtLivro.setInt(3, livro.getAnoPublicacao());
+        pstmtLivro.setInt(4, livro.getNumeroPaginas());
+        pstmtLivro.setString(5, livro.getIsbn());
+        pstmtLivro.setString(6, livro.getOrigem()); // Usando 'origem' como 'idioma_origem'
+        pstmtLivro.setInt(7, autorId);
+        pstmtLivro.setInt(8, generoId);
+        pstmtLivro.setInt(9, editoraId);
+    }
+
+    /**
+     * O gênero pode ser composto ("Ficção, Aventura"). Retorna apenas o primeiro.
+     */
+    private static String primeiroGenero(Livro livro) {
+        return livro.getGenero().split(",")[0].trim();
     }
 
     @Override
     public Boolean check() {
         if (!isConnected()) {
-            System.err.println("Não é possível verificar as tabelas. A conexão não está ativa.");
+            LOG.erro("Não é possível verificar as tabelas. A conexão não está ativa.");
             return false;
         }
 
-        try (Statement statement = this.connection.createStatement()) {
-            String createTableSQL = "CREATE TABLE IF NOT EXISTS usuarios (" +
-                    "id INT AUTO_INCREMENT PRIMARY KEY, " +
-                    "nome VARCHAR(100) NOT NULL, " +
-                    "email VARCHAR(100) NOT NULL UNIQUE, " +
-                    "data_cadastro TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                    ")";
-
-            System.out.println("Verificando/Criando a tabela 'usuarios'...");
-            statement.execute(createTableSQL);
-            System.out.println("Tabela 'usuarios' verificada/criada com sucesso.");
+        try (ConexaoEmprestada emprestimo = emprestarConexao()) {
+            ESQUEMA.garantir(emprestimo.getConexao());
             return true;
         } catch (SQLException e) {
-            System.err.println("Falha ao verificar/criar a tabela 'usuarios'.");
-            e.notify();
+            LOG.erro(falhaSql("Falha ao criar ou atualizar o esquema do banco.", e));
+            return false;
+        } catch (IOException e) {
+            LOG.erro("Não foi possível ler o script do esquema: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Formats a SQL failure with its SQLState, vendor error code and message, one per line.
+     */
+    protected static String falhaSql(String contexto, SQLException e) {
+        return contexto
+                + System.lineSeparator() + "SQLState: " + e.getSQLState()
+                + System.lineSeparator() + "Error Code: " + e.getErrorCode()
+                + System.lineSeparator() + "Message: " + e.getMessage();
+    }
+
     // --- Métodos Abstratos a serem implementados pelas classes filhas ---
 
     /**
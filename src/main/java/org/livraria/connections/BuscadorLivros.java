@@ -2,67 +2,425 @@ package org.livraria.connections;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import io.github.cdimascio.dotenv.Dotenv;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.MalformedJsonException;
+import org.livraria.Configuracao;
+import org.livraria.log.Log;
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
 import org.livraria.types.Livro;
 
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementação de um buscador de livros que utiliza a API do Groq
  * com o modelo 'compound' para obter dados atualizados via busca na web.
  */
-public class BuscadorLivros extends ABuscadorLivros {
-    // --- Classes auxiliares para o parsing do JSON com Gson ---
-    private static class GroqResponse { List<Choice> choices; }
-    private static class Choice { Message message; }
-    private static class Message { String content; }
-    private static class LivrosContainer { List<Livro> livros; }
-
-    public static final Dotenv dotenv = Dotenv.load( );
-    private static final String URL_JDBC = dotenv.get("URL_JDBC");
-    private static final String USER_JDBC = dotenv.get("USER_JDBC");
-    private static final String PASSWORD_JDBC = dotenv.get("PASSWORD_JDBC");
-    // Adicione esta variável ao seu arquivo .env
-    private static final String GROQ_API_KEY = dotenv.get("GROQ_API_KEY");
+public class BuscadorLivros extends ABuscadorLivros implements AutoCloseable {
+
     private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
+    private static final String FIM_DO_STREAM = "[DONE]";
 
     private static final Gson gson = new Gson( );
 
+    // Histogramas dos estágios de busca (ver Metricas)
+    private static final HistogramaLatencia LAT_HTTP = Metricas.histograma(Metricas.GROQ_HTTP);
+    private static final HistogramaLatencia LAT_PARSE = Metricas.histograma(Metricas.GROQ_PARSE);
+    private static final LongAdder LIVROS_RECEBIDOS = Metricas.contador(Metricas.LIVROS_RECEBIDOS);
+    private static final LongAdder TRUNCADAS = Metricas.contador("groq.respostas_truncadas");
+    private static final LongAdder PARTICOES = Metricas.contador("groq.particoes");
+    private static final LongAdder FALHAS_CONSUMIDOR = Metricas.contador("groq.falhas_consumidor_streaming");
+    private static final Log LOG = Log.de(BuscadorLivros.class);
+
+    /**
+     * Quantas vezes uma faixa de títulos ainda truncada é dividida ao meio. Com as 7 faixas iniciais,
+     * uma busca faz no máximo 1 + 7 + 12 + 24 requisições.
+     */
+    static final int PROFUNDIDADE_MAXIMA_PARTICAO = 2;
+
+    /**
+     * Quantas requisições de faixas de títulos ficam no ar ao mesmo tempo, somando todas as buscas deste buscador.
+     */
+    static final int MAXIMO_PARTICOES_SIMULTANEAS = 4;
+
+    /**
+     * Modelo usado nas requisições. Faz parte da chave de caches de respostas.
+     */
+    public static final String MODELO = "openai/gpt-oss-120b";
+
+    /**
+     * Instruções de sistema enviadas em toda requisição. Faz parte da chave de caches de respostas.
+     */
+    public static final String SYSTEM_PROMPT = """
+            Você é um assistente de catalogação de livros extremamente rápido e eficiente que utiliza busca na web para obter dados precisos e atualizados.
+            Sua resposta DEVE ser um objeto JSON válido e nada mais.
+            O JSON deve ter uma única chave "livros", que contém uma lista de objetos de livros.
+            Cada objeto de livro deve ter as seguintes chaves: "titulo", "autor", "genero", "sinopse", "anodepublicacao", "editora", "origem", "numerodepaginas", "ISBN".
+            Para o ISBN, forneça o ISBN-13 sempre que possível. Para o número de páginas, use uma edição comum como referência.
+            Exemplo de formato de saída:
+            { "livros": [ { "titulo": "O Senhor dos Anéis", "autor": "J.R.R. Tolkien", "genero": "Fantasia", "sinopse": "Uma jornada para destruir um anel poderoso.", "anodepublicacao": 1954, "editora": "Allen & Unwin", "origem": "Reino Unido", "numerodepaginas": 423, "ISBN": "978-0618640157" } ] }
+            Não adicione nenhum texto, explicação ou formatação fora do objeto JSON principal e NÃO DEIXE FALTANDO NENHUM PARÂMETRO!
+            """;
+
+    public static final Duration TIMEOUT_CONEXAO_PADRAO = Duration.ofSeconds(10);
+    public static final Duration TIMEOUT_REQUISICAO_PADRAO = Duration.ofMinutes(2);
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final RequisicaoProtegida protegida;
+    private final Semaphore particoesEmVoo = new Semaphore(MAXIMO_PARTICOES_SIMULTANEAS);
+
+    /**
+     * Cria um buscador que usa a API do Groq com a chave definida em GROQ_API_KEY.
+     */
+    public BuscadorLivros() {
+        // A chave só é lida aqui: com uma URL e chave explícitas (benchmarks, servidor de testes), o .env nem é carregado.
+        this(GROQ_API_URL, Configuracao.get("GROQ_API_KEY"));
+    }
+
+    /**
+     * Cria um buscador que usa a API do Groq com a chave definida em GROQ_API_KEY e a política padrão.
+     *
+     * @param limitador O limitador de requisições à API. Cada requisição enviada consome uma ficha dele,
+     *                  inclusive cópias, novas tentativas e faixas de títulos.
+     */
+    public BuscadorLivros(LimitadorTaxa limitador) {
+        this(GROQ_API_URL, Configuracao.get("GROQ_API_KEY"), TIMEOUT_CONEXAO_PADRAO,
+                PoliticaRequisicoes.padrao(TIMEOUT_REQUISICAO_PADRAO), limitador);
+    }
+
+    /**
+     * Cria um buscador para um endpoint compatível com chat-completions (ex.: um servidor local de testes).
+     *
+     * @param apiUrl A URL completa do endpoint de chat-completions.
+     * @param apiKey A chave enviada no cabeçalho Authorization.
+     */
+    public BuscadorLivros(String apiUrl, String apiKey) {
+        this(apiUrl, apiKey, TIMEOUT_CONEXAO_PADRAO, TIMEOUT_REQUISICAO_PADRAO);
+    }
+
+    /**
+     * Cria um buscador com a {@link PoliticaRequisicoes#padrao(Duration) política padrão} de prazos,
+     * requisições duplicadas, novas tentativas e circuito.
+     *
+     * @param apiUrl A URL completa do endpoint de chat-completions.
+     * @param apiKey A chave enviada no cabeçalho Authorization.
+     * @param timeoutConexao O tempo máximo para estabelecer a conexão TCP/TLS.
+     * @param timeoutRequisicao O prazo de cada tentativa enquanto não há latências observadas suficientes.
+     */
+    public BuscadorLivros(String apiUrl, String apiKey, Duration timeoutConexao, Duration timeoutRequisicao) {
+        this(apiUrl, apiKey, timeoutConexao, PoliticaRequisicoes.padrao(timeoutRequisicao));
+    }
+
+    /**
+     * Cria um buscador com um único {@link HttpClient} HTTP/2 de longa duração, reaproveitado por todas
+     * as buscas. As respostas assíncronas são tratadas em um executor próprio de threads virtuais.
+     *
+     * @param apiUrl A URL completa do endpoint de chat-completions.
+     * @param apiKey A chave enviada no cabeçalho Authorization.
+     * @param timeoutConexao O tempo máximo para estabelecer a conexão TCP/TLS.
+     * @param politica Os prazos, requisições duplicadas, novas tentativas e o circuito das requisições.
+     */
+    public BuscadorLivros(String apiUrl, String apiKey, Duration timeoutConexao, PoliticaRequisicoes politica) {
+        this(apiUrl, apiKey, timeoutConexao, politica, null);
+    }
+
+    /**
+     * @param apiUrl A URL completa do endpoint de chat-completions.
+     * @param apiKey A chave enviada no cabeçalho Authorization.
+     * @param timeoutConexao O tempo máximo para estabelecer a conexão TCP/TLS.
+     * @param politica Os prazos, requisições duplicadas, novas tentativas e o circuito das requisições.
+     * @param limitador O limitador de requisições à API, ou null. Cada requisição enviada consome uma ficha
+     *                  dele; quem chama não deve consumir outra.
+     */
+    public BuscadorLivros(String apiUrl, String apiKey, Duration timeoutConexao, PoliticaRequisicoes politica,
+                          LimitadorTaxa limitador) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeoutConexao)
+                .executor(executor)
+                .build();
+        this.protegida = new RequisicaoProtegida(httpClient, executor, politica, limitador);
+    }
+
     @Override
     protected String obterDadosBrutos(String consulta) throws Exception {
         return "";
     }
 
+    /**
+     * Os livros de uma resposta e se ela foi cortada antes do fim.
+     */
+    private record RespostaLida(List<Livro> livros, boolean truncada) {
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Se a resposta vier truncada (limite de {@code max_tokens}), a busca é refeita em faixas de títulos
+     * ({@link FaixaTitulos}) enviadas em paralelo; o resultado junta todas elas sem ISBNs repetidos.
+     */
     @Override
     public List<Livro> buscarLivros(String consulta) throws Exception {
-        System.out.println("Enviando prompt para a IA (Groq) com busca na web...");
-
-        String systemPrompt = """
-                Você é um assistente de catalogação de livros extremamente rápido e eficiente que utiliza busca na web para obter dados precisos e atualizados.
-                Sua resposta DEVE ser um objeto JSON válido e nada mais.
-                O JSON deve ter uma única chave "livros", que contém uma lista de objetos de livros.
-                Cada objeto de livro deve ter as seguintes chaves: "titulo", "autor", "genero", "sinopse", "anodepublicacao", "editora", "origem", "numerodepaginas", "ISBN".
-                Para o ISBN, forneça o ISBN-13 sempre que possível. Para o número de páginas, use uma edição comum como referência.
-                Exemplo de formato de saída:
-                { "livros": [ { "titulo": "O Senhor dos Anéis", "autor": "J.R.R. Tolkien", "genero": "Fantasia", "sinopse": "Uma jornada para destruir um anel poderoso.", "anodepublicacao": 1954, "editora": "Allen & Unwin", "origem": "Reino Unido", "numerodepaginas": 423, "ISBN": "978-0618640157" } ] }
-                Não adicione nenhum texto, explicação ou formatação fora do objeto JSON principal e NÃO DEIXE FALTANDO NENHUM PARÂMETRO!
-                """;
+        LOG.info("Enviando prompt para a IA (Groq) com busca na web...");
+
+        long inicio = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = aguardar(protegida.enviar(prazo -> montarRequisicao(consulta, false, prazo), true));
+        } finally {
+            LAT_HTTP.registrarDesde(inicio);
+        }
+        RespostaLida resposta = processarResposta(response);
+        if (!resposta.truncada()) {
+            return resposta.livros();
+        }
+        return aguardar(completarPorFaixas(consulta, resposta.livros(), new Cancelamento()));
+    }
+
+    /**
+     * Versão assíncrona de {@link #buscarLivros(String)}: a requisição é enviada com
+     * {@link HttpClient#sendAsync} e nenhuma thread fica bloqueada esperando a IA.
+     * Várias buscas podem ficar em andamento ao mesmo tempo sobre as conexões HTTP/2 multiplexadas.
+     * Cancelar o futuro devolvido cancela as requisições no ar, inclusive as das faixas de títulos,
+     * e as novas tentativas que ainda seriam feitas.
+     */
+    @Override
+    public CompletableFuture<List<Livro>> buscarLivrosAsync(String consulta) {
+        LOG.info("Enviando prompt assíncrono para a IA (Groq) com busca na web...");
+
+        Cancelamento cancelamento = new Cancelamento();
+        long inicio = System.nanoTime();
+        // O corpo é lido pelo parser, então o processamento roda no executor e não na thread do HttpClient.
+        return cancelamento.vincular(protegida.enviar(prazo -> montarRequisicao(consulta, false, prazo), true, cancelamento)
+                .whenComplete((response, erro) -> LAT_HTTP.registrarDesde(inicio))
+                .thenApplyAsync(this::processarResposta, executor)
+                .thenCompose(resposta -> resposta.truncada()
+                        ? completarPorFaixas(consulta, resposta.livros(), cancelamento)
+                        : CompletableFuture.completedFuture(resposta.livros())));
+    }
+
+    /**
+     * Refaz uma busca truncada em {@link FaixaTitulos#PADRAO faixas de títulos}, em paralelo: até
+     * {@value #MAXIMO_PARTICOES_SIMULTANEAS} requisições no ar, cada uma com a sua ficha do limitador.
+     *
+     * @param parciais Os livros que a resposta truncada chegou a trazer; entram no resultado.
+     * @param cancelamento A desistência de quem pediu a busca; depois dela, nenhuma faixa é enviada.
+     */
+    private CompletableFuture<List<Livro>> completarPorFaixas(String consulta, List<Livro> parciais,
+                                                              Cancelamento cancelamento) {
+        TRUNCADAS.increment();
+        LOG.info("Resposta da API Groq truncada com " + parciais.size() + " livros; dividindo a busca em "
+                + FaixaTitulos.PADRAO.size() + " faixas de títulos.");
+        return buscarFaixas(consulta, FaixaTitulos.PADRAO, 1, cancelamento).thenApply(resto -> {
+            List<Livro> livros = new ArrayList<>(parciais.size() + resto.size());
+            livros.addAll(parciais);
+            livros.addAll(resto);
+            List<Livro> unicos = semRepetidos(livros);
+            LOG.info("Busca por faixas concluída: " + unicos.size() + " livros ("
+                    + (livros.size() - unicos.size()) + " repetidos removidos).");
+            return unicos;
+        });
+    }
+
+    /**
+     * Envia uma consulta por faixa, todas em paralelo, e junta as respostas na ordem das faixas.
+     */
+    private CompletableFuture<List<Livro>> buscarFaixas(String consulta, List<FaixaTitulos> faixas, int profundidade,
+                                                        Cancelamento cancelamento) {
+        List<CompletableFuture<List<Livro>>> partes = new ArrayList<>(faixas.size());
+        for (FaixaTitulos faixa : faixas) {
+            partes.add(buscarFaixa(consulta, faixa, profundidade, cancelamento));
+        }
+        return CompletableFuture.allOf(partes.toArray(CompletableFuture[]::new)).thenApply(x -> {
+            List<Livro> livros = new ArrayList<>();
+            for (CompletableFuture<List<Livro>> parte : partes) {
+                livros.addAll(parte.join());
+            }
+            return livros;
+        });
+    }
+
+    /**
+     * Busca uma faixa; se ela também vier truncada, busca as duas metades, até
+     * {@value #PROFUNDIDADE_MAXIMA_PARTICAO} níveis. Uma faixa que falha é registrada e não derruba as demais.
+     */
+    private CompletableFuture<List<Livro>> buscarFaixa(String consulta, FaixaTitulos faixa, int profundidade,
+                                                       Cancelamento cancelamento) {
+        PARTICOES.increment();
+        return CompletableFuture.runAsync(() -> reservarParticao(cancelamento), executor)
+                .thenCompose(x -> {
+                    long inicio = System.nanoTime();
+                    // A vaga é devolvida antes de buscar as metades, que pedem as suas.
+                    return protegida.enviar(prazo -> montarRequisicao(faixa.restringir(consulta), false, prazo), true,
+                                    cancelamento)
+                            .whenComplete((response, erro) -> LAT_HTTP.registrarDesde(inicio))
+                            .thenApplyAsync(this::processarResposta, executor)
+                            .whenComplete((resposta, erro) -> particoesEmVoo.release());
+                })
+                .thenCompose(resposta -> {
+                    if (!resposta.truncada()) {
+                        return CompletableFuture.completedFuture(resposta.livros());
+                    }
+                    TRUNCADAS.increment();
+                    List<FaixaTitulos> metades = faixa.dividir();
+                    if (metades.isEmpty() || profundidade >= PROFUNDIDADE_MAXIMA_PARTICAO) {
+                        LOG.aviso("Faixa de títulos " + faixa + " ainda truncada; mantendo "
+                                + resposta.livros().size() + " livros.");
+                        return CompletableFuture.completedFuture(resposta.livros());
+                    }
+                    return buscarFaixas(consulta, metades, profundidade + 1, cancelamento).thenApply(resto -> {
+                        List<Livro> livros = new ArrayList<>(resposta.livros());
+                        livros.addAll(resto);
+                        return livros;
+                    });
+                })
+                .exceptionally(erro -> {
+                    if (!cancelamento.isCancelado()) {
+                        LOG.erro("Falha ao buscar a faixa de títulos " + faixa + ": "
+                                + RequisicaoProtegida.desembrulhar(erro).getMessage());
+                    }
+                    return List.of();
+                });
+    }
+
+    /**
+     * Espera uma vaga entre as requisições de faixas e desiste se a busca for cancelada antes disso.
+     * A ficha do limitador é obtida ao enviar a requisição. Roda no executor, que usa threads virtuais.
+     */
+    private void reservarParticao(Cancelamento cancelamento) {
+        cancelamento.verificar();
+        try {
+            particoesEmVoo.acquire();
+            try {
+                cancelamento.verificar();
+            } catch (CancellationException e) {
+                particoesEmVoo.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Remove os livros repetidos, mantendo a primeira ocorrência. Livros com ISBN válido são comparados
+     * pelo ISBN-13; os demais, pelo título sem diferença de maiúsculas. Livros sem ISBN nem título não
+     * têm com o que ser comparados e são mantidos.
+     */
+    static List<Livro> semRepetidos(List<Livro> livros) {
+        ConjuntoIsbn isbns = new ConjuntoIsbn(livros.size());
+        Set<String> titulos = new HashSet<>();
+        List<Livro> unicos = new ArrayList<>(livros.size());
+        for (Livro livro : livros) {
+            long isbn = ConjuntoIsbn.normalizar(livro.getIsbn());
+            String titulo = livro.getTitulo();
+            boolean novo;
+            if (isbn >= 0) {
+                novo = isbns.adicionar(isbn);
+            } else {
+                novo = titulo == null || titulo.isBlank() || titulos.add(titulo.trim().toLowerCase(Locale.ROOT));
+            }
+            if (novo) {
+                unicos.add(livro);
+            }
+        }
+        return unicos;
+    }
+
+    /**
+     * Espera um resultado assíncrono, relançando a causa original da falha.
+     */
+    private static <T> T aguardar(CompletableFuture<T> resultado) throws Exception {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Converte o corpo de uma resposta 200 em livros enquanto ele é recebido, sem guardá-lo em uma String.
+     */
+    private RespostaLida processarResposta(HttpResponse<InputStream> response) {
+        try (Reader corpo = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+            RespostaLida resposta = ler(corpo);
+            LOG.info("Resposta da API Groq processada: " + resposta.livros().size() + " livros"
+                    + (resposta.truncada() ? " (truncada)." : "."));
+            return resposta;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler a resposta da API Groq: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fecha o cliente HTTP e o executor de respostas assíncronas.
+     */
+    @Override
+    public void close() {
+        LOG.info(protegida.getDisjuntor().toString());
+        httpClient.close();
+        executor.close();
+    }
+
+    /**
+     * Monta a requisição de chat-completions para a consulta.
+     *
+     * @param consulta A consulta do usuário.
+     * @param stream Se a resposta deve ser enviada como Server-Sent Events.
+     * @param prazo O tempo máximo até o cabeçalho da resposta chegar.
+     */
+    private HttpRequest montarRequisicao(String consulta, boolean stream, Duration prazo) {
 
         // --- CORREÇÃO: Construindo o corpo da requisição para a API do Groq ---
         JsonObject requestBodyJson = new JsonObject();
-        requestBodyJson.addProperty("model", "openai/gpt-oss-120b");
+        requestBodyJson.addProperty("model", MODELO);
 
         // Estrutura de 'messages' padrão
         JsonArray messages = new JsonArray();
         JsonObject systemMessage = new JsonObject();
         systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", systemPrompt);
+        systemMessage.addProperty("content", SYSTEM_PROMPT);
         messages.add(systemMessage);
 
         JsonObject userMessage = new JsonObject();
@@ -84,73 +442,201 @@ public class BuscadorLivros extends ABuscadorLivros {
         // Outros parâmetros (opcionais, mas bons para controle)
         requestBodyJson.addProperty("temperature", 0.5);
         requestBodyJson.addProperty("max_tokens", 8192);
-        requestBodyJson.addProperty("stream", false); // Não usaremos stream para obter a resposta completa de uma vez
+        requestBodyJson.addProperty("stream", stream);
 
         String requestBody = gson.toJson(requestBodyJson);
-        System.out.println("Request Body Gerado para Groq: " + requestBody);
+        // O corpo inteiro (com o prompt de sistema) só é registrado em DEBUG, e cortado.
+        LOG.debug(() -> "Request Body Gerado para Groq: " + Log.resumir(requestBody, Log.LIMITE_PAYLOAD_PADRAO));
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(GROQ_API_URL))
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
                 .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + GROQ_API_KEY)
+                .header("Authorization", "Bearer " + apiKey)
+                .timeout(prazo)
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Busca livros com {@code "stream": true}, lendo a resposta como Server-Sent Events.
+     * Cada livro é entregue ao {@code aoReceber} assim que seu objeto JSON é fechado,
+     * permitindo que a inserção no banco aconteça enquanto a IA ainda gera os próximos.
+     */
+    @Override
+    public List<Livro> buscarLivrosStreaming(String consulta, Consumer<Livro> aoReceber) throws Exception {
+        LOG.info("Enviando prompt para a IA (Groq) com busca na web, em modo streaming...");
 
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Falha na requisição à API Groq: " + response.statusCode() + " " + response.body());
+        // No streaming, a latência HTTP vai do envio até o último evento lido.
+        long inicio = System.nanoTime();
+        // Sem cópias: os livros já entregues ao consumidor não podem ser entregues de novo.
+        // As novas tentativas só acontecem antes do cabeçalho, quando nada foi entregue.
+        HttpResponse<InputStream> response = aguardar(protegida.enviar(prazo -> montarRequisicao(consulta, true, prazo), false));
+
+        List<Livro> livros = new ArrayList<>();
+        ExtratorLivrosIncremental extrator = new ExtratorLivrosIncremental(livro -> {
+            livros.add(livro);
+            entregar(aoReceber, livro);
+        });
+
+        String finishReason = null;
+        try (Stream<String> linhas = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8)).lines()) {
+            Iterator<String> iterator = linhas.iterator();
+            // Depois do fim do array ainda se lê até o [DONE]: fechar o corpo antes do fim do stream deixa a troca
+            // pendente no HttpClient, e o close() do cliente passa a esperar por ela indefinidamente.
+            while (iterator.hasNext()) {
+                String linha = iterator.next();
+                if (isFimDoStream(linha)) {
+                    break;
+                }
+                JsonObject escolha = escolhaDoEvento(linha);
+                if (escolha == null) {
+                    continue;
+                }
+                String conteudo = conteudoDaEscolha(escolha);
+                if (conteudo != null && !extrator.isConcluido()) {
+                    extrator.alimentar(conteudo);
+                }
+                if (escolha.has("finish_reason") && !escolha.get("finish_reason").isJsonNull()) {
+                    finishReason = escolha.get("finish_reason").getAsString();
+                }
+            }
+        } finally {
+            LAT_HTTP.registrarDesde(inicio);
         }
+        LIVROS_RECEBIDOS.add(extrator.getEmitidos());
 
-        String respostaJson = response.body();
-        System.out.println("Resposta JSON da API Groq: " + respostaJson);
+        LOG.info("Streaming concluído: " + extrator.getEmitidos() + " livros recebidos, "
+                + extrator.getDescartados() + " descartados.");
 
-        return parsearRespostaComGson(respostaJson);
+        if (extrator.isTruncado() || "length".equals(finishReason)) {
+            // Os livros já entregues não são entregues de novo: só os novos das faixas seguem para o consumidor.
+            List<Livro> completos = aguardar(completarPorFaixas(consulta, livros, new Cancelamento()));
+            for (Livro livro : completos.subList(semRepetidos(livros).size(), completos.size())) {
+                livros.add(livro);
+                entregar(aoReceber, livro);
+            }
+        }
+        return livros;
     }
 
-    @Override
-    public List<Livro> parsearRespostaComGson(String respostaJson) {
+    /**
+     * Entrega um livro ao consumidor do streaming. Uma falha do consumidor com um livro (ex.: erro ao gravá-lo)
+     * é registrada e o stream segue com os próximos; só uma interrupção da thread encerra a leitura.
+     */
+    private static void entregar(Consumer<Livro> aoReceber, Livro livro) {
         try {
-            GroqResponse apiResponse = gson.fromJson(respostaJson, GroqResponse.class);
-            if (apiResponse == null || apiResponse.choices == null || apiResponse.choices.isEmpty()) {
-                System.err.println("Resposta da API Groq vazia ou em formato inesperado.");
-                return Collections.emptyList();
+            aoReceber.accept(livro);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted() || e.getCause() instanceof InterruptedException) {
+                throw e;
             }
-            String conteudo = apiResponse.choices.getFirst().message.content;
+            FALHAS_CONSUMIDOR.increment();
+            LOG.aviso("Erro ao processar o livro '" + livro.getTitulo() + "' recebido no streaming: " + e.getMessage());
+        }
+    }
 
-            // Limpa o bloco de código markdown, se houver
-            if (conteudo != null && conteudo.startsWith("```json")) {
-                conteudo = conteudo.substring(7, conteudo.length() - 3).trim();
+    /**
+     * @return true se a linha SSE for o marcador final {@code data: [DONE]}.
+     */
+    private static boolean isFimDoStream(String linha) {
+        return linha.startsWith("data:") && linha.substring(5).trim().equals(FIM_DO_STREAM);
+    }
+
+    /**
+     * Extrai {@code choices[0]} de uma linha SSE.
+     *
+     * @return A escolha, ou {@code null} se a linha não trouxer uma.
+     */
+    private static JsonObject escolhaDoEvento(String linha) {
+        if (!linha.startsWith("data:")) {
+            return null; // Comentários, linhas em branco e outros campos SSE
+        }
+        String dados = linha.substring(5).trim();
+        try {
+            JsonObject evento = JsonParser.parseString(dados).getAsJsonObject();
+            JsonArray choices = evento.getAsJsonArray("choices");
+            if (choices == null || choices.isEmpty()) {
+                return null;
             }
+            return choices.get(0).getAsJsonObject();
+        } catch (RuntimeException e) {
+            LOG.aviso("Evento SSE inválido ignorado: " + e.getMessage());
+            return null;
+        }
+    }
 
-            LivrosContainer container = gson.fromJson(conteudo, LivrosContainer.class);
-            return container != null ? container.livros : Collections.emptyList();
-        } catch (Exception e) {
-            System.err.println("Erro ao fazer o parse do JSON com Gson: " + e.getMessage());
+    /**
+     * @return O trecho de conteúdo ({@code delta.content}) da escolha, ou {@code null} se ela não trouxer conteúdo.
+     */
+    private static String conteudoDaEscolha(JsonObject escolha) {
+        JsonElement delta = escolha.get("delta");
+        if (delta == null || !delta.isJsonObject()) {
+            return null;
+        }
+        JsonElement conteudo = delta.getAsJsonObject().get("content");
+        return conteudo == null || conteudo.isJsonNull() ? null : conteudo.getAsString();
+    }
+
+    @Override
+    public List<Livro> parsearRespostaComGson(String respostaJson) {
+        try {
+            return parsear(new StringReader(respostaJson));
+        } catch (IOException e) {
+            // StringReader não falha; só chega aqui por JSON malformado, já registrado em parsear.
             return Collections.emptyList();
+        }
+    }
 
+    /**
+     * Lê uma resposta completa de chat-completions em uma única passada com {@link LeitorRespostaGroq}.
+     * Um JSON malformado ou truncado encerra a leitura, mas os livros lidos até ali são devolvidos.
+     *
+     * @param corpo O corpo da resposta.
+     * @return Os livros da resposta, na ordem em que aparecem.
+     * @throws IOException Se a leitura do corpo falhar.
+     */
+    public List<Livro> parsear(Reader corpo) throws IOException {
+        return ler(corpo).livros();
+    }
+
+    private RespostaLida ler(Reader corpo) throws IOException {
+        long inicio = System.nanoTime();
+        List<Livro> livros = new ArrayList<>();
+        LeitorRespostaGroq leitor = new LeitorRespostaGroq(livros::add);
+        try {
+            if (!leitor.ler(corpo)) {
+                LOG.aviso("Resposta da API Groq vazia ou em formato inesperado.");
+            }
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            LOG.aviso("Resposta da API Groq malformada; mantendo " + livros.size() + " livros lidos: " + e.getMessage());
+        } finally {
+            LAT_PARSE.registrarDesde(inicio);
+        }
+        if (leitor.getDescartados() > 0) {
+            LOG.aviso(leitor.getDescartados() + " livros malformados ignorados na resposta da IA.");
         }
+        LIVROS_RECEBIDOS.add(livros.size());
+        return new RespostaLida(livros, leitor.isTruncada());
     }
 
     public static void main(String[] args) {
 
         BuscadorLivros buscador = new BuscadorLivros();
-        DbConnection client = new DbConnection(URL_JDBC,USER_JDBC,PASSWORD_JDBC);
+        DbConnection client = new DbConnection(Configuracao.get("URL_JDBC"), Configuracao.get("USER_JDBC"),
+                Configuracao.get("PASSWORD_JDBC"));
         Boolean clientConnect = client.connect();
 
         try {
             List<Livro> livros = buscador.buscarLivros("cadastre todos os livros do autor Jorge Amado");
 
             if (livros.isEmpty() && !clientConnect) {
-                System.out.println("Nenhum livro foi processado.");
+                LOG.info("Nenhum livro foi processado.");
             } else {
-                for (Livro livro : livros) {
-                    client.inserirLivro(livro);
-                }
+                client.inserirLivros(livros);
             }
         } catch (Exception e) {
-            System.err.println("Ocorreu um erro fatal durante a busca de livros: " + e.getMessage());
+            LOG.erro("Ocorreu um erro fatal durante a busca de livros: " + e.getMessage());
         }
     }
 }
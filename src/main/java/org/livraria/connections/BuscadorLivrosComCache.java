@@ -0,0 +1,471 @@
+package org.livraria.connections;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.livraria.interfaces.IBuscadorLivros;
+import org.livraria.log.Log;
+import org.livraria.types.Livro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Cache persistente em disco na frente de qualquer {@link IBuscadorLivros}.
+ * <p>
+ * A chave de cada entrada é o hash SHA-256 da consulta normalizada, do modelo e das instruções de
+ * sistema, de modo que mudar o prompt ou o modelo invalida as respostas antigas. As entradas ficam em
+ * um log append-only; ao abrir o cache, apenas o índice (chave, posição, tamanho, expiração) é lido,
+ * sem carregar as respostas. Entradas expiram após o TTL e, quando o total de bytes vivos passa do
+ * limite, as menos usadas recentemente são removidas. O log é compactado quando os bytes mortos
+ * superam os vivos.
+ */
+public class BuscadorLivrosComCache implements IBuscadorLivros, AutoCloseable {
+
+    private static final Log LOG = Log.de(BuscadorLivrosComCache.class);
+
+    public static final Duration TTL_PADRAO = Duration.ofDays(7);
+    public static final long TAMANHO_MAXIMO_PADRAO_BYTES = 64L * 1024 * 1024;
+
+    private static final int MAGICO = 0x4C564331; // "LVC1"
+    private static final byte TIPO_ENTRADA = 1;
+    private static final byte TIPO_REMOCAO = 2;
+
+    private static final Gson gson = new Gson();
+    private static final Type TIPO_LISTA_LIVROS = new TypeToken<List<Livro>>() { }.getType();
+
+    /**
+     * Posição de uma resposta dentro do log.
+     */
+    private record Entrada(long posicao, int tamanho, long expiraEm) { }
+
+    private final IBuscadorLivros delegado;
+    private final String versao;
+    private final Path arquivo;
+    private final long ttlMs;
+    private final long tamanhoMaximoBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entrada> indice = new LinkedHashMap<>(256, 0.75f, true);
+    private FileChannel canal;
+    private long bytesVivos = 0;
+    private long bytesMortos = 0;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong bytesEconomizados = new AtomicLong();
+
+    /**
+     * Abre (ou cria) o cache usando o modelo e o prompt de {@link BuscadorLivros}.
+     *
+     * @param delegado O buscador consultado quando a resposta não está no cache.
+     * @param arquivo O arquivo de log do cache.
+     * @throws IOException Se não for possível abrir ou ler o arquivo.
+     */
+    public BuscadorLivrosComCache(IBuscadorLivros delegado, Path arquivo) throws IOException {
+        this(delegado, BuscadorLivros.MODELO, BuscadorLivros.SYSTEM_PROMPT, arquivo, TTL_PADRAO, TAMANHO_MAXIMO_PADRAO_BYTES);
+    }
+
+    /**
+     * @param delegado O buscador consultado quando a resposta não está no cache.
+     * @param modelo O modelo usado pelo delegado.
+     * @param systemPrompt As instruções de sistema usadas pelo delegado.
+     * @param arquivo O arquivo de log do cache.
+     * @param ttl Por quanto tempo uma resposta é considerada válida.
+     * @param tamanhoMaximoBytes O total máximo de bytes de respostas mantidos no cache.
+     * @throws IOException Se não for possível abrir ou ler o arquivo.
+     */
+    public BuscadorLivrosComCache(IBuscadorLivros delegado, String modelo, String systemPrompt,
+                                  Path arquivo, Duration ttl, long tamanhoMaximoBytes) throws IOException {
+        this.delegado = delegado;
+        this.versao = modelo + "\n" + sha256(systemPrompt);
+        this.arquivo = arquivo;
+        this.ttlMs = ttl.toMillis();
+        this.tamanhoMaximoBytes = tamanhoMaximoBytes;
+        abrir();
+    }
+
+    @Override
+    public List<Livro> buscarLivros(String consulta) throws Exception {
+        String chave = chave(consulta);
+        List<Livro> emCache = ler(chave);
+        if (emCache != null) {
+            return emCache;
+        }
+        List<Livro> livros = delegado.buscarLivros(consulta);
+        gravar(chave, livros);
+        return livros;
+    }
+
+    @Override
+    public CompletableFuture<List<Livro>> buscarLivrosAsync(String consulta) {
+        String chave = chave(consulta);
+        List<Livro> emCache;
+        try {
+            emCache = ler(chave);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (emCache != null) {
+            return CompletableFuture.completedFuture(emCache);
+        }
+        CompletableFuture<List<Livro>> origem = delegado.buscarLivrosAsync(consulta);
+        CompletableFuture<List<Livro>> resultado = origem.thenApply(livros -> {
+            try {
+                gravar(chave, livros);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return livros;
+        });
+        // Quem desiste desta busca desiste também da do delegado.
+        resultado.whenComplete((livros, erro) -> {
+            if (resultado.isCancelled()) {
+                origem.cancel(true);
+            }
+        });
+        return resultado;
+    }
+
+    @Override
+    public List<Livro> buscarLivrosStreaming(String consulta, Consumer<Livro> aoReceber) throws Exception {
+        String chave = chave(consulta);
+        List<Livro> emCache = ler(chave);
+        if (emCache != null) {
+            emCache.forEach(aoReceber);
+            return emCache;
+        }
+        // O consumidor pode alterar cada livro em outra thread enquanto a busca continua: o cache grava cópias
+        // tiradas antes de cada livro chegar a ele.
+        List<Livro> copias = new ArrayList<>();
+        List<Livro> livros = delegado.buscarLivrosStreaming(consulta, livro -> {
+            copias.add(new Livro(livro));
+            aoReceber.accept(livro);
+        });
+        gravar(chave, copias);
+        return livros;
+    }
+
+    /**
+     * Normaliza a consulta para que variações de espaços, maiúsculas e forma Unicode
+     * ("Jorge  Amado" e "jorge amado") compartilhem a mesma entrada.
+     */
+    static String normalizarConsulta(String consulta) {
+        String normalizada = Normalizer.normalize(consulta, Normalizer.Form.NFC);
+        return normalizada.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private String chave(String consulta) {
+        return sha256(versao + "\n" + normalizarConsulta(consulta));
+    }
+
+    /**
+     * @return A resposta em cache, ou {@code null} se não existir ou estiver expirada.
+     */
+    private List<Livro> ler(String chave) throws IOException {
+        Entrada entrada;
+        byte[] dados;
+        lock.lock();
+        try {
+            entrada = indice.get(chave);
+            if (entrada != null && entrada.expiraEm() < System.currentTimeMillis()) {
+                remover(chave);
+                entrada = null;
+            }
+            if (entrada == null) {
+                falhas.incrementAndGet();
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(entrada.tamanho());
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer, entrada.posicao() + buffer.position()) < 0) {
+                    throw new EOFException("Entrada do cache truncada.");
+                }
+            }
+            dados = buffer.array();
+        } finally {
+            lock.unlock();
+        }
+
+        acertos.incrementAndGet();
+        bytesEconomizados.addAndGet(dados.length);
+        return gson.fromJson(new String(dados, StandardCharsets.UTF_8), TIPO_LISTA_LIVROS);
+    }
+
+    private void gravar(String chave, List<Livro> livros) throws IOException {
+        // Respostas vazias costumam ser falhas da IA; não vale a pena guardá-las.
+        if (livros == null || livros.isEmpty()) {
+            return;
+        }
+        byte[] dados = gson.toJson(livros, TIPO_LISTA_LIVROS).getBytes(StandardCharsets.UTF_8);
+        if (dados.length > tamanhoMaximoBytes) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Entrada anterior = indice.remove(chave);
+            if (anterior != null) {
+                bytesVivos -= anterior.tamanho();
+                bytesMortos += anterior.tamanho();
+            }
+
+            long expiraEm = System.currentTimeMillis() + ttlMs;
+            ByteArrayOutputStream registro = new ByteArrayOutputStream(dados.length + 96);
+            DataOutputStream out = new DataOutputStream(registro);
+            out.writeByte(TIPO_ENTRADA);
+            out.writeUTF(chave);
+            out.writeLong(expiraEm);
+            out.writeInt(dados.length);
+            int cabecalho = out.size();
+            out.write(dados);
+
+            long inicio = canal.size();
+            escreverNoFim(ByteBuffer.wrap(registro.toByteArray()));
+            indice.put(chave, new Entrada(inicio + cabecalho, dados.length, expiraEm));
+            bytesVivos += dados.length;
+
+            removerExcedentes();
+            if (bytesMortos > bytesVivos && bytesMortos > 1024 * 1024) {
+                compactar();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove as entradas menos usadas até o total de bytes vivos caber no limite.
+     */
+    private void removerExcedentes() throws IOException {
+        Iterator<Map.Entry<String, Entrada>> maisAntigas = indice.entrySet().iterator();
+        while (bytesVivos > tamanhoMaximoBytes && maisAntigas.hasNext()) {
+            Map.Entry<String, Entrada> entrada = maisAntigas.next();
+            maisAntigas.remove();
+            bytesVivos -= entrada.getValue().tamanho();
+            bytesMortos += entrada.getValue().tamanho();
+            registrarRemocao(entrada.getKey());
+        }
+    }
+
+    private void remover(String chave) throws IOException {
+        Entrada entrada = indice.remove(chave);
+        if (entrada != null) {
+            bytesVivos -= entrada.tamanho();
+            bytesMortos += entrada.tamanho();
+            registrarRemocao(chave);
+        }
+    }
+
+    private void registrarRemocao(String chave) throws IOException {
+        ByteArrayOutputStream registro = new ByteArrayOutputStream(80);
+        DataOutputStream out = new DataOutputStream(registro);
+        out.writeByte(TIPO_REMOCAO);
+        out.writeUTF(chave);
+        escreverNoFim(ByteBuffer.wrap(registro.toByteArray()));
+    }
+
+    private void escreverNoFim(ByteBuffer buffer) throws IOException {
+        long posicao = canal.size();
+        while (buffer.hasRemaining()) {
+            posicao += canal.write(buffer, posicao);
+        }
+    }
+
+    /**
+     * Abre o log e reconstrói o índice. Se a leitura falhar, o canal é fechado antes de o erro chegar ao
+     * construtor, já que ninguém mais poderia fechá-lo.
+     */
+    private void abrir() throws IOException {
+        if (arquivo.getParent() != null) {
+            Files.createDirectories(arquivo.getParent());
+        }
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            carregarIndice();
+        } catch (Throwable e) {
+            try {
+                canal.close();
+            } catch (IOException aoFechar) {
+                e.addSuppressed(aoFechar);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Lê o índice do log, pulando os bytes das respostas.
+     * Um registro final incompleto (ex.: queda durante a escrita) é descartado.
+     */
+    private void carregarIndice() throws IOException {
+        if (canal.size() == 0) {
+            escreverNoFim(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGICO));
+            return;
+        }
+
+        long agora = System.currentTimeMillis();
+        long posicaoValida = Integer.BYTES;
+        canal.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal), 64 * 1024));
+        if (in.readInt() != MAGICO) {
+            throw new IOException("O arquivo '" + arquivo + "' não é um cache de buscas válido.");
+        }
+
+        long posicao = Integer.BYTES;
+        try {
+            while (true) {
+                byte tipo = in.readByte();
+                String chave = in.readUTF();
+                posicao += 1 + 2 + chave.getBytes(StandardCharsets.UTF_8).length;
+
+                if (tipo == TIPO_ENTRADA) {
+                    long expiraEm = in.readLong();
+                    int tamanho = in.readInt();
+                    posicao += Long.BYTES + Integer.BYTES;
+                    in.skipNBytes(tamanho);
+                    Entrada anterior = indice.remove(chave);
+                    if (anterior != null) {
+                        bytesVivos -= anterior.tamanho();
+                        bytesMortos += anterior.tamanho();
+                    }
+                    if (expiraEm >= agora) {
+                        indice.put(chave, new Entrada(posicao, tamanho, expiraEm));
+                        bytesVivos += tamanho;
+                    } else {
+                        bytesMortos += tamanho;
+                    }
+                    posicao += tamanho;
+                } else if (tipo == TIPO_REMOCAO) {
+                    Entrada anterior = indice.remove(chave);
+                    if (anterior != null) {
+                        bytesVivos -= anterior.tamanho();
+                        bytesMortos += anterior.tamanho();
+                    }
+                } else {
+                    throw new IOException("Registro desconhecido no cache de buscas: " + tipo);
+                }
+                posicaoValida = posicao;
+            }
+        } catch (EOFException e) {
+            // Fim do log (ou registro final incompleto).
+        }
+
+        if (posicaoValida < canal.size()) {
+            canal.truncate(posicaoValida);
+        }
+        removerExcedentes();
+        LOG.info("Cache de buscas carregado: " + indice.size() + " entradas de '" + arquivo + "'.");
+    }
+
+    /**
+     * Reescreve o log apenas com as entradas vivas, na ordem de uso.
+     */
+    private void compactar() throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        LinkedHashMap<String, Entrada> novoIndice = new LinkedHashMap<>(256, 0.75f, true);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+            out.writeInt(MAGICO);
+            for (Map.Entry<String, Entrada> e : indice.entrySet()) {
+                Entrada entrada = e.getValue();
+                ByteBuffer dados = ByteBuffer.allocate(entrada.tamanho());
+                while (dados.hasRemaining()) {
+                    if (canal.read(dados, entrada.posicao() + dados.position()) < 0) {
+                        throw new EOFException("Entrada do cache truncada.");
+                    }
+                }
+                out.writeByte(TIPO_ENTRADA);
+                out.writeUTF(e.getKey());
+                out.writeLong(entrada.expiraEm());
+                out.writeInt(entrada.tamanho());
+                novoIndice.put(e.getKey(), new Entrada(out.size(), entrada.tamanho(), entrada.expiraEm()));
+                out.write(dados.array());
+            }
+        }
+
+        canal.close();
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indice.clear();
+        indice.putAll(novoIndice);
+        bytesMortos = 0;
+    }
+
+    private static String sha256(String texto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não está disponível.", e);
+        }
+    }
+
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    /**
+     * @return O total de bytes de respostas servidos do cache em vez da API.
+     */
+    public long getBytesEconomizados() {
+        return bytesEconomizados.get();
+    }
+
+    public int getEntradas() {
+        lock.lock();
+        try {
+            return indice.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BuscadorLivrosComCache { entradas: %d, acertos: %d, falhas: %d, bytes economizados: %d }",
+                getEntradas(), getAcertos(), getFalhas(), getBytesEconomizados());
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            canal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.livraria.connections;
+
+import org.livraria.interfaces.IBuscadorLivros;
+import org.livraria.metricas.Metricas;
+import org.livraria.types.Livro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa buscas idênticas feitas ao mesmo tempo na frente de qualquer {@link IBuscadorLivros}.
+ * <p>
+ * Enquanto uma busca está em andamento, quem pedir a mesma consulta (normalizada como em
+ * {@link BuscadorLivrosComCache}: espaços, maiúsculas e forma Unicode não contam) não gera outra requisição:
+ * espera a que já está no ar e recebe o mesmo resultado, ou o mesmo erro. Cada chamador recebe as suas próprias
+ * cópias da lista e dos livros, que pode alterar (ex.: a normalização do {@code PipelineIngestao}) sem afetar os
+ * demais. Nada é guardado depois que a busca termina; para isso existe o {@link BuscadorLivrosComCache}, que fica
+ * atrás deste buscador.
+ * <p>
+ * Cancelar o futuro de {@link #buscarLivrosAsync(String)} (ou interromper a thread que espera em
+ * {@link #buscarLivros(String)}) desiste só daquele chamador; quando todos desistem, o futuro do delegado é
+ * cancelado. {@link BuscadorLivros} e {@link BuscadorLivrosComCache} repassam esse cancelamento às requisições
+ * HTTP no ar e às novas tentativas; a implementação padrão de {@link IBuscadorLivros#buscarLivrosAsync(String)}
+ * não interrompe a busca já iniciada.
+ * Em {@link #buscarLivrosStreaming(String, Consumer)}, quem chega depois recebe os livros de uma vez, quando
+ * a busca termina.
+ */
+public class BuscadorLivrosCompartilhado implements IBuscadorLivros {
+
+    // Totais do processo; os campos abaixo são desta instância.
+    private static final LongAdder AGRUPADAS = Metricas.contador("groq.buscas_agrupadas");
+    private static final LongAdder CANCELADAS = Metricas.contador("groq.buscas_agrupadas_canceladas");
+
+    private final IBuscadorLivros delegado;
+    private final Map<String, Busca> emAndamento = new ConcurrentHashMap<>();
+
+    private final LongAdder buscas = new LongAdder();
+    private final LongAdder agrupadas = new LongAdder();
+    private final LongAdder canceladas = new LongAdder();
+
+    /**
+     * Uma busca no ar e o número de chamadores que ainda esperam por ela.
+     */
+    private final class Busca {
+        final String chave;
+        final CompletableFuture<List<Livro>> resultado = new CompletableFuture<>();
+        private CompletableFuture<List<Livro>> origem = null;
+        private int interessados = 1;
+        private boolean abandonada = false;
+
+        Busca(String chave) {
+            this.chave = chave;
+        }
+
+        /**
+         * Soma um chamador à busca.
+         *
+         * @return false se todos já desistiram dela; o chamador deve começar outra.
+         */
+        synchronized boolean juntar() {
+            if (abandonada) {
+                return false;
+            }
+            interessados++;
+            return true;
+        }
+
+        /**
+         * Registra o futuro do delegado, para que possa ser cancelado.
+         */
+        void iniciada(CompletableFuture<List<Livro>> futuro) {
+            synchronized (this) {
+                if (!abandonada) {
+                    origem = futuro;
+                    return;
+                }
+            }
+            futuro.cancel(true);
+        }
+
+        /**
+         * Um chamador desistiu. Se era o último, a busca sai do mapa e a requisição é cancelada.
+         */
+        void desistir() {
+            CompletableFuture<List<Livro>> cancelar;
+            synchronized (this) {
+                if (abandonada || resultado.isDone() || --interessados > 0) {
+                    return;
+                }
+                abandonada = true;
+                cancelar = origem;
+            }
+            emAndamento.remove(chave, this);
+            canceladas.increment();
+            CANCELADAS.increment();
+            if (cancelar != null) {
+                cancelar.cancel(true);
+            }
+            resultado.cancel(false);
+        }
+
+        /**
+         * Sai do mapa antes de publicar o resultado: quem chegar depois faz uma busca nova.
+         */
+        void concluir(List<Livro> livros, Throwable erro) {
+            emAndamento.remove(chave, this);
+            if (erro != null) {
+                resultado.completeExceptionally(RequisicaoProtegida.desembrulhar(erro));
+            } else {
+                resultado.complete(livros);
+            }
+        }
+    }
+
+    /**
+     * A busca a que o chamador foi somado e se é ele quem deve iniciá-la.
+     */
+    private record Embarque(Busca busca, boolean lider) {
+    }
+
+    /**
+     * @param delegado O buscador que faz as requisições (ex.: {@link BuscadorLivrosComCache} ou {@link BuscadorLivros}).
+     */
+    public BuscadorLivrosCompartilhado(IBuscadorLivros delegado) {
+        this.delegado = delegado;
+    }
+
+    @Override
+    public List<Livro> buscarLivros(String consulta) throws Exception {
+        return aguardar(buscarLivrosAsync(consulta));
+    }
+
+    @Override
+    public CompletableFuture<List<Livro>> buscarLivrosAsync(String consulta) {
+        Embarque embarque = embarcar(consulta);
+        Busca busca = embarque.busca();
+        // O futuro do chamador é criado antes de iniciar a busca, que pode terminar na mesma thread.
+        CompletableFuture<List<Livro>> chamador = paraChamador(busca);
+        if (embarque.lider()) {
+            CompletableFuture<List<Livro>> origem;
+            try {
+                origem = delegado.buscarLivrosAsync(consulta);
+            } catch (RuntimeException e) {
+                origem = CompletableFuture.failedFuture(e);
+            }
+            busca.iniciada(origem);
+            origem.whenComplete(busca::concluir);
+        }
+        return chamador;
+    }
+
+    @Override
+    public List<Livro> buscarLivrosStreaming(String consulta, Consumer<Livro> aoReceber) throws Exception {
+        Embarque embarque = embarcar(consulta);
+        Busca busca = embarque.busca();
+        if (!embarque.lider()) {
+            List<Livro> livros = aguardar(paraChamador(busca));
+            livros.forEach(aoReceber);
+            return livros;
+        }
+
+        // O líder faz a busca em streaming na própria thread; ele conta como interessado até o fim,
+        // então a desistência dos demais não a cancela. Os demais recebem cópias tiradas antes de cada livro
+        // chegar ao consumidor do líder, que pode alterá-lo em outra thread.
+        try {
+            List<Livro> originais = new ArrayList<>();
+            List<Livro> livros = delegado.buscarLivrosStreaming(consulta, livro -> {
+                originais.add(new Livro(livro));
+                aoReceber.accept(livro);
+            });
+            busca.concluir(originais, null);
+            return livros;
+        } catch (Exception | Error e) {
+            busca.concluir(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Soma o chamador à busca em andamento da consulta ou, se não houver, registra uma nova, que ele inicia.
+     */
+    private Embarque embarcar(String consulta) {
+        String chave = BuscadorLivrosComCache.normalizarConsulta(consulta);
+        while (true) {
+            Busca nova = new Busca(chave);
+            Busca existente = emAndamento.putIfAbsent(chave, nova);
+            if (existente == null) {
+                buscas.increment();
+                return new Embarque(nova, true);
+            }
+            if (existente.juntar()) {
+                agrupadas.increment();
+                AGRUPADAS.increment();
+                return new Embarque(existente, false);
+            }
+            // Todos desistiram dela enquanto este chamador chegava.
+            emAndamento.remove(chave, existente);
+        }
+    }
+
+    /**
+     * Um futuro só do chamador: cancelá-lo não afeta os demais, e a lista e os livros entregues são cópias.
+     */
+    private static CompletableFuture<List<Livro>> paraChamador(Busca busca) {
+        CompletableFuture<List<Livro>> chamador = new CompletableFuture<>();
+        busca.resultado.whenComplete((livros, erro) -> {
+            if (erro != null) {
+                chamador.completeExceptionally(erro);
+            } else {
+                chamador.complete(copiar(livros));
+            }
+        });
+        chamador.whenComplete((livros, erro) -> {
+            if (chamador.isCancelled()) {
+                busca.desistir();
+            }
+        });
+        return chamador;
+    }
+
+    private static List<Livro> copiar(List<Livro> livros) {
+        List<Livro> copia = new ArrayList<>(livros.size());
+        for (Livro livro : livros) {
+            copia.add(new Livro(livro));
+        }
+        return copia;
+    }
+
+    /**
+     * Espera o resultado relançando a causa original da falha. Se a thread for interrompida, desiste da busca.
+     */
+    private static <T> T aguardar(CompletableFuture<T> resultado) throws Exception {
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return O número de buscas no ar neste momento.
+     */
+    public int getEmAndamento() {
+        return emAndamento.size();
+    }
+
+    /**
+     * @return O número de buscas enviadas ao delegado.
+     */
+    public long getBuscas() {
+        return buscas.sum();
+    }
+
+    /**
+     * @return O número de chamadas atendidas por uma busca que já estava no ar.
+     */
+    public long getAgrupadas() {
+        return agrupadas.sum();
+    }
+
+    /**
+     * @return O número de buscas canceladas porque todos os chamadores desistiram.
+     */
+    public long getCanceladas() {
+        return canceladas.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BuscadorLivrosCompartilhado { em andamento: %d, buscas: %d, agrupadas: %d, canceladas: %d }",
+                getEmAndamento(), getBuscas(), getAgrupadas(), getCanceladas());
+    }
+}
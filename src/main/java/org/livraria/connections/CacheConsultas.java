@@ -0,0 +1,193 @@
+package org.livraria.connections;
+
+import org.livraria.metricas.Metricas;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache em memória dos resultados das consultas de leitura, indexado pelo texto SQL e pelos parâmetros.
+ * <p>
+ * Cada resultado guarda as tabelas de que depende. {@link #invalidar(String)}, chamado depois de cada commit
+ * que altera uma tabela, remove só os resultados que a leem; os demais continuam válidos. O cache é limitado
+ * a {@code capacidade} resultados (o menos usado sai primeiro) e cada resultado expira após {@code validade},
+ * o que cobre alterações feitas por outros processos.
+ * <p>
+ * Uma consulta que começou antes de um commit e terminou depois dele não guarda o resultado: quem vai ao banco
+ * pega uma {@link #marca()} antes de consultar e a devolve em {@link #guardar(Chave, Object, Set, long)}.
+ * Os resultados guardados são compartilhados entre as threads e não devem ser alterados.
+ */
+public class CacheConsultas {
+
+    public static final int CAPACIDADE_PADRAO = 256;
+    public static final Duration VALIDADE_PADRAO = Duration.ofMinutes(5);
+
+    /**
+     * Identifica uma consulta: o texto SQL e os valores dos parâmetros, na ordem dos {@code ?}.
+     */
+    public record Chave(String sql, List<Object> parametros) {
+        public Chave(String sql, Object... parametros) {
+            // Arrays.asList aceita parâmetros nulos, ao contrário de List.of.
+            this(sql, Collections.unmodifiableList(Arrays.asList(parametros.clone())));
+        }
+    }
+
+    private record Entrada(Object valor, Set<String> tabelas, long expiraEm) {
+    }
+
+    private final int capacidade;
+    private final long validadeNanos;
+    private final Map<Chave, Entrada> entradas;
+    // Número da invalidação mais recente de cada tabela; compara-se com a marca de quem foi ao banco.
+    private final Map<String, Long> ultimaInvalidacao = new HashMap<>();
+    private long invalidacoes = 0;
+
+    // Totais do processo, no relatório de métricas; os campos abaixo são desta instância.
+    private static final LongAdder ACERTOS = Metricas.contador("db.cache_consultas.acertos");
+    private static final LongAdder FALHAS = Metricas.contador("db.cache_consultas.falhas");
+    private static final LongAdder INVALIDADOS = Metricas.contador("db.cache_consultas.invalidados");
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder removidos = new LongAdder();
+
+    public CacheConsultas() {
+        this(CAPACIDADE_PADRAO, VALIDADE_PADRAO);
+    }
+
+    /**
+     * @param capacidade O número máximo de resultados guardados.
+     * @param validade Por quanto tempo um resultado é servido sem voltar ao banco.
+     */
+    public CacheConsultas(int capacidade, Duration validade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser maior que zero.");
+        }
+        this.capacidade = capacidade;
+        this.validadeNanos = validade.toNanos();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> eldest) {
+                return size() > CacheConsultas.this.capacidade;
+            }
+        };
+    }
+
+    /**
+     * @return O resultado guardado para a consulta, ou {@code null} se não houver ou se tiver expirado.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T buscar(Chave chave) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && System.nanoTime() - entrada.expiraEm() >= 0) {
+            entradas.remove(chave);
+            entrada = null;
+        }
+        if (entrada == null) {
+            falhas.increment();
+            FALHAS.increment();
+            return null;
+        }
+        acertos.increment();
+        ACERTOS.increment();
+        return (T) entrada.valor();
+    }
+
+    /**
+     * @return A marca a passar para {@link #guardar(Chave, Object, Set, long)}; pegue-a antes de consultar o banco.
+     */
+    public synchronized long marca() {
+        return invalidacoes;
+    }
+
+    /**
+     * Guarda o resultado de uma consulta, a menos que alguma das tabelas tenha sido invalidada depois da marca.
+     *
+     * @param tabelas As tabelas lidas pela consulta.
+     * @param marca O valor de {@link #marca()} antes da consulta.
+     */
+    public synchronized void guardar(Chave chave, Object valor, Set<String> tabelas, long marca) {
+        Set<String> normalizadas = normalizar(tabelas);
+        for (String tabela : normalizadas) {
+            if (ultimaInvalidacao.getOrDefault(tabela, -1L) >= marca) {
+                return;
+            }
+        }
+        entradas.put(chave, new Entrada(valor, normalizadas, System.nanoTime() + validadeNanos));
+    }
+
+    /**
+     * Remove os resultados que dependem da tabela. Deve ser chamado depois do commit que a alterou.
+     */
+    public synchronized void invalidar(String tabela) {
+        String normalizada = tabela.toLowerCase(Locale.ROOT);
+        ultimaInvalidacao.put(normalizada, invalidacoes++);
+        Iterator<Entrada> iterator = entradas.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().tabelas().contains(normalizada)) {
+                iterator.remove();
+                removidos.increment();
+                INVALIDADOS.increment();
+            }
+        }
+    }
+
+    public void invalidar(Collection<String> tabelas) {
+        for (String tabela : tabelas) {
+            invalidar(tabela);
+        }
+    }
+
+    /**
+     * Remove todos os resultados.
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    /**
+     * @return A fração de consultas atendidas pelo cache, entre 0 e 1.
+     */
+    public double getTaxaAcerto() {
+        long acertosAgora = acertos.sum();
+        long total = acertosAgora + falhas.sum();
+        return total == 0 ? 0.0 : (double) acertosAgora / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheConsultas { resultados: %d/%d, acertos: %d, falhas: %d, invalidados: %d, taxa de acerto: %.1f%% }",
+                tamanho(), capacidade, getAcertos(), getFalhas(), removidos.sum(), getTaxaAcerto() * 100);
+    }
+
+    private static Set<String> normalizar(Set<String> tabelas) {
+        Set<String> normalizadas = new HashSet<>(tabelas.size() * 2);
+        for (String tabela : tabelas) {
+            normalizadas.add(tabela.toLowerCase(Locale.ROOT));
+        }
+        return Set.copyOf(normalizadas);
+    }
+}
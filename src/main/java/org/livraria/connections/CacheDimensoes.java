@@ -0,0 +1,193 @@
+package org.livraria.connections;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória de nome → ID para as tabelas de dimensão (autores, generos, editoras).
+ * <p>
+ * Cada tabela tem seu próprio mapa LRU limitado a {@code capacidadePorTabela} entradas.
+ * IDs inseridos dentro de uma transação ficam pendentes e visíveis apenas para a thread que
+ * os inseriu até que {@link #confirmar()} os publique; {@link #descartar()} os remove quando a
+ * transação é revertida, evitando que o cache aponte para linhas que não existem no banco.
+ */
+public class CacheDimensoes {
+
+    /**
+     * Tabelas de dimensão cobertas pelo cache.
+     */
+    public static final String[] TABELAS = {"autores", "generos", "editoras"};
+
+    private final int capacidadePorTabela;
+    private final Map<String, Map<String, Integer>> confirmados = new HashMap<>();
+    private final ThreadLocal<Map<String, Map<String, Integer>>> pendentes = ThreadLocal.withInitial(HashMap::new);
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+
+    /**
+     * @param capacidadePorTabela O número máximo de nomes mantidos por tabela.
+     */
+    public CacheDimensoes(int capacidadePorTabela) {
+        if (capacidadePorTabela <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser maior que zero.");
+        }
+        this.capacidadePorTabela = capacidadePorTabela;
+        for (String tabela : TABELAS) {
+            confirmados.put(tabela, new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > CacheDimensoes.this.capacidadePorTabela;
+                }
+            });
+        }
+    }
+
+    /**
+     * Busca o ID de um nome, considerando primeiro as entradas pendentes da transação atual.
+     *
+     * @param tabela O nome da tabela de dimensão.
+     * @param nome O valor da coluna 'nome'.
+     * @return O ID, ou {@code null} se o nome não estiver no cache.
+     */
+    public Integer buscar(String tabela, String nome) {
+        Map<String, Integer> pendentesTabela = pendentes.get().get(tabela);
+        Integer id = pendentesTabela != null ? pendentesTabela.get(nome) : null;
+
+        if (id == null) {
+            Map<String, Integer> mapa = mapaDe(tabela);
+            synchronized (mapa) {
+                id = mapa.get(nome);
+            }
+        }
+
+        if (id != null) {
+            acertos.incrementAndGet();
+        } else {
+            falhas.incrementAndGet();
+        }
+        return id;
+    }
+
+    /**
+     * Registra um ID que já existe de forma permanente no banco.
+     */
+    public void registrar(String tabela, String nome, int id) {
+        Map<String, Integer> mapa = mapaDe(tabela);
+        synchronized (mapa) {
+            mapa.put(nome, id);
+        }
+    }
+
+    /**
+     * Registra um ID inserido na transação atual. Ele só é publicado após {@link #confirmar()}.
+     */
+    public void registrarPendente(String tabela, String nome, int id) {
+        mapaDe(tabela);
+        pendentes.get().computeIfAbsent(tabela, t -> new HashMap<>()).put(nome, id);
+    }
+
+    /**
+     * Publica as entradas pendentes da thread atual. Deve ser chamado após o commit.
+     *
+     * @return As tabelas em que a transação inseriu nomes novos.
+     */
+    public Set<String> confirmar() {
+        Map<String, Map<String, Integer>> daThread = pendentes.get();
+        if (daThread.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> alteradas = new HashSet<>();
+        for (Map.Entry<String, Map<String, Integer>> tabela : daThread.entrySet()) {
+            for (Map.Entry<String, Integer> entrada : tabela.getValue().entrySet()) {
+                registrar(tabela.getKey(), entrada.getKey(), entrada.getValue());
+            }
+            if (!tabela.getValue().isEmpty()) {
+                alteradas.add(tabela.getKey());
+            }
+        }
+        daThread.clear();
+        return alteradas;
+    }
+
+    /**
+     * Descarta as entradas pendentes da thread atual. Deve ser chamado após o rollback.
+     */
+    public void descartar() {
+        pendentes.get().clear();
+    }
+
+    /**
+     * Pré-carrega o cache com os nomes já existentes nas tabelas de dimensão.
+     *
+     * @param connection Uma conexão ativa com o banco.
+     * @return O número de entradas carregadas.
+     * @throws SQLException Se ocorrer um erro ao ler as tabelas.
+     */
+    public int aquecer(Connection connection) throws SQLException {
+        int carregados = 0;
+        for (String tabela : TABELAS) {
+            String sql = "SELECT id, nome FROM " + tabela + " ORDER BY id DESC LIMIT ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setInt(1, capacidadePorTabela);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        registrar(tabela, rs.getString("nome"), rs.getInt("id"));
+                        carregados++;
+                    }
+                }
+            }
+        }
+        return carregados;
+    }
+
+    /**
+     * Remove todas as entradas, confirmadas e pendentes.
+     */
+    public void limpar() {
+        for (Map<String, Integer> mapa : confirmados.values()) {
+            synchronized (mapa) {
+                mapa.clear();
+            }
+        }
+        pendentes.get().clear();
+    }
+
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    /**
+     * @return A fração de buscas atendidas pelo cache, entre 0 e 1.
+     */
+    public double getTaxaAcerto() {
+        long total = acertos.get() + falhas.get();
+        return total == 0 ? 0.0 : (double) acertos.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheDimensoes { acertos: %d, falhas: %d, taxa de acerto: %.1f%% }",
+                getAcertos(), getFalhas(), getTaxaAcerto() * 100);
+    }
+
+    private Map<String, Integer> mapaDe(String tabela) {
+        Map<String, Integer> mapa = confirmados.get(tabela);
+        if (mapa == null) {
+            throw new IllegalArgumentException("Tabela de dimensão desconhecida: " + tabela);
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,232 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+import org.livraria.metricas.Metricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de {@link PreparedStatement} de uma única {@link Connection}, indexado pelo texto SQL.
+ * <p>
+ * {@link #preparar(String, int)} devolve o statement já preparado para aquele SQL, se houver, em vez de ir ao
+ * banco de novo. O statement devolvido é um proxy: o {@code close()} do try-with-resources limpa os
+ * parâmetros e o batch e o devolve ao cache, sem fechá-lo de fato. O cache guarda no máximo {@code capacidade}
+ * statements; o menos usado é fechado quando um novo entra, e {@link #close()} fecha todos.
+ * <p>
+ * Cada statement é usado por uma chamada de cada vez. Se duas threads compartilham a conexão e pedem o mesmo
+ * SQL ao mesmo tempo, a segunda recebe um statement avulso, fechado normalmente no {@code close()}.
+ */
+public final class CacheStatements implements AutoCloseable {
+
+    public static final int CAPACIDADE_PADRAO = 64;
+
+    private static final Log LOG = Log.de(CacheStatements.class);
+
+    // Totais do processo: statements preparados no banco e pedidos atendidos pelo cache.
+    private static final LongAdder PREPARADOS = Metricas.contador("db.statements.preparados");
+    private static final LongAdder REAPROVEITADOS = Metricas.contador("db.statements.reaproveitados");
+    private static final LongAdder EXPULSOS = Metricas.contador("db.statements.expulsos");
+
+    private record Chave(String sql, int chavesGeradas) {
+    }
+
+    /**
+     * Um statement do cache e o proxy entregue a quem o pede.
+     */
+    private final class Entrada implements InvocationHandler {
+        final PreparedStatement real;
+        final PreparedStatement proxy;
+        boolean emUso = false;
+        boolean expulsa = false;
+
+        Entrada(PreparedStatement real) {
+            this.real = real;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(CacheStatements.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object instancia, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    devolver(this);
+                    return null;
+                case "isClosed":
+                    return !emUso || real.isClosed();
+                case "equals":
+                    return instancia == args[0];
+                case "hashCode":
+                    return System.identityHashCode(instancia);
+                case "toString":
+                    return "CacheStatements$" + real;
+                default:
+                    try {
+                        return method.invoke(real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    private final Connection conexao;
+    private final int capacidade;
+    private final Map<Chave, Entrada> entradas;
+    private boolean fechado = false;
+
+    /**
+     * @param conexao A conexão cujos statements serão guardados.
+     * @param capacidade O número máximo de statements abertos no cache.
+     */
+    CacheStatements(Connection conexao, int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser maior que zero.");
+        }
+        this.conexao = conexao;
+        this.capacidade = capacidade;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> eldest) {
+                if (size() <= CacheStatements.this.capacidade) {
+                    return false;
+                }
+                expulsar(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return true se este cache guarda os statements da conexão informada.
+     */
+    boolean isDe(Connection conn) {
+        return conexao == conn;
+    }
+
+    /**
+     * Equivale a {@link Connection#prepareStatement(String, int)}, reaproveitando o statement de uma chamada
+     * anterior com o mesmo SQL.
+     *
+     * @param chavesGeradas {@link Statement#RETURN_GENERATED_KEYS} ou {@link Statement#NO_GENERATED_KEYS}.
+     */
+    synchronized PreparedStatement preparar(String sql, int chavesGeradas) throws SQLException {
+        if (fechado) {
+            PREPARADOS.increment();
+            return conexao.prepareStatement(sql, chavesGeradas);
+        }
+
+        Chave chave = new Chave(sql, chavesGeradas);
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && entrada.emUso) {
+            // Outra chamada está com o statement; esta recebe um avulso.
+            PREPARADOS.increment();
+            return conexao.prepareStatement(sql, chavesGeradas);
+        }
+        if (entrada != null && !entrada.real.isClosed()) {
+            entrada.emUso = true;
+            REAPROVEITADOS.increment();
+            return entrada.proxy;
+        }
+
+        PREPARADOS.increment();
+        entrada = new Entrada(conexao.prepareStatement(sql, chavesGeradas));
+        entrada.emUso = true;
+        entradas.put(chave, entrada);
+        return entrada.proxy;
+    }
+
+    /**
+     * Chamado pelo {@code close()} do proxy: limpa o statement para o próximo uso ou o fecha, se ele já
+     * saiu do cache.
+     */
+    private synchronized void devolver(Entrada entrada) {
+        if (!entrada.emUso) {
+            return;
+        }
+        entrada.emUso = false;
+        if (entrada.expulsa || fechado) {
+            fecharReal(entrada);
+            return;
+        }
+        try {
+            entrada.real.clearParameters();
+            entrada.real.clearBatch();
+        } catch (SQLException e) {
+            entradas.values().remove(entrada);
+            fecharReal(entrada);
+        }
+    }
+
+    private void expulsar(Entrada entrada) {
+        EXPULSOS.increment();
+        entrada.expulsa = true;
+        if (!entrada.emUso) {
+            fecharReal(entrada);
+        }
+    }
+
+    private static void fecharReal(Entrada entrada) {
+        try {
+            entrada.real.close();
+        } catch (SQLException e) {
+            LOG.aviso("Erro ao fechar um statement do cache: " + e.getMessage());
+        }
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Fecha os statements guardados. Os que estão em uso são fechados quando forem devolvidos; depois disso,
+     * {@link #preparar(String, int)} passa a devolver statements avulsos.
+     */
+    @Override
+    public synchronized void close() {
+        fechado = true;
+        List<Entrada> todas = new ArrayList<>(entradas.values());
+        entradas.clear();
+        for (Entrada entrada : todas) {
+            if (!entrada.emUso) {
+                fecharReal(entrada);
+            }
+        }
+    }
+
+    public static long getPreparados() {
+        return PREPARADOS.sum();
+    }
+
+    public static long getReaproveitados() {
+        return REAPROVEITADOS.sum();
+    }
+
+    /**
+     * @return A fração dos pedidos de statement atendidos sem preparar no banco, entre 0 e 1.
+     */
+    public static double getTaxaAcerto() {
+        long reaproveitados = REAPROVEITADOS.sum();
+        long total = reaproveitados + PREPARADOS.sum();
+        return total == 0 ? 0.0 : (double) reaproveitados / total;
+    }
+
+    /**
+     * @return Os totais de todas as conexões do processo.
+     */
+    public static String resumo() {
+        return String.format("CacheStatements { preparados: %d, reaproveitados: %d, expulsos: %d, taxa de acerto: %.1f%% }",
+                getPreparados(), getReaproveitados(), EXPULSOS.sum(), getTaxaAcerto() * 100);
+    }
+}
@@ -0,0 +1,76 @@
+package org.livraria.connections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sinal de que quem pediu uma busca desistiu dela. É compartilhado pelas requisições da busca (a principal, as
+ * novas tentativas e as das faixas de títulos), que deixam de ser enviadas e têm as que estão no ar canceladas.
+ */
+final class Cancelamento {
+
+    private final List<Runnable> acoes = new ArrayList<>();
+    private boolean cancelado = false;
+
+    /**
+     * Registra o que fazer quando a busca for cancelada; se ela já foi, a ação roda na hora.
+     */
+    void aoCancelar(Runnable acao) {
+        synchronized (this) {
+            if (!cancelado) {
+                acoes.add(acao);
+                return;
+            }
+        }
+        acao.run();
+    }
+
+    /**
+     * Cancela a busca e roda as ações registradas. Só a primeira chamada tem efeito.
+     */
+    void cancelar() {
+        List<Runnable> executar;
+        synchronized (this) {
+            if (cancelado) {
+                return;
+            }
+            cancelado = true;
+            executar = new ArrayList<>(acoes);
+            acoes.clear();
+        }
+        executar.forEach(Runnable::run);
+    }
+
+    synchronized boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * @throws CancellationException Se a busca foi cancelada.
+     */
+    void verificar() {
+        if (isCancelado()) {
+            throw erro();
+        }
+    }
+
+    static CancellationException erro() {
+        return new CancellationException("Busca cancelada por quem a pediu.");
+    }
+
+    /**
+     * Cancela a busca quando o futuro entregue a quem a pediu for cancelado.
+     *
+     * @return O próprio futuro.
+     */
+    <T> CompletableFuture<T> vincular(CompletableFuture<T> futuro) {
+        futuro.whenComplete((valor, erro) -> {
+            if (futuro.isCancelled()) {
+                cancelar();
+            }
+        });
+        return futuro;
+    }
+}
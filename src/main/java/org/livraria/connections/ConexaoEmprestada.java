@@ -0,0 +1,88 @@
+package org.livraria.connections;
+
+import org.livraria.interfaces.IConexaoEmprestada;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Empréstimo de uma {@link Connection} para uma operação ou transação ({@link IConexaoEmprestada}).
+ * <p>
+ * {@link #preparar(String)} reaproveita os statements já preparados na conexão ({@link CacheStatements}).
+ * Eles também devem ser fechados com try-with-resources, o que os devolve ao cache.
+ */
+public final class ConexaoEmprestada implements IConexaoEmprestada {
+
+    private final Connection conexao;
+    private final CacheStatements statements;
+    private final Consumer<Connection> devolucao;
+    private boolean devolvida = false;
+
+    /**
+     * @param conexao A conexão emprestada.
+     * @param devolucao A ação executada uma única vez quando o empréstimo é fechado.
+     */
+    public ConexaoEmprestada(Connection conexao, Consumer<Connection> devolucao) {
+        this(conexao, null, devolucao);
+    }
+
+    /**
+     * @param conexao A conexão emprestada.
+     * @param statements O cache de statements da conexão, ou null para preparar sempre no banco.
+     * @param devolucao A ação executada uma única vez quando o empréstimo é fechado.
+     */
+    ConexaoEmprestada(Connection conexao, CacheStatements statements, Consumer<Connection> devolucao) {
+        this.conexao = conexao;
+        this.statements = statements;
+        this.devolucao = devolucao;
+    }
+
+    /**
+     * @return A conexão emprestada. Não deve ser usada após {@link #close()}.
+     */
+    @Override
+    public Connection getConexao() {
+        if (devolvida) {
+            throw new IllegalStateException("A conexão já foi devolvida.");
+        }
+        return conexao;
+    }
+
+    /**
+     * Equivale a {@code getConexao().prepareStatement(sql)}, reaproveitando o statement se o SQL já foi
+     * preparado nesta conexão.
+     */
+    @Override
+    public PreparedStatement preparar(String sql) throws SQLException {
+        return preparar(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Equivale a {@code getConexao().prepareStatement(sql, chavesGeradas)}, reaproveitando o statement se o SQL
+     * já foi preparado nesta conexão.
+     *
+     * @param chavesGeradas {@link Statement#RETURN_GENERATED_KEYS} ou {@link Statement#NO_GENERATED_KEYS}.
+     */
+    @Override
+    public PreparedStatement preparar(String sql, int chavesGeradas) throws SQLException {
+        Connection conn = getConexao();
+        if (statements == null) {
+            return conn.prepareStatement(sql, chavesGeradas);
+        }
+        return statements.preparar(sql, chavesGeradas);
+    }
+
+    /**
+     * Devolve a conexão. Chamadas repetidas são ignoradas.
+     */
+    @Override
+    public void close() {
+        if (!devolvida) {
+            devolvida = true;
+            devolucao.accept(conexao);
+        }
+    }
+}
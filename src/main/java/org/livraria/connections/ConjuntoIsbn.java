@@ -0,0 +1,160 @@
+package org.livraria.connections;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de ISBNs normalizados para ISBN-13 e guardados como {@code long}.
+ * <p>
+ * Usa endereçamento aberto com sondagem linear sobre um {@code long[]}, sem objetos por entrada:
+ * um catálogo de um milhão de livros ocupa cerca de 16 MB. Serve para descobrir, antes de qualquer
+ * comando SQL, se um livro já está cadastrado. Os métodos são sincronizados para uso com o pool.
+ */
+public class ConjuntoIsbn {
+
+    private static final long VAZIO = 0L;
+    private static final double CARGA_MAXIMA = 0.5;
+
+    private long[] tabela;
+    private int tamanho = 0;
+
+    public ConjuntoIsbn() {
+        this(1024);
+    }
+
+    /**
+     * @param capacidadeInicial O número de ISBNs esperado.
+     */
+    public ConjuntoIsbn(int capacidadeInicial) {
+        int capacidade = Integer.highestOneBit(Math.max(16, (int) (capacidadeInicial / CARGA_MAXIMA)) - 1) << 1;
+        this.tabela = new long[capacidade];
+    }
+
+    /**
+     * Converte um ISBN-10 ou ISBN-13, com ou sem hífens e espaços, para o número ISBN-13.
+     *
+     * @param isbn O ISBN como texto.
+     * @return O ISBN-13 como número, ou -1 se o texto não for um ISBN reconhecível.
+     */
+    public static long normalizar(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+
+        char[] digitos = new char[13];
+        int n = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if ((c >= '0' && c <= '9') || c == 'X' || c == 'x') {
+                if (n == 13) {
+                    return -1;
+                }
+                digitos[n++] = Character.toUpperCase(c);
+            } else if (c != '-' && c != ' ') {
+                return -1;
+            }
+        }
+
+        if (n == 13) {
+            long valor = 0;
+            for (int i = 0; i < 13; i++) {
+                if (digitos[i] == 'X') {
+                    return -1;
+                }
+                valor = valor * 10 + (digitos[i] - '0');
+            }
+            return valor;
+        }
+
+        if (n == 10) {
+            // ISBN-10 → ISBN-13: prefixo 978 + 9 primeiros dígitos + novo dígito verificador.
+            long valor = 978;
+            int soma = 9 + 7 * 3 + 8;
+            for (int i = 0; i < 9; i++) {
+                if (digitos[i] == 'X') {
+                    return -1;
+                }
+                int d = digitos[i] - '0';
+                valor = valor * 10 + d;
+                soma += d * ((i + 3) % 2 == 0 ? 1 : 3);
+            }
+            return valor * 10 + (10 - soma % 10) % 10;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true se o ISBN for reconhecível e estiver no conjunto.
+     */
+    public boolean contem(String isbn) {
+        long valor = normalizar(isbn);
+        return valor > 0 && contem(valor);
+    }
+
+    /**
+     * Adiciona um ISBN. ISBNs não reconhecíveis são ignorados.
+     *
+     * @return true se o ISBN foi adicionado, false se já existia ou não é reconhecível.
+     */
+    public boolean adicionar(String isbn) {
+        long valor = normalizar(isbn);
+        return valor > 0 && adicionar(valor);
+    }
+
+    public synchronized boolean contem(long isbn13) {
+        int mascara = tabela.length - 1;
+        for (int i = indice(isbn13, mascara); tabela[i] != VAZIO; i = (i + 1) & mascara) {
+            if (tabela[i] == isbn13) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean adicionar(long isbn13) {
+        if (tamanho + 1 > tabela.length * CARGA_MAXIMA) {
+            redimensionar();
+        }
+        int mascara = tabela.length - 1;
+        int i = indice(isbn13, mascara);
+        while (tabela[i] != VAZIO) {
+            if (tabela[i] == isbn13) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        tabela[i] = isbn13;
+        tamanho++;
+        return true;
+    }
+
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    public synchronized void limpar() {
+        Arrays.fill(tabela, VAZIO);
+        tamanho = 0;
+    }
+
+    private void redimensionar() {
+        long[] antiga = tabela;
+        tabela = new long[antiga.length * 2];
+        int mascara = tabela.length - 1;
+        for (long valor : antiga) {
+            if (valor != VAZIO) {
+                int i = indice(valor, mascara);
+                while (tabela[i] != VAZIO) {
+                    i = (i + 1) & mascara;
+                }
+                tabela[i] = valor;
+            }
+        }
+    }
+
+    private static int indice(long valor, int mascara) {
+        // Mistura os bits (constante de Fibonacci) para espalhar ISBNs com prefixos iguais.
+        long h = valor * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -17,24 +17,25 @@ public class DbConnection extends ADbConnection {
     @Override
     public Boolean connect() {
         if (isConnected()) {
-            System.out.println("A conexão já está ativa.");
+            LOG.info("A conexão já está ativa.");
             return true;
         }
 
         try {
-            System.out.println("Conectando ao banco de dados MySQL...");
+            LOG.info("Conectando ao banco de dados MySQL...");
             // As propriedades url, user e password são herdadas da classe pai
-            this.connection = DriverManager.getConnection(this.url, this.user, this.password);
-            System.out.println("Conexão bem-sucedida!");
+            this.connection = FabricaConexoes.abrir(this.url, this.user, this.password);
+            LOG.info("Conexão bem-sucedida!");
             try {
                 this.check();
 
             } catch (RuntimeException e) {
                 throw new RuntimeException("Could not check to the database", e);
             }
+            this.aquecerCaches(this.connection);
             return true;
         } catch (SQLException e) {
-            System.err.println("Falha na conexão com o banco de dados.");
+            LOG.erro("Falha na conexão com o banco de dados.");
             throw new RuntimeException("Could not connect to the database", e);
         }
     }
@@ -42,16 +43,17 @@ public class DbConnection extends ADbConnection {
     @Override
     public Boolean disconnect() {
         if (!isConnected()) {
-            System.out.println("Nenhuma conexão ativa para fechar.");
+            LOG.info("Nenhuma conexão ativa para fechar.");
             return true;
         }
         try {
-            System.out.println("Fechando a conexão com o banco de dados...");
+            LOG.info("Fechando a conexão com o banco de dados...");
+            this.fecharStatements();
             this.connection.close();
-            System.out.println("Conexão fechada com sucesso.");
+            LOG.info("Conexão fechada com sucesso.");
             return true;
         } catch (SQLException e) {
-            System.err.println("Erro ao fechar a conexão com o banco de dados.");
+            LOG.erro("Erro ao fechar a conexão com o banco de dados.");
             e.notify();
             return false;
         }
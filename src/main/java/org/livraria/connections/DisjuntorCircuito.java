@@ -0,0 +1,116 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Disjuntor (circuit breaker) de um endpoint remoto.
+ * <p>
+ * Fechado, deixa passar tudo. Depois de {@code falhasParaAbrir} falhas seguidas, abre e recusa as
+ * requisições de imediato durante {@code tempoAbertoMs}. Passado esse tempo, fica meio-aberto e libera
+ * uma única requisição de teste: se ela der certo o circuito fecha, se falhar ele abre de novo.
+ * Usa {@link ReentrantLock} para não prender threads virtuais ao carrier.
+ */
+public class DisjuntorCircuito {
+
+    private static final Log LOG = Log.de(DisjuntorCircuito.class);
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final int falhasParaAbrir;
+    private final long tempoAbertoNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas = 0;
+    private long abertoEm = 0;
+    private boolean testeEmAndamento = false;
+
+    /**
+     * @param falhasParaAbrir Falhas seguidas que abrem o circuito.
+     * @param tempoAbertoMs Quanto tempo o circuito fica aberto antes de liberar uma requisição de teste.
+     */
+    public DisjuntorCircuito(int falhasParaAbrir, long tempoAbertoMs) {
+        this.falhasParaAbrir = falhasParaAbrir;
+        this.tempoAbertoNanos = tempoAbertoMs * 1_000_000;
+    }
+
+    /**
+     * @return true se a requisição pode ser enviada agora.
+     */
+    public boolean permitir() {
+        lock.lock();
+        try {
+            if (estado == Estado.ABERTO && System.nanoTime() - abertoEm >= tempoAbertoNanos) {
+                estado = Estado.MEIO_ABERTO;
+                testeEmAndamento = false;
+            }
+            if (estado == Estado.MEIO_ABERTO) {
+                if (testeEmAndamento) {
+                    return false;
+                }
+                testeEmAndamento = true;
+                return true;
+            }
+            return estado == Estado.FECHADO;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void registrarSucesso() {
+        lock.lock();
+        try {
+            estado = Estado.FECHADO;
+            falhasSeguidas = 0;
+            testeEmAndamento = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A requisição foi abandonada por quem a pediu antes de ter resposta: não conta como sucesso nem como falha,
+     * mas, se era o teste do circuito meio-aberto, libera outra requisição de teste.
+     */
+    public void registrarDesistencia() {
+        lock.lock();
+        try {
+            testeEmAndamento = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void registrarFalha() {
+        lock.lock();
+        try {
+            falhasSeguidas++;
+            if (estado == Estado.MEIO_ABERTO || falhasSeguidas >= falhasParaAbrir) {
+                if (estado != Estado.ABERTO) {
+                    LOG.aviso("Circuito da API aberto após " + falhasSeguidas + " falhas seguidas.");
+                }
+                estado = Estado.ABERTO;
+                abertoEm = System.nanoTime();
+                testeEmAndamento = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Estado getEstado() {
+        lock.lock();
+        try {
+            return estado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Circuito " + getEstado();
+    }
+}
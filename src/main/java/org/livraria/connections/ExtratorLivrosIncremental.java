@@ -0,0 +1,226 @@
+package org.livraria.connections;
+
+import org.livraria.types.Livro;
+
+import java.util.function.Consumer;
+
+/**
+ * Extrai objetos {@link Livro} do array "livros" de um JSON que chega em pedaços.
+ * <p>
+ * Cada pedaço recebido em {@link #alimentar(CharSequence)} é varrido uma única vez, caractere a caractere,
+ * com as mesmas regras de {@link LeitorRespostaGroq}: o texto antes do primeiro '{' ou '[' (incluindo cercas de
+ * markdown como {@code ```json}) é ignorado; se o JSON for um objeto, o array é o valor da chave "livros" do
+ * primeiro nível. Cada objeto do array é entregue ao consumidor assim que sua chave de fechamento chega, sem
+ * esperar o restante da resposta, e é convertido por {@link LeitorRespostaGroq#converter(String)}: objetos
+ * malformados ou sem título e itens que não sejam objetos são descartados sem interromper os demais.
+ */
+public class ExtratorLivrosIncremental {
+
+    private static final String CHAVE_LIVROS = "livros";
+
+    private enum Estado { PROCURANDO_INICIO, NO_OBJETO, NO_ARRAY, FIM }
+
+    private final Consumer<Livro> aoReceber;
+
+    private Estado estado = Estado.PROCURANDO_INICIO;
+    private int profundidade = 0;
+    private boolean emString = false;
+    private boolean escape = false;
+
+    // No objeto de primeiro nível: a última string lida nesse nível e se ela foi a chave "livros".
+    private final StringBuilder ultimaString = new StringBuilder();
+    private boolean guardandoString = false;
+    private boolean aposChaveLivros = false;
+
+    // No array: se já começou um item depois da última vírgula e se ele é um objeto sendo copiado.
+    private final StringBuilder objetoAtual = new StringBuilder();
+    private boolean noItem = false;
+    private boolean copiando = false;
+
+    private int emitidos = 0;
+    private int descartados = 0;
+
+    /**
+     * @param aoReceber Chamado para cada livro completo, na ordem em que aparecem.
+     */
+    public ExtratorLivrosIncremental(Consumer<Livro> aoReceber) {
+        this.aoReceber = aoReceber;
+    }
+
+    /**
+     * Processa o próximo pedaço do JSON.
+     *
+     * @param trecho O texto recebido, possivelmente cortando chaves, strings ou objetos ao meio.
+     */
+    public void alimentar(CharSequence trecho) {
+        for (int i = 0; i < trecho.length() && estado != Estado.FIM; i++) {
+            char c = trecho.charAt(i);
+            switch (estado) {
+                case PROCURANDO_INICIO -> {
+                    if (c == '[') {
+                        estado = Estado.NO_ARRAY;
+                    } else if (c == '{') {
+                        estado = Estado.NO_OBJETO;
+                        profundidade = 1;
+                    }
+                }
+                case NO_OBJETO -> processarNoObjeto(c);
+                case NO_ARRAY -> processarNoArray(c);
+                default -> {
+                    // FIM: o laço já parou.
+                }
+            }
+        }
+    }
+
+    /**
+     * Varre o objeto de primeiro nível até o '[' do valor de "livros", pulando as demais chaves.
+     */
+    private void processarNoObjeto(char c) {
+        if (emString) {
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                emString = false;
+                guardandoString = false;
+                return;
+            }
+            if (guardandoString) {
+                ultimaString.append(c);
+            }
+            return;
+        }
+        if (aposChaveLivros) {
+            if (isBranco(c)) {
+                return;
+            }
+            aposChaveLivros = false;
+            if (c == '[') {
+                estado = Estado.NO_ARRAY;
+                profundidade = 0;
+                return;
+            }
+        }
+        switch (c) {
+            case '"' -> {
+                emString = true;
+                guardandoString = profundidade == 1;
+                ultimaString.setLength(0);
+            }
+            case '{', '[' -> profundidade++;
+            case '}', ']' -> {
+                if (--profundidade == 0) {
+                    estado = Estado.FIM; // O objeto fechou sem um array "livros".
+                }
+            }
+            case ':' -> aposChaveLivros = profundidade == 1 && CHAVE_LIVROS.contentEquals(ultimaString);
+            default -> {
+                // Espaços, vírgulas, números e literais.
+            }
+        }
+    }
+
+    private void processarNoArray(char c) {
+        if (copiando) {
+            objetoAtual.append(c);
+        }
+        if (emString) {
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                emString = false;
+            }
+            return;
+        }
+        if (profundidade == 0) {
+            processarEntreItens(c);
+            return;
+        }
+
+        if (c == '"') {
+            emString = true;
+        } else if (c == '{' || c == '[') {
+            profundidade++;
+        } else if (c == '}' || c == ']') {
+            profundidade--;
+            if (profundidade == 0 && copiando) {
+                copiando = false;
+                emitir(objetoAtual.toString());
+                objetoAtual.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Fora de objetos e arrays aninhados: entre os itens ou dentro de um item simples (número, literal ou string).
+     */
+    private void processarEntreItens(char c) {
+        if (c == ']') {
+            estado = Estado.FIM;
+            return;
+        }
+        if (c == ',') {
+            noItem = false;
+            return;
+        }
+        if (isBranco(c)) {
+            return;
+        }
+        if (!noItem) {
+            noItem = true;
+            if (c == '{') {
+                copiando = true;
+                objetoAtual.setLength(0);
+                objetoAtual.append(c);
+            } else {
+                descartados++; // Um item que não é objeto.
+            }
+        }
+        if (c == '"') {
+            emString = true;
+        } else if (c == '{' || c == '[') {
+            profundidade++;
+        }
+    }
+
+    private static boolean isBranco(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private void emitir(String json) {
+        Livro livro = LeitorRespostaGroq.converter(json);
+        if (livro == null) {
+            descartados++;
+            return;
+        }
+        emitidos++;
+        aoReceber.accept(livro);
+    }
+
+    /**
+     * @return true se o fim do array "livros" já foi encontrado.
+     */
+    public boolean isConcluido() {
+        return estado == Estado.FIM;
+    }
+
+    /**
+     * @return true se o JSON foi aberto mas o array "livros" ainda não fechou, como quando a resposta é cortada
+     * pelo limite de tokens.
+     */
+    public boolean isTruncado() {
+        return estado == Estado.NO_OBJETO || estado == Estado.NO_ARRAY;
+    }
+
+    public int getEmitidos() {
+        return emitidos;
+    }
+
+    public int getDescartados() {
+        return descartados;
+    }
+}
@@ -0,0 +1,52 @@
+package org.livraria.connections;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Abre as conexões físicas de {@link DbConnection} e {@link PoolConexoes}.
+ * <p>
+ * No MySQL, ativa os prepared statements do lado do servidor ({@code useServerPrepStmts}): o SQL é analisado
+ * uma vez por statement e as execuções seguintes enviam só os parâmetros, em formato binário. Combinado com o
+ * {@link CacheStatements} de cada conexão, cada SQL é preparado uma única vez por conexão. Também ativa
+ * {@code useCursorFetch}, para que as leituras com fetch size (listagens em streaming, carga do índice de busca)
+ * venham em blocos por um cursor do servidor em vez do resultado inteiro na memória; as demais consultas, sem
+ * fetch size, não mudam. Valores já presentes na URL têm precedência. Outros drivers recebem apenas usuário e senha.
+ */
+final class FabricaConexoes {
+
+    private static final String PREFIXO_MYSQL = "jdbc:mysql:";
+
+    private static final Properties PADROES_MYSQL = new Properties();
+
+    static {
+        PADROES_MYSQL.setProperty("useServerPrepStmts", "true");
+        // Cache do próprio driver, para os statements avulsos (ver CacheStatements).
+        PADROES_MYSQL.setProperty("cachePrepStmts", "true");
+        PADROES_MYSQL.setProperty("prepStmtCacheSize", "250");
+        PADROES_MYSQL.setProperty("prepStmtCacheSqlLimit", "2048");
+        // Sem ele o Connector/J ignora o fetch size e carrega o resultado inteiro antes da primeira linha.
+        PADROES_MYSQL.setProperty("useCursorFetch", "true");
+    }
+
+    private FabricaConexoes() {
+    }
+
+    static Connection abrir(String url, String user, String password) throws SQLException {
+        Properties propriedades = new Properties();
+        if (url.regionMatches(true, 0, PREFIXO_MYSQL, 0, PREFIXO_MYSQL.length())) {
+            String urlMinuscula = url.toLowerCase(Locale.ROOT);
+            for (String nome : PADROES_MYSQL.stringPropertyNames()) {
+                if (!urlMinuscula.contains(nome.toLowerCase(Locale.ROOT) + "=")) {
+                    propriedades.setProperty(nome, PADROES_MYSQL.getProperty(nome));
+                }
+            }
+        }
+        propriedades.setProperty("user", user);
+        propriedades.setProperty("password", password);
+        return DriverManager.getConnection(url, propriedades);
+    }
+}
@@ -0,0 +1,60 @@
+package org.livraria.connections;
+
+import java.util.List;
+
+/**
+ * Uma faixa alfabética de títulos, usada para dividir a busca de um autor com muitos livros em
+ * consultas menores, cada uma cabendo no limite de tokens da resposta.
+ * <p>
+ * A divisão é pela letra inicial do título e não pela década de publicação: a IA conhece os títulos
+ * com mais segurança do que os anos, e as faixas cobrem todos os livros sem precisar saber de antemão
+ * em que período o autor publicou. Títulos que começam com número ou símbolo ficam em {@link #OUTROS}.
+ *
+ * @param inicio A primeira letra da faixa, ou '0' para {@link #OUTROS}.
+ * @param fim A última letra da faixa, ou '9' para {@link #OUTROS}.
+ */
+record FaixaTitulos(char inicio, char fim) {
+
+    static final FaixaTitulos OUTROS = new FaixaTitulos('0', '9');
+
+    /**
+     * As faixas da primeira divisão: seis faixas de letras mais a dos títulos sem letra inicial.
+     */
+    static final List<FaixaTitulos> PADRAO = List.of(
+            new FaixaTitulos('A', 'D'),
+            new FaixaTitulos('E', 'H'),
+            new FaixaTitulos('I', 'L'),
+            new FaixaTitulos('M', 'P'),
+            new FaixaTitulos('Q', 'T'),
+            new FaixaTitulos('U', 'Z'),
+            OUTROS);
+
+    /**
+     * @return A consulta original acrescida da restrição a esta faixa.
+     */
+    String restringir(String consulta) {
+        String faixa = equals(OUTROS)
+                ? "começa com um número ou um símbolo (não com uma letra)"
+                : inicio == fim
+                ? "começa com a letra " + inicio
+                : "começa com uma letra de " + inicio + " a " + fim;
+        return consulta + "\n\nInclua SOMENTE os livros cujo título " + faixa
+                + " (ignore acentos). Os demais livros são buscados em outras consultas.";
+    }
+
+    /**
+     * @return As duas metades da faixa, ou uma lista vazia se ela não puder ser dividida.
+     */
+    List<FaixaTitulos> dividir() {
+        if (equals(OUTROS) || inicio == fim) {
+            return List.of();
+        }
+        char meio = (char) ((inicio + fim) / 2);
+        return List.of(new FaixaTitulos(inicio, meio), new FaixaTitulos((char) (meio + 1), fim));
+    }
+
+    @Override
+    public String toString() {
+        return equals(OUTROS) ? "0-9" : inicio + "-" + fim;
+    }
+}
@@ -0,0 +1,261 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cria e atualiza o esquema do banco a partir dos blocos {@code -- @versao N: descrição} de {@code MySQLTables.sql}.
+ * <p>
+ * As versões aplicadas ficam na tabela {@value #TABELA_VERSAO}. Com o banco em dia, {@link #garantir(Connection)}
+ * custa uma única consulta ({@code SELECT MAX(versao)}) e nenhum DDL; só quando falta alguma versão o script é
+ * executado, sob um {@code GET_LOCK} para que vários processos subindo juntos não migrem ao mesmo tempo.
+ * <p>
+ * Bancos criados à mão com o script, antes desta tabela existir, são adotados: tabelas usam
+ * {@code IF NOT EXISTS} e índices que já existem são ignorados.
+ */
+public class GerenciadorEsquema {
+
+    private static final Log LOG = Log.de(GerenciadorEsquema.class);
+
+    public static final String SCRIPT_PADRAO = "/MySQLTables.sql";
+    static final String TABELA_VERSAO = "esquema_versao";
+
+    private static final String NOME_TRAVA = "livraria_esquema";
+    private static final int ESPERA_TRAVA_SEGUNDOS = 60;
+    private static final Pattern MARCA_VERSAO = Pattern.compile("^--\\s*@versao\\s+(\\d+)\\s*:\\s*(.*)$");
+
+    // Erros de objeto já existente: MySQL (tabela, índice) e H2 (tabela, índice).
+    private static final int[] JA_EXISTE = {1050, 1061, 42101, 42111};
+
+    // Erros de tabela inexistente: MySQL e H2 (sem sugestões, com sugestões, banco vazio).
+    private static final int[] TABELA_INEXISTENTE = {1146, 42102, 42103, 42104};
+
+    /**
+     * Uma versão do esquema e seus comandos, na ordem do script.
+     */
+    record Migracao(int versao, String descricao, List<String> comandos) {
+    }
+
+    private final String script;
+    private volatile List<Migracao> migracoes = null;
+
+    public GerenciadorEsquema() {
+        this(SCRIPT_PADRAO);
+    }
+
+    /**
+     * @param script O caminho do script no classpath.
+     */
+    public GerenciadorEsquema(String script) {
+        this.script = script;
+    }
+
+    /**
+     * Aplica as versões que faltam.
+     *
+     * @param conn Uma conexão ativa com o banco já selecionado na URL.
+     * @return A versão do esquema depois da chamada.
+     * @throws SQLException Se uma migração falhar; as versões anteriores a ela ficam registradas.
+     * @throws IOException Se o script não puder ser lido.
+     */
+    public int garantir(Connection conn) throws SQLException, IOException {
+        long inicio = System.nanoTime();
+        List<Migracao> todas = getMigracoes();
+        int ultima = todas.isEmpty() ? 0 : todas.get(todas.size() - 1).versao();
+
+        int atual = versaoAplicada(conn);
+        if (atual >= ultima) {
+            LOG.debug(() -> "Esquema na versão " + atual + ", conferido em "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+            return atual;
+        }
+
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + TABELA_VERSAO + " ("
+                    + "versao INT PRIMARY KEY, "
+                    + "descricao VARCHAR(255) NOT NULL, "
+                    + "aplicada_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        boolean travado = travar(conn);
+        try {
+            // Outro processo pode ter migrado enquanto esperávamos a trava.
+            int versao = versaoAplicada(conn);
+            for (Migracao migracao : todas) {
+                if (migracao.versao() > versao) {
+                    aplicar(conn, migracao);
+                    versao = migracao.versao();
+                }
+            }
+            LOG.info("Esquema atualizado para a versão " + versao + " em "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+            return versao;
+        } finally {
+            if (travado) {
+                destravar(conn);
+            }
+        }
+    }
+
+    /**
+     * @return As migrações do script, em ordem crescente de versão. O script é lido uma única vez.
+     */
+    List<Migracao> getMigracoes() throws IOException {
+        List<Migracao> lidas = migracoes;
+        if (lidas == null) {
+            lidas = lerScript();
+            migracoes = lidas;
+        }
+        return lidas;
+    }
+
+    /**
+     * @return A maior versão registrada, ou 0 se a tabela de versões ainda não existir.
+     * @throws SQLException Se a consulta falhar por outro motivo (ex.: conexão perdida, sem permissão).
+     */
+    private static int versaoAplicada(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(versao) FROM " + TABELA_VERSAO)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (isTabelaInexistente(e)) {
+                return 0; // Banco novo ou criado à mão.
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isTabelaInexistente(SQLException e) {
+        for (int codigo : TABELA_INEXISTENTE) {
+            if (e.getErrorCode() == codigo) {
+                return true;
+            }
+        }
+        return "42S02".equals(e.getSQLState());
+    }
+
+    private static void aplicar(Connection conn, Migracao migracao) throws SQLException {
+        LOG.info("Aplicando a versão " + migracao.versao() + " do esquema: " + migracao.descricao());
+        try (Statement statement = conn.createStatement()) {
+            for (String comando : migracao.comandos()) {
+                try {
+                    statement.execute(comando);
+                } catch (SQLException e) {
+                    if (!jaExiste(e)) {
+                        throw e;
+                    }
+                    LOG.debug(() -> "Objeto já existente ignorado na versão " + migracao.versao() + ": " + e.getMessage());
+                }
+            }
+        }
+        try (PreparedStatement registro = conn.prepareStatement(
+                "INSERT INTO " + TABELA_VERSAO + " (versao, descricao) VALUES (?, ?)")) {
+            registro.setInt(1, migracao.versao());
+            registro.setString(2, migracao.descricao());
+            registro.executeUpdate();
+        }
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+    }
+
+    private static boolean jaExiste(SQLException e) {
+        for (int codigo : JA_EXISTE) {
+            if (e.getErrorCode() == codigo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true se a trava foi obtida; false se o banco não tiver {@code GET_LOCK} (ex.: H2).
+     */
+    private static boolean travar(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, NOME_TRAVA);
+            statement.setInt(2, ESPERA_TRAVA_SEGUNDOS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getInt(1) == 1) {
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            LOG.debug(() -> "Banco sem GET_LOCK; migrando sem trava: " + e.getMessage());
+            return false;
+        }
+        throw new SQLException("Tempo esgotado esperando outro processo migrar o esquema.");
+    }
+
+    private static void destravar(Connection conn) {
+        try (PreparedStatement statement = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, NOME_TRAVA);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            LOG.aviso("Não foi possível liberar a trava do esquema: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Separa o script em migrações. O que vem antes do primeiro bloco (CREATE DATABASE, USE) é ignorado,
+     * já que o banco vem da URL JDBC.
+     */
+    private List<Migracao> lerScript() throws IOException {
+        String texto;
+        try (InputStream in = GerenciadorEsquema.class.getResourceAsStream(script)) {
+            if (in == null) {
+                throw new IOException(script + " não encontrado no classpath.");
+            }
+            texto = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<Migracao> lidas = new ArrayList<>();
+        int versao = -1;
+        String descricao = null;
+        StringBuilder sql = new StringBuilder();
+        for (String linha : texto.split("\\R")) {
+            Matcher marca = MARCA_VERSAO.matcher(linha.strip());
+            if (marca.matches()) {
+                if (versao >= 0) {
+                    lidas.add(new Migracao(versao, descricao, comandos(sql)));
+                }
+                int nova = Integer.parseInt(marca.group(1));
+                if (nova <= versao) {
+                    throw new IOException("Versões fora de ordem em " + script + ": " + nova + " depois de " + versao + ".");
+                }
+                versao = nova;
+                descricao = marca.group(2).strip();
+                sql.setLength(0);
+                continue;
+            }
+            int comentario = linha.indexOf("--");
+            sql.append(comentario >= 0 ? linha.substring(0, comentario) : linha).append('\n');
+        }
+        if (versao >= 0) {
+            lidas.add(new Migracao(versao, descricao, comandos(sql)));
+        }
+        return List.copyOf(lidas);
+    }
+
+    private static List<String> comandos(CharSequence sql) {
+        List<String> comandos = new ArrayList<>();
+        for (String comando : sql.toString().split(";")) {
+            if (!comando.isBlank()) {
+                comandos.add(comando.strip());
+            }
+        }
+        return comandos;
+    }
+}
@@ -0,0 +1,555 @@
+package org.livraria.connections;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.livraria.log.Log;
+import org.livraria.types.Livro;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+/**
+ * Lê uma resposta de chat-completions do Groq em uma única passada, direto do corpo HTTP para {@link Livro}.
+ * <p>
+ * O envelope é varrido caractere a caractere até {@code choices[0].message.content}, sem montar objetos nem
+ * guardar o corpo. O conteúdo é uma string JSON que contém outro JSON; em vez de extraí-la, um {@link Reader}
+ * desfaz os escapes sob demanda. Texto antes do primeiro '{' ou '[' (cercas de markdown, explicações) é
+ * ignorado, e o que vier depois do array "livros" nem chega a ser lido.
+ * <p>
+ * Cada objeto do array é delimitado pela profundidade das chaves, como no {@link ExtratorLivrosIncremental},
+ * e só ele fica em memória enquanto é convertido por {@link #converter(String)}. Um objeto malformado, sem
+ * título ou um item que não seja objeto é descartado, e a leitura segue no próximo; campos com tipo
+ * inesperado ficam vazios sem descartar o livro.
+ * <p>
+ * Depois do conteúdo, o restante do envelope é varrido em busca de {@code finish_reason}: uma resposta
+ * cortada pelo limite de tokens ({@code "length"}) ou cujo JSON termina antes de fechar o array
+ * é marcada como {@link #isTruncada() truncada}.
+ */
+public class LeitorRespostaGroq {
+
+    private static final Log LOG = Log.de(LeitorRespostaGroq.class);
+
+    private static final int TAMANHO_BUFFER = 8192;
+    private static final int PROFUNDIDADE_MAXIMA = 64;
+
+    private final Consumer<Livro> aoReceber;
+    private final char[] buffer = new char[TAMANHO_BUFFER];
+    private Reader origem;
+    private int posicao = 0;
+    private int limite = 0;
+    private int emitidos = 0;
+    private int descartados = 0;
+    private boolean conteudoIncompleto = false;
+    private String finishReason = null;
+
+    // Estado da varredura do envelope: a chave atual de cada nível e a posição nos arrays.
+    private final String[] chaves = new String[PROFUNDIDADE_MAXIMA];
+    private final boolean[] ehArray = new boolean[PROFUNDIDADE_MAXIMA];
+    private final int[] indices = new int[PROFUNDIDADE_MAXIMA];
+    private int profundidade = 0;
+    private boolean esperandoChave = false;
+
+    /**
+     * @param aoReceber Chamado para cada livro, na ordem da resposta.
+     */
+    public LeitorRespostaGroq(Consumer<Livro> aoReceber) {
+        this.aoReceber = aoReceber;
+    }
+
+    /**
+     * Lê a resposta inteira: os livros do conteúdo e, em seguida, o {@code finish_reason}.
+     *
+     * @param corpo O corpo da resposta HTTP. Não é fechado por este método.
+     * @return false se a resposta não tiver {@code choices[0].message.content}.
+     * @throws IOException Se a leitura do corpo falhar ou a string do conteúdo tiver um escape inválido.
+     * Um conteúdo que termina com o JSON ainda aberto não é erro: marca a resposta como truncada.
+     */
+    public boolean ler(Reader corpo) throws IOException {
+        this.origem = corpo;
+        if (!varrerEnvelope(true)) {
+            return false;
+        }
+
+        Conteudo conteudo = new Conteudo();
+        try {
+            lerConteudo(conteudo);
+        } catch (EOFException e) {
+            conteudoIncompleto = true; // O texto acabou com o JSON ainda aberto.
+        }
+
+        conteudo.drenar();
+        varrerEnvelope(false);
+        return true;
+    }
+
+    /**
+     * @return true se a IA parou pelo limite de tokens ou o JSON do conteúdo terminou antes de fechar.
+     */
+    public boolean isTruncada() {
+        return conteudoIncompleto || "length".equals(finishReason);
+    }
+
+    /**
+     * @return O {@code choices[0].finish_reason} da resposta, ou null se ausente.
+     */
+    public String getFinishReason() {
+        return finishReason;
+    }
+
+    private void lerConteudo(Conteudo conteudo) throws IOException {
+        int c;
+        do {
+            c = conteudo.read();
+        } while (c >= 0 && c != '{' && c != '[');
+        if (c < 0) {
+            return; // Conteúdo sem JSON: nenhum livro.
+        }
+        if (c == '[' || procurarLivros(conteudo)) {
+            lerLivros(conteudo);
+        }
+    }
+
+    /**
+     * Varre o objeto de mais alto nível do conteúdo até o '[' do valor de "livros", pulando as demais chaves.
+     *
+     * @return false se o objeto fechar sem um array "livros".
+     */
+    private static boolean procurarLivros(Conteudo conteudo) throws IOException {
+        int nivel = 1;
+        String ultimaString = null;
+        int c;
+        while ((c = conteudo.read()) >= 0) {
+            switch (c) {
+                case '"' -> ultimaString = lerString(conteudo, nivel == 1);
+                case '{', '[' -> nivel++;
+                case '}', ']' -> {
+                    if (--nivel == 0) {
+                        return false;
+                    }
+                }
+                case ':' -> {
+                    if (nivel == 1 && "livros".equals(ultimaString)) {
+                        int valor = naoBranco(conteudo);
+                        if (valor == '[') {
+                            return true;
+                        }
+                        conteudo.devolver(valor);
+                    }
+                }
+                default -> {
+                    // Espaços, vírgulas, números e literais.
+                }
+            }
+        }
+        throw new EOFException("Conteúdo terminou antes do array \"livros\".");
+    }
+
+    public int getEmitidos() {
+        return emitidos;
+    }
+
+    public int getDescartados() {
+        return descartados;
+    }
+
+    /**
+     * Lê os itens do array "livros", a partir de logo depois do '['.
+     */
+    private void lerLivros(Conteudo conteudo) throws IOException {
+        StringBuilder objeto = new StringBuilder(512);
+        while (true) {
+            int c = naoBranco(conteudo);
+            switch (c) {
+                case -1 -> throw new EOFException("Conteúdo terminou antes de fechar o array \"livros\".");
+                case ']' -> {
+                    return;
+                }
+                case ',' -> {
+                    // Separador entre os itens.
+                }
+                case '{' -> {
+                    objeto.setLength(0);
+                    capturarObjeto(conteudo, objeto);
+                    Livro livro = converter(objeto.toString());
+                    if (livro == null) {
+                        descartados++;
+                    } else {
+                        emitidos++;
+                        aoReceber.accept(livro);
+                    }
+                }
+                default -> {
+                    // Um item que não é objeto.
+                    descartados++;
+                    conteudo.devolver(c);
+                    if (pularItem(conteudo)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copia um objeto do array, a partir de logo depois do '{', até a chave que o fecha.
+     * Chaves e colchetes dentro de strings não contam.
+     */
+    private static void capturarObjeto(Conteudo conteudo, StringBuilder objeto) throws IOException {
+        objeto.append('{');
+        int nivel = 1;
+        boolean emString = false;
+        boolean escape = false;
+        int c;
+        while ((c = conteudo.read()) >= 0) {
+            objeto.append((char) c);
+            if (emString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    emString = false;
+                }
+            } else if (c == '"') {
+                emString = true;
+            } else if (c == '{' || c == '[') {
+                nivel++;
+            } else if ((c == '}' || c == ']') && --nivel == 0) {
+                return;
+            }
+        }
+        throw new EOFException("Conteúdo terminou no meio de um livro.");
+    }
+
+    /**
+     * Pula um item que não é objeto até a vírgula ou o colchete que fecha o array.
+     *
+     * @return true se o array terminou.
+     */
+    private static boolean pularItem(Conteudo conteudo) throws IOException {
+        int nivel = 0;
+        int c;
+        while ((c = conteudo.read()) >= 0) {
+            if (c == '"') {
+                lerString(conteudo, false);
+            } else if (c == '{' || c == '[') {
+                nivel++;
+            } else if (c == '}' || c == ']') {
+                if (nivel == 0) {
+                    if (c == ']') {
+                        return true;
+                    }
+                } else {
+                    nivel--;
+                }
+            } else if (c == ',' && nivel == 0) {
+                return false;
+            }
+        }
+        throw new EOFException("Conteúdo terminou no meio do array \"livros\".");
+    }
+
+    /**
+     * Lê uma string do JSON do conteúdo, a partir de logo depois da aspa que a abre.
+     *
+     * @param guardar false para só pulá-la.
+     * @return O texto da string (com os escapes do JSON interno mantidos), ou null se {@code guardar} for false.
+     */
+    private static String lerString(Conteudo conteudo, boolean guardar) throws IOException {
+        StringBuilder texto = guardar ? new StringBuilder(16) : null;
+        int c;
+        while ((c = conteudo.read()) >= 0 && c != '"') {
+            if (guardar) {
+                texto.append((char) c);
+            }
+            if (c == '\\') {
+                c = conteudo.read();
+                if (c < 0) {
+                    break;
+                }
+                if (guardar) {
+                    texto.append((char) c);
+                }
+            }
+        }
+        if (c < 0) {
+            throw new EOFException("Conteúdo terminou no meio de uma string.");
+        }
+        return guardar ? texto.toString() : null;
+    }
+
+    private static int naoBranco(Conteudo conteudo) throws IOException {
+        int c;
+        do {
+            c = conteudo.read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    /**
+     * Converte o texto de um objeto do array "livros" em {@link Livro}. É a regra única dos dois leitores de
+     * resposta (este e o {@link ExtratorLivrosIncremental}): objetos malformados ou sem título são descartados;
+     * campos com tipo inesperado ficam vazios.
+     *
+     * @return O livro, ou null se ele tiver sido descartado.
+     */
+    static Livro converter(String objeto) {
+        try {
+            return lerLivro(new JsonReader(new StringReader(objeto)));
+        } catch (IOException | IllegalStateException e) {
+            LOG.aviso("Livro malformado ignorado na resposta da IA: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return O livro, ou null se ele não tiver título.
+     */
+    private static Livro lerLivro(JsonReader json) throws IOException {
+        String titulo = null, autor = null, genero = null, sinopse = null, editora = null, origem = null, isbn = null;
+        int ano = 0, paginas = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "titulo" -> titulo = texto(json);
+                case "autor" -> autor = texto(json);
+                case "genero" -> genero = texto(json);
+                case "sinopse" -> sinopse = texto(json);
+                case "anodepublicacao" -> ano = inteiro(json);
+                case "editora" -> editora = texto(json);
+                case "origem" -> origem = texto(json);
+                case "numerodepaginas" -> paginas = inteiro(json);
+                case "ISBN", "isbn" -> isbn = texto(json);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (titulo == null || titulo.isBlank()) {
+            return null;
+        }
+        return new Livro(titulo, autor, genero, sinopse, ano, editora, origem, paginas, isbn);
+    }
+
+    private static String texto(JsonReader json) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return json.nextString();
+        }
+        json.skipValue();
+        return null;
+    }
+
+    /**
+     * Aceita números e textos numéricos ("1954"); qualquer outra coisa vira 0.
+     */
+    private static int inteiro(JsonReader json) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            try {
+                return json.nextInt();
+            } catch (NumberFormatException e) {
+                // O valor continua pendente no leitor; skipValue o consome.
+            }
+        }
+        json.skipValue();
+        return 0;
+    }
+
+    // --- Envelope ---
+
+    /**
+     * Varre o envelope guardando apenas as chaves do caminho atual; os demais valores são pulados sem alocação.
+     * O {@code finish_reason} de {@code choices[0]} é guardado sempre que aparece.
+     *
+     * @param procurarConteudo true para parar logo depois da aspa que abre {@code choices[0].message.content};
+     *                         false para ir até o fim do corpo.
+     * @return true se parou no conteúdo.
+     */
+    private boolean varrerEnvelope(boolean procurarConteudo) throws IOException {
+        int c;
+        while ((c = proximo()) >= 0) {
+            switch (c) {
+                case '{', '[' -> {
+                    if (++profundidade >= PROFUNDIDADE_MAXIMA) {
+                        throw new IOException("Resposta da API Groq aninhada demais.");
+                    }
+                    ehArray[profundidade] = c == '[';
+                    indices[profundidade] = 0;
+                    chaves[profundidade] = null;
+                    esperandoChave = c == '{';
+                }
+                case '}', ']' -> {
+                    profundidade = Math.max(0, profundidade - 1);
+                    esperandoChave = false;
+                }
+                case ',' -> {
+                    if (ehArray[profundidade]) {
+                        indices[profundidade]++;
+                    } else {
+                        esperandoChave = true;
+                    }
+                }
+                case '"' -> {
+                    if (esperandoChave) {
+                        chaves[profundidade] = lerChave();
+                        esperandoChave = false;
+                    } else {
+                        pularString();
+                    }
+                }
+                case ':' -> {
+                    boolean naPrimeiraEscolha = profundidade >= 3 && "choices".equals(chaves[1]) && ehArray[2] && indices[2] == 0;
+                    if (naPrimeiraEscolha && profundidade == 3 && "finish_reason".equals(chaves[3])) {
+                        if (proximoNaoBranco() == '"') {
+                            finishReason = lerChave();
+                        }
+                    } else if (procurarConteudo && naPrimeiraEscolha && profundidade == 4
+                            && "content".equals(chaves[4]) && "message".equals(chaves[3])) {
+                        int valor = proximoNaoBranco();
+                        if (valor == '"') {
+                            return true;
+                        }
+                        if (valor == '{' || valor == '[' || valor == '}' || valor == ']') {
+                            return false; // Conteúdo que não é texto: formato inesperado.
+                        }
+                        // null ou outro literal: segue procurando.
+                    }
+                }
+                default -> {
+                    // Espaços, números e literais.
+                }
+            }
+        }
+        return false;
+    }
+
+    private String lerChave() throws IOException {
+        StringBuilder chave = new StringBuilder(16);
+        int c;
+        while ((c = proximo()) >= 0 && c != '"') {
+            if (c == '\\') {
+                c = proximo();
+            }
+            chave.append((char) c);
+        }
+        return chave.toString();
+    }
+
+    private void pularString() throws IOException {
+        int c;
+        while ((c = proximo()) >= 0 && c != '"') {
+            if (c == '\\') {
+                proximo();
+            }
+        }
+    }
+
+    private int proximoNaoBranco() throws IOException {
+        int c;
+        do {
+            c = proximo();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private int proximo() throws IOException {
+        if (posicao == limite) {
+            limite = origem.read(buffer, 0, buffer.length);
+            posicao = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicao++];
+    }
+
+    /**
+     * O valor da string {@code content}, com os escapes desfeitos à medida que é lido.
+     * Termina na aspa que fecha a string.
+     */
+    private final class Conteudo extends Reader {
+
+        private int devolvido = -1;
+        private boolean fim = false;
+
+        void devolver(int c) {
+            devolvido = c;
+        }
+
+        /**
+         * Pula o que restar do conteúdo, até a aspa que fecha a string.
+         */
+        void drenar() throws IOException {
+            devolvido = -1;
+            while (read() >= 0) {
+                // Descarta.
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (devolvido >= 0) {
+                int c = devolvido;
+                devolvido = -1;
+                return c;
+            }
+            if (fim) {
+                return -1;
+            }
+            int c = proximo();
+            if (c < 0 || c == '"') {
+                fim = true;
+                return -1;
+            }
+            return c == '\\' ? escape() : c;
+        }
+
+        @Override
+        public int read(char[] destino, int inicio, int tamanho) throws IOException {
+            int lidos = 0;
+            while (lidos < tamanho) {
+                int c = read();
+                if (c < 0) {
+                    break;
+                }
+                destino[inicio + lidos++] = (char) c;
+            }
+            return lidos == 0 && tamanho > 0 ? -1 : lidos;
+        }
+
+        private int escape() throws IOException {
+            int c = proximo();
+            switch (c) {
+                case 'n': return '\n';
+                case 't': return '\t';
+                case 'r': return '\r';
+                case 'b': return '\b';
+                case 'f': return '\f';
+                case 'u': {
+                    int valor = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digito = Character.digit(proximo(), 16);
+                        if (digito < 0) {
+                            throw new IOException("Escape \\u inválido no conteúdo da resposta.");
+                        }
+                        valor = (valor << 4) | digito;
+                    }
+                    return valor;
+                }
+                case -1: throw new IOException("Conteúdo da resposta terminou no meio de um escape.");
+                default: return c; // \" \\ \/
+            }
+        }
+
+        @Override
+        public void close() {
+            // O corpo pertence a quem chamou ler().
+        }
+    }
+}
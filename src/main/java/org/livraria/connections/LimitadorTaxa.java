@@ -0,0 +1,84 @@
+package org.livraria.connections;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador de taxa do tipo token bucket.
+ * <p>
+ * O balde começa cheio com {@code capacidade} fichas e é reabastecido continuamente à taxa
+ * configurada. Cada chamada a {@link #adquirir()} consome uma ficha, esperando (fora do lock)
+ * o tempo necessário quando o balde está vazio. Usa {@link ReentrantLock} em vez de
+ * {@code synchronized} para não prender threads virtuais ao carrier.
+ */
+public class LimitadorTaxa {
+
+    private final double capacidade;
+    private final double fichasPorNano;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double fichas;
+    private long ultimoReabastecimento;
+
+    /**
+     * @param requisicoesPorMinuto A taxa média permitida.
+     * @param rajada O número máximo de requisições liberadas de uma só vez.
+     */
+    public LimitadorTaxa(double requisicoesPorMinuto, int rajada) {
+        if (requisicoesPorMinuto <= 0 || rajada <= 0) {
+            throw new IllegalArgumentException("A taxa e a rajada devem ser maiores que zero.");
+        }
+        this.capacidade = rajada;
+        this.fichasPorNano = requisicoesPorMinuto / TimeUnit.MINUTES.toNanos(1);
+        this.fichas = rajada;
+        this.ultimoReabastecimento = System.nanoTime();
+    }
+
+    /**
+     * Bloqueia até que uma ficha esteja disponível e a consome.
+     *
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public void adquirir() throws InterruptedException {
+        while (true) {
+            long esperaNanos;
+            lock.lock();
+            try {
+                reabastecer();
+                if (fichas >= 1) {
+                    fichas -= 1;
+                    return;
+                }
+                esperaNanos = (long) Math.ceil((1 - fichas) / fichasPorNano);
+            } finally {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(esperaNanos);
+        }
+    }
+
+    /**
+     * Consome uma ficha se houver uma disponível, sem esperar.
+     *
+     * @return false se o balde estiver vazio.
+     */
+    public boolean tentarAdquirir() {
+        lock.lock();
+        try {
+            reabastecer();
+            if (fichas >= 1) {
+                fichas -= 1;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reabastecer() {
+        long agora = System.nanoTime();
+        fichas = Math.min(capacidade, fichas + (agora - ultimoReabastecimento) * fichasPorNano);
+        ultimoReabastecimento = agora;
+    }
+}
@@ -0,0 +1,96 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+import org.livraria.types.Livro;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Consultas tipadas da tabela 'livros' e conversão das linhas em {@link Livro}.
+ * <p>
+ * Todas as consultas partem de {@link #SQL_BASE}, que junta 'livros' às tabelas de autores, gêneros
+ * e editoras. Os textos SQL são constantes, então cada um é preparado uma única vez por conexão
+ * ({@link CacheStatements}).
+ */
+final class MapeadorLivros {
+
+    private static final Log LOG = Log.de(MapeadorLivros.class);
+
+    static final String SQL_BASE = "SELECT l.titulo, a.nome AS autor, g.nome AS genero, l.sinopse, l.ano_publicacao, "
+            + "e.nome AS editora, l.idioma_origem, l.numero_paginas, l.isbn "
+            + "FROM livros l "
+            + "LEFT JOIN autores a ON a.id = l.autor_id "
+            + "LEFT JOIN generos g ON g.id = l.genero_id "
+            + "LEFT JOIN editoras e ON e.id = l.editora_id ";
+
+    static final String SQL_POR_AUTOR = SQL_BASE + "WHERE a.nome = ? ORDER BY l.ano_publicacao, l.id";
+    static final String SQL_POR_GENERO = SQL_BASE + "WHERE g.nome = ? ORDER BY l.ano_publicacao, l.id";
+    static final String SQL_POR_EDITORA = SQL_BASE + "WHERE e.nome = ? ORDER BY l.ano_publicacao, l.id";
+    static final String SQL_POR_ANO = SQL_BASE + "WHERE l.ano_publicacao BETWEEN ? AND ? ORDER BY l.ano_publicacao, l.id";
+    static final String SQL_POR_ISBN = SQL_BASE + "WHERE l.isbn = ?";
+    static final String SQL_TODOS = SQL_BASE + "ORDER BY l.id";
+
+    /**
+     * As tabelas lidas por {@link #SQL_BASE}; um commit em qualquer uma delas invalida as consultas em cache.
+     */
+    static final Set<String> TABELAS = Set.of("livros", "autores", "generos", "editoras");
+
+    private MapeadorLivros() {
+    }
+
+    /**
+     * Converte a linha atual do {@link ResultSet} em um {@link Livro}.
+     */
+    static Livro mapear(ResultSet resultSet) throws SQLException {
+        return new Livro(
+                resultSet.getString("titulo"),
+                resultSet.getString("autor"),
+                resultSet.getString("genero"),
+                resultSet.getString("sinopse"),
+                resultSet.getInt("ano_publicacao"),
+                resultSet.getString("editora"),
+                resultSet.getString("idioma_origem"),
+                resultSet.getInt("numero_paginas"),
+                resultSet.getString("isbn"));
+    }
+
+    /**
+     * Expõe um {@link ResultSet} aberto como um {@link Stream} preguiçoso: cada linha só é lida
+     * quando o stream pede o próximo livro. Fechar o stream fecha o result set, o statement e
+     * devolve a conexão emprestada.
+     */
+    static Stream<Livro> stream(ConexaoEmprestada emprestimo, PreparedStatement statement, ResultSet resultSet) {
+        Spliterator<Livro> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Livro> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapear(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Falha ao ler o próximo livro: " + e.getMessage(), e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            // Fecha na ordem inversa: result set, statement e, por último, o empréstimo.
+            try (emprestimo; statement; resultSet) {
+                // Nada a fazer além de fechar.
+            } catch (SQLException e) {
+                LOG.aviso("Erro ao fechar a consulta de livros: " + e.getMessage());
+            }
+        });
+    }
+}
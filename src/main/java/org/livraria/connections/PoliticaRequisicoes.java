@@ -0,0 +1,42 @@
+package org.livraria.connections;
+
+import java.time.Duration;
+
+/**
+ * Controle de latência e de falhas das requisições do {@link BuscadorLivros}.
+ *
+ * @param prazoMinimo O menor prazo por tentativa, mesmo que as respostas recentes sejam rápidas.
+ * @param prazoMaximo O prazo por tentativa enquanto não há amostras suficientes, e o teto do prazo adaptativo.
+ * @param multiplicadorPrazo O prazo adaptativo é o p99 das respostas recentes vezes este fator.
+ * @param percentilHedge Percentil das respostas recentes depois do qual uma requisição duplicada é enviada;
+ *                       0 desliga as requisições duplicadas.
+ * @param amostrasMinimas Quantas respostas precisam ser observadas antes de adaptar o prazo e duplicar requisições.
+ * @param maxTentativas O número máximo de tentativas por busca, incluindo a primeira.
+ * @param atrasoBase O atraso máximo antes da segunda tentativa; dobra a cada nova tentativa.
+ * @param atrasoMaximo O teto do atraso entre tentativas.
+ * @param falhasParaAbrir Falhas seguidas que abrem o circuito.
+ * @param tempoAberto Quanto tempo o circuito fica aberto antes de liberar uma requisição de teste.
+ */
+public record PoliticaRequisicoes(Duration prazoMinimo, Duration prazoMaximo, double multiplicadorPrazo,
+                                  double percentilHedge, int amostrasMinimas, int maxTentativas,
+                                  Duration atrasoBase, Duration atrasoMaximo,
+                                  int falhasParaAbrir, Duration tempoAberto) {
+
+    public PoliticaRequisicoes {
+        if (maxTentativas <= 0 || falhasParaAbrir <= 0 || amostrasMinimas <= 0 || multiplicadorPrazo < 1
+                || percentilHedge < 0 || percentilHedge >= 100 || prazoMinimo.compareTo(prazoMaximo) > 0) {
+            throw new IllegalArgumentException("Política de requisições inválida: " + this);
+        }
+    }
+
+    /**
+     * @param prazoMaximo O prazo de cada tentativa antes de haver amostras (ex.: {@link BuscadorLivros#TIMEOUT_REQUISICAO_PADRAO}).
+     * @return Prazo de 3× o p99 (entre 10 s e {@code prazoMaximo}), duplicação no p95 depois de 20 respostas,
+     * até 3 tentativas a partir de 500 ms e circuito aberto por 30 s após 5 falhas seguidas.
+     */
+    public static PoliticaRequisicoes padrao(Duration prazoMaximo) {
+        Duration prazoMinimo = prazoMaximo.compareTo(Duration.ofSeconds(10)) < 0 ? prazoMaximo : Duration.ofSeconds(10);
+        return new PoliticaRequisicoes(prazoMinimo, prazoMaximo, 3.0, 95, 20, 3,
+                Duration.ofMillis(500), Duration.ofSeconds(10), 5, Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,258 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexões JDBC de tamanho fixo.
+ * <p>
+ * O número de conexões em uso é limitado por um {@link Semaphore}; as conexões ociosas ficam
+ * em uma pilha sem bloqueio ({@link ConcurrentLinkedDeque}), de modo que a conexão usada mais
+ * recentemente é a próxima a ser emprestada. Cada conexão é validada no empréstimo e descartada
+ * quando ultrapassa o tempo de vida máximo. Cada conexão física tem o seu {@link CacheStatements},
+ * que vive enquanto ela estiver no pool e é fechado junto com ela.
+ */
+public class PoolConexoes implements AutoCloseable {
+
+    private static final Log LOG = Log.de(PoolConexoes.class);
+
+    /**
+     * Tempo máximo, em segundos, para {@link Connection#isValid(int)} no empréstimo.
+     */
+    private static final int TIMEOUT_VALIDACAO_SEGUNDOS = 2;
+
+    private record ConexaoPool(Connection conexao, CacheStatements statements, long criadaEmNanos) { }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int tamanho;
+    private final long timeoutEmprestimoMs;
+    private final long tempoVidaMaximoNanos;
+
+    private final Semaphore permissoes;
+    private final ConcurrentLinkedDeque<ConexaoPool> ociosas = new ConcurrentLinkedDeque<>();
+    private final Map<Connection, ConexaoPool> emUso = new ConcurrentHashMap<>();
+    private volatile boolean fechado = false;
+
+    private final AtomicInteger totalOciosas = new AtomicInteger();
+    private final LongAdder emprestimos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder tempoEsperaNanos = new LongAdder();
+    private final LongAdder conexoesCriadas = new LongAdder();
+    private final LongAdder conexoesDescartadas = new LongAdder();
+
+    /**
+     * @param url A URL JDBC do banco de dados.
+     * @param user O usuário do banco de dados.
+     * @param password A senha do usuário.
+     * @param tamanho O número máximo de conexões abertas ao mesmo tempo.
+     * @param timeoutEmprestimoMs O tempo máximo de espera por uma conexão livre, em milissegundos.
+     * @param tempoVidaMaximoMs O tempo de vida máximo de uma conexão física, em milissegundos.
+     */
+    public PoolConexoes(String url, String user, String password,
+                        int tamanho, long timeoutEmprestimoMs, long tempoVidaMaximoMs) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException("O tamanho do pool deve ser maior que zero.");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.tamanho = tamanho;
+        this.timeoutEmprestimoMs = timeoutEmprestimoMs;
+        this.tempoVidaMaximoNanos = TimeUnit.MILLISECONDS.toNanos(tempoVidaMaximoMs);
+        this.permissoes = new Semaphore(tamanho);
+    }
+
+    /**
+     * Empresta uma conexão válida, esperando até {@code timeoutEmprestimoMs} se todas estiverem em uso.
+     *
+     * @return O empréstimo, que devolve a conexão ao pool quando fechado.
+     * @throws SQLTimeoutException Se nenhuma conexão ficar livre dentro do tempo limite.
+     * @throws SQLException Se o pool estiver fechado ou não for possível abrir uma nova conexão.
+     */
+    public ConexaoEmprestada emprestar() throws SQLException {
+        if (fechado) {
+            throw new SQLException("O pool de conexões está fechado.");
+        }
+
+        long inicio = System.nanoTime();
+        boolean adquirida;
+        try {
+            adquirida = permissoes.tryAcquire(timeoutEmprestimoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido enquanto aguardava uma conexão do pool.", e);
+        }
+        tempoEsperaNanos.add(System.nanoTime() - inicio);
+
+        if (!adquirida) {
+            timeouts.increment();
+            throw new SQLTimeoutException("Nenhuma conexão livre no pool após " + timeoutEmprestimoMs + " ms.");
+        }
+
+        try {
+            ConexaoPool conexao;
+            while ((conexao = ociosas.pollFirst()) != null) {
+                totalOciosas.decrementAndGet();
+                if (valida(conexao)) {
+                    break;
+                }
+                descartar(conexao);
+            }
+            if (conexao == null) {
+                conexao = criar();
+            }
+
+            emUso.put(conexao.conexao(), conexao);
+            emprestimos.increment();
+            return new ConexaoEmprestada(conexao.conexao(), conexao.statements(), this::devolver);
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve uma conexão ao pool. Transações deixadas abertas são revertidas e o auto-commit
+     * é reativado antes que a conexão possa ser emprestada novamente.
+     */
+    private void devolver(Connection conn) {
+        ConexaoPool conexao = emUso.remove(conn);
+        if (conexao == null) {
+            return;
+        }
+
+        try {
+            boolean reutilizavel = !fechado && !expirou(conexao);
+            if (reutilizavel) {
+                try {
+                    if (!conn.getAutoCommit()) {
+                        conn.rollback();
+                        conn.setAutoCommit(true);
+                    }
+                } catch (SQLException e) {
+                    LOG.aviso("Erro ao restaurar a conexão devolvida ao pool: " + e.getMessage());
+                    reutilizavel = false;
+                }
+            }
+
+            if (reutilizavel) {
+                ociosas.offerFirst(conexao);
+                totalOciosas.incrementAndGet();
+            } else {
+                descartar(conexao);
+            }
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private ConexaoPool criar() throws SQLException {
+        Connection conn = FabricaConexoes.abrir(url, user, password);
+        conexoesCriadas.increment();
+        return new ConexaoPool(conn, new CacheStatements(conn, CacheStatements.CAPACIDADE_PADRAO), System.nanoTime());
+    }
+
+    private boolean expirou(ConexaoPool conexao) {
+        return System.nanoTime() - conexao.criadaEmNanos() > tempoVidaMaximoNanos;
+    }
+
+    private boolean valida(ConexaoPool conexao) {
+        if (expirou(conexao)) {
+            return false;
+        }
+        try {
+            return conexao.conexao().isValid(TIMEOUT_VALIDACAO_SEGUNDOS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void descartar(ConexaoPool conexao) {
+        conexoesDescartadas.increment();
+        conexao.statements().close();
+        try {
+            conexao.conexao().close();
+        } catch (SQLException e) {
+            LOG.aviso("Erro ao fechar uma conexão descartada pelo pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fecha o pool. As conexões ociosas são fechadas imediatamente; as que estão em uso
+     * são fechadas quando forem devolvidas.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        ConexaoPool conexao;
+        while ((conexao = ociosas.pollFirst()) != null) {
+            totalOciosas.decrementAndGet();
+            descartar(conexao);
+        }
+    }
+
+    public boolean isFechado() {
+        return fechado;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * @return O número de conexões emprestadas neste momento.
+     */
+    public int getAtivas() {
+        return emUso.size();
+    }
+
+    /**
+     * @return O número de conexões abertas aguardando um empréstimo.
+     */
+    public int getOciosas() {
+        return totalOciosas.get();
+    }
+
+    public long getEmprestimos() {
+        return emprestimos.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getConexoesCriadas() {
+        return conexoesCriadas.sum();
+    }
+
+    public long getConexoesDescartadas() {
+        return conexoesDescartadas.sum();
+    }
+
+    /**
+     * @return O tempo total gasto esperando por conexões livres, em milissegundos.
+     */
+    public double getTempoEsperaTotalMs() {
+        return tempoEsperaNanos.sum() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolConexoes { tamanho: %d, ativas: %d, ociosas: %d, empréstimos: %d, " +
+                        "timeouts: %d, espera total: %.1f ms, criadas: %d, descartadas: %d }",
+                tamanho, getAtivas(), getOciosas(), getEmprestimos(), getTimeouts(),
+                getTempoEsperaTotalMs(), getConexoesCriadas(), getConexoesDescartadas());
+    }
+}
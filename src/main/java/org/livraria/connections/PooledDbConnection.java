@@ -0,0 +1,122 @@
+package org.livraria.connections;
+
+import java.sql.SQLException;
+
+/**
+ * Database connection backed by a fixed-size {@link PoolConexoes} instead of a single shared Connection.
+ * Every operation of {@link ADbConnection} borrows its own connection for the duration of the
+ * operation or transaction, so one instance can be shared by several threads.
+ */
+public class PooledDbConnection extends ADbConnection {
+
+    public static final int TAMANHO_POOL_PADRAO = 8;
+    public static final long TIMEOUT_EMPRESTIMO_PADRAO_MS = 30_000;
+    public static final long TEMPO_VIDA_MAXIMO_PADRAO_MS = 30 * 60 * 1000;
+
+    private final int tamanhoPool;
+    private final long timeoutEmprestimoMs;
+    private final long tempoVidaMaximoMs;
+    private volatile PoolConexoes pool = null;
+
+    /**
+     * Constructor that uses the default pool settings.
+     * @param URL The full JDBC URL for the MySQL database.
+     * @param USER The database username.
+     * @param PASSWORD The database user password.
+     */
+    public PooledDbConnection(String URL, String USER, String PASSWORD) {
+        this(URL, USER, PASSWORD, TAMANHO_POOL_PADRAO, TIMEOUT_EMPRESTIMO_PADRAO_MS, TEMPO_VIDA_MAXIMO_PADRAO_MS);
+    }
+
+    /**
+     * @param URL The full JDBC URL for the MySQL database.
+     * @param USER The database username.
+     * @param PASSWORD The database user password.
+     * @param tamanhoPool The maximum number of open connections.
+     * @param timeoutEmprestimoMs How long a caller waits for a free connection, in milliseconds.
+     * @param tempoVidaMaximoMs The maximum lifetime of a physical connection, in milliseconds.
+     */
+    public PooledDbConnection(String URL, String USER, String PASSWORD,
+                              int tamanhoPool, long timeoutEmprestimoMs, long tempoVidaMaximoMs) {
+        super(URL, USER, PASSWORD);
+        this.tamanhoPool = tamanhoPool;
+        this.timeoutEmprestimoMs = timeoutEmprestimoMs;
+        this.tempoVidaMaximoMs = tempoVidaMaximoMs;
+    }
+
+    @Override
+    public Boolean connect() {
+        if (isConnected()) {
+            LOG.info("O pool de conexões já está ativo.");
+            return true;
+        }
+
+        LOG.info("Criando pool de " + tamanhoPool + " conexões com o banco de dados MySQL...");
+        PoolConexoes novoPool = new PoolConexoes(url, user, password, tamanhoPool, timeoutEmprestimoMs, tempoVidaMaximoMs);
+
+        // Abre a primeira conexão para validar as credenciais antes de publicar o pool.
+        try (ConexaoEmprestada emprestimo = novoPool.emprestar()) {
+            emprestimo.getConexao();
+        } catch (SQLException e) {
+            novoPool.close();
+            LOG.erro("Falha na conexão com o banco de dados.");
+            throw new RuntimeException("Could not connect to the database", e);
+        }
+        this.pool = novoPool;
+
+        this.check();
+        try (ConexaoEmprestada emprestimo = emprestarConexao()) {
+            this.aquecerCaches(emprestimo.getConexao());
+        } catch (SQLException e) {
+            LOG.aviso("Não foi possível pré-carregar os caches: " + e.getMessage());
+        }
+
+        LOG.info("Pool de conexões pronto!");
+        return true;
+    }
+
+    @Override
+    public Boolean disconnect() {
+        PoolConexoes atual = this.pool;
+        if (atual == null || atual.isFechado()) {
+            LOG.info("Nenhum pool de conexões ativo para fechar.");
+            return true;
+        }
+        LOG.info("Fechando o pool de conexões...");
+        atual.close();
+        this.pool = null;
+        LOG.info("Pool de conexões fechado com sucesso. " + atual);
+        return true;
+    }
+
+    /**
+     * Checks if the pool is open.
+     * @return true if the pool was created and has not been closed, false otherwise.
+     */
+    @Override
+    public boolean isConnected() {
+        PoolConexoes atual = this.pool;
+        return atual != null && !atual.isFechado();
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     * @return A lease that gives the connection back to the pool when closed.
+     * @throws SQLException If the pool is closed or no connection is available in time.
+     */
+    @Override
+    public ConexaoEmprestada emprestarConexao() throws SQLException {
+        PoolConexoes atual = this.pool;
+        if (atual == null) {
+            throw new SQLException("Pool is not active. Please call connect() before borrowing a connection.");
+        }
+        return atual.emprestar();
+    }
+
+    /**
+     * @return The underlying pool, for metrics (active, idle, wait time, timeouts), or null if not connected.
+     */
+    public PoolConexoes getPool() {
+        return pool;
+    }
+}
@@ -0,0 +1,284 @@
+package org.livraria.connections;
+
+import java.io.PrintStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renderiza linhas de um {@link ResultSet} como tabela de texto, à medida que são lidas.
+ * <p>
+ * As larguras das colunas são calculadas a partir de uma amostra limitada das primeiras linhas
+ * (e do nome de cada coluna) e nunca passam de {@code larguraMaxima}; valores maiores são truncados.
+ * Depois da amostra, cada linha é formatada em um único buffer reutilizado e impressa imediatamente,
+ * de modo que o uso de memória não depende do tamanho da tabela.
+ */
+public class RenderizadorTabela {
+
+    public static final int TAMANHO_AMOSTRA_PADRAO = 100;
+    public static final int LARGURA_MAXIMA_PADRAO = 40;
+
+    private static final String RETICENCIAS = "...";
+
+    private final PrintStream saida;
+    private final int tamanhoAmostra;
+    private final int larguraMaxima;
+    private final int columnCount;
+    private final String[] columnNames;
+    private final int[] columnWidths;
+    private final int indiceColunaId;
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private List<String[]> capturadas = null;
+    private int limiteCaptura = 0;
+    private boolean cabecalhoImpresso = false;
+    private long linhasImpressas = 0;
+    private long ultimoId = 0;
+
+    /**
+     * @param metaData Os metadados das colunas que serão renderizadas.
+     * @param saida Onde a tabela será impressa.
+     * @param tamanhoAmostra Quantas linhas são lidas antes de fixar as larguras das colunas.
+     * @param larguraMaxima A largura máxima de cada coluna, em caracteres.
+     * @throws SQLException Se não for possível ler os metadados.
+     */
+    public RenderizadorTabela(ResultSetMetaData metaData, PrintStream saida,
+                              int tamanhoAmostra, int larguraMaxima) throws SQLException {
+        this(nomesColunas(metaData), saida, tamanhoAmostra, larguraMaxima);
+    }
+
+    /**
+     * @param columnNames Os nomes das colunas, para renderizar linhas já em memória.
+     * @param saida Onde a tabela será impressa.
+     * @param tamanhoAmostra Quantas linhas são lidas antes de fixar as larguras das colunas.
+     * @param larguraMaxima A largura máxima de cada coluna, em caracteres.
+     */
+    public RenderizadorTabela(String[] columnNames, PrintStream saida, int tamanhoAmostra, int larguraMaxima) {
+        if (larguraMaxima <= RETICENCIAS.length()) {
+            throw new IllegalArgumentException("A largura máxima deve ser maior que " + RETICENCIAS.length() + ".");
+        }
+        this.saida = saida;
+        this.tamanhoAmostra = Math.max(0, tamanhoAmostra);
+        this.larguraMaxima = larguraMaxima;
+        this.columnCount = columnNames.length;
+        this.columnNames = columnNames.clone();
+        this.columnWidths = new int[columnCount];
+
+        int id = -1;
+        for (int i = 0; i < columnCount; i++) {
+            columnWidths[i] = Math.min(this.columnNames[i].length(), larguraMaxima);
+            if (id < 0 && this.columnNames[i].equalsIgnoreCase("id")) {
+                id = i;
+            }
+        }
+        this.indiceColunaId = id;
+    }
+
+    /**
+     * Passa a guardar cópias das linhas lidas de {@link ResultSet}s, até {@code limite} linhas; acima disso,
+     * a cópia é descartada e {@link #getCapturadas()} devolve null. Usado para guardar tabelas pequenas
+     * em cache sem perder a renderização em fluxo das grandes.
+     */
+    public void capturar(int limite) {
+        this.limiteCaptura = limite;
+        this.capturadas = new ArrayList<>(Math.min(limite, 1024));
+    }
+
+    /**
+     * @return As linhas lidas desde {@link #capturar(int)}, ou null se passaram do limite ou se não houve captura.
+     */
+    public List<String[]> getCapturadas() {
+        return capturadas;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    /**
+     * Lê e imprime todas as linhas restantes do {@link ResultSet}.
+     * Na primeira chamada, as primeiras linhas são usadas como amostra para as larguras
+     * e o cabeçalho é impresso; chamadas seguintes (próximas páginas) reaproveitam as larguras.
+     *
+     * @param resultSet O resultado a ser renderizado, com as mesmas colunas dos metadados.
+     * @return O número de linhas lidas nesta chamada.
+     * @throws SQLException Se ocorrer um erro ao ler o resultado.
+     */
+    public long renderizar(ResultSet resultSet) throws SQLException {
+        long lidas = 0;
+
+        if (!cabecalhoImpresso) {
+            List<String[]> amostra = new ArrayList<>(Math.min(tamanhoAmostra, 1024));
+            while (amostra.size() < tamanhoAmostra && resultSet.next()) {
+                String[] row = lerLinha(resultSet);
+                for (int i = 0; i < columnCount; i++) {
+                    columnWidths[i] = Math.max(columnWidths[i], Math.min(row[i].length(), larguraMaxima));
+                }
+                amostra.add(row);
+                guardar(row);
+            }
+            lidas += amostra.size();
+
+            imprimirCabecalho();
+            for (String[] row : amostra) {
+                imprimirLinha(row);
+            }
+        }
+
+        String[] row = new String[columnCount];
+        while (resultSet.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                row[i] = valor(resultSet, i);
+            }
+            imprimirLinha(row);
+            if (capturadas != null) {
+                guardar(row.clone());
+            }
+            lidas++;
+        }
+        return lidas;
+    }
+
+    /**
+     * Imprime linhas já lidas, como {@link #renderizar(ResultSet)}.
+     *
+     * @param linhas As linhas, com os valores nulos já trocados por "NULL".
+     * @return O número de linhas impressas.
+     */
+    public long renderizar(List<String[]> linhas) {
+        if (!cabecalhoImpresso) {
+            for (int r = 0; r < Math.min(tamanhoAmostra, linhas.size()); r++) {
+                String[] row = linhas.get(r);
+                for (int i = 0; i < columnCount; i++) {
+                    columnWidths[i] = Math.max(columnWidths[i], Math.min(row[i].length(), larguraMaxima));
+                }
+            }
+            imprimirCabecalho();
+        }
+        for (String[] row : linhas) {
+            imprimirLinha(row);
+        }
+        return linhas.size();
+    }
+
+    /**
+     * Imprime o rodapé da tabela. Se nenhuma linha foi impressa, informa que a tabela está vazia.
+     */
+    public void finalizar() {
+        if (linhasImpressas == 0) {
+            saida.println("Nenhum registro encontrado na tabela.");
+        }
+        saida.println("----------------------------------------");
+    }
+
+    /**
+     * @return O valor da coluna 'id' da última linha impressa, usado na paginação por chave.
+     * @throws IllegalStateException Se o resultado não tiver uma coluna 'id'.
+     */
+    public long getUltimoId() {
+        if (indiceColunaId < 0) {
+            throw new IllegalStateException("O resultado não possui uma coluna 'id'.");
+        }
+        return ultimoId;
+    }
+
+    public long getLinhasImpressas() {
+        return linhasImpressas;
+    }
+
+    private void guardar(String[] row) {
+        if (capturadas == null) {
+            return;
+        }
+        if (capturadas.size() < limiteCaptura) {
+            capturadas.add(row);
+        } else {
+            capturadas = null;
+        }
+    }
+
+    private static String[] nomesColunas(ResultSetMetaData metaData) throws SQLException {
+        String[] nomes = new String[metaData.getColumnCount()];
+        for (int i = 0; i < nomes.length; i++) {
+            nomes[i] = metaData.getColumnLabel(i + 1);
+        }
+        return nomes;
+    }
+
+    private String[] lerLinha(ResultSet resultSet) throws SQLException {
+        String[] row = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            row[i] = valor(resultSet, i);
+        }
+        return row;
+    }
+
+    private String valor(ResultSet resultSet, int i) throws SQLException {
+        String value = resultSet.getString(i + 1);
+        return value == null ? "NULL" : value;
+    }
+
+    private void imprimirCabecalho() {
+        buffer.setLength(0);
+        for (int i = 0; i < columnCount; i++) {
+            celula(columnNames[i], columnWidths[i]);
+            if (i < columnCount - 1) {
+                buffer.append(" | ");
+            }
+        }
+        saida.println(buffer);
+
+        buffer.setLength(0);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.repeat('-', columnWidths[i]);
+            if (i < columnCount - 1) {
+                buffer.append("-+-");
+            }
+        }
+        saida.println(buffer);
+        cabecalhoImpresso = true;
+    }
+
+    private void imprimirLinha(String[] row) {
+        buffer.setLength(0);
+        for (int i = 0; i < columnCount; i++) {
+            celula(row[i], columnWidths[i]);
+            if (i < columnCount - 1) {
+                buffer.append(" | ");
+            }
+        }
+        saida.println(buffer);
+        linhasImpressas++;
+
+        if (indiceColunaId >= 0) {
+            try {
+                ultimoId = Long.parseLong(row[indiceColunaId]);
+            } catch (NumberFormatException e) {
+                // Coluna 'id' não numérica: a paginação por chave não se aplica.
+            }
+        }
+    }
+
+    /**
+     * Acrescenta o valor ao buffer, truncado ou completado com espaços até a largura da coluna.
+     */
+    private void celula(String valor, int largura) {
+        // Quebras de linha (comuns em 'sinopse') desalinhariam a tabela.
+        int inicio = buffer.length();
+        if (valor.length() > largura && largura <= RETICENCIAS.length()) {
+            buffer.append(valor, 0, largura);
+        } else if (valor.length() > largura) {
+            buffer.append(valor, 0, largura - RETICENCIAS.length()).append(RETICENCIAS);
+        } else {
+            buffer.append(valor).repeat(' ', largura - valor.length());
+        }
+        for (int i = inicio; i < buffer.length(); i++) {
+            char c = buffer.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\t') {
+                buffer.setCharAt(i, ' ');
+            }
+        }
+    }
+}
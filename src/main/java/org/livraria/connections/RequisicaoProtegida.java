@@ -0,0 +1,423 @@
+package org.livraria.connections;
+
+import org.livraria.log.Log;
+import org.livraria.metricas.Metricas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Envia requisições ao Groq com controle de latência de cauda e de falhas ({@link PoliticaRequisicoes}).
+ * <p>
+ * <ul>
+ *     <li>O prazo de cada tentativa vem do p99 das últimas {@value #JANELA} respostas bem-sucedidas do mesmo
+ *     tipo. As requisições que podem ser duplicadas esperam a geração inteira antes do cabeçalho; as de
+ *     streaming recebem o cabeçalho logo. Por isso cada tipo tem a sua janela.</li>
+ *     <li>Se a resposta não chegar até o percentil de hedge, uma cópia da requisição é enviada; a primeira
+ *     resposta 200 vence e a outra é cancelada.</li>
+ *     <li>Respostas 429 e 5xx, prazos estourados e falhas de conexão são repetidos com atraso exponencial
+ *     com jitter (respeitando {@code Retry-After}); outros status falham na hora.</li>
+ *     <li>Um {@link DisjuntorCircuito} recusa as requisições de imediato enquanto o endpoint está falhando.</li>
+ *     <li>Com um {@link LimitadorTaxa}, toda requisição enviada consome uma ficha: cada tentativa espera a sua;
+ *     a cópia só é enviada se houver uma livre. Buscas atendidas por cache ou compartilhadas com outra em
+ *     andamento não chegam aqui e não gastam a cota.</li>
+ * </ul>
+ * Só o cabeçalho participa da corrida: o corpo da vencedora é entregue aberto a quem chamou.
+ * <p>
+ * Se quem chamou desistir ({@link Cancelamento}), as requisições no ar são canceladas, o que aborta as trocas
+ * HTTP, e nenhuma nova tentativa é feita.
+ */
+final class RequisicaoProtegida {
+
+    private static final Log LOG = Log.de(RequisicaoProtegida.class);
+
+    /**
+     * Quantas respostas recentes definem os percentis.
+     */
+    static final int JANELA = 256;
+
+    private static final LongAdder HEDGES = Metricas.contador("groq.hedges");
+    private static final LongAdder HEDGES_VENCEDORES = Metricas.contador("groq.hedges_vencedores");
+    private static final LongAdder RETENTATIVAS = Metricas.contador("groq.retentativas");
+    private static final LongAdder RECUSADAS = Metricas.contador("groq.circuito_recusadas");
+    private static final LongAdder HEDGES_SEM_FICHA = Metricas.contador("groq.hedges_sem_ficha");
+
+    private final HttpClient httpClient;
+    private final Executor executor;
+    private final PoliticaRequisicoes politica;
+    private final DisjuntorCircuito disjuntor;
+    private final LimitadorTaxa limitador;
+
+    // Até o cabeçalho: a resposta inteira nas requisições que podem ser duplicadas, só o início no streaming.
+    private final JanelaLatencias latenciasCompletas = new JanelaLatencias();
+    private final JanelaLatencias latenciasStreaming = new JanelaLatencias();
+
+    /**
+     * @param limitador O limitador de requisições à API, ou null para não limitar.
+     */
+    RequisicaoProtegida(HttpClient httpClient, Executor executor, PoliticaRequisicoes politica, LimitadorTaxa limitador) {
+        this.httpClient = httpClient;
+        this.executor = executor;
+        this.politica = politica;
+        this.limitador = limitador;
+        this.disjuntor = new DisjuntorCircuito(politica.falhasParaAbrir(), politica.tempoAberto().toMillis());
+    }
+
+    /**
+     * Janela circular das últimas latências bem-sucedidas, em nanossegundos.
+     */
+    private final class JanelaLatencias {
+        private final long[] latencias = new long[JANELA];
+        private int proxima = 0;
+        private int amostras = 0;
+
+        synchronized void registrar(long nanos) {
+            latencias[proxima] = nanos;
+            proxima = (proxima + 1) % JANELA;
+            amostras = Math.min(JANELA, amostras + 1);
+        }
+
+        /**
+         * @return O percentil das respostas recentes, em nanossegundos, ou -1 se ainda não houver amostras suficientes.
+         */
+        long percentil(double percentil) {
+            long[] copia;
+            synchronized (this) {
+                if (amostras < politica.amostrasMinimas()) {
+                    return -1;
+                }
+                copia = Arrays.copyOf(latencias, amostras);
+            }
+            Arrays.sort(copia);
+            int posto = (int) Math.ceil(percentil / 100.0 * copia.length);
+            return copia[Math.max(0, posto - 1)];
+        }
+    }
+
+    /**
+     * Falha HTTP com o status da resposta.
+     */
+    static final class FalhaHttp extends RuntimeException {
+        final int status;
+        final long retryAfterMs;
+
+        FalhaHttp(int status, String corpo, long retryAfterMs) {
+            super("Falha na requisição à API Groq: " + status + " " + corpo);
+            this.status = status;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        boolean isRetentavel() {
+            return status == 429 || status >= 500;
+        }
+    }
+
+    /**
+     * Envia a requisição até obter uma resposta 200.
+     *
+     * @param requisicao Monta a requisição com o prazo da tentativa.
+     * @param duplicar Se cópias podem ser enviadas; deve ser false quando o corpo é consumido incrementalmente.
+     * @return A resposta 200, com o corpo ainda por ler; ou uma falha com {@link FalhaHttp}, {@link IOException}
+     * ou {@link IllegalStateException} (circuito aberto).
+     */
+    CompletableFuture<HttpResponse<InputStream>> enviar(Function<Duration, HttpRequest> requisicao, boolean duplicar) {
+        Cancelamento cancelamento = new Cancelamento();
+        return cancelamento.vincular(enviar(requisicao, duplicar, cancelamento));
+    }
+
+    /**
+     * Como {@link #enviar(Function, boolean)}, parando quando o {@code cancelamento} for acionado: as requisições
+     * no ar são canceladas e a resposta falha com {@link CancellationException}.
+     * Uma resposta que chegue depois disso é fechada.
+     */
+    CompletableFuture<HttpResponse<InputStream>> enviar(Function<Duration, HttpRequest> requisicao, boolean duplicar,
+                                                        Cancelamento cancelamento) {
+        CompletableFuture<HttpResponse<InputStream>> resultado = new CompletableFuture<>();
+        tentar(requisicao, duplicar, 1, cancelamento).whenComplete((resposta, erro) -> {
+            if (erro != null) {
+                resultado.completeExceptionally(erro);
+            } else if (!resultado.complete(resposta)) {
+                fechar(resposta); // Quem chamou cancelou o futuro antes da resposta chegar.
+            }
+        });
+        return resultado;
+    }
+
+    DisjuntorCircuito getDisjuntor() {
+        return disjuntor;
+    }
+
+    /**
+     * @param duplicar O tipo da requisição, como em {@link #enviar(Function, boolean)}.
+     * @return O prazo de uma tentativa: p99 recente do mesmo tipo × multiplicador, limitado pela política.
+     */
+    Duration prazoAtual(boolean duplicar) {
+        long p99 = janela(duplicar).percentil(99);
+        if (p99 < 0) {
+            return politica.prazoMaximo();
+        }
+        long prazo = (long) (p99 * politica.multiplicadorPrazo());
+        prazo = Math.max(politica.prazoMinimo().toNanos(), Math.min(politica.prazoMaximo().toNanos(), prazo));
+        return Duration.ofNanos(prazo);
+    }
+
+    /**
+     * @return Depois de quanto tempo sem resposta uma cópia é enviada, ou -1 se não houver cópia.
+     */
+    long atrasoHedgeNanos() {
+        return politica.percentilHedge() <= 0 ? -1 : latenciasCompletas.percentil(politica.percentilHedge());
+    }
+
+    private JanelaLatencias janela(boolean duplicar) {
+        return duplicar ? latenciasCompletas : latenciasStreaming;
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> tentar(Function<Duration, HttpRequest> requisicao,
+                                                                boolean duplicar, int tentativa,
+                                                                Cancelamento cancelamento) {
+        if (cancelamento.isCancelado()) {
+            return CompletableFuture.failedFuture(Cancelamento.erro());
+        }
+        if (!disjuntor.permitir()) {
+            RECUSADAS.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "API Groq indisponível: circuito aberto após falhas seguidas."));
+        }
+
+        return aguardarFicha(cancelamento)
+                .thenCompose(x -> correr(requisicao.apply(prazoAtual(duplicar)), duplicar, cancelamento))
+                .handle((resposta, erro) -> {
+                    if (erro == null) {
+                        disjuntor.registrarSucesso();
+                        return CompletableFuture.completedFuture(resposta);
+                    }
+                    Throwable causa = desembrulhar(erro);
+                    if (cancelamento.isCancelado() || causa instanceof InterruptedException) {
+                        // A requisição foi abandonada, não respondida: nada se sabe sobre o endpoint.
+                        disjuntor.registrarDesistencia();
+                        return CompletableFuture.<HttpResponse<InputStream>>failedFuture(causa);
+                    }
+                    if (!isRetentavel(causa)) {
+                        // O endpoint respondeu: um erro do cliente (ex.: 400, 401) não indica indisponibilidade.
+                        disjuntor.registrarSucesso();
+                        return CompletableFuture.<HttpResponse<InputStream>>failedFuture(causa);
+                    }
+                    disjuntor.registrarFalha();
+                    if (tentativa >= politica.maxTentativas()) {
+                        return CompletableFuture.<HttpResponse<InputStream>>failedFuture(causa);
+                    }
+
+                    long atrasoMs = atrasoRetentativa(tentativa, causa);
+                    RETENTATIVAS.increment();
+                    LOG.aviso("Tentativa " + tentativa + " à API Groq falhou (" + causa.getMessage()
+                            + "); nova tentativa em " + atrasoMs + " ms.");
+                    return CompletableFuture.runAsync(cancelamento::verificar,
+                                    CompletableFuture.delayedExecutor(atrasoMs, TimeUnit.MILLISECONDS, executor))
+                            .thenCompose(x -> tentar(requisicao, duplicar, tentativa + 1, cancelamento));
+                }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Envia a requisição e, se ela passar do percentil de hedge, uma cópia. A primeira resposta 200 vence.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> correr(HttpRequest requisicao, boolean duplicar,
+                                                                Cancelamento cancelamento) {
+        Corrida corrida = new Corrida(janela(duplicar));
+        corrida.lancar(requisicao, false);
+        cancelamento.aoCancelar(corrida::cancelar);
+
+        long atrasoHedge = duplicar ? atrasoHedgeNanos() : -1;
+        if (atrasoHedge >= 0) {
+            CompletableFuture.delayedExecutor(atrasoHedge, TimeUnit.NANOSECONDS, executor).execute(() -> {
+                if (corrida.resultado.isDone()) {
+                    return;
+                }
+                if (limitador != null && !limitador.tentarAdquirir()) {
+                    HEDGES_SEM_FICHA.increment();
+                    return;
+                }
+                corrida.lancar(requisicao, true);
+            });
+        }
+        return corrida.resultado;
+    }
+
+    /**
+     * Obtém uma ficha do limitador para uma tentativa. Se não houver uma livre, a espera roda no executor,
+     * que usa threads virtuais, e não na thread de quem chamou; se quem chamou desistir, ela é interrompida.
+     */
+    private CompletableFuture<Void> aguardarFicha(Cancelamento cancelamento) {
+        if (limitador == null || limitador.tentarAdquirir()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            // Cada tarefa tem a sua thread virtual: interrompê-la depois que a espera acabou não afeta mais nada.
+            cancelamento.aoCancelar(Thread.currentThread()::interrupt);
+            cancelamento.verificar();
+            try {
+                limitador.adquirir();
+            } catch (InterruptedException e) {
+                cancelamento.verificar();
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * As requisições em voo de uma tentativa. A tentativa falha só quando todas as lançadas falharem.
+     */
+    private final class Corrida {
+
+        final CompletableFuture<HttpResponse<InputStream>> resultado = new CompletableFuture<>();
+        private final JanelaLatencias janela;
+        private final List<CompletableFuture<HttpResponse<InputStream>>> emVoo = new ArrayList<>(2);
+        private int pendentes = 0;
+
+        Corrida(JanelaLatencias janela) {
+            this.janela = janela;
+        }
+
+        void lancar(HttpRequest requisicao, boolean copia) {
+            synchronized (this) {
+                if (resultado.isDone()) {
+                    return;
+                }
+                pendentes++;
+            }
+            if (copia) {
+                HEDGES.increment();
+            }
+
+            long inicio = System.nanoTime();
+            CompletableFuture<HttpResponse<InputStream>> envio =
+                    httpClient.sendAsync(requisicao, HttpResponse.BodyHandlers.ofInputStream());
+            synchronized (this) {
+                emVoo.add(envio);
+            }
+            if (resultado.isDone()) {
+                // A outra requisição venceu enquanto esta era enviada.
+                envio.cancel(true);
+            }
+            envio.whenComplete((resposta, erro) -> {
+                if (erro != null) {
+                    falhou(erro);
+                } else if (resposta.statusCode() != 200) {
+                    falhou(falhaHttp(resposta));
+                } else if (resultado.complete(resposta)) {
+                    janela.registrar(System.nanoTime() - inicio);
+                    if (copia) {
+                        HEDGES_VENCEDORES.increment();
+                    }
+                    cancelarDemais(envio);
+                } else {
+                    fechar(resposta);
+                }
+            });
+        }
+
+        private void falhou(Throwable erro) {
+            boolean ultima;
+            synchronized (this) {
+                ultima = --pendentes == 0;
+            }
+            if (ultima) {
+                resultado.completeExceptionally(desembrulhar(erro));
+            }
+        }
+
+        /**
+         * Quem chamou desistiu: a corrida falha e todas as requisições no ar são canceladas.
+         */
+        void cancelar() {
+            if (resultado.cancel(false)) {
+                cancelarDemais(null);
+            }
+        }
+
+        /**
+         * Cancelar o futuro devolvido por {@code sendAsync} aborta a troca HTTP em andamento.
+         */
+        private void cancelarDemais(CompletableFuture<HttpResponse<InputStream>> vencedor) {
+            List<CompletableFuture<HttpResponse<InputStream>>> outros;
+            synchronized (this) {
+                outros = new ArrayList<>(emVoo);
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> outro : outros) {
+                if (outro != vencedor) {
+                    outro.cancel(true);
+                }
+            }
+        }
+    }
+
+    private static FalhaHttp falhaHttp(HttpResponse<InputStream> resposta) {
+        String corpo;
+        try (InputStream entrada = resposta.body()) {
+            corpo = new String(entrada.readNBytes(2048), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            corpo = "(corpo ilegível: " + e.getMessage() + ")";
+        }
+        long retryAfterMs = resposta.headers().firstValue("Retry-After").map(valor -> {
+            try {
+                return Long.parseLong(valor.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                return -1L; // Datas HTTP não são tratadas: vale o atraso exponencial.
+            }
+        }).orElse(-1L);
+        return new FalhaHttp(resposta.statusCode(), corpo, retryAfterMs);
+    }
+
+    private static void fechar(HttpResponse<InputStream> resposta) {
+        try {
+            resposta.body().close();
+        } catch (IOException e) {
+            // A resposta perdedora é descartada de qualquer forma.
+        }
+    }
+
+    private static boolean isRetentavel(Throwable causa) {
+        if (causa instanceof FalhaHttp falha) {
+            return falha.isRetentavel();
+        }
+        // Prazos estourados (HttpTimeoutException), conexões recusadas ou interrompidas.
+        return causa instanceof IOException;
+    }
+
+    /**
+     * Atraso "full jitter": um valor aleatório entre 0 e base × 2^(tentativa-1), limitado ao máximo,
+     * ou o {@code Retry-After} do servidor, se for maior.
+     */
+    private long atrasoRetentativa(int tentativa, Throwable causa) {
+        long teto = Math.min(politica.atrasoMaximo().toMillis(),
+                politica.atrasoBase().toMillis() << Math.min(20, tentativa - 1));
+        long atraso = ThreadLocalRandom.current().nextLong(teto + 1);
+        if (causa instanceof FalhaHttp falha && falha.retryAfterMs > atraso) {
+            atraso = Math.min(falha.retryAfterMs, politica.atrasoMaximo().toMillis());
+        }
+        return atraso;
+    }
+
+    static Throwable desembrulhar(Throwable erro) {
+        while ((erro instanceof CompletionException) && erro.getCause() != null) {
+            erro = erro.getCause();
+        }
+        return erro;
+    }
+}
@@ -0,0 +1,271 @@
+package org.livraria.connections;
+
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolve nomes de autores, gêneros e editoras para os seus IDs, inserindo os que ainda não existem.
+ * <p>
+ * Os nomes de uma tabela são resolvidos juntos: os que não estão no {@link CacheDimensoes} são procurados
+ * em um único {@code SELECT ... WHERE nome IN (...)}, sem bloquear linhas. Só os que não existem são
+ * inseridos, com {@code INSERT ... ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)}: se outra transação
+ * inserir o mesmo nome ao mesmo tempo, o comando espera por ela e devolve o ID existente, em vez de violar
+ * a restrição UNIQUE e reverter o lote. Um nome novo sai do próprio upsert (pelas chaves geradas); vários
+ * nomes novos vão em um upsert de várias linhas, seguido de um {@code SELECT ... FOR UPDATE} que lê os IDs.
+ * <p>
+ * Os nomes são processados em ordem alfabética, então transações concorrentes bloqueiam as mesmas linhas
+ * na mesma ordem. As listas são completadas até a próxima potência de 2 (repetindo o último nome), para que
+ * o {@link CacheStatements} guarde poucos textos SQL diferentes.
+ */
+final class ResolvedorDimensoes {
+
+    /**
+     * Número máximo de nomes em um único comando; listas maiores são divididas.
+     */
+    static final int MAXIMO_POR_COMANDO = 128;
+
+    private static final Comparator<String> ORDEM = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private static final HistogramaLatencia LAT_CONSULTA = Metricas.histograma(Metricas.DB_DIMENSAO_CONSULTA);
+    private static final HistogramaLatencia LAT_INSERCAO = Metricas.histograma(Metricas.DB_DIMENSAO_INSERCAO);
+
+    private final CacheDimensoes cache;
+
+    ResolvedorDimensoes(CacheDimensoes cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Resolve um único nome.
+     *
+     * @param extra O valor da segunda coluna (nacionalidade ou pais_origem), usado só se o nome for inserido.
+     * @see #resolver(ConexaoEmprestada, String, Map)
+     */
+    int resolver(ConexaoEmprestada emprestimo, String tabela, String nome, String extra) throws SQLException {
+        Map<String, String> nomes = new HashMap<>();
+        nomes.put(nome, extra);
+        return resolver(emprestimo, tabela, nomes).get(nome);
+    }
+
+    /**
+     * Resolve os nomes de uma tabela de dimensão dentro da transação em andamento. Os IDs inseridos ficam
+     * pendentes no cache até o commit (ver {@link CacheDimensoes#confirmar()}).
+     *
+     * @param emprestimo A conexão da transação em andamento.
+     * @param tabela O nome da tabela (autores, generos, editoras).
+     * @param nomes Cada nome e o valor da sua segunda coluna (nacionalidade ou pais_origem), que pode ser nulo.
+     * @return O ID de cada nome.
+     * @throws SQLException Se ocorrer um erro no banco ou se algum nome não puder ser resolvido.
+     */
+    Map<String, Integer> resolver(ConexaoEmprestada emprestimo, String tabela, Map<String, String> nomes) throws SQLException {
+        String colunaExtra = colunaExtra(tabela);
+        Map<String, Integer> ids = new HashMap<>(nomes.size() * 2);
+        List<String> faltantes = new ArrayList<>();
+        for (String nome : nomes.keySet()) {
+            Integer id = cache.buscar(tabela, nome);
+            if (id != null) {
+                ids.put(nome, id);
+            } else {
+                faltantes.add(nome);
+            }
+        }
+        faltantes.sort(ORDEM);
+
+        for (int inicio = 0; inicio < faltantes.size(); inicio += MAXIMO_POR_COMANDO) {
+            List<String> parte = faltantes.subList(inicio, Math.min(inicio + MAXIMO_POR_COMANDO, faltantes.size()));
+
+            // 1. Os nomes que já existem: uma leitura sem bloqueio.
+            Map<String, Integer> existentes = consultar(emprestimo, tabela, parte, false);
+            List<String> novos = new ArrayList<>();
+            for (String nome : parte) {
+                Integer id = existentes.get(nome);
+                if (id != null) {
+                    cache.registrar(tabela, nome, id);
+                    ids.put(nome, id);
+                } else {
+                    novos.add(nome);
+                }
+            }
+
+            // 2. Os que faltam: upsert. O ID pode ser de uma linha inserida agora ou por uma transação
+            // concorrente; fica pendente até o commit de qualquer forma.
+            Map<String, Integer> inseridos = novos.size() == 1
+                    ? inserirUm(emprestimo, tabela, colunaExtra, novos.get(0), nomes.get(novos.get(0)))
+                    : inserirVarios(emprestimo, tabela, colunaExtra, novos, nomes);
+            for (String nome : novos) {
+                Integer id = inseridos.get(nome);
+                if (id == null) {
+                    throw new SQLException("Não foi possível obter ou inserir o ID para '" + nome + "' na tabela '" + tabela + "'.");
+                }
+                cache.registrarPendente(tabela, nome, id);
+                ids.put(nome, id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Procura os IDs dos nomes em um único comando.
+     *
+     * @param bloquear Se true, lê com {@code FOR UPDATE}: a versão mais recente das linhas, inclusive as
+     *                 confirmadas por outras transações depois do início desta.
+     */
+    private Map<String, Integer> consultar(ConexaoEmprestada emprestimo, String tabela, List<String> nomes,
+                                           boolean bloquear) throws SQLException {
+        int tamanho = tamanhoComando(nomes.size());
+        String sql = "SELECT id, nome FROM " + tabela + " WHERE nome IN (" + marcadores("?", tamanho) + ")"
+                + (bloquear ? " FOR UPDATE" : "");
+        Map<String, Integer> encontrados = new HashMap<>(tamanho * 2);
+        long inicio = System.nanoTime();
+        try (PreparedStatement statement = emprestimo.preparar(sql)) {
+            for (int i = 0; i < tamanho; i++) {
+                statement.setString(i + 1, nomes.get(Math.min(i, nomes.size() - 1)));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    encontrados.put(rs.getString("nome"), rs.getInt("id"));
+                }
+            }
+        } finally {
+            LAT_CONSULTA.registrarDesde(inicio);
+        }
+        return associar(nomes, encontrados);
+    }
+
+    /**
+     * Upsert de um único nome: o ID (novo ou existente) volta nas chaves geradas, sem outra ida ao banco.
+     */
+    private Map<String, Integer> inserirUm(ConexaoEmprestada emprestimo, String tabela, String colunaExtra,
+                                           String nome, String extra) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        long inicio = System.nanoTime();
+        try (PreparedStatement statement = emprestimo.preparar(sqlUpsert(tabela, colunaExtra, 1),
+                Statement.RETURN_GENERATED_KEYS)) {
+            preencherLinha(statement, 0, colunaExtra, nome, extra);
+            statement.executeUpdate();
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    ids.put(nome, generatedKeys.getInt(1));
+                }
+            }
+        } finally {
+            LAT_INSERCAO.registrarDesde(inicio);
+        }
+        if (ids.isEmpty()) {
+            // Drivers que não devolvem a chave de uma linha já existente (ex.: useAffectedRows=true).
+            ids.putAll(consultar(emprestimo, tabela, List.of(nome), true));
+        }
+        return ids;
+    }
+
+    /**
+     * Upsert de vários nomes em um comando; os IDs são lidos em seguida, já que as chaves geradas de um
+     * upsert de várias linhas não dizem qual linha foi inserida e qual já existia.
+     */
+    private Map<String, Integer> inserirVarios(ConexaoEmprestada emprestimo, String tabela, String colunaExtra,
+                                               List<String> novos, Map<String, String> nomes) throws SQLException {
+        if (novos.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        int tamanho = tamanhoComando(novos.size());
+        long inicio = System.nanoTime();
+        try (PreparedStatement statement = emprestimo.preparar(sqlUpsert(tabela, colunaExtra, tamanho))) {
+            for (int i = 0; i < tamanho; i++) {
+                String nome = novos.get(Math.min(i, novos.size() - 1));
+                preencherLinha(statement, i, colunaExtra, nome, nomes.get(nome));
+            }
+            statement.executeUpdate();
+        } finally {
+            LAT_INSERCAO.registrarDesde(inicio);
+        }
+        return consultar(emprestimo, tabela, novos, true);
+    }
+
+    private static void preencherLinha(PreparedStatement statement, int linha, String colunaExtra,
+                                       String nome, String extra) throws SQLException {
+        if (colunaExtra == null) {
+            statement.setString(linha + 1, nome);
+            return;
+        }
+        statement.setString(2 * linha + 1, nome);
+        if (extra != null) {
+            statement.setString(2 * linha + 2, extra);
+        } else {
+            // As colunas 'nacionalidade' e 'pais_origem' são VARCHAR.
+            statement.setNull(2 * linha + 2, Types.VARCHAR);
+        }
+    }
+
+    private static String sqlUpsert(String tabela, String colunaExtra, int linhas) {
+        String colunas = colunaExtra == null ? "nome" : "nome, " + colunaExtra;
+        String linha = colunaExtra == null ? "(?)" : "(?, ?)";
+        return "INSERT INTO " + tabela + " (" + colunas + ") VALUES " + marcadores(linha, linhas)
+                + " ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
+    }
+
+    /**
+     * A segunda coluna de cada tabela de dimensão, ou null se não houver.
+     */
+    private static String colunaExtra(String tabela) {
+        return switch (tabela) {
+            case "autores" -> "nacionalidade";
+            case "editoras" -> "pais_origem";
+            case "generos" -> null;
+            default -> throw new IllegalArgumentException("Tabela de dimensão desconhecida: " + tabela);
+        };
+    }
+
+    /**
+     * Associa os nomes pedidos às linhas lidas. A comparação do banco costuma ignorar maiúsculas e acentos
+     * ("José" encontra "jose"), então um nome sem linha idêntica fica com a linha equivalente, se houver.
+     */
+    private static Map<String, Integer> associar(List<String> pedidos, Map<String, Integer> encontrados) {
+        Map<String, Integer> ids = new HashMap<>(pedidos.size() * 2);
+        Map<String, Integer> porChave = null;
+        for (String nome : pedidos) {
+            Integer id = encontrados.get(nome);
+            if (id == null && nome != null && !encontrados.isEmpty()) {
+                if (porChave == null) {
+                    porChave = new HashMap<>(encontrados.size() * 2);
+                    for (Map.Entry<String, Integer> linha : encontrados.entrySet()) {
+                        porChave.putIfAbsent(chaveComparacao(linha.getKey()), linha.getValue());
+                    }
+                }
+                id = porChave.get(chaveComparacao(nome));
+            }
+            if (id != null) {
+                ids.put(nome, id);
+            }
+        }
+        return ids;
+    }
+
+    private static String chaveComparacao(String nome) {
+        return Normalizer.normalize(nome, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Arredonda para a próxima potência de 2, limitada a {@link #MAXIMO_POR_COMANDO}.
+     */
+    private static int tamanhoComando(int nomes) {
+        return Math.min(MAXIMO_POR_COMANDO, Integer.highestOneBit(Math.max(1, nomes) * 2 - 1));
+    }
+
+    private static String marcadores(String marcador, int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, marcador));
+    }
+}
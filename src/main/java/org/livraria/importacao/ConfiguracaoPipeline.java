@@ -0,0 +1,34 @@
+package org.livraria.importacao;
+
+import org.livraria.connections.ADbConnection;
+
+/**
+ * Paralelismo e limites do {@link PipelineIngestao}.
+ *
+ * @param threadsBusca Buscas à IA em andamento ao mesmo tempo (threads virtuais).
+ * @param threadsValidacao Threads que validam e normalizam os livros recebidos.
+ * @param threadsGravacao Threads que gravam os lotes. Acima de 1, use uma conexão com pool.
+ * @param capacidadeFila Itens que cada fila entre estágios aceita antes de bloquear o estágio anterior.
+ * @param tamanhoLote Livros por lote/transação na gravação.
+ */
+public record ConfiguracaoPipeline(int threadsBusca, int threadsValidacao, int threadsGravacao,
+                                   int capacidadeFila, int tamanhoLote) {
+
+    public static final int THREADS_VALIDACAO_PADRAO = 2;
+    public static final int CAPACIDADE_FILA_PADRAO = 256;
+
+    public ConfiguracaoPipeline {
+        if (threadsBusca <= 0 || threadsValidacao <= 0 || threadsGravacao <= 0 || capacidadeFila <= 0 || tamanhoLote <= 0) {
+            throw new IllegalArgumentException("As threads, a capacidade das filas e o tamanho do lote devem ser maiores que zero.");
+        }
+    }
+
+    /**
+     * @return {@link ImportadorAutores#CONCORRENCIA_PADRAO} buscas, uma thread gravadora e lotes de
+     * {@link ADbConnection#TAMANHO_LOTE_PADRAO} livros.
+     */
+    public static ConfiguracaoPipeline padrao() {
+        return new ConfiguracaoPipeline(ImportadorAutores.CONCORRENCIA_PADRAO, THREADS_VALIDACAO_PADRAO, 1,
+                CAPACIDADE_FILA_PADRAO, ADbConnection.TAMANHO_LOTE_PADRAO);
+    }
+}
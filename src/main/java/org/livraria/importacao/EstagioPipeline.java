@@ -0,0 +1,219 @@
+package org.livraria.importacao;
+
+import org.livraria.log.Log;
+import org.livraria.metricas.HistogramaLatencia;
+import org.livraria.metricas.Metricas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Um estágio do {@link PipelineIngestao}: uma fila limitada de entrada consumida por um número fixo de threads.
+ * <p>
+ * Cada thread tem o seu próprio {@link Processador}, então estado como o lote em formação não é compartilhado.
+ * O que um processador emite vai para a fila do próximo estágio com {@code put}: se ela estiver cheia, este
+ * estágio para de consumir e a sua própria fila enche em seguida (backpressure até a submissão).
+ * <p>
+ * O estágio termina depois de {@link #fecharEntrada()}, quando a fila esvazia; a última thread a sair fecha a
+ * entrada do próximo estágio, o que drena o pipeline em ordem.
+ *
+ * @param <E> O tipo dos itens de entrada.
+ * @param <S> O tipo dos itens emitidos para o próximo estágio.
+ */
+final class EstagioPipeline<E, S> {
+
+    private static final Log LOG = Log.de(EstagioPipeline.class);
+
+    /**
+     * Quanto tempo uma thread espera por um item antes de chamar {@link Processador#ocioso(Consumer)}.
+     */
+    static final long ESPERA_OCIOSA_MS = 200;
+
+    /**
+     * O trabalho de uma thread do estágio.
+     */
+    interface Processador<E, S> {
+
+        void processar(E item, Consumer<S> saida) throws Exception;
+
+        /**
+         * Chamado quando a fila fica vazia por {@link #ESPERA_OCIOSA_MS} (ex.: gravar um lote incompleto).
+         */
+        default void ocioso(Consumer<S> saida) throws Exception {
+        }
+
+        /**
+         * Chamado uma única vez, depois do último item, antes de a thread sair.
+         */
+        default void finalizar(Consumer<S> saida) throws Exception {
+        }
+    }
+
+    private final String nome;
+    private final int threads;
+    private final BlockingQueue<E> fila;
+    private final Supplier<Processador<E, S>> fabrica;
+    private final Thread.Builder construtor;
+    private final HistogramaLatencia latencia;
+    private final LongAdder processados;
+    private final LongAdder falhas;
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final List<Thread> trabalhadoras = new ArrayList<>();
+
+    // Escrito só sob o monitor do estágio, junto com as ofertas; lido sem ele pelas threads do estágio.
+    private volatile boolean entradaFechada = false;
+    private EstagioPipeline<S, ?> proximo = null;
+    private long inicioNanos;
+
+    /**
+     * @param nome O nome do estágio, usado nas threads e nas métricas ({@code pipeline.<nome>}).
+     * @param threads O número de threads que consomem a fila.
+     * @param capacidadeFila O número máximo de itens aguardando este estágio.
+     * @param fabrica Cria um processador por thread.
+     * @param construtor O construtor das threads (virtuais para E/S de rede, de plataforma para o resto).
+     */
+    EstagioPipeline(String nome, int threads, int capacidadeFila, Supplier<Processador<E, S>> fabrica,
+                    Thread.Builder construtor) {
+        if (threads <= 0 || capacidadeFila <= 0) {
+            throw new IllegalArgumentException("O estágio '" + nome + "' precisa de threads e capacidade maiores que zero.");
+        }
+        this.nome = nome;
+        this.threads = threads;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.fabrica = fabrica;
+        this.construtor = construtor;
+        this.latencia = Metricas.histograma("pipeline." + nome);
+        this.processados = Metricas.contador("pipeline." + nome + ".processados");
+        this.falhas = Metricas.contador("pipeline." + nome + ".falhas");
+    }
+
+    /**
+     * Liga a saída deste estágio à fila do próximo. Deve ser chamado antes de {@link #iniciar()}.
+     */
+    <T> EstagioPipeline<S, T> ligar(EstagioPipeline<S, T> proximo) {
+        this.proximo = proximo;
+        return proximo;
+    }
+
+    void iniciar() {
+        inicioNanos = System.nanoTime();
+        ativas.set(threads);
+        for (int i = 0; i < threads; i++) {
+            trabalhadoras.add(construtor.name("pipeline-" + nome + "-" + i).start(this::executar));
+        }
+    }
+
+    /**
+     * Enfileira um item, esperando por espaço.
+     */
+    void enfileirar(E item) throws InterruptedException {
+        fila.put(item);
+    }
+
+    /**
+     * Enfileira um item sem esperar. A verificação e a oferta acontecem sob o mesmo monitor que
+     * {@link #fecharEntrada()}: um item aceito está na fila antes de a entrada fechar, e as threads o processam.
+     *
+     * @return false se a fila estiver cheia ou a entrada já tiver sido fechada.
+     */
+    synchronized boolean oferecer(E item) {
+        return !entradaFechada && fila.offer(item);
+    }
+
+    /**
+     * Avisa que não haverá novos itens; as threads terminam depois de esvaziar a fila.
+     */
+    synchronized void fecharEntrada() {
+        entradaFechada = true;
+    }
+
+    /**
+     * Espera todas as threads deste estágio terminarem.
+     */
+    void aguardar() throws InterruptedException {
+        for (Thread thread : trabalhadoras) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Interrompe as threads, descartando o que ainda estiver na fila.
+     */
+    void interromper() {
+        fecharEntrada();
+        trabalhadoras.forEach(Thread::interrupt);
+    }
+
+    EstatisticaEstagio estatistica() {
+        double segundos = (System.nanoTime() - inicioNanos) / 1e9;
+        long total = processados.sum();
+        return new EstatisticaEstagio(nome, threads, ativas.get(), fila.size(), fila.size() + fila.remainingCapacity(),
+                total, falhas.sum(), segundos <= 0 ? 0.0 : total / segundos, latencia.percentilMs(50), latencia.percentilMs(99));
+    }
+
+    private void executar() {
+        Processador<E, S> processador = fabrica.get();
+        Consumer<S> saida = this::emitir;
+        try {
+            while (true) {
+                E item = fila.poll(ESPERA_OCIOSA_MS, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (entradaFechada && fila.isEmpty()) {
+                        break;
+                    }
+                    executarComSeguranca(() -> processador.ocioso(saida));
+                    continue;
+                }
+                long inicio = System.nanoTime();
+                executarComSeguranca(() -> processador.processar(item, saida));
+                latencia.registrarDesde(inicio);
+                processados.increment();
+            }
+            executarComSeguranca(() -> processador.finalizar(saida));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (ativas.decrementAndGet() == 0 && proximo != null) {
+                proximo.fecharEntrada();
+            }
+        }
+    }
+
+    /**
+     * Um item com erro não derruba a thread: a falha é contada e o estágio segue com o próximo item.
+     */
+    private void executarComSeguranca(Acao acao) throws InterruptedException {
+        try {
+            acao.executar();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            falhas.increment();
+            LOG.erro("Falha no estágio '" + nome + "' do pipeline: " + e.getMessage());
+        }
+    }
+
+    private void emitir(S item) {
+        if (proximo == null) {
+            return;
+        }
+        try {
+            proximo.enfileirar(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido ao enfileirar no estágio seguinte a '" + nome + "'.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Acao {
+        void executar() throws Exception;
+    }
+}
@@ -0,0 +1,27 @@
+package org.livraria.importacao;
+
+/**
+ * Fotografia de um estágio do {@link PipelineIngestao}.
+ *
+ * @param nome O nome do estágio.
+ * @param threads O número de threads configuradas.
+ * @param threadsAtivas Quantas threads ainda não terminaram.
+ * @param fila Quantos itens aguardam na fila de entrada.
+ * @param capacidadeFila A capacidade da fila de entrada.
+ * @param processados Quantos itens o estágio já processou.
+ * @param falhas Quantos itens falharam no estágio.
+ * @param itensPorSegundo A vazão média desde o início do pipeline.
+ * @param latenciaP50Ms A latência mediana por item, em milissegundos.
+ * @param latenciaP99Ms O percentil 99 da latência por item, em milissegundos.
+ */
+public record EstatisticaEstagio(String nome, int threads, int threadsAtivas, int fila, int capacidadeFila,
+                                 long processados, long falhas, double itensPorSegundo,
+                                 double latenciaP50Ms, double latenciaP99Ms) {
+
+    @Override
+    public String toString() {
+        return String.format("%-10s threads=%d/%d fila=%d/%d processados=%d falhas=%d vazão=%.2f/s p50=%.1f ms p99=%.1f ms",
+                nome, threadsAtivas, threads, fila, capacidadeFila, processados, falhas, itensPorSegundo,
+                latenciaP50Ms, latenciaP99Ms);
+    }
+}
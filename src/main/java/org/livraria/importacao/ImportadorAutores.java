@@ -0,0 +1,198 @@
+package org.livraria.importacao;
+
+import org.livraria.connections.ADbConnection;
+import org.livraria.interfaces.IBuscadorLivros;
+import org.livraria.interfaces.IDbConnection;
+import org.livraria.log.Log;
+import org.livraria.types.Livro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importa os livros de muitos autores de uma vez.
+ * <p>
+ * Cada autor é buscado em uma thread virtual própria. O número de buscas simultâneas é limitado
+ * por um {@link Semaphore}; o ritmo de requisições, para respeitar a cota da API, fica com o
+ * limitador do buscador, que só conta as requisições que de fato chegam a ela. Os resultados passam por uma fila limitada até uma única thread gravadora, que os
+ * insere em lote no banco; quando a fila enche, as buscas esperam (backpressure).
+ */
+public class ImportadorAutores {
+
+    private static final Log LOG = Log.de(ImportadorAutores.class);
+
+    /**
+     * Consulta enviada à IA para cada autor.
+     */
+    public static final String CONSULTA_AUTOR = "cadastre todos os livros do autor %s";
+
+    public static final int CONCORRENCIA_PADRAO = 4;
+    public static final double REQUISICOES_POR_MINUTO_PADRAO = 30;
+    public static final int CAPACIDADE_FILA_PADRAO = 16;
+
+    /**
+     * Marcador que avisa à thread gravadora que não haverá mais resultados.
+     */
+    private static final List<Livro> FIM = new ArrayList<>();
+
+    /**
+     * De quanto em quanto tempo quem espera espaço na fila confere se a gravadora ainda está viva.
+     */
+    private static final long ESPERA_FILA_MS = 500;
+
+    private final IBuscadorLivros buscador;
+    private final IDbConnection db;
+    private final int concorrencia;
+    private final int capacidadeFila;
+
+    /**
+     * @param buscador O buscador usado para cada autor.
+     * @param db A conexão onde os livros serão gravados. Só é usada pela thread gravadora.
+     * @param concorrencia O número máximo de buscas em andamento ao mesmo tempo.
+     * @param capacidadeFila Quantos resultados podem aguardar a gravação antes de bloquear as buscas.
+     */
+    public ImportadorAutores(IBuscadorLivros buscador, IDbConnection db, int concorrencia, int capacidadeFila) {
+        if (concorrencia <= 0 || capacidadeFila <= 0) {
+            throw new IllegalArgumentException("A concorrência e a capacidade da fila devem ser maiores que zero.");
+        }
+        this.buscador = buscador;
+        this.db = db;
+        this.concorrencia = concorrencia;
+        this.capacidadeFila = capacidadeFila;
+    }
+
+    /**
+     * Lê uma lista de autores, um por linha. Linhas em branco e linhas iniciadas por '#' são ignoradas.
+     *
+     * @param leitor A origem dos nomes.
+     * @return Os nomes dos autores, na ordem de leitura.
+     * @throws IOException Se ocorrer um erro de leitura.
+     */
+    public static List<String> lerAutores(BufferedReader leitor) throws IOException {
+        List<String> autores = new ArrayList<>();
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            linha = linha.trim();
+            if (!linha.isEmpty() && !linha.startsWith("#")) {
+                autores.add(linha);
+            }
+        }
+        return autores;
+    }
+
+    /**
+     * Importa os livros de todos os autores e espera até que todos sejam gravados.
+     *
+     * @param autores Os nomes dos autores.
+     * @return O resumo de vazão e latência da importação.
+     * @throws InterruptedException Se a thread for interrompida antes do fim.
+     */
+    public ResumoImportacao importar(List<String> autores) throws InterruptedException {
+        LOG.info("Importando " + autores.size() + " autores com até " + concorrencia + " buscas simultâneas...");
+
+        BlockingQueue<List<Livro>> fila = new ArrayBlockingQueue<>(capacidadeFila);
+        Semaphore permissoes = new Semaphore(concorrencia);
+        long[] latenciasNanos = new long[autores.size()];
+        AtomicInteger falhas = new AtomicInteger();
+        AtomicLong livrosRecebidos = new AtomicLong();
+        AtomicLong livrosInseridos = new AtomicLong();
+
+        long inicio = System.nanoTime();
+
+        Thread gravadora = Thread.ofPlatform().name("importacao-gravadora").start(() -> {
+            try {
+                List<Livro> livros;
+                while ((livros = fila.take()) != FIM) {
+                    try {
+                        List<Boolean> resultados = db.inserirLivros(livros, ADbConnection.TAMANHO_LOTE_PADRAO);
+                        livrosInseridos.addAndGet(resultados.stream().filter(Boolean::booleanValue).count());
+                    } catch (RuntimeException e) {
+                        // Um lote perdido não derruba a gravadora; as buscas seguem.
+                        LOG.erro("Falha ao gravar " + livros.size() + " livros: " + e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < autores.size(); i++) {
+                int indice = i;
+                String autor = autores.get(i);
+                executor.submit(() -> {
+                    try {
+                        permissoes.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    try {
+                        long t0 = System.nanoTime();
+                        List<Livro> livros = buscador.buscarLivros(String.format(CONSULTA_AUTOR, autor));
+                        latenciasNanos[indice] = System.nanoTime() - t0;
+                        livrosRecebidos.addAndGet(livros.size());
+                        if (!livros.isEmpty() && !entregar(fila, livros, gravadora)) {
+                            LOG.aviso("A gravadora parou; os livros do autor '" + autor + "' não serão gravados.");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        falhas.incrementAndGet();
+                        LOG.erro("Falha ao buscar os livros do autor '" + autor + "': " + e.getMessage());
+                    } finally {
+                        permissoes.release();
+                    }
+                });
+            }
+        }
+
+        entregar(fila, FIM, gravadora);
+        gravadora.join();
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        long[] latenciasMs = Arrays.stream(latenciasNanos).filter(l -> l > 0).map(l -> l / 1_000_000).sorted().toArray();
+
+        return new ResumoImportacao(autores.size(), falhas.get(), livrosRecebidos.get(), livrosInseridos.get(),
+                duracaoMs, percentil(latenciasMs, 50), percentil(latenciasMs, 90), percentil(latenciasMs, 99),
+                latenciasMs.length == 0 ? 0 : latenciasMs[latenciasMs.length - 1]);
+    }
+
+    /**
+     * Coloca um item na fila da gravadora, esperando enquanto ela estiver cheia. Se a gravadora tiver parado
+     * (ex.: por um {@link Error}), desiste em vez de esperar para sempre.
+     *
+     * @return false se a gravadora parou antes de haver espaço na fila.
+     */
+    private static boolean entregar(BlockingQueue<List<Livro>> fila, List<Livro> item, Thread gravadora)
+            throws InterruptedException {
+        while (!fila.offer(item, ESPERA_FILA_MS, TimeUnit.MILLISECONDS)) {
+            if (!gravadora.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Percentil pelo método do posto mais próximo, sobre valores já ordenados.
+     */
+    private static long percentil(long[] ordenados, int p) {
+        if (ordenados.length == 0) {
+            return 0;
+        }
+        int posto = (int) Math.ceil(p / 100.0 * ordenados.length);
+        return ordenados[Math.max(0, posto - 1)];
+    }
+}
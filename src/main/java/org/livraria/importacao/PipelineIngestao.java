@@ -0,0 +1,259 @@
+package org.livraria.importacao;
+
+import org.livraria.connections.ConjuntoIsbn;
+import org.livraria.connections.DbConnection;
+import org.livraria.interfaces.IBuscadorLivros;
+import org.livraria.interfaces.IDbConnection;
+import org.livraria.log.Log;
+import org.livraria.metricas.Metricas;
+import org.livraria.types.Livro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline de ingestão em que a busca na IA e a gravação no banco acontecem ao mesmo tempo.
+ * <p>
+ * Os estágios são ligados por filas limitadas ({@link EstagioPipeline}):
+ * <ol>
+ *     <li><b>busca</b>: consulta a IA para cada autor submetido e emite cada livro assim que ele é lido da
+ *     resposta (o parse acontece junto, dentro de {@link IBuscadorLivros#buscarLivrosStreaming});</li>
+ *     <li><b>validacao</b>: apara os textos, descarta livros sem título ou autor e ISBNs inválidos;</li>
+ *     <li><b>dedup</b>: descarta ISBNs já vistos por este pipeline, em uma única thread;</li>
+ *     <li><b>gravacao</b>: junta os livros em lotes e os grava com {@link IDbConnection#inserirLivros}.</li>
+ * </ol>
+ * Quando a gravação fica para trás, as filas enchem e as buscas param de ler a resposta da IA até haver
+ * espaço. {@link #submeter(String)} não bloqueia, então a interface pode voltar ao menu na hora.
+ */
+public class PipelineIngestao implements AutoCloseable {
+
+    private static final Log LOG = Log.de(PipelineIngestao.class);
+
+    /**
+     * Valor gravado quando a IA não informa o gênero ou a editora, que são obrigatórios no banco.
+     */
+    static final String NAO_INFORMADO = "Não informado";
+
+    private final IBuscadorLivros buscador;
+    private final IDbConnection db;
+    private final ConfiguracaoPipeline configuracao;
+
+    private final EstagioPipeline<String, Livro> busca;
+    private final EstagioPipeline<Livro, Livro> validacao;
+    private final EstagioPipeline<Livro, Livro> dedup;
+    private final EstagioPipeline<Livro, Void> gravacao;
+    private final List<EstagioPipeline<?, ?>> estagios;
+
+    private final ConjuntoIsbn isbnsVistos = new ConjuntoIsbn();
+    private final AtomicLong submetidos = new AtomicLong();
+    private final LongAdder descartados = Metricas.contador("pipeline.descartados");
+    private final LongAdder inseridos = Metricas.contador("pipeline.inseridos");
+    private volatile boolean encerrado = false;
+
+    /**
+     * Cria e inicia o pipeline.
+     *
+     * @param buscador O buscador usado para cada autor.
+     * @param db A conexão onde os livros serão gravados. Só é usada pelo estágio de gravação.
+     * @throws IllegalArgumentException Se houver mais de uma thread de gravação sobre uma {@link DbConnection}.
+     * @param configuracao O paralelismo de cada estágio e a capacidade das filas.
+     */
+    public PipelineIngestao(IBuscadorLivros buscador, IDbConnection db, ConfiguracaoPipeline configuracao) {
+        if (db instanceof DbConnection && configuracao.threadsGravacao() > 1) {
+            // Com uma única conexão, as gravadoras só se revezariam nela.
+            throw new IllegalArgumentException("Mais de uma thread de gravação exige uma conexão com pool (PooledDbConnection).");
+        }
+        this.buscador = buscador;
+        this.db = db;
+        this.configuracao = configuracao;
+
+        int capacidade = configuracao.capacidadeFila();
+        this.busca = new EstagioPipeline<>("busca", configuracao.threadsBusca(), capacidade,
+                () -> this::buscar, Thread.ofVirtual());
+        this.validacao = new EstagioPipeline<>("validacao", configuracao.threadsValidacao(), capacidade,
+                () -> this::validar, Thread.ofPlatform().daemon(true));
+        this.dedup = new EstagioPipeline<>("dedup", 1, capacidade,
+                () -> this::deduplicar, Thread.ofPlatform().daemon(true));
+        this.gravacao = new EstagioPipeline<>("gravacao", configuracao.threadsGravacao(), capacidade,
+                GravadorLotes::new, Thread.ofPlatform().daemon(true));
+
+        busca.ligar(validacao).ligar(dedup).ligar(gravacao);
+        this.estagios = List.of(busca, validacao, dedup, gravacao);
+        estagios.forEach(EstagioPipeline::iniciar);
+    }
+
+    /**
+     * Agenda a importação dos livros de um autor e retorna sem esperar.
+     *
+     * @param autor O nome do autor.
+     * @return false se o pipeline estiver encerrado ou a fila de buscas estiver cheia.
+     */
+    public boolean submeter(String autor) {
+        if (encerrado || autor == null || autor.isBlank()) {
+            return false;
+        }
+        if (!busca.oferecer(autor.trim())) {
+            return false;
+        }
+        submetidos.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return Uma fotografia de cada estágio, na ordem do pipeline.
+     */
+    public List<EstatisticaEstagio> estatisticas() {
+        List<EstatisticaEstagio> resultado = new ArrayList<>(estagios.size());
+        estagios.forEach(estagio -> resultado.add(estagio.estatistica()));
+        return resultado;
+    }
+
+    /**
+     * Para de aceitar autores e espera até que tudo o que já foi submetido seja buscado e gravado.
+     *
+     * @throws InterruptedException Se a thread for interrompida durante a espera; os estágios são interrompidos.
+     */
+    public void encerrar() throws InterruptedException {
+        encerrado = true;
+        busca.fecharEntrada();
+        try {
+            for (EstagioPipeline<?, ?> estagio : estagios) {
+                estagio.aguardar();
+            }
+        } catch (InterruptedException e) {
+            estagios.forEach(EstagioPipeline::interromper);
+            throw e;
+        }
+    }
+
+    /**
+     * Encerra drenando o pipeline (ver {@link #encerrar()}).
+     */
+    @Override
+    public void close() {
+        try {
+            encerrar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.aviso("O encerramento do pipeline foi interrompido; livros ainda nas filas foram descartados.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("--- Pipeline de ingestão ---\n");
+        texto.append("  Autores submetidos: ").append(submetidos.get())
+                .append(", livros inseridos: ").append(inseridos.sum())
+                .append(", descartados: ").append(descartados.sum()).append('\n');
+        estatisticas().forEach(e -> texto.append("  ").append(e).append('\n'));
+        return texto.toString();
+    }
+
+    // --- Estágios ---
+
+    private void buscar(String autor, Consumer<Livro> saida) throws Exception {
+        List<Livro> livros = buscador.buscarLivrosStreaming(String.format(ImportadorAutores.CONSULTA_AUTOR, autor), saida);
+        LOG.info("Busca de '" + autor + "' concluída: " + livros.size() + " livros recebidos.");
+    }
+
+    private void validar(Livro livro, Consumer<Livro> saida) {
+        Livro normalizado = normalizar(livro);
+        if (normalizado == null) {
+            descartados.increment();
+            return;
+        }
+        saida.accept(normalizado);
+    }
+
+    private void deduplicar(Livro livro, Consumer<Livro> saida) {
+        // Livros sem ISBN seguem adiante; o banco decide se são repetidos.
+        if (livro.getIsbn() != null && !isbnsVistos.adicionar(livro.getIsbn())) {
+            descartados.increment();
+            return;
+        }
+        saida.accept(livro);
+    }
+
+    /**
+     * Apara os textos e preenche os campos obrigatórios do banco.
+     *
+     * @return O próprio livro normalizado, ou null se ele não tiver título ou autor.
+     */
+    static Livro normalizar(Livro livro) {
+        String titulo = compactar(livro.getTitulo());
+        String autor = compactar(livro.getAutor());
+        if (titulo == null || autor == null) {
+            return null;
+        }
+        livro.setTitulo(titulo);
+        livro.setAutor(autor);
+
+        String genero = compactar(livro.getGenero());
+        livro.setGenero(genero == null ? NAO_INFORMADO : genero);
+        String editora = compactar(livro.getEditora());
+        livro.setEditora(editora == null ? NAO_INFORMADO : editora);
+        livro.setOrigem(compactar(livro.getOrigem()));
+        livro.setSinopse(livro.getSinopse() == null ? null : livro.getSinopse().trim());
+
+        // Um ISBN que não é reconhecível não identifica o livro: grava sem ele em vez de arriscar uma colisão.
+        String isbn = livro.getIsbn() == null ? null : livro.getIsbn().trim();
+        livro.setIsbn(ConjuntoIsbn.normalizar(isbn) > 0 ? isbn : null);
+
+        livro.setAnoPublicacao(Math.max(0, livro.getAnoPublicacao()));
+        livro.setNumeroPaginas(Math.max(0, livro.getNumeroPaginas()));
+        return livro;
+    }
+
+    /**
+     * @return O texto sem espaços repetidos ou nas pontas, ou null se ficar vazio.
+     */
+    private static String compactar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String compacto = texto.trim().replaceAll("\\s+", " ");
+        return compacto.isEmpty() ? null : compacto;
+    }
+
+    /**
+     * Junta os livros de uma thread de gravação em lotes. Um lote é gravado quando enche, quando a fila
+     * fica ociosa (para não segurar livros enquanto a IA ainda responde) e no encerramento.
+     */
+    private final class GravadorLotes implements EstagioPipeline.Processador<Livro, Void> {
+
+        private final List<Livro> lote = new ArrayList<>(configuracao.tamanhoLote());
+
+        @Override
+        public void processar(Livro livro, Consumer<Void> saida) {
+            lote.add(livro);
+            if (lote.size() >= configuracao.tamanhoLote()) {
+                gravar();
+            }
+        }
+
+        @Override
+        public void ocioso(Consumer<Void> saida) {
+            gravar();
+        }
+
+        @Override
+        public void finalizar(Consumer<Void> saida) {
+            gravar();
+        }
+
+        private void gravar() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            try {
+                List<Boolean> resultados = db.inserirLivros(new ArrayList<>(lote), configuracao.tamanhoLote());
+                inseridos.add(resultados.stream().filter(Boolean::booleanValue).count());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+}
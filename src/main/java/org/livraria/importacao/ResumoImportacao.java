@@ -0,0 +1,46 @@
+package org.livraria.importacao;
+
+/**
+ * Resumo de uma importação em lote de autores.
+ *
+ * @param autores O número de autores processados.
+ * @param falhas O número de autores cuja busca falhou.
+ * @param livrosRecebidos O número de livros retornados pela IA.
+ * @param livrosInseridos O número de livros gravados no banco.
+ * @param duracaoMs A duração total da importação, em milissegundos.
+ * @param latenciaP50Ms A latência mediana de uma busca, em milissegundos.
+ * @param latenciaP90Ms O percentil 90 da latência de uma busca, em milissegundos.
+ * @param latenciaP99Ms O percentil 99 da latência de uma busca, em milissegundos.
+ * @param latenciaMaximaMs A maior latência de uma busca, em milissegundos.
+ */
+public record ResumoImportacao(int autores, int falhas, long livrosRecebidos, long livrosInseridos,
+                               long duracaoMs, long latenciaP50Ms, long latenciaP90Ms,
+                               long latenciaP99Ms, long latenciaMaximaMs) {
+
+    /**
+     * @return Autores processados por segundo.
+     */
+    public double autoresPorSegundo() {
+        return duracaoMs == 0 ? 0.0 : autores * 1000.0 / duracaoMs;
+    }
+
+    /**
+     * @return Livros gravados por segundo.
+     */
+    public double livrosPorSegundo() {
+        return duracaoMs == 0 ? 0.0 : livrosInseridos * 1000.0 / duracaoMs;
+    }
+
+    @Override
+    public String toString() {
+        return "Resumo da Importação {\n" +
+                "  Autores: " + autores + " (" + falhas + " falhas),\n" +
+                "  Livros recebidos: " + livrosRecebidos + ",\n" +
+                "  Livros inseridos: " + livrosInseridos + ",\n" +
+                "  Duração: " + duracaoMs + " ms,\n" +
+                String.format("  Vazão: %.2f autores/s, %.2f livros/s,%n", autoresPorSegundo(), livrosPorSegundo()) +
+                "  Latência por autor (ms): p50=" + latenciaP50Ms + ", p90=" + latenciaP90Ms +
+                ", p99=" + latenciaP99Ms + ", máx=" + latenciaMaximaMs + "\n" +
+                "}";
+    }
+}
@@ -3,6 +3,9 @@ package org.livraria.interfaces;
 import org.livraria.types.Livro;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * ‘Interface’ (Contrato) para serviços de busca de livros.
@@ -19,5 +22,40 @@ public interface IBuscadorLivros {
      * @throws Exception Se ocorrer um erro durante a busca ou processamento.
      */
     List<Livro> buscarLivros(String consulta) throws Exception;
+
+    /**
+     * Busca livros de forma assíncrona.
+     * A implementação padrão executa {@link #buscarLivros(String)} em uma thread virtual própria, já que a
+     * busca bloqueia na E/S e ocuparia uma thread do pool comum; implementações com E/S não bloqueante
+     * devem sobrescrevê-la.
+     *
+     * @param consulta A consulta do usuário.
+     * @return Um futuro com a lista de livros, concluído com erro se a busca falhar.
+     */
+    default CompletableFuture<List<Livro>> buscarLivrosAsync(String consulta) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return buscarLivros(consulta);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, Thread::startVirtualThread);
+    }
+
+    /**
+     * Busca livros entregando cada um ao {@code aoReceber} assim que estiver disponível.
+     * A implementação padrão espera a lista completa de {@link #buscarLivros(String)};
+     * implementações com streaming entregam cada livro durante a geração da resposta.
+     *
+     * @param consulta A consulta do usuário.
+     * @param aoReceber Chamado para cada livro, na ordem da resposta.
+     * @return A lista com todos os livros entregues.
+     * @throws Exception Se ocorrer um erro durante a busca ou processamento.
+     */
+    default List<Livro> buscarLivrosStreaming(String consulta, Consumer<Livro> aoReceber) throws Exception {
+        List<Livro> livros = buscarLivros(consulta);
+        livros.forEach(aoReceber);
+        return livros;
+    }
 }
 
@@ -0,0 +1,42 @@
+package org.livraria.interfaces;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * ‘Interface’ (Contrato) do empréstimo de uma {@link Connection} para uma operação ou transação,
+ * devolvido por {@link IDbConnection#emprestarConexao()}.
+ * <p>
+ * Deve ser usado em um bloco try-with-resources: ao ser fechado, a conexão é devolvida
+ * a quem a emprestou (o pool, por exemplo) em vez de ser fechada de fato.
+ */
+public interface IConexaoEmprestada extends AutoCloseable {
+
+    /**
+     * @return A conexão emprestada. Não deve ser usada após {@link #close()}.
+     */
+    Connection getConexao();
+
+    /**
+     * Equivale a {@code getConexao().prepareStatement(sql)}; a implementação pode reaproveitar um statement
+     * já preparado nesta conexão, que também deve ser fechado com try-with-resources.
+     */
+    default PreparedStatement preparar(String sql) throws SQLException {
+        return preparar(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Equivale a {@code getConexao().prepareStatement(sql, chavesGeradas)}, como {@link #preparar(String)}.
+     *
+     * @param chavesGeradas {@link Statement#RETURN_GENERATED_KEYS} ou {@link Statement#NO_GENERATED_KEYS}.
+     */
+    PreparedStatement preparar(String sql, int chavesGeradas) throws SQLException;
+
+    /**
+     * Devolve a conexão. Chamadas repetidas são ignoradas.
+     */
+    @Override
+    void close();
+}
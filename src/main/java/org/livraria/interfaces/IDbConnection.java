@@ -1,6 +1,12 @@
 package org.livraria.interfaces;
 
-import java.sql.Connection;
+import org.livraria.busca.ResultadoBusca;
+import org.livraria.types.Livro;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface that defines the contract for database connection classes.
@@ -23,6 +29,23 @@ public interface IDbConnection {
      */
     Boolean insert(String table, String nome, String email);
 
+    /**
+     * Inserts a list of books in bulk, resolving authors, genres and publishers once per chunk
+     * and writing the 'livros' rows with JDBC batches, one transaction per chunk.
+     * @param livros The books to be inserted.
+     * @param tamanhoLote The maximum number of books per chunk/transaction.
+     * @return A list with one outcome per book, in the same order as the input (true if inserted).
+     */
+    List<Boolean> inserirLivros(List<Livro> livros, int tamanhoLote);
+
+    /**
+     * Inserts a list of books in bulk using the implementation's default chunk size.
+     * @param livros The books to be inserted.
+     * @return A list with one outcome per book, in the same order as the input (true if inserted).
+     * @see #inserirLivros(List, int)
+     */
+    List<Boolean> inserirLivros(List<Livro> livros);
+
     /**
      * Closes the database connection.
      * @return true if the disconnection is successful, false otherwise.
@@ -36,6 +59,66 @@ public interface IDbConnection {
      */
     Boolean select(String table);
 
+    /**
+     * Streams all records of a table to stdout without loading the whole table in memory.
+     * @param table The name of the table to query (e.g., "livros").
+     * @param tamanhoPagina Rows per keyset page on the 'id' column, or 0 to read the table with a single cursor.
+     * @return true if the select is successful, false otherwise.
+     */
+    Boolean selectStreaming(String table, int tamanhoPagina);
+
+    /**
+     * Finds the books of an author, filtering in the database.
+     * @param autor The exact author name, as stored in 'autores'.
+     * @return The author's books ordered by publication year, or an empty list if none or on error.
+     */
+    List<Livro> buscarPorAutor(String autor);
+
+    /**
+     * Finds the books of a genre, filtering in the database.
+     * @param genero The exact genre name, as stored in 'generos'.
+     * @return The genre's books ordered by publication year, or an empty list if none or on error.
+     */
+    List<Livro> buscarPorGenero(String genero);
+
+    /**
+     * Finds the books of a publisher, filtering in the database.
+     * @param editora The exact publisher name, as stored in 'editoras'.
+     * @return The publisher's books ordered by publication year, or an empty list if none or on error.
+     */
+    List<Livro> buscarPorEditora(String editora);
+
+    /**
+     * Finds the books published between two years, both inclusive.
+     * @param anoInicial The first publication year.
+     * @param anoFinal The last publication year.
+     * @return The books ordered by publication year, or an empty list if none or on error.
+     */
+    List<Livro> buscarPorAno(int anoInicial, int anoFinal);
+
+    /**
+     * Finds a book by its ISBN.
+     * @param isbn The ISBN, exactly as stored.
+     * @return The book, or empty if not found or on error.
+     */
+    Optional<Livro> buscarPorIsbn(String isbn);
+
+    /**
+     * Reads every stored book lazily: rows are fetched as the stream is consumed.
+     * The stream holds a database connection until it is closed, so use it in a try-with-resources block.
+     * @return A lazy stream of books ordered by id, or an empty stream on error.
+     */
+    Stream<Livro> streamLivros();
+
+    /**
+     * Searches the stored books by keywords in their title or synopsis, ignoring accents and case.
+     * @param consulta The keywords, separated by spaces.
+     * @param todosOsTermos true to require every keyword (AND), false to accept any of them (OR).
+     * @param limite The maximum number of results.
+     * @return The matching books, most relevant first.
+     */
+    List<ResultadoBusca> pesquisar(String consulta, boolean todosOsTermos, int limite);
+
     /**
      * Checks if the required database structures (like tables) exist, and creates them if they don't.
      * @return true if the structures exist or were created successfully, false otherwise.
@@ -43,8 +126,10 @@ public interface IDbConnection {
     Boolean check();
 
     /**
-     * Provides the active database connection object.
-     * @return The active SQL Connection object.
+     * Lends a connection for a single operation or transaction. Closing the lease gives the connection back
+     * (to the pool, in pooled implementations) instead of closing it, so use it in a try-with-resources block.
+     * @return A lease over an active connection.
+     * @throws SQLException If the implementation is not connected or no connection is available.
      */
-    Connection getConnection();
+    IConexaoEmprestada emprestarConexao() throws SQLException;
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package org.livraria.log;
+
+import org.livraria.metricas.Metricas;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escreve as mensagens de {@link Log} no console a partir de uma thread própria.
+ * <p>
+ * As mensagens entram em uma fila circular de tamanho fixo ({@link ArrayBlockingQueue}). A thread escritora
+ * retira de uma vez tudo o que estiver pendente e escreve cada saída com um único {@code print}, então rajadas
+ * de mensagens custam uma chamada de E/S em vez de uma por linha. Com a fila cheia, {@code DEBUG} e
+ * {@code INFO} são descartados (contador {@code log.descartados}) para não atrasar quem registrou;
+ * {@code AVISO} e {@code ERRO} esperam por espaço e nunca se perdem.
+ */
+final class EscritorLog {
+
+    static final int CAPACIDADE_PADRAO = 8192;
+
+    private static final LongAdder DESCARTADOS = Metricas.contador("log.descartados");
+
+    private record Registro(Log.Nivel nivel, String mensagem) {
+    }
+
+    private final BlockingQueue<Registro> fila;
+    private final PrintStream saida;
+    private final PrintStream erros;
+    private final Thread thread;
+    private volatile boolean encerrado = false;
+
+    EscritorLog(int capacidade, PrintStream saida, PrintStream erros) {
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.saida = saida;
+        this.erros = erros;
+        this.thread = new Thread(this::escrever, "log-escritor");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        // Sem encerrar() explícito (ex.: exceção em main), as mensagens pendentes ainda são escritas.
+        Runtime.getRuntime().addShutdownHook(new Thread(this::encerrar, "log-encerramento"));
+    }
+
+    void registrar(Log.Nivel nivel, String mensagem) {
+        Registro registro = new Registro(nivel, mensagem);
+        if (encerrado) {
+            escreverDireto(registro);
+            return;
+        }
+        if (fila.offer(registro)) {
+            return;
+        }
+        if (nivel.compareTo(Log.Nivel.AVISO) < 0) {
+            DESCARTADOS.increment();
+            return;
+        }
+        try {
+            fila.put(registro);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            escreverDireto(registro);
+        }
+    }
+
+    /**
+     * Para a thread escritora depois de escrever tudo o que estiver na fila.
+     */
+    void encerrar() {
+        if (encerrado) {
+            return;
+        }
+        encerrado = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // O que entrou na fila enquanto a thread terminava.
+        List<Registro> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        escreverLote(restantes);
+    }
+
+    private void escrever() {
+        List<Registro> lote = new ArrayList<>(256);
+        while (!encerrado || !fila.isEmpty()) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                // encerrar(): escreve o que restar e sai.
+            }
+            fila.drainTo(lote);
+            escreverLote(lote);
+            lote.clear();
+        }
+    }
+
+    private void escreverLote(List<Registro> lote) {
+        StringBuilder blocoSaida = new StringBuilder();
+        StringBuilder blocoErros = new StringBuilder();
+        for (Registro registro : lote) {
+            StringBuilder bloco = registro.nivel().compareTo(Log.Nivel.AVISO) >= 0 ? blocoErros : blocoSaida;
+            bloco.append(registro.mensagem()).append(System.lineSeparator());
+        }
+        if (!blocoSaida.isEmpty()) {
+            saida.print(blocoSaida);
+            saida.flush();
+        }
+        if (!blocoErros.isEmpty()) {
+            erros.print(blocoErros);
+            erros.flush();
+        }
+    }
+
+    private void escreverDireto(Registro registro) {
+        (registro.nivel().compareTo(Log.Nivel.AVISO) >= 0 ? erros : saida).println(registro.mensagem());
+    }
+}
@@ -0,0 +1,125 @@
+package org.livraria.log;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Fachada de log com níveis, usada no lugar de {@code System.out}/{@code System.err} nos caminhos quentes.
+ * <p>
+ * Cada classe guarda sua instância em uma constante ({@code Log.de(Classe.class)}). O nível é conferido antes
+ * de qualquer trabalho: com ele desligado, nenhuma mensagem é montada e nenhum argumento é convertido em texto.
+ * Com ele ligado, a mensagem é montada na thread que chamou e entregue a um {@link EscritorLog}, que escreve
+ * no console em segundo plano; a thread que chamou não espera pela E/S.
+ * <p>
+ * {@code INFO} e {@code DEBUG} vão para {@code System.out}; {@code AVISO} e {@code ERRO}, para {@code System.err}.
+ * Textos grandes (corpos de requisição e resposta) devem passar por {@link #resumir(CharSequence, int)}.
+ */
+public final class Log {
+
+    public enum Nivel { DEBUG, INFO, AVISO, ERRO }
+
+    /**
+     * Tamanho padrão de um texto grande depois de {@link #resumir(CharSequence, int)}.
+     */
+    public static final int LIMITE_PAYLOAD_PADRAO = 512;
+
+    private static final EscritorLog ESCRITOR = new EscritorLog(EscritorLog.CAPACIDADE_PADRAO, System.out, System.err);
+    private static volatile Nivel nivelMinimo = Nivel.INFO;
+
+    private final String origem;
+
+    private Log(String origem) {
+        this.origem = origem;
+    }
+
+    /**
+     * @return O log da classe; o nome simples dela aparece nas mensagens de {@code DEBUG}.
+     */
+    public static Log de(Class<?> classe) {
+        return new Log(classe.getSimpleName());
+    }
+
+    /**
+     * Define o nível mínimo de todos os logs. Mensagens abaixo dele são descartadas sem custo.
+     */
+    public static void configurarNivel(Nivel nivel) {
+        nivelMinimo = nivel;
+    }
+
+    /**
+     * Lê um nível pelo nome ({@code debug}, {@code info}, {@code aviso}, {@code erro}), sem diferenciar maiúsculas.
+     *
+     * @return O nível, ou {@code padrao} se o nome for nulo ou desconhecido.
+     */
+    public static Nivel nivel(String nome, Nivel padrao) {
+        if (nome == null || nome.isBlank()) {
+            return padrao;
+        }
+        try {
+            return Nivel.valueOf(nome.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return padrao;
+        }
+    }
+
+    /**
+     * Escreve as mensagens pendentes e para o escritor. Mensagens registradas depois disso são escritas
+     * diretamente, sem passar pela fila.
+     */
+    public static void encerrar() {
+        ESCRITOR.encerrar();
+    }
+
+    /**
+     * Corta um texto grande, indicando quantos caracteres foram omitidos.
+     */
+    public static String resumir(CharSequence texto, int limite) {
+        if (texto == null || texto.length() <= limite) {
+            return texto == null ? null : texto.toString();
+        }
+        return texto.subSequence(0, limite) + "... (+" + (texto.length() - limite) + " caracteres)";
+    }
+
+    public boolean ativo(Nivel nivel) {
+        return nivel.compareTo(nivelMinimo) >= 0;
+    }
+
+    public void debug(String mensagem) {
+        if (ativo(Nivel.DEBUG)) {
+            ESCRITOR.registrar(Nivel.DEBUG, "[" + origem + "] " + mensagem);
+        }
+    }
+
+    /**
+     * Para mensagens caras de montar: o fornecedor só é chamado com {@code DEBUG} ligado.
+     */
+    public void debug(Supplier<String> mensagem) {
+        if (ativo(Nivel.DEBUG)) {
+            ESCRITOR.registrar(Nivel.DEBUG, "[" + origem + "] " + mensagem.get());
+        }
+    }
+
+    public void info(String mensagem) {
+        if (ativo(Nivel.INFO)) {
+            ESCRITOR.registrar(Nivel.INFO, mensagem);
+        }
+    }
+
+    public void info(Supplier<String> mensagem) {
+        if (ativo(Nivel.INFO)) {
+            ESCRITOR.registrar(Nivel.INFO, mensagem.get());
+        }
+    }
+
+    public void aviso(String mensagem) {
+        if (ativo(Nivel.AVISO)) {
+            ESCRITOR.registrar(Nivel.AVISO, mensagem);
+        }
+    }
+
+    public void erro(String mensagem) {
+        if (ativo(Nivel.ERRO)) {
+            ESCRITOR.registrar(Nivel.ERRO, mensagem);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.livraria.metricas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências sem bloqueio, no estilo HdrHistogram.
+ * <p>
+ * Os valores (em nanossegundos) são distribuídos em faixas log-lineares: cada potência de 2 é
+ * dividida em {@value #SUB_FAIXAS} sub-faixas, o que dá erro relativo de no máximo ~3% em qualquer
+ * escala, de nanossegundos a horas, com um array fixo de contadores. Registrar um valor custa um
+ * {@code numberOfLeadingZeros} e um incremento atômico; nenhuma alocação é feita.
+ */
+public class HistogramaLatencia {
+
+    private static final int BITS_SUB_FAIXA = 5;
+    private static final int SUB_FAIXAS = 1 << BITS_SUB_FAIXA;
+    private static final int TOTAL_FAIXAS = (64 - BITS_SUB_FAIXA) * SUB_FAIXAS;
+
+    private final String nome;
+    private final AtomicLongArray contagens = new AtomicLongArray(TOTAL_FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public HistogramaLatencia(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Registra uma duração.
+     *
+     * @param nanos A duração em nanossegundos. Valores negativos são tratados como zero.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens.incrementAndGet(faixa(valor));
+        total.increment();
+        soma.add(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    /**
+     * Registra o tempo decorrido desde {@code inicioNanos} (obtido com {@link System#nanoTime()}).
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * @param percentil Um valor entre 0 e 100.
+     * @return O limite inferior da faixa que contém o percentil, em nanossegundos.
+     */
+    public long percentil(double percentil) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100.0 * n));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return Math.min(limiteInferior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public double percentilMs(double percentil) {
+        return percentil(percentil) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public double getMediaMs() {
+        long n = total.sum();
+        return n == 0 ? 0.0 : soma.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaximoMs() {
+        return maximo.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Zera o histograma. Registros concorrentes com a limpeza podem ser perdidos.
+     */
+    public void zerar() {
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+        total.reset();
+        soma.reset();
+        maximo.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d, média=%.3f ms, p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, máx=%.3f ms",
+                nome, getTotal(), getMediaMs(), percentilMs(50), percentilMs(90), percentilMs(99), getMaximoMs());
+    }
+
+    private static int faixa(long valor) {
+        if (valor < SUB_FAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_SUB_FAIXA)) & (SUB_FAIXAS - 1);
+        return (expoente - BITS_SUB_FAIXA + 1) * SUB_FAIXAS + sub;
+    }
+
+    private static long limiteInferior(int faixa) {
+        if (faixa < SUB_FAIXAS) {
+            return faixa;
+        }
+        int expoente = faixa / SUB_FAIXAS + BITS_SUB_FAIXA - 1;
+        long sub = faixa % SUB_FAIXAS;
+        return (SUB_FAIXAS + sub) << (expoente - BITS_SUB_FAIXA);
+    }
+}
@@ -0,0 +1,170 @@
+package org.livraria.metricas;
+
+import org.livraria.log.Log;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Registro global de contadores e histogramas de latência do pipeline.
+ * <p>
+ * Os estágios instrumentados guardam o histograma em uma constante (ver {@link #histograma(String)}),
+ * então medir custa apenas duas leituras de {@link System#nanoTime()} e um incremento atômico.
+ * As métricas podem ser lidas via JMX ({@link #registrarJmx()}) ou impressas periodicamente
+ * ({@link #iniciarRelatorioPeriodico(Duration, PrintStream)}).
+ */
+public final class Metricas implements MetricasMXBean {
+
+    // --- Estágios medidos ---
+    public static final String GROQ_HTTP = "groq.http";
+    public static final String GROQ_PARSE = "groq.parse";
+    public static final String DB_DIMENSAO_CONSULTA = "db.dimensao.consulta";
+    public static final String DB_DIMENSAO_INSERCAO = "db.dimensao.insercao";
+    public static final String DB_INSERIR_LIVRO = "db.inserir_livro";
+    public static final String DB_INSERIR_LOTE = "db.inserir_lote";
+    public static final String DB_COMMIT = "db.commit";
+    public static final String DB_SELECT = "db.select";
+    public static final String DB_CONSULTA_LIVROS = "db.consulta_livros";
+    public static final String BUSCA_INDICE = "busca.indice";
+    public static final String CATALOGO_CARGA = "catalogo.carga";
+    public static final String CATALOGO_CONSULTA = "catalogo.consulta";
+
+    // --- Contadores ---
+    public static final String LIVROS_RECEBIDOS = "livros.recebidos";
+    public static final String LIVROS_INSERIDOS = "livros.inseridos";
+    public static final String LIVROS_FALHAS = "livros.falhas";
+
+    private static final Metricas INSTANCIA = new Metricas();
+
+    private final Map<String, HistogramaLatencia> histogramas = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService relatorio = null;
+
+    private Metricas() {
+    }
+
+    public static Metricas global() {
+        return INSTANCIA;
+    }
+
+    /**
+     * @return O histograma do estágio, criado na primeira chamada.
+     */
+    public static HistogramaLatencia histograma(String estagio) {
+        return INSTANCIA.histogramas.computeIfAbsent(estagio, HistogramaLatencia::new);
+    }
+
+    /**
+     * @return O contador, criado na primeira chamada.
+     */
+    public static LongAdder contador(String nome) {
+        return INSTANCIA.contadores.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    /**
+     * Publica as métricas no servidor JMX da plataforma como {@code org.livraria:type=Metricas}.
+     * Chamadas repetidas são ignoradas.
+     */
+    public static void registrarJmx() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(INSTANCIA, new ObjectName("org.livraria:type=Metricas"));
+        } catch (InstanceAlreadyExistsException e) {
+            // Já registrado.
+        } catch (JMException e) {
+            // Sem campo estático: o Log usa as métricas (log.descartados) na própria inicialização.
+            Log.de(Metricas.class).aviso("Não foi possível registrar as métricas no JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Imprime um resumo das métricas a cada {@code intervalo}, em uma thread daemon,
+     * incluindo a vazão de livros inseridos desde o último resumo.
+     */
+    public static synchronized void iniciarRelatorioPeriodico(Duration intervalo, PrintStream saida) {
+        if (INSTANCIA.relatorio != null) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metricas-relatorio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] anterior = {0, System.nanoTime()};
+        executor.scheduleAtFixedRate(() -> {
+            long inseridos = contador(LIVROS_INSERIDOS).sum();
+            long agora = System.nanoTime();
+            double livrosPorSegundo = (inseridos - anterior[0]) / ((agora - anterior[1]) / 1e9);
+            anterior[0] = inseridos;
+            anterior[1] = agora;
+            saida.printf("%s  vazão: %.2f livros/s%n", INSTANCIA.getResumo(), livrosPorSegundo);
+        }, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        INSTANCIA.relatorio = executor;
+    }
+
+    public static synchronized void pararRelatorioPeriodico() {
+        if (INSTANCIA.relatorio != null) {
+            INSTANCIA.relatorio.shutdownNow();
+            INSTANCIA.relatorio = null;
+        }
+    }
+
+    @Override
+    public Map<String, Long> getContadores() {
+        Map<String, Long> valores = new TreeMap<>();
+        contadores.forEach((nome, contador) -> valores.put(nome, contador.sum()));
+        return valores;
+    }
+
+    @Override
+    public Map<String, Long> getContagens() {
+        return porEstagio(HistogramaLatencia::getTotal);
+    }
+
+    @Override
+    public Map<String, Double> getP50Ms() {
+        return porEstagio(h -> h.percentilMs(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99Ms() {
+        return porEstagio(h -> h.percentilMs(99));
+    }
+
+    @Override
+    public Map<String, Double> getMaximoMs() {
+        return porEstagio(HistogramaLatencia::getMaximoMs);
+    }
+
+    @Override
+    public String getResumo() {
+        StringBuilder resumo = new StringBuilder("--- Métricas ---\n");
+        getContadores().forEach((nome, valor) -> resumo.append("  ").append(nome).append(": ").append(valor).append('\n'));
+        new TreeMap<>(histogramas).values().forEach(h -> resumo.append("  ").append(h).append('\n'));
+        return resumo.toString();
+    }
+
+    @Override
+    public void zerar() {
+        histogramas.values().forEach(HistogramaLatencia::zerar);
+        contadores.values().forEach(LongAdder::reset);
+    }
+
+    private <T> Map<String, T> porEstagio(Function<HistogramaLatencia, T> valor) {
+        Map<String, T> valores = new TreeMap<>();
+        histogramas.forEach((nome, h) -> valores.put(nome, valor.apply(h)));
+        return valores;
+    }
+}
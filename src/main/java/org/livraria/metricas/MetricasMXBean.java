@@ -0,0 +1,45 @@
+package org.livraria.metricas;
+
+import java.util.Map;
+
+/**
+ * Interface JMX das métricas do pipeline busca → parse → persistência.
+ * Publicada como {@code org.livraria:type=Metricas}.
+ */
+public interface MetricasMXBean {
+
+    /**
+     * @return O valor atual de cada contador (ex.: "livros.inseridos").
+     */
+    Map<String, Long> getContadores();
+
+    /**
+     * @return O número de medições de cada estágio.
+     */
+    Map<String, Long> getContagens();
+
+    /**
+     * @return A latência mediana de cada estágio, em milissegundos.
+     */
+    Map<String, Double> getP50Ms();
+
+    /**
+     * @return O percentil 99 da latência de cada estágio, em milissegundos.
+     */
+    Map<String, Double> getP99Ms();
+
+    /**
+     * @return A maior latência de cada estágio, em milissegundos.
+     */
+    Map<String, Double> getMaximoMs();
+
+    /**
+     * @return Um resumo legível de todos os contadores e estágios.
+     */
+    String getResumo();
+
+    /**
+     * Zera todos os contadores e histogramas.
+     */
+    void zerar();
+}
@@ -101,6 +101,14 @@ public class Livro {
         this.ISBN = isbn;
     }
 
+    /**
+     * Cria uma cópia do livro, que pode ser alterada sem afetar o original.
+     */
+    public Livro(Livro outro) {
+        this(outro.titulo, outro.autor, outro.genero, outro.sinopse, outro.anodepublicacao, outro.editora,
+                outro.origem, outro.numerodepaginas, outro.ISBN);
+    }
+
     @Override
     public String toString() {
         return "Livro {\n" +
@@ -0,0 +1,282 @@
+package org.livraria.connections;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.livraria.metricas.Metricas;
+import org.livraria.types.Livro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link BuscadorLivros#buscarLivrosStreaming} contra um servidor local que responde com Server-Sent Events.
+ */
+class BuscadorLivrosStreamingTest {
+
+    private static final long ESPERA_S = 5;
+
+    private static final Pattern FAIXA = Pattern.compile("cujo título (.+?) \\(ignore acentos\\)");
+
+    /**
+     * O que o servidor faz com uma requisição com {@code "stream": true}.
+     */
+    @FunctionalInterface
+    private interface Stream {
+        void enviar(OutputStream saida) throws IOException;
+    }
+
+    private final AtomicInteger requisicoesStream = new AtomicInteger();
+    private final List<String> faixasPedidas = Collections.synchronizedList(new ArrayList<>());
+    private volatile Stream stream;
+
+    private HttpServer servidor;
+    private ExecutorService executorServidor;
+    private BuscadorLivros buscador;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executorServidor = Executors.newCachedThreadPool();
+        servidor.setExecutor(executorServidor);
+        servidor.createContext("/", this::atender);
+        servidor.start();
+        buscador = new BuscadorLivros("http://127.0.0.1:" + servidor.getAddress().getPort() + "/", "chave-de-teste");
+    }
+
+    @AfterEach
+    void parar() {
+        buscador.close();
+        servidor.stop(0);
+        executorServidor.shutdownNow();
+    }
+
+    private void atender(HttpExchange troca) throws IOException {
+        try (troca) {
+            JsonObject corpo = JsonParser.parseString(
+                    new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+            if (corpo.get("stream").getAsBoolean()) {
+                requisicoesStream.incrementAndGet();
+                troca.getResponseHeaders().set("Content-Type", "text/event-stream");
+                troca.sendResponseHeaders(200, 0);
+                stream.enviar(troca.getResponseBody());
+            } else {
+                responderFaixa(troca, corpo);
+            }
+        }
+    }
+
+    /**
+     * Responde à busca de uma faixa de títulos, sem streaming, com um livro próprio da faixa e um que o
+     * streaming já entregou.
+     */
+    private void responderFaixa(HttpExchange troca, JsonObject corpo) throws IOException {
+        JsonArray mensagens = corpo.getAsJsonArray("messages");
+        String consulta = mensagens.get(mensagens.size() - 1).getAsJsonObject().get("content").getAsString();
+        Matcher faixa = FAIXA.matcher(consulta);
+        assertTrue(faixa.find(), "Consulta sem faixa de títulos: " + consulta);
+        faixasPedidas.add(faixa.group(1));
+
+        String conteudo = "{\"livros\": [" + livro("Livro que " + faixa.group(1)) + ", " + livro("Dom Casmurro") + "]}";
+        JsonObject mensagem = new JsonObject();
+        mensagem.addProperty("role", "assistant");
+        mensagem.addProperty("content", conteudo);
+        JsonObject escolha = new JsonObject();
+        escolha.add("message", mensagem);
+        escolha.addProperty("finish_reason", "stop");
+        JsonArray escolhas = new JsonArray();
+        escolhas.add(escolha);
+        JsonObject resposta = new JsonObject();
+        resposta.add("choices", escolhas);
+
+        byte[] bytes = resposta.toString().getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json");
+        troca.sendResponseHeaders(200, bytes.length);
+        troca.getResponseBody().write(bytes);
+    }
+
+    private static String livro(String titulo) {
+        JsonObject livro = new JsonObject();
+        livro.addProperty("titulo", titulo);
+        livro.addProperty("autor", "Machado de Assis");
+        return livro.toString();
+    }
+
+    /**
+     * Envia um evento com um trecho de conteúdo e o envia na hora.
+     */
+    private static void conteudo(OutputStream saida, String trecho) throws IOException {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("content", trecho);
+        JsonObject escolha = new JsonObject();
+        escolha.add("delta", delta);
+        escolha.add("finish_reason", null);
+        evento(saida, escolha);
+    }
+
+    private static void fim(OutputStream saida, String finishReason) throws IOException {
+        JsonObject escolha = new JsonObject();
+        escolha.add("delta", new JsonObject());
+        escolha.addProperty("finish_reason", finishReason);
+        evento(saida, escolha);
+        linha(saida, "data: [DONE]\n\n");
+    }
+
+    private static void evento(OutputStream saida, JsonObject escolha) throws IOException {
+        JsonArray escolhas = new JsonArray();
+        escolhas.add(escolha);
+        JsonObject evento = new JsonObject();
+        evento.add("choices", escolhas);
+        linha(saida, "data: " + evento + "\n\n");
+    }
+
+    private static void linha(OutputStream saida, String texto) throws IOException {
+        saida.write(texto.getBytes(StandardCharsets.UTF_8));
+        saida.flush();
+    }
+
+    /**
+     * Envia {@code json} cortado em pedaços de {@code tamanho} caracteres, um por evento.
+     */
+    private static void emPedacos(OutputStream saida, String json, int tamanho) throws IOException {
+        for (int i = 0; i < json.length(); i += tamanho) {
+            conteudo(saida, json.substring(i, Math.min(json.length(), i + tamanho)));
+        }
+    }
+
+    private static List<String> titulos(List<Livro> livros) {
+        return livros.stream().map(Livro::getTitulo).toList();
+    }
+
+    @Test
+    void entregaCadaLivroAntesDoFimDoStream() throws Exception {
+        CountDownLatch primeiroEntregue = new CountDownLatch(1);
+        AtomicBoolean entregueAntesDoResto = new AtomicBoolean();
+        stream = saida -> {
+            emPedacos(saida, "```json\n{\"livros\": [" + livro("Dom Casmurro") + ",", 7);
+            // O restante só é enviado depois que o consumidor recebeu o primeiro livro.
+            try {
+                entregueAntesDoResto.set(primeiroEntregue.await(ESPERA_S, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            emPedacos(saida, livro("Quincas Borba") + "]}\n```", 7);
+            fim(saida, "stop");
+        };
+
+        List<String> entregues = Collections.synchronizedList(new ArrayList<>());
+        List<Livro> livros = buscador.buscarLivrosStreaming("Machado de Assis", livro -> {
+            entregues.add(livro.getTitulo());
+            primeiroEntregue.countDown();
+        });
+
+        assertTrue(entregueAntesDoResto.get(), "O primeiro livro só foi entregue depois do fim do stream.");
+        assertEquals(List.of("Dom Casmurro", "Quincas Borba"), entregues);
+        assertEquals(List.of("Dom Casmurro", "Quincas Borba"), titulos(livros));
+        assertEquals(1, requisicoesStream.get());
+        assertTrue(faixasPedidas.isEmpty());
+    }
+
+    @Test
+    void falhaDoConsumidorNaoInterrompeOStream() throws Exception {
+        stream = saida -> {
+            emPedacos(saida, "{\"livros\": [" + livro("Dom Casmurro") + ", " + livro("Falha ao gravar") + ", "
+                    + livro("Quincas Borba") + "]}", 5);
+            fim(saida, "stop");
+        };
+        LongAdder falhas = Metricas.contador("groq.falhas_consumidor_streaming");
+        long antes = falhas.sum();
+
+        List<String> gravados = new ArrayList<>();
+        List<Livro> livros = buscador.buscarLivrosStreaming("Machado de Assis", livro -> {
+            if (livro.getTitulo().startsWith("Falha")) {
+                throw new IllegalStateException("ISBN duplicado");
+            }
+            gravados.add(livro.getTitulo());
+        });
+
+        assertEquals(List.of("Dom Casmurro", "Quincas Borba"), gravados);
+        assertEquals(3, livros.size());
+        assertEquals(1, falhas.sum() - antes);
+    }
+
+    @Test
+    void ignoraComentariosEEventosSemConteudo() throws Exception {
+        stream = saida -> {
+            linha(saida, ": keep-alive\n\n");
+            linha(saida, "event: ping\ndata: {\"choices\": []}\n\n");
+            linha(saida, "data: {não é json\n\n");
+            linha(saida, "data: {\"choices\": [{\"delta\": {\"role\": \"assistant\"}}]}\n\n");
+            emPedacos(saida, "[" + livro("Dom Casmurro") + "]", 4);
+            fim(saida, "stop");
+        };
+
+        List<Livro> livros = buscador.buscarLivrosStreaming("Machado de Assis", livro -> {
+        });
+
+        assertEquals(List.of("Dom Casmurro"), titulos(livros));
+    }
+
+    @Test
+    void ignoraConteudoDepoisDoFimDoArray() throws Exception {
+        stream = saida -> {
+            emPedacos(saida, "{\"livros\": [" + livro("Dom Casmurro") + "]}", 6);
+            conteudo(saida, "\n\nOutros livros: [" + livro("Depois do fim") + "]");
+            fim(saida, "stop");
+        };
+
+        List<Livro> livros = buscador.buscarLivrosStreaming("Machado de Assis", livro -> {
+        });
+
+        assertEquals(List.of("Dom Casmurro"), titulos(livros));
+    }
+
+    @Test
+    void respostaCortadaPeloLimiteDeTokensCompletaPorFaixasSemRepetirLivros() throws Exception {
+        stream = saida -> {
+            // O array nunca fecha: a IA parou no limite de max_tokens.
+            emPedacos(saida, "{\"livros\": [" + livro("Dom Casmurro") + ", {\"titulo\": \"Memó", 9);
+            fim(saida, "length");
+        };
+
+        List<String> entregues = Collections.synchronizedList(new ArrayList<>());
+        List<Livro> livros = buscador.buscarLivrosStreaming("Machado de Assis", livro -> entregues.add(livro.getTitulo()));
+
+        List<String> esperados = new ArrayList<>();
+        esperados.add("Dom Casmurro");
+        for (FaixaTitulos faixa : FaixaTitulos.PADRAO) {
+            Matcher restricao = FAIXA.matcher(faixa.restringir(""));
+            assertTrue(restricao.find());
+            esperados.add("Livro que " + restricao.group(1));
+        }
+        assertEquals(esperados, titulos(livros));
+        // Cada livro chega ao consumidor uma única vez: o "Dom Casmurro" das faixas já tinha sido entregue.
+        assertEquals(esperados, entregues);
+        assertEquals(1, requisicoesStream.get());
+        assertEquals(FaixaTitulos.PADRAO.size(), faixasPedidas.stream().distinct().count());
+    }
+}
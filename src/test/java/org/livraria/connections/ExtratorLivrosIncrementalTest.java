@@ -0,0 +1,132 @@
+package org.livraria.connections;
+
+import org.junit.jupiter.api.Test;
+import org.livraria.types.Livro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ExtratorLivrosIncremental} com o JSON da IA chegando em pedaços cortados em posições arbitrárias.
+ */
+class ExtratorLivrosIncrementalTest {
+
+    private static final String RESPOSTA = """
+            ```json
+            {"observacao": "livros {entre} chaves", "extra": {"livros": [{"titulo": "Aninhado"}]},
+             "livros": [
+              {"titulo": "Dom Casmurro", "autor": "Machado de Assis", "anodepublicacao": 1899,
+               "sinopse": "Bentinho e Capitu \\"}]\\" {", "isbn": "9788535910681"},
+              {"titulo": "Memórias Póstumas", "autor": "Machado de Assis", "numerodepaginas": 208},
+              42,
+              "texto solto",
+              {"autor": "Sem título"},
+              {"titulo": ["não é texto"]  , "autor": 1},
+              {"titulo": "Quincas Borba", "autor": "Machado de Assis"}
+             ],
+             "depois": [{"titulo": "Ignorado"}]}
+            ```""";
+
+    private final List<Livro> recebidos = new ArrayList<>();
+    private final ExtratorLivrosIncremental extrator = new ExtratorLivrosIncremental(recebidos::add);
+
+    @Test
+    void extraiOsLivrosDoArrayDePrimeiroNivelEmQualquerCorte() {
+        for (int corte = 0; corte <= RESPOSTA.length(); corte++) {
+            List<Livro> livros = new ArrayList<>();
+            ExtratorLivrosIncremental extrator = new ExtratorLivrosIncremental(livros::add);
+            extrator.alimentar(RESPOSTA.substring(0, corte));
+            extrator.alimentar(RESPOSTA.substring(corte));
+
+            assertEquals(List.of("Dom Casmurro", "Memórias Póstumas", "Quincas Borba"), titulos(livros), "corte em " + corte);
+            assertTrue(extrator.isConcluido());
+            assertFalse(extrator.isTruncado());
+        }
+    }
+
+    @Test
+    void extraiLivrosRecebidosUmCaractereDeCadaVez() {
+        for (int i = 0; i < RESPOSTA.length(); i++) {
+            extrator.alimentar(RESPOSTA.subSequence(i, i + 1));
+        }
+
+        assertEquals(List.of("Dom Casmurro", "Memórias Póstumas", "Quincas Borba"), titulos(recebidos));
+        assertEquals("Bentinho e Capitu \"}]\" {", recebidos.get(0).getSinopse());
+        assertEquals(3, extrator.getEmitidos());
+        // O número, a string, o livro sem título e o de título com tipo inesperado.
+        assertEquals(4, extrator.getDescartados());
+    }
+
+    @Test
+    void entregaCadaLivroAssimQueOObjetoFecha() {
+        extrator.alimentar("[{\"titulo\": \"Primeiro\"}, {\"titulo\": \"Seg");
+
+        assertEquals(List.of("Primeiro"), titulos(recebidos));
+        assertFalse(extrator.isConcluido());
+
+        extrator.alimentar("undo\"}]");
+
+        assertEquals(List.of("Primeiro", "Segundo"), titulos(recebidos));
+        assertTrue(extrator.isConcluido());
+    }
+
+    @Test
+    void ignoraOQueVemDepoisDoFimDoArray() {
+        extrator.alimentar("[{\"titulo\": \"Único\"}]");
+        extrator.alimentar(", {\"titulo\": \"Depois\"}]");
+
+        assertEquals(List.of("Único"), titulos(recebidos));
+        assertTrue(extrator.isConcluido());
+    }
+
+    @Test
+    void respostaCortadaNoMeioDoArrayFicaTruncada() {
+        extrator.alimentar("{\"livros\": [{\"titulo\": \"Completo\"}, {\"titulo\": \"Corta");
+
+        assertEquals(List.of("Completo"), titulos(recebidos));
+        assertTrue(extrator.isTruncado());
+        assertFalse(extrator.isConcluido());
+    }
+
+    @Test
+    void respostaCortadaAntesDoArrayFicaTruncada() {
+        extrator.alimentar("{\"observacao\": \"sem");
+
+        assertTrue(extrator.isTruncado());
+        assertEquals(0, extrator.getEmitidos());
+    }
+
+    @Test
+    void objetoSemArrayLivrosConcluiSemLivros() {
+        extrator.alimentar("{\"erro\": \"nenhum livro encontrado\", \"livros_relacionados\": [{\"titulo\": \"X\"}]}");
+
+        assertTrue(extrator.isConcluido());
+        assertFalse(extrator.isTruncado());
+        assertTrue(recebidos.isEmpty());
+    }
+
+    @Test
+    void textoSemJsonNaoEstaTruncadoNemConcluido() {
+        extrator.alimentar("Não encontrei livros para essa consulta.");
+
+        assertFalse(extrator.isTruncado());
+        assertFalse(extrator.isConcluido());
+        assertTrue(recebidos.isEmpty());
+    }
+
+    @Test
+    void objetoMalformadoEDescartadoSemInterromperOsProximos() {
+        extrator.alimentar("[{\"titulo\": \"Ruim\" \"autor\": \"sem vírgula\"}, {\"titulo\": \"Bom\"}]");
+
+        assertEquals(List.of("Bom"), titulos(recebidos));
+        assertEquals(1, extrator.getDescartados());
+    }
+
+    private static List<String> titulos(List<Livro> livros) {
+        return livros.stream().map(Livro::getTitulo).toList();
+    }
+}
@@ -0,0 +1,298 @@
+package org.livraria.connections;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.livraria.metricas.Metricas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Novas tentativas, requisições duplicadas e o circuito de {@link RequisicaoProtegida} contra um servidor HTTP local.
+ */
+class RequisicaoProtegidaTest {
+
+    private static final long ESPERA_S = 5;
+
+    /**
+     * Respostas rápidas antes de medir as requisições duplicadas; a primeira inclui a conexão e o aquecimento da JVM.
+     */
+    private static final int AQUECIMENTO = 5;
+
+    /**
+     * O que o servidor faz com a n-ésima requisição recebida (a partir de 1).
+     */
+    @FunctionalInterface
+    private interface Comportamento {
+        void responder(HttpExchange troca, int n) throws IOException;
+    }
+
+    private final AtomicInteger recebidas = new AtomicInteger();
+    private volatile Comportamento comportamento = (troca, n) -> responder(troca, 200);
+
+    private HttpServer servidor;
+    private ExecutorService executorServidor;
+    private ExecutorService executor;
+    private HttpClient cliente;
+    private URI uri;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        executorServidor = Executors.newCachedThreadPool();
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", troca -> comportamento.responder(troca, recebidas.incrementAndGet()));
+        servidor.setExecutor(executorServidor);
+        servidor.start();
+        uri = URI.create("http://localhost:" + servidor.getAddress().getPort() + "/");
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        // HTTP/1.1: cada requisição tem a sua conexão, e cancelar a troca fecha a conexão no servidor.
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+    }
+
+    @AfterEach
+    void encerrar() {
+        cliente.shutdownNow();
+        servidor.stop(0);
+        executorServidor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private RequisicaoProtegida protegida(double percentilHedge, int maxTentativas, int falhasParaAbrir,
+                                          Duration tempoAberto) {
+        PoliticaRequisicoes politica = new PoliticaRequisicoes(Duration.ofSeconds(ESPERA_S), Duration.ofSeconds(ESPERA_S),
+                3.0, percentilHedge, 1, maxTentativas, Duration.ofMillis(10), Duration.ofMillis(20),
+                falhasParaAbrir, tempoAberto);
+        return new RequisicaoProtegida(cliente, executor, politica, null);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> enviar(RequisicaoProtegida protegida, boolean duplicar) {
+        return protegida.enviar(prazo -> HttpRequest.newBuilder(uri).timeout(prazo).GET().build(), duplicar);
+    }
+
+    private static int status(CompletableFuture<HttpResponse<InputStream>> resposta) throws Exception {
+        HttpResponse<InputStream> recebida = resposta.get(ESPERA_S, TimeUnit.SECONDS);
+        recebida.body().close();
+        return recebida.statusCode();
+    }
+
+    private static Throwable falha(CompletableFuture<HttpResponse<InputStream>> resposta) {
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> resposta.get(ESPERA_S, TimeUnit.SECONDS));
+        return RequisicaoProtegida.desembrulhar(erro.getCause());
+    }
+
+    private static void responder(HttpExchange troca, int status) throws IOException {
+        byte[] corpo = "{}".getBytes(StandardCharsets.UTF_8);
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    /**
+     * Espera um pouco e tenta enviar uma resposta grande demais para os buffers do socket.
+     *
+     * @return true se o cliente fechou a conexão antes, ou seja, se a troca foi abortada.
+     */
+    private static boolean responderDepoisDeEsperar(HttpExchange troca, long esperaMs) {
+        try {
+            Thread.sleep(esperaMs);
+            troca.sendResponseHeaders(200, 0);
+            OutputStream saida = troca.getResponseBody();
+            byte[] bloco = new byte[64 * 1024];
+            for (int i = 0; i < 256; i++) {
+                saida.write(bloco);
+            }
+            saida.close();
+            return false;
+        } catch (IOException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            troca.close();
+        }
+    }
+
+    private static void aguardarAte(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_S);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "A condição não foi atingida a tempo.");
+            Thread.sleep(10);
+        }
+    }
+
+    // --- Novas tentativas ---
+
+    @Test
+    void repeteRespostas5xxAteObter200() throws Exception {
+        comportamento = (troca, n) -> responder(troca, n < 3 ? 500 : 200);
+        LongAdder retentativas = Metricas.contador("groq.retentativas");
+        long antes = retentativas.sum();
+
+        assertEquals(200, status(enviar(protegida(0, 3, 10, Duration.ofSeconds(30)), true)));
+        assertEquals(3, recebidas.get());
+        assertEquals(2, retentativas.sum() - antes);
+    }
+
+    @Test
+    void desisteDepoisDoMaximoDeTentativas() throws Exception {
+        comportamento = (troca, n) -> responder(troca, 503);
+
+        Throwable causa = falha(enviar(protegida(0, 3, 10, Duration.ofSeconds(30)), true));
+        assertEquals(503, assertInstanceOf(RequisicaoProtegida.FalhaHttp.class, causa).status);
+        assertEquals(3, recebidas.get());
+    }
+
+    @Test
+    void naoRepeteErroDoCliente() throws Exception {
+        comportamento = (troca, n) -> responder(troca, 400);
+        RequisicaoProtegida protegida = protegida(0, 3, 10, Duration.ofSeconds(30));
+
+        Throwable causa = falha(enviar(protegida, true));
+        assertEquals(400, assertInstanceOf(RequisicaoProtegida.FalhaHttp.class, causa).status);
+        assertEquals(1, recebidas.get());
+        assertEquals(DisjuntorCircuito.Estado.FECHADO, protegida.getDisjuntor().getEstado());
+    }
+
+    // --- Requisições duplicadas e cancelamento ---
+
+    @Test
+    void copiaVenceECancelaARequisicaoLenta() throws Exception {
+        RequisicaoProtegida protegida = protegida(50, 1, 10, Duration.ofSeconds(30));
+        LongAdder vencedoras = Metricas.contador("groq.hedges_vencedores");
+
+        // As primeiras respostas, rápidas, definem o percentil depois do qual a cópia é enviada. Algumas delas
+        // também podem ganhar cópias; a pausa deixa essas terminarem antes da medição.
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            assertEquals(200, status(enviar(protegida, true)));
+        }
+        Thread.sleep(100);
+        int recebidasAntes = recebidas.get();
+        long vencedorasAntes = vencedoras.sum();
+
+        CompletableFuture<Boolean> lentaAbortada = new CompletableFuture<>();
+        AtomicInteger novas = new AtomicInteger();
+        comportamento = (troca, n) -> {
+            if (novas.incrementAndGet() == 1) {
+                lentaAbortada.complete(responderDepoisDeEsperar(troca, 3000));
+            } else {
+                responder(troca, 200);
+            }
+        };
+
+        long inicio = System.nanoTime();
+        assertEquals(200, status(enviar(protegida, true)));
+        assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(2000), "A resposta esperou a requisição lenta.");
+        assertEquals(2, recebidas.get() - recebidasAntes);
+        // O contador é somado logo depois de a resposta ser entregue.
+        aguardarAte(() -> vencedoras.sum() - vencedorasAntes == 1);
+        assertTrue(lentaAbortada.get(ESPERA_S, TimeUnit.SECONDS), "A requisição perdedora não foi cancelada.");
+    }
+
+    @Test
+    void semCopiaQuandoARequisicaoNaoPodeSerDuplicada() throws Exception {
+        RequisicaoProtegida protegida = protegida(50, 1, 10, Duration.ofSeconds(30));
+        assertEquals(200, status(enviar(protegida, true)));
+        comportamento = (troca, n) -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responder(troca, 200);
+        };
+
+        assertEquals(200, status(enviar(protegida, false)));
+        assertEquals(2, recebidas.get());
+    }
+
+    @Test
+    void desistenciaDeQuemChamouAbortaARequisicaoENaoRepete() throws Exception {
+        CompletableFuture<Boolean> abortada = new CompletableFuture<>();
+        comportamento = (troca, n) -> abortada.complete(responderDepoisDeEsperar(troca, 500));
+        RequisicaoProtegida protegida = protegida(0, 3, 10, Duration.ofSeconds(30));
+
+        CompletableFuture<HttpResponse<InputStream>> resposta = enviar(protegida, true);
+        aguardarAte(() -> recebidas.get() == 1);
+        resposta.cancel(true);
+
+        assertTrue(abortada.get(ESPERA_S, TimeUnit.SECONDS), "A requisição no ar não foi cancelada.");
+        Thread.sleep(200); // Mais que o atraso máximo entre tentativas.
+        assertEquals(1, recebidas.get());
+        assertEquals(DisjuntorCircuito.Estado.FECHADO, protegida.getDisjuntor().getEstado());
+    }
+
+    // --- Circuito ---
+
+    @Test
+    void circuitoAbreRecusaELiberaUmTesteDepoisDoTempoAberto() throws Exception {
+        comportamento = (troca, n) -> responder(troca, 500);
+        RequisicaoProtegida protegida = protegida(0, 1, 2, Duration.ofMillis(200));
+        DisjuntorCircuito disjuntor = protegida.getDisjuntor();
+
+        falha(enviar(protegida, true));
+        assertEquals(DisjuntorCircuito.Estado.FECHADO, disjuntor.getEstado());
+        falha(enviar(protegida, true));
+        assertEquals(DisjuntorCircuito.Estado.ABERTO, disjuntor.getEstado());
+
+        // Aberto: recusa sem ir ao servidor.
+        assertInstanceOf(IllegalStateException.class, falha(enviar(protegida, true)));
+        assertEquals(2, recebidas.get());
+
+        // Meio-aberto: o teste falha e o circuito abre de novo.
+        Thread.sleep(250);
+        assertInstanceOf(RequisicaoProtegida.FalhaHttp.class, falha(enviar(protegida, true)));
+        assertEquals(3, recebidas.get());
+        assertEquals(DisjuntorCircuito.Estado.ABERTO, disjuntor.getEstado());
+
+        // Meio-aberto de novo: só o teste passa; se ele der certo, o circuito fecha.
+        Thread.sleep(250);
+        CountDownLatch liberar = new CountDownLatch(1);
+        comportamento = (troca, n) -> {
+            try {
+                liberar.await(ESPERA_S, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responder(troca, 200);
+        };
+        CompletableFuture<HttpResponse<InputStream>> teste = enviar(protegida, true);
+        aguardarAte(() -> recebidas.get() == 4);
+        assertEquals(DisjuntorCircuito.Estado.MEIO_ABERTO, disjuntor.getEstado());
+        assertInstanceOf(IllegalStateException.class, falha(enviar(protegida, true)));
+        assertEquals(4, recebidas.get());
+
+        liberar.countDown();
+        assertEquals(200, status(teste));
+        assertEquals(DisjuntorCircuito.Estado.FECHADO, disjuntor.getEstado());
+        assertEquals(200, status(enviar(protegida, true)));
+    }
+}